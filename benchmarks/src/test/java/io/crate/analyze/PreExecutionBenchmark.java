@@ -26,6 +26,7 @@ import io.crate.action.sql.SessionContext;
 import io.crate.data.Row;
 import io.crate.planner.ExecutionPlan;
 import io.crate.planner.Plan;
+import io.crate.planner.PlanCache;
 import io.crate.planner.PlannerContext;
 import io.crate.planner.operators.LogicalPlan;
 import io.crate.planner.operators.SubQueryResults;
@@ -35,6 +36,7 @@ import io.crate.testing.SQLExecutor;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -50,6 +52,7 @@ import org.openjdk.jmh.runner.RunnerException;
 import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
@@ -66,6 +69,8 @@ public class PreExecutionBenchmark {
     private Statement selectStatement;
     private AnalyzedStatement analyzedStatement;
     private PlannerContext plannerContext;
+    private PlanCache planCache;
+    private long metaDataVersion;
 
     @Setup
     public void setup() throws Exception {
@@ -80,6 +85,17 @@ public class PreExecutionBenchmark {
         analyzedStatement =
             e.analyzer.analyze(selectStatement, SessionContext.systemSessionContext(), ParamTypeHints.EMPTY);
         plannerContext = e.getPlannerContext(clusterService.state(), new Random(dummySeed));
+
+        planCache = new PlanCache(Settings.EMPTY, clusterService);
+        PlanCache.Key planCacheKey = planCache.key("select name from users", List.of(), SessionContext.systemSessionContext());
+        metaDataVersion = clusterService.state().metaData().version();
+        planCache.put(
+            planCacheKey,
+            selectStatement,
+            analyzedStatement,
+            e.planner.plan(analyzedStatement, plannerContext),
+            metaDataVersion
+        );
     }
 
     @TearDown
@@ -114,6 +130,13 @@ public class PreExecutionBenchmark {
             .build(plannerContext, null, -1, 0, null, null, Row.EMPTY, SubQueryResults.EMPTY);
     }
 
+    @Benchmark
+    public ExecutionPlan measureLookupCachedPlanSimpleSelect() {
+        PlanCache.Key key = planCache.key("select name from users", List.of(), SessionContext.systemSessionContext());
+        return ((LogicalPlan) planCache.get(key, metaDataVersion).plan())
+            .build(plannerContext, null, -1, 0, null, null, Row.EMPTY, SubQueryResults.EMPTY);
+    }
+
     @Benchmark
     public ExecutionPlan measureParseAnalyzeAndPlanSelectWithMultiPrimaryKeyLookup() {
         return e.plan("select * from users where id = 1 or id = 2 or id = 3 or id = 4 order by id asc");
@@ -0,0 +1,139 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.data.join;
+
+import io.crate.breaker.RamAccounting;
+import io.crate.breaker.RowAccountingWithEstimators;
+import io.crate.data.BatchIterator;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.engine.join.HashInnerJoinBatchIterator;
+import io.crate.execution.engine.join.JoinHashTable;
+import io.crate.execution.engine.join.RamAccountingBatchIterator;
+import io.crate.types.DataTypes;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.crate.data.SentinelRow.SENTINEL;
+
+/**
+ * Measures the {@link JoinHashTable} used by the {@link HashInnerJoinBatchIterator}.
+ * <p>
+ * The score is reported in rows per second, {@link MemoryCounters#bytesPerRow} reports the memory used by
+ * the table per buffered row, excluding the values of the cells.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class JoinHashTableBenchmark {
+
+    private static final int NUM_ROWS = 100_000;
+
+    private final List<Row> leftRows = IntStream.range(0, NUM_ROWS)
+        .mapToObj(i -> new RowN(i, (long) i))
+        .collect(Collectors.toList());
+
+    // every second row has a match on the left side
+    private final List<Row> rightRows = IntStream.range(0, NUM_ROWS)
+        .mapToObj(i -> new RowN(i * 2, (long) i))
+        .collect(Collectors.toList());
+
+    private final JoinHashTable table = new JoinHashTable();
+
+    private final RowAccountingWithEstimators rowAccounting = new RowAccountingWithEstimators(
+        List.of(DataTypes.INTEGER, DataTypes.LONG), RamAccounting.NO_ACCOUNTING);
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class MemoryCounters {
+
+        public long bytesPerRow;
+    }
+
+    @Setup(Level.Trial)
+    public void setupTable() {
+        for (Row row : leftRows) {
+            table.add(row, hash(row));
+        }
+    }
+
+    private static int hash(Row row) {
+        return Objects.hashCode(row.get(0));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void measureBuildTable(MemoryCounters counters, Blackhole blackhole) {
+        JoinHashTable buildTable = new JoinHashTable();
+        for (Row row : leftRows) {
+            buildTable.add(row, hash(row));
+        }
+        counters.bytesPerRow = buildTable.ramBytesUsed() / buildTable.size();
+        blackhole.consume(buildTable);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void measureProbeTable(Blackhole blackhole) {
+        for (Row row : rightRows) {
+            int hash = hash(row);
+            for (int match = table.firstRow(hash); match != JoinHashTable.NO_ROW; match = table.nextRow(match, hash)) {
+                blackhole.consume(table.row(match).get(1));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void measureHashInnerJoin(Blackhole blackhole) {
+        BatchIterator<Row> join = new HashInnerJoinBatchIterator(
+            new RamAccountingBatchIterator<>(
+                InMemoryBatchIterator.of(leftRows, SENTINEL, true), rowAccounting),
+            InMemoryBatchIterator.of(rightRows, SENTINEL, true),
+            new CombinedRow(2, 2),
+            row -> Objects.equals(row.get(0), row.get(2)),
+            JoinHashTableBenchmark::hash,
+            JoinHashTableBenchmark::hash,
+            () -> NUM_ROWS
+        );
+        while (join.moveNext()) {
+            blackhole.consume(join.currentElement().get(1));
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the encoding of DataRow messages by the {@link DataRowEncoder}.
+ * <p>
+ * The score is reported in rows per second using a single thread, {@link ByteCounters#bytes} reports the
+ * encoded bytes per second.
+ * {@link #encodePerRow(ByteCounters)} allocates a buffer for each row which is how rows were sent before
+ * they were batched.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(1)
+public class DataRowEncoderBenchmark {
+
+    private static final int NUM_ROWS = 10_000;
+
+    private static final List<DataType<?>> COLUMN_TYPES = List.of(
+        DataTypes.INTEGER,
+        DataTypes.LONG,
+        DataTypes.DOUBLE,
+        DataTypes.STRING,
+        DataTypes.BOOLEAN,
+        DataTypes.TIMESTAMPZ,
+        DataTypes.INTEGER,
+        DataTypes.LONG,
+        DataTypes.STRING,
+        DataTypes.DOUBLE
+    );
+
+    private final List<Row> rows = IntStream.range(0, NUM_ROWS)
+        .mapToObj(i -> new RowN(
+            i,
+            (long) i * 31,
+            i * 0.5,
+            "name-" + i,
+            i % 2 == 0,
+            1_580_000_000_000L + i,
+            i % 100 == 0 ? null : i,
+            (long) i,
+            "a somewhat longer text value to make the row wider " + i,
+            i * 1.5))
+        .collect(Collectors.toList());
+
+    private final ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+
+    @Param({"TEXT", "BINARY"})
+    public FormatCodes.FormatCode formatCode;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class ByteCounters {
+
+        public long bytes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void encodeBatched(ByteCounters counters) {
+        DataRowEncoder encoder = new DataRowEncoder(
+            allocator, COLUMN_TYPES, new FormatCodes.FormatCode[] { formatCode });
+        for (int i = 0; i < rows.size(); i++) {
+            if (encoder.encode(rows.get(i))) {
+                consume(encoder.take(), counters);
+            }
+        }
+        consume(encoder.take(), counters);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_ROWS)
+    public void encodePerRow(ByteCounters counters) {
+        FormatCodes.FormatCode[] formatCodes = new FormatCodes.FormatCode[] { formatCode };
+        for (int i = 0; i < rows.size(); i++) {
+            DataRowEncoder encoder = new DataRowEncoder(allocator, COLUMN_TYPES, formatCodes, 0);
+            encoder.encode(rows.get(i));
+            consume(encoder.take(), counters);
+        }
+    }
+
+    private static void consume(ByteBuf buffer, ByteCounters counters) {
+        if (buffer != null) {
+            counters.bytes += buffer.readableBytes();
+            buffer.release();
+        }
+    }
+}
@@ -21,6 +21,7 @@ package io.crate.protocols.postgres;
 import io.crate.action.sql.SQLOperations;
 import io.crate.auth.AlwaysOKNullAuthentication;
 import io.crate.auth.user.AccessControl;
+import io.crate.execution.engine.collect.files.StdinStreams;
 import io.crate.protocols.ssl.SslContextProvider;
 import io.crate.test.integration.CrateUnitTest;
 import io.netty.buffer.ByteBuf;
@@ -58,7 +59,8 @@ public class SslReqHandlerTest extends CrateUnitTest {
                 sessionContext -> AccessControl.DISABLED,
                 new AlwaysOKNullAuthentication(),
                 // use a simple ssl context
-                getSelfSignedSslContextProvider());
+                getSelfSignedSslContextProvider(),
+                new StdinStreams());
 
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
@@ -33,6 +33,7 @@ import io.crate.analyze.AnalyzedCreateAnalyzer;
 import io.crate.analyze.AnalyzedCreateSnapshot;
 import io.crate.analyze.AnalyzedCreateTable;
 import io.crate.analyze.AnalyzedDeleteStatement;
+import io.crate.analyze.AnalyzedRefreshMaterializedView;
 import io.crate.analyze.AnalyzedRefreshTable;
 import io.crate.analyze.AnalyzedDropTable;
 import io.crate.analyze.AnalyzedRestoreSnapshot;
@@ -41,6 +42,7 @@ import io.crate.analyze.AnalyzedStatementVisitor;
 import io.crate.analyze.AnalyzedUpdateStatement;
 import io.crate.analyze.AnalyzedCreateBlobTable;
 import io.crate.analyze.AnalyzedCreateFunction;
+import io.crate.analyze.AnalyzedCreateMaterializedView;
 import io.crate.analyze.AnalyzedCreateRepository;
 import io.crate.analyze.AnalyzedCreateUser;
 import io.crate.analyze.CreateViewStmt;
@@ -559,6 +561,29 @@ public final class AccessControlImpl implements AccessControl {
             return null;
         }
 
+        @Override
+        public Void visitCreateMaterializedView(AnalyzedCreateMaterializedView createMaterializedView, User user) {
+            Privileges.ensureUserHasPrivilege(
+                Privilege.Type.DDL,
+                Privilege.Clazz.SCHEMA,
+                createMaterializedView.name().schema(),
+                user,
+                defaultSchema);
+            visitRelation(createMaterializedView.analyzedQuery(), user, Privilege.Type.DQL);
+            return null;
+        }
+
+        @Override
+        public Void visitRefreshMaterializedView(AnalyzedRefreshMaterializedView refreshMaterializedView, User user) {
+            Privileges.ensureUserHasPrivilege(
+                Privilege.Type.DML,
+                Privilege.Clazz.TABLE,
+                refreshMaterializedView.view().ident().toString(),
+                user,
+                defaultSchema);
+            return null;
+        }
+
         @Override
         protected Void visitAnalyzedCreateUser(AnalyzedCreateUser createUser, User user) {
             Privileges.ensureUserHasPrivilege(
@@ -63,6 +63,7 @@ import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MapperService.MergeReason;
@@ -448,6 +449,9 @@ public class MetaDataCreateIndexService {
                     throw e;
                 }
 
+                // now that the mapping is merged we can validate the index sort.
+                indexService.getIndexSettings().getIndexSortConfig().buildIndexSort(mapperService::fullName);
+
                 // now, update the mappings with the actual source
                 Map<String, MappingMetaData> mappingsMetaData = new HashMap<>();
                 for (DocumentMapper mapper : mapperService.docMappers(true)) {
@@ -699,6 +703,7 @@ public class MetaDataCreateIndexService {
         } else {
             final Predicate<String> sourceSettingsPredicate =
                     (s) -> (s.startsWith("index.similarity.") || s.startsWith("index.analysis.") || s.startsWith("index.sort.") ||
+                            s.equals(IndexSortConfig.INDEX_SORT_BY_SETTING.getKey()) ||
                             s.equals("index.mapping.single_type") || s.equals("index.soft_deletes.enabled"))
                             && indexSettingsBuilder.keys().contains(s) == false;
             builder.put(sourceMetaData.getSettings().filter(sourceSettingsPredicate));
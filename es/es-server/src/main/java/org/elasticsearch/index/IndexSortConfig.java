@@ -0,0 +1,217 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index;
+
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSelector;
+import org.apache.lucene.search.SortedSetSortField;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.mapper.MappedFieldType;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Holds the sort order that the documents of each segment are written in.
+ *
+ * <p>The sort is configured with the <b>final</b> setting <code>index.sort_by</code> which contains a
+ * comma separated list of fields, each optionally followed by <code>ASC</code> or <code>DESC</code>:
+ *
+ * <pre>
+ *     index.sort_by: "ts DESC, name"
+ * </pre>
+ *
+ * Missing values are sorted last in ascending and first in descending order. Only fields with doc values of type
+ * <code>keyword</code>, <code>ip</code>, <code>boolean</code>, <code>date</code> or a numeric type can be used.
+ */
+public final class IndexSortConfig {
+
+    public static final Setting<String> INDEX_SORT_BY_SETTING = new Setting<>(
+        "index.sort_by",
+        "",
+        s -> {
+            parse(s);
+            return s;
+        },
+        Property.IndexScope,
+        Property.Final
+    );
+
+    private static final IndexSortConfig EMPTY = new IndexSortConfig(Collections.emptyList());
+
+    private final List<FieldSortSpec> sortSpecs;
+
+    private IndexSortConfig(List<FieldSortSpec> sortSpecs) {
+        this.sortSpecs = sortSpecs;
+    }
+
+    public static IndexSortConfig of(Settings settings) {
+        return parse(INDEX_SORT_BY_SETTING.get(settings));
+    }
+
+    /**
+     * Returns true if the index sort is enabled for this index.
+     */
+    public boolean hasIndexSort() {
+        return sortSpecs.isEmpty() == false;
+    }
+
+    public List<FieldSortSpec> sortSpecs() {
+        return sortSpecs;
+    }
+
+    /**
+     * Builds the {@link Sort} used by the {@link org.apache.lucene.index.IndexWriter} to sort the documents of each
+     * segment. Returns null if no index sort is configured.
+     *
+     * @throws IllegalArgumentException if a field is unknown, has no doc values or has an unsupported type
+     */
+    @Nullable
+    public Sort buildIndexSort(Function<String, MappedFieldType> fieldTypeLookup) {
+        if (hasIndexSort() == false) {
+            return null;
+        }
+        SortField[] sortFields = new SortField[sortSpecs.size()];
+        for (int i = 0; i < sortSpecs.size(); i++) {
+            FieldSortSpec sortSpec = sortSpecs.get(i);
+            MappedFieldType fieldType = fieldTypeLookup.apply(sortSpec.field);
+            if (fieldType == null) {
+                throw new IllegalArgumentException("unknown index sort field:[" + sortSpec.field + "]");
+            }
+            if (fieldType.hasDocValues() == false) {
+                throw new IllegalArgumentException("docvalues not found for index sort field:[" + sortSpec.field + "]");
+            }
+            sortFields[i] = sortField(sortSpec, fieldType.typeName());
+        }
+        return new Sort(sortFields);
+    }
+
+    private static SortField sortField(FieldSortSpec sortSpec, String typeName) {
+        switch (typeName) {
+            case "keyword":
+            case "ip":
+                SortedSetSortField sortedSetSortField = new SortedSetSortField(
+                    sortSpec.field,
+                    sortSpec.reverse,
+                    sortSpec.reverse ? SortedSetSelector.Type.MAX : SortedSetSelector.Type.MIN
+                );
+                sortedSetSortField.setMissingValue(SortField.STRING_LAST);
+                return sortedSetSortField;
+
+            case "byte":
+            case "short":
+            case "integer":
+            case "long":
+            case "boolean":
+            case "date":
+                return numericSortField(sortSpec, SortField.Type.LONG, Long.MAX_VALUE);
+
+            case "float":
+                return numericSortField(sortSpec, SortField.Type.FLOAT, Float.POSITIVE_INFINITY);
+
+            case "double":
+                return numericSortField(sortSpec, SortField.Type.DOUBLE, Double.POSITIVE_INFINITY);
+
+            default:
+                throw new IllegalArgumentException(
+                    "invalid index sort field:[" + sortSpec.field + "] of type [" + typeName + "]");
+        }
+    }
+
+    private static SortField numericSortField(FieldSortSpec sortSpec, SortField.Type type, Object missingValue) {
+        SortedNumericSortField sortField = new SortedNumericSortField(
+            sortSpec.field,
+            type,
+            sortSpec.reverse,
+            sortSpec.reverse ? SortedNumericSelector.Type.MAX : SortedNumericSelector.Type.MIN
+        );
+        sortField.setMissingValue(missingValue);
+        return sortField;
+    }
+
+    static IndexSortConfig parse(String value) {
+        if (value.trim().isEmpty()) {
+            return EMPTY;
+        }
+        List<FieldSortSpec> sortSpecs = new ArrayList<>();
+        for (String part : value.split(",")) {
+            String[] tokens = part.trim().split("\\s+");
+            if (tokens.length == 0 || tokens[0].isEmpty() || tokens.length > 2) {
+                throw new IllegalArgumentException("Invalid value for argument 'sort_by': '" + value + "'");
+            }
+            boolean reverse = false;
+            if (tokens.length == 2) {
+                switch (tokens[1].toLowerCase(Locale.ENGLISH)) {
+                    case "asc":
+                        break;
+                    case "desc":
+                        reverse = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException(
+                            "Invalid sort order '" + tokens[1] + "' for argument 'sort_by', must be ASC or DESC");
+                }
+            }
+            for (FieldSortSpec sortSpec : sortSpecs) {
+                if (sortSpec.field.equals(tokens[0])) {
+                    throw new IllegalArgumentException("Column '" + tokens[0] + "' is used more than once in 'sort_by'");
+                }
+            }
+            sortSpecs.add(new FieldSortSpec(tokens[0], reverse));
+        }
+        return new IndexSortConfig(Collections.unmodifiableList(sortSpecs));
+    }
+
+    public static final class FieldSortSpec {
+
+        private final String field;
+        private final boolean reverse;
+
+        FieldSortSpec(String field, boolean reverse) {
+            this.field = field;
+            this.reverse = reverse;
+        }
+
+        public String field() {
+            return field;
+        }
+
+        /**
+         * Returns true if the field is sorted in descending order.
+         */
+        public boolean reverse() {
+            return reverse;
+        }
+
+        @Override
+        public String toString() {
+            return field + (reverse ? " DESC" : " ASC");
+        }
+    }
+}
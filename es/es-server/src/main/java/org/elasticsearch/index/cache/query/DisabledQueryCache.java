@@ -24,6 +24,7 @@ import org.apache.lucene.search.Weight;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.query.QueryCache;
+import org.elasticsearch.index.shard.ShardId;
 
 public class DisabledQueryCache extends AbstractIndexComponent implements QueryCache {
 
@@ -46,4 +47,9 @@ public class DisabledQueryCache extends AbstractIndexComponent implements QueryC
     public void clear(String reason) {
         // nothing to do here
     }
+
+    @Override
+    public QueryCacheStats getStats(ShardId shardId) {
+        return new QueryCacheStats();
+    }
 }
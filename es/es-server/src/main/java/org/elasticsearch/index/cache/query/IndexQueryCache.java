@@ -25,6 +25,7 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.query.QueryCache;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesQueryCache;
 
 /**
@@ -51,6 +52,11 @@ public class IndexQueryCache extends AbstractIndexComponent implements QueryCach
         indicesQueryCache.clearIndex(index().getName());
     }
 
+    @Override
+    public QueryCacheStats getStats(ShardId shardId) {
+        return indicesQueryCache.getStats(shardId);
+    }
+
     @Override
     public Weight doCache(Weight weight, QueryCachingPolicy policy) {
         return indicesQueryCache.doCache(weight, policy);
@@ -20,6 +20,7 @@
 package org.elasticsearch.index.cache.query;
 
 import org.elasticsearch.index.IndexComponent;
+import org.elasticsearch.index.shard.ShardId;
 
 import java.io.Closeable;
 
@@ -36,4 +37,6 @@ public interface QueryCache extends IndexComponent, Closeable, org.apache.lucene
     }
 
     void clear(String reason);
+
+    QueryCacheStats getStats(ShardId shardId);
 }
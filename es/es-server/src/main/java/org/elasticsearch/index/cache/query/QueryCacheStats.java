@@ -70,10 +70,49 @@ public class QueryCacheStats implements Writeable {
         cacheSize += stats.cacheSize;
     }
 
+    public long getMemorySizeInBytes() {
+        return ramBytesUsed;
+    }
+
+    /**
+     * The total number of lookups in the cache.
+     */
+    public long getTotalCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * The number of successful lookups in the cache.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * The number of lookups in the cache that failed to retrieve a {@link DocIdSet}.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * The number of {@link DocIdSet}s that have been cached.
+     */
+    public long getCacheCount() {
+        return cacheCount;
+    }
+
     /**
      * The number of {@link DocIdSet}s that are in the cache.
      */
     public long getCacheSize() {
         return cacheSize;
     }
+
+    /**
+     * The number of {@link DocIdSet}s that have been evicted from the cache.
+     */
+    public long getEvictions() {
+        return cacheCount - cacheSize;
+    }
 }
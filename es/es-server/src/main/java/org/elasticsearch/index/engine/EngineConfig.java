@@ -24,6 +24,7 @@ import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.search.QueryCache;
 import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.Sort;
 import javax.annotation.Nullable;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -70,6 +71,8 @@ public final class EngineConfig {
     @Nullable
     private final List<ReferenceManager.RefreshListener> internalRefreshListener;
     @Nullable
+    private final Sort indexSort;
+    @Nullable
     private final CircuitBreakerService circuitBreakerService;
     private final LongSupplier globalCheckpointSupplier;
     private final LongSupplier primaryTermSupplier;
@@ -119,7 +122,7 @@ public final class EngineConfig {
                         TranslogConfig translogConfig, TimeValue flushMergesAfter,
                         List<ReferenceManager.RefreshListener> externalRefreshListener,
                         List<ReferenceManager.RefreshListener> internalRefreshListener,
-                        CircuitBreakerService circuitBreakerService, LongSupplier globalCheckpointSupplier,
+                        @Nullable Sort indexSort, CircuitBreakerService circuitBreakerService, LongSupplier globalCheckpointSupplier,
                         LongSupplier primaryTermSupplier, TombstoneDocSupplier tombstoneDocSupplier) {
         this.shardId = shardId;
         this.allocationId = allocationId;
@@ -152,6 +155,7 @@ public final class EngineConfig {
         this.flushMergesAfter = flushMergesAfter;
         this.externalRefreshListener = externalRefreshListener;
         this.internalRefreshListener = internalRefreshListener;
+        this.indexSort = indexSort;
         this.circuitBreakerService = circuitBreakerService;
         this.globalCheckpointSupplier = globalCheckpointSupplier;
         this.primaryTermSupplier = primaryTermSupplier;
@@ -317,6 +321,13 @@ public final class EngineConfig {
      */
     public List<ReferenceManager.RefreshListener> getInternalRefreshListener() { return internalRefreshListener;}
 
+    /**
+     * Return the sort order of this index, or null if the index has no sort.
+     */
+    @Nullable
+    public Sort getIndexSort() {
+        return indexSort;
+    }
 
     /**
      * returns true if the engine is allowed to optimize indexing operations with an auto-generated ID
@@ -43,6 +43,7 @@ import org.elasticsearch.index.shard.ShardId;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -184,6 +185,26 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         }
     }
 
+    /**
+     * Evict all cached doc id sets of all indices.
+     *
+     * @return the number of bytes which were released
+     */
+    public long releaseMemory() {
+        if (cache.getCacheSize() == 0) {
+            return 0L;
+        }
+        final long ramBytesUsedBefore = cache.ramBytesUsed();
+        final Set<String> indices = new HashSet<>();
+        for (ShardId shardId : shardStats.keySet()) {
+            indices.add(shardId.getIndexName());
+        }
+        for (String index : indices) {
+            clearIndex(index);
+        }
+        return Math.max(0L, ramBytesUsedBefore - cache.ramBytesUsed());
+    }
+
     @Override
     public void close() {
         assert shardKeyMap.size() == 0 : shardKeyMap.size();
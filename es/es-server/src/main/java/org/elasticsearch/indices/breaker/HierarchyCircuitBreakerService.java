@@ -33,9 +33,12 @@ import org.elasticsearch.common.unit.ByteSizeValue;
 
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 import static java.util.Objects.requireNonNull;
@@ -95,6 +98,9 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
     // Tripped count for when redistribution was attempted but wasn't successful
     private final AtomicLong parentTripCount = new AtomicLong(0);
 
+    // Caches which drop their entries when the parent breaker trips, so that subsequent requests can use the memory
+    private final List<LongSupplier> memoryReclaimers = new CopyOnWriteArrayList<>();
+
     public HierarchyCircuitBreakerService(Settings settings, ClusterSettings clusterSettings) {
         this.fielddataSettings = new BreakerSettings(CircuitBreaker.FIELDDATA,
                 FIELDDATA_CIRCUIT_BREAKER_LIMIT_SETTING.get(settings).getBytes(),
@@ -258,6 +264,13 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
             if ((breakersTotalUsed + newBytesReserved) < (parentLimit * PARENT_BREAKER_ESCAPE_HATCH_PERCENTAGE)) {
                 return;
             }
+            // Evicted entries stay on the heap until the next GC, so the released memory doesn't lower the
+            // current usage; releasing it only helps subsequent requests.
+            long released = releaseMemory();
+            if (released > 0) {
+                logger.debug("released [{}] of cached memory while tripping the parent breaker for [{}]",
+                             new ByteSizeValue(released), label);
+            }
             this.parentTripCount.incrementAndGet();
             final StringBuilder message = new StringBuilder("[parent] Data too large, data for [" + label + "]" +
                     " would be [" + totalUsed + "/" + new ByteSizeValue(totalUsed) + "]" +
@@ -274,6 +287,27 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
         }
     }
 
+    /**
+     * Registers a cache which can release its memory on demand.
+     * The supplier must drop its entries and return the number of bytes that were released.
+     * Reclaimers are invoked when the parent breaker trips, the request still fails.
+     */
+    public void addMemoryReclaimer(LongSupplier reclaimer) {
+        memoryReclaimers.add(reclaimer);
+    }
+
+    private long releaseMemory() {
+        long released = 0;
+        for (LongSupplier reclaimer : memoryReclaimers) {
+            try {
+                released += reclaimer.getAsLong();
+            } catch (Exception e) {
+                logger.warn("failed to release cached memory", e);
+            }
+        }
+        return released;
+    }
+
     /**
      * Allows to register a custom circuit breaker.
      * Warning: Will overwrite any existing custom breaker with the same name.
@@ -327,7 +327,8 @@ public class Node implements Closeable {
 
             BooleanQuery.setMaxClauseCount(SearchModule.INDICES_MAX_CLAUSE_COUNT_SETTING.get(settings));
 
-            CircuitBreakerService circuitBreakerService = new HierarchyCircuitBreakerService(settings, settingsModule.getClusterSettings());
+            HierarchyCircuitBreakerService circuitBreakerService =
+                new HierarchyCircuitBreakerService(settings, settingsModule.getClusterSettings());
             resourcesToClose.add(circuitBreakerService);
             modules.add(new GatewayModule());
 
@@ -385,6 +386,7 @@ public class Node implements Closeable {
                 metaStateService,
                 engineFactoryProviders,
                 indexStoreFactories);
+            circuitBreakerService.addMemoryReclaimer(indicesService.getIndicesQueryCache()::releaseMemory);
 
             final AliasValidator aliasValidator = new AliasValidator();
             final MetaDataCreateIndexService metaDataCreateIndexService = new MetaDataCreateIndexService(
@@ -2807,7 +2807,7 @@ public class InternalEngineTests extends EngineTestCase {
                                                      threadPool, config.getIndexSettings(), null, store, newMergePolicy(), config.getAnalyzer(),
                                                      new CodecService(null, logger), config.getEventListener(), IndexSearcher.getDefaultQueryCache(),
                                                      IndexSearcher.getDefaultQueryCachingPolicy(), translogConfig, TimeValue.timeValueMinutes(5),
-                                                     config.getExternalRefreshListener(), config.getInternalRefreshListener(),
+                                                     config.getExternalRefreshListener(), config.getInternalRefreshListener(), null,
                                                      new NoneCircuitBreakerService(), () -> UNASSIGNED_SEQ_NO, primaryTerm::get, tombstoneDocSupplier());
         expectThrows(EngineCreationFailureException.class, () -> new InternalEngine(brokenConfig));
 
@@ -37,6 +37,7 @@ statement
     | EXPLAIN (ANALYZE)? statement                                                   #explain
     | OPTIMIZE TABLE tableWithPartitions withProperties?                             #optimize
     | REFRESH TABLE tableWithPartitions                                              #refreshTable
+    | REFRESH MATERIALIZED VIEW qname                                                #refreshMaterializedView
     | UPDATE aliasedRelation
         SET assignment (',' assignment)*
         where?
@@ -74,9 +75,10 @@ statement
         onConflict?
         returning?                                                                   #insert
     | RESTORE SNAPSHOT qname (ALL | TABLE tableWithPartitions) withProperties?       #restore
-    | COPY tableWithPartition FROM path=expr withProperties? (RETURN SUMMARY)?       #copyFrom
+    | COPY tableWithPartition FROM (STDIN | path=expr)
+        withProperties? (RETURN SUMMARY)?                                            #copyFrom
     | COPY tableWithPartition columns? where?
-        TO DIRECTORY? path=expr withProperties?                                      #copyTo
+        TO (STDOUT | DIRECTORY? path=expr) withProperties?                           #copyTo
     | DROP BLOB TABLE (IF EXISTS)? table                                             #dropBlobTable
     | DROP TABLE (IF EXISTS)? table                                                  #dropTable
     | DROP ALIAS qname                                                               #dropAlias
@@ -484,6 +486,7 @@ createStmt
         AS body=parameterOrString                                                    #createFunction
     | CREATE USER name=ident withProperties?                                         #createUser
     | CREATE ( OR REPLACE )? VIEW name=qname AS query                                #createView
+    | CREATE MATERIALIZED VIEW (IF NOT EXISTS)? name=qname AS query                  #createMaterializedView
     ;
 
 functionArgument
@@ -661,7 +664,7 @@ nonReserved
     | WORK | SERIALIZABLE | REPEATABLE | COMMITTED | UNCOMMITTED | READ | WRITE | WINDOW | DEFERRABLE
     | STRING_TYPE | IP | DOUBLE | FLOAT | TIMESTAMP | LONG | INT | INTEGER | SHORT | BYTE | BOOLEAN | PRECISION
     | REPLACE | RETURNING | SWAP | GC | DANGLING | ARTIFACTS | DECOMMISSION | LEADING | TRAILING | BOTH | TRIM
-    | CURRENT_SCHEMA | PROMOTE
+    | CURRENT_SCHEMA | PROMOTE | STDIN | STDOUT
     ;
 
 SELECT: 'SELECT';
@@ -918,6 +921,9 @@ SCHEMA: 'SCHEMA';
 RETURN: 'RETURN';
 SUMMARY: 'SUMMARY';
 
+STDIN: 'STDIN';
+STDOUT: 'STDOUT';
+
 EQ  : '=';
 NEQ : '<>' | '!=';
 LT  : '<';
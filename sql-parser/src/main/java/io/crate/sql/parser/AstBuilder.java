@@ -66,6 +66,7 @@ import io.crate.sql.tree.CopyTo;
 import io.crate.sql.tree.CreateAnalyzer;
 import io.crate.sql.tree.CreateBlobTable;
 import io.crate.sql.tree.CreateFunction;
+import io.crate.sql.tree.CreateMaterializedView;
 import io.crate.sql.tree.CreateRepository;
 import io.crate.sql.tree.CreateSnapshot;
 import io.crate.sql.tree.CreateTable;
@@ -139,6 +140,7 @@ import io.crate.sql.tree.QualifiedNameReference;
 import io.crate.sql.tree.Query;
 import io.crate.sql.tree.QueryBody;
 import io.crate.sql.tree.QuerySpecification;
+import io.crate.sql.tree.RefreshMaterializedView;
 import io.crate.sql.tree.RefreshStatement;
 import io.crate.sql.tree.Relation;
 import io.crate.sql.tree.RerouteAllocateReplicaShard;
@@ -347,6 +349,15 @@ class AstBuilder extends SqlBaseBaseVisitor<Node> {
         return new DropView(getQualifiedNames(ctx.qnames()), ctx.EXISTS() != null);
     }
 
+    @Override
+    public Node visitCreateMaterializedView(SqlBaseParser.CreateMaterializedViewContext ctx) {
+        return new CreateMaterializedView(
+            getQualifiedName(ctx.qname()),
+            (Query) visit(ctx.query()),
+            ctx.EXISTS() != null
+        );
+    }
+
     @Override
     public Node visitCreateBlobTable(SqlBaseParser.CreateBlobTableContext context) {
         return new CreateBlobTable(
@@ -528,7 +539,7 @@ class AstBuilder extends SqlBaseBaseVisitor<Node> {
         boolean returnSummary = context.SUMMARY() != null;
         return new CopyFrom(
             (Table) visit(context.tableWithPartition()),
-            visit(context.path),
+            context.STDIN() == null ? visit(context.path) : null,
             extractGenericProperties(context.withProperties()),
             returnSummary);
     }
@@ -540,7 +551,7 @@ class AstBuilder extends SqlBaseBaseVisitor<Node> {
             context.columns() == null ? emptyList() : visitCollection(context.columns().primaryExpression(), Expression.class),
             visitIfPresent(context.where(), Expression.class),
             context.DIRECTORY() != null,
-            visit(context.path),
+            context.STDOUT() == null ? visit(context.path) : null,
             extractGenericProperties(context.withProperties()));
     }
 
@@ -725,6 +736,11 @@ class AstBuilder extends SqlBaseBaseVisitor<Node> {
         return new RefreshStatement(visitCollection(context.tableWithPartitions().tableWithPartition(), Table.class));
     }
 
+    @Override
+    public Node visitRefreshMaterializedView(SqlBaseParser.RefreshMaterializedViewContext context) {
+        return new RefreshMaterializedView(getQualifiedName(context.qname()));
+    }
+
     @Override
     public Node visitTableOnly(SqlBaseParser.TableOnlyContext context) {
         return new Table(getQualifiedName(context.qname()));
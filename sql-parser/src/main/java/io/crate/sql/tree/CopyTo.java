@@ -21,6 +21,7 @@
 
 package io.crate.sql.tree;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -31,6 +32,7 @@ public class CopyTo<T> extends Statement {
     private final List<T> columns;
     private final Optional<T> whereClause;
     private final boolean directoryUri;
+    @Nullable
     private final T targetUri;
     private final GenericProperties<T> properties;
 
@@ -38,7 +40,7 @@ public class CopyTo<T> extends Statement {
                   List<T> columns,
                   Optional<T> whereClause,
                   boolean directoryUri,
-                  T targetUri,
+                  @Nullable T targetUri,
                   GenericProperties<T> properties) {
 
         this.table = table;
@@ -57,10 +59,18 @@ public class CopyTo<T> extends Statement {
         return directoryUri;
     }
 
+    /**
+     * @return the uri to write to or null if the rows are written to the client connection
+     */
+    @Nullable
     public T targetUri() {
         return targetUri;
     }
 
+    public boolean isToStdout() {
+        return targetUri == null;
+    }
+
     public List<T> columns() {
         return columns;
     }
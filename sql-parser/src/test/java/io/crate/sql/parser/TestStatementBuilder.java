@@ -32,6 +32,7 @@ import io.crate.sql.tree.Assignment;
 import io.crate.sql.tree.ComparisonExpression;
 import io.crate.sql.tree.CopyFrom;
 import io.crate.sql.tree.CreateFunction;
+import io.crate.sql.tree.CreateMaterializedView;
 import io.crate.sql.tree.CreateTable;
 import io.crate.sql.tree.CreateUser;
 import io.crate.sql.tree.DeallocateStatement;
@@ -1027,6 +1028,8 @@ public class TestStatementBuilder {
         printStatement("copy schemah.foo from '/folder/file.extension'");
         printStatement("copy schemah.foo from '/folder/file.extension' return summary");
         printStatement("copy schemah.foo from '/folder/file.extension' with (some_property=1) return summary");
+        printStatement("copy foo from stdin");
+        printStatement("copy foo partition (a='x') from stdin with (bulk_size=100) return summary");
 
         printStatement("copy foo (nae) to '/folder/file.extension'");
         printStatement("copy foo to '/folder/file.extension'");
@@ -1037,6 +1040,8 @@ public class TestStatementBuilder {
         printStatement("copy foo partition (a=?) to DIRECTORY '/folder' with (some_param=4)");
 
         printStatement("copy foo where a = 'x' to DIRECTORY '/folder'");
+        printStatement("copy foo to stdout");
+        printStatement("copy foo (a, b) where a = 'x' to stdout with (format='json_object')");
     }
 
     @Test
@@ -1593,6 +1598,22 @@ public class TestStatementBuilder {
         printStatement("DROP VIEW IF EXISTS v1, x.v2, y.v3");
     }
 
+    @Test
+    public void testMaterializedViewParsing() {
+        printStatement("CREATE MATERIALIZED VIEW myView AS SELECT x, count(*) FROM foobar GROUP BY x");
+        printStatement("CREATE MATERIALIZED VIEW IF NOT EXISTS x.myView AS SELECT * FROM foobar");
+        printStatement("REFRESH MATERIALIZED VIEW myView");
+        printStatement("REFRESH MATERIALIZED VIEW x.myView");
+    }
+
+    @Test
+    public void testCreateMaterializedViewIfNotExists() {
+        CreateMaterializedView stmt = (CreateMaterializedView) SqlParser.createStatement(
+            "CREATE MATERIALIZED VIEW IF NOT EXISTS v AS SELECT x FROM t");
+        assertThat(stmt.ifNotExists(), is(true));
+        assertThat(stmt.name(), is(QualifiedName.of("v")));
+    }
+
     @Test
     public void test_values_as_top_relation_parsing() {
         printStatement("VALUES (1, 2), (2, 3), (3, 4)");
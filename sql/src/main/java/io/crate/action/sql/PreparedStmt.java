@@ -25,6 +25,7 @@ package io.crate.action.sql;
 import com.google.common.base.Preconditions;
 import io.crate.analyze.AnalyzedStatement;
 import io.crate.analyze.ParamTypeHints;
+import io.crate.planner.PlanCache;
 import io.crate.sql.tree.Statement;
 import io.crate.types.DataType;
 
@@ -37,16 +38,27 @@ public class PreparedStmt {
     private final Statement parsedStatement;
     private final String rawStatement;
     @Nullable
+    private final PlanCache.Key planCacheKey;
+    private final long metaDataVersion;
+    @Nullable
     private DataType[] describedParameterTypes;
 
+    /**
+     * @param planCacheKey the key to lookup and cache the plan of the statement, null if the cache is disabled
+     * @param metaDataVersion the metadata version of the cluster state the statement has been analyzed with
+     */
     PreparedStmt(Statement parsedStatement,
                  AnalyzedStatement analyzedStatement,
                  String query,
-                 ParamTypeHints paramTypeHints) {
+                 ParamTypeHints paramTypeHints,
+                 @Nullable PlanCache.Key planCacheKey,
+                 long metaDataVersion) {
         this.parsedStatement = parsedStatement;
         this.analyzedStatement = analyzedStatement;
         this.paramTypeHints = paramTypeHints;
         this.rawStatement = query;
+        this.planCacheKey = planCacheKey;
+        this.metaDataVersion = metaDataVersion;
     }
 
     public AnalyzedStatement analyzedStatement() {
@@ -82,4 +94,13 @@ public class PreparedStmt {
     public String rawStatement() {
         return rawStatement;
     }
+
+    @Nullable
+    PlanCache.Key planCacheKey() {
+        return planCacheKey;
+    }
+
+    long metaDataVersion() {
+        return metaDataVersion;
+    }
 }
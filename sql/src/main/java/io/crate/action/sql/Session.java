@@ -44,6 +44,7 @@ import io.crate.metadata.CoordinatorTxnCtx;
 import io.crate.metadata.RoutingProvider;
 import io.crate.planner.DependencyCarrier;
 import io.crate.planner.Plan;
+import io.crate.planner.PlanCache;
 import io.crate.planner.Planner;
 import io.crate.planner.PlannerContext;
 import io.crate.planner.operators.StatementClassifier;
@@ -124,6 +125,7 @@ public class Session implements AutoCloseable {
     private final JobsLogs jobsLogs;
     private final boolean isReadOnly;
     private final ParameterTypeExtractor parameterTypeExtractor;
+    private final PlanCache planCache;
 
     public Session(Analyzer analyzer,
                    Planner planner,
@@ -132,8 +134,20 @@ public class Session implements AutoCloseable {
                    DependencyCarrier executor,
                    AccessControl accessControl,
                    SessionContext sessionContext) {
+        this(analyzer, planner, PlanCache.DISABLED, jobsLogs, isReadOnly, executor, accessControl, sessionContext);
+    }
+
+    public Session(Analyzer analyzer,
+                   Planner planner,
+                   PlanCache planCache,
+                   JobsLogs jobsLogs,
+                   boolean isReadOnly,
+                   DependencyCarrier executor,
+                   AccessControl accessControl,
+                   SessionContext sessionContext) {
         this.analyzer = analyzer;
         this.planner = planner;
+        this.planCache = planCache;
         this.jobsLogs = jobsLogs;
         this.isReadOnly = isReadOnly;
         this.executor = executor;
@@ -158,11 +172,21 @@ public class Session implements AutoCloseable {
      */
     public void quickExec(String statement, Function<String, Statement> parse, ResultReceiver resultReceiver, Row params) {
         CoordinatorTxnCtx txnCtx = new CoordinatorTxnCtx(sessionContext);
-        Statement parsedStmt = parse.apply(statement);
-        AnalyzedStatement analyzedStatement = analyzer.analyze(parsedStmt, sessionContext, ParamTypeHints.EMPTY);
+        ClusterState clusterState = planner.currentClusterState();
+        long metaDataVersion = clusterState.metaData().version();
+        PlanCache.Key planCacheKey = planCache.key(statement, List.of(), sessionContext);
+        PlanCache.Entry cachedEntry = planCache.get(planCacheKey, metaDataVersion);
+        Statement parsedStmt;
+        AnalyzedStatement analyzedStatement;
+        if (cachedEntry == null) {
+            parsedStmt = parse.apply(statement);
+            analyzedStatement = analyzer.analyze(parsedStmt, sessionContext, ParamTypeHints.EMPTY);
+        } else {
+            parsedStmt = cachedEntry.statement();
+            analyzedStatement = cachedEntry.analyzedStatement();
+        }
         RoutingProvider routingProvider = new RoutingProvider(Randomness.get().nextInt(), planner.getAwarenessAttributes());
         UUID jobId = UUID.randomUUID();
-        ClusterState clusterState = planner.currentClusterState();
         PlannerContext plannerContext = new PlannerContext(
             clusterState,
             routingProvider,
@@ -174,7 +198,13 @@ public class Session implements AutoCloseable {
         );
         Plan plan;
         try {
-            plan = planner.plan(analyzedStatement, plannerContext);
+            if (cachedEntry == null) {
+                plan = planner.plan(analyzedStatement, plannerContext);
+                planCache.put(planCacheKey, parsedStmt, analyzedStatement, plan, metaDataVersion);
+            } else {
+                planner.ensureExecutionAllowed(analyzedStatement);
+                plan = cachedEntry.plan();
+            }
         } catch (Throwable t) {
             jobsLogs.logPreExecutionFailure(jobId, statement, SQLExceptions.messageOf(t), sessionContext.user());
             throw t;
@@ -243,6 +273,23 @@ public class Session implements AutoCloseable {
             LOGGER.debug("method=parse stmtName={} query={} paramTypes={}", statementName, query, paramTypes);
         }
 
+        PlanCache.Key planCacheKey = planCache.key(query, paramTypes, sessionContext);
+        long metaDataVersion = planCacheKey == null ? -1L : planner.currentClusterState().metaData().version();
+        PlanCache.Entry cachedEntry = planCache.get(planCacheKey, metaDataVersion);
+        var paramTypeHints = new ParamTypeHints(paramTypes);
+        if (cachedEntry != null) {
+            preparedStatements.put(
+                statementName,
+                new PreparedStmt(
+                    cachedEntry.statement(),
+                    cachedEntry.analyzedStatement(),
+                    query,
+                    paramTypeHints,
+                    planCacheKey,
+                    metaDataVersion));
+            return;
+        }
+
         Statement statement;
         try {
             statement = SqlParser.createStatement(query);
@@ -255,7 +302,6 @@ public class Session implements AutoCloseable {
             }
         }
 
-        var paramTypeHints = new ParamTypeHints(paramTypes);
         AnalyzedStatement analyzedStatement;
         try {
             analyzedStatement = analyzer.analyze(
@@ -272,7 +318,7 @@ public class Session implements AutoCloseable {
         }
         preparedStatements.put(
             statementName,
-            new PreparedStmt(statement, analyzedStatement, query, paramTypeHints));
+            new PreparedStmt(statement, analyzedStatement, query, paramTypeHints, planCacheKey, metaDataVersion));
     }
 
     public void bind(String portalName,
@@ -454,11 +500,10 @@ public class Session implements AutoCloseable {
             null);
 
         PreparedStmt firstPreparedStatement = toExec.get(0).portal().preparedStmt();
-        AnalyzedStatement analyzedStatement = firstPreparedStatement.analyzedStatement();
 
         Plan plan;
         try {
-            plan = planner.plan(analyzedStatement, plannerContext);
+            plan = plan(firstPreparedStatement, plannerContext);
         } catch (Throwable t) {
             jobsLogs.logPreExecutionFailure(
                 jobId,
@@ -536,7 +581,7 @@ public class Session implements AutoCloseable {
         }
         Plan plan;
         try {
-            plan = planner.plan(analyzedStmt, plannerContext);
+            plan = plan(portal.preparedStmt(), plannerContext);
         } catch (Throwable t) {
             jobsLogs.logPreExecutionFailure(jobId, rawStatement, SQLExceptions.messageOf(t), sessionContext.user());
             throw t;
@@ -571,6 +616,31 @@ public class Session implements AutoCloseable {
         return resultReceiver.completionFuture();
     }
 
+    /**
+     * Uses the plan from the {@link PlanCache} if there is one, otherwise the statement is planned and the plan
+     * is cached. The cache is bypassed if the metadata changed since the statement has been analyzed.
+     */
+    private Plan plan(PreparedStmt preparedStmt, PlannerContext plannerContext) {
+        AnalyzedStatement analyzedStatement = preparedStmt.analyzedStatement();
+        PlanCache.Key planCacheKey = preparedStmt.planCacheKey();
+        if (planCacheKey != null && preparedStmt.metaDataVersion() != plannerContext.clusterState().metaData().version()) {
+            planCacheKey = null;
+        }
+        PlanCache.Entry cachedEntry = planCache.get(planCacheKey, preparedStmt.metaDataVersion());
+        if (cachedEntry == null) {
+            Plan plan = planner.plan(analyzedStatement, plannerContext);
+            planCache.put(
+                planCacheKey,
+                preparedStmt.parsedStatement(),
+                analyzedStatement,
+                plan,
+                preparedStmt.metaDataVersion());
+            return plan;
+        }
+        planner.ensureExecutionAllowed(analyzedStatement);
+        return cachedEntry.plan();
+    }
+
     @Nullable
     public List<? extends DataType> getOutputTypes(String portalName) {
         Portal portal = getSafePortal(portalName);
@@ -586,6 +656,10 @@ public class Session implements AutoCloseable {
         return getSafePortal(portalName).preparedStmt().rawStatement();
     }
 
+    public AnalyzedStatement getAnalyzedStatement(String portalName) {
+        return getSafePortal(portalName).analyzedStatement();
+    }
+
     public DataType getParamType(String statementName, int idx) {
         PreparedStmt stmt = getSafeStmt(statementName);
         return stmt.getEffectiveParameterType(idx);
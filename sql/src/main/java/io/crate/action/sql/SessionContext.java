@@ -25,6 +25,7 @@ package io.crate.action.sql;
 import io.crate.auth.user.User;
 import io.crate.metadata.SearchPath;
 
+import javax.annotation.Nullable;
 import java.util.Set;
 
 import static io.crate.metadata.SearchPath.createSearchPathFrom;
@@ -38,6 +39,9 @@ public class SessionContext {
 
     private SearchPath searchPath;
     private boolean hashJoinEnabled = true;
+    private boolean runtimeFilterEnabled = true;
+    @Nullable
+    private String copyStreamId;
 
     /**
      * Creates a new SessionContext suitable to use as system SessionContext
@@ -83,12 +87,34 @@ public class SessionContext {
         this.hashJoinEnabled = hashJoinEnabled;
     }
 
+    public boolean isRuntimeFilterEnabled() {
+        return runtimeFilterEnabled;
+    }
+
+    public void setRuntimeFilterEnabled(boolean runtimeFilterEnabled) {
+        this.runtimeFilterEnabled = runtimeFilterEnabled;
+    }
+
     public User user() {
         return user;
     }
 
+    /**
+     * Id of the client stream a {@code COPY FROM STDIN} or {@code COPY TO STDOUT} statement uses.
+     * Only set by protocols which implement the copy sub-protocol, while such a statement is executed.
+     */
+    @Nullable
+    public String copyStreamId() {
+        return copyStreamId;
+    }
+
+    public void setCopyStreamId(@Nullable String copyStreamId) {
+        this.copyStreamId = copyStreamId;
+    }
+
     public void resetToDefaults() {
         resetSchema();
         hashJoinEnabled = true;
+        runtimeFilterEnabled = true;
     }
 }
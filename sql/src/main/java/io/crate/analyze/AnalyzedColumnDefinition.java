@@ -326,6 +326,21 @@ public class AnalyzedColumnDefinition<T> {
         }
     }
 
+    /**
+     * @return false if the values of the column aren't stored in the column store (doc values).
+     *         That is the case for analyzed text columns and columns with {@code columnstore = false}.
+     */
+    public static boolean hasColumnStore(AnalyzedColumnDefinition<Object> definition) {
+        if (definition.dataType().id() == StringType.ID && "text".equals(definition.typeNameForESMapping())) {
+            return false;
+        }
+        if (definition.storageProperties == null) {
+            return true;
+        }
+        Settings storageSettings = GenericPropertiesConverter.genericPropertiesToSettings(definition.storageProperties);
+        return storageSettings.getAsBoolean(COLUMN_STORE_PROPERTY, true);
+    }
+
     static void applyAndValidateAnalyzerSettings(AnalyzedColumnDefinition<Object> definition,
                                                  FulltextAnalyzerResolver fulltextAnalyzerResolver) {
         if (definition.analyzer == null) {
@@ -536,7 +551,7 @@ public class AnalyzedColumnDefinition<T> {
         this.name = ident.leafName();
     }
 
-    boolean isArrayOrInArray() {
+    public boolean isArrayOrInArray() {
         return collectionType != null || (parent != null && parent.isArrayOrInArray());
     }
 
@@ -59,7 +59,7 @@ public class AnalyzedCopyFromReturnSummary extends AnalyzedCopyFrom implements A
     AnalyzedCopyFromReturnSummary(DocTableInfo tableInfo,
                                   Table<Symbol> table,
                                   GenericProperties<Symbol> properties,
-                                  Symbol uri) {
+                                  @Nullable Symbol uri) {
         super(tableInfo, table, properties, uri);
         qualifiedName = new QualifiedName(Arrays.asList(tableInfo.ident().schema(), tableInfo.ident().name()));
     }
@@ -0,0 +1,141 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.metadata.RelationName;
+import io.crate.types.DataType;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+public final class AnalyzedCreateMaterializedView implements AnalyzedStatement {
+
+    private final RelationName name;
+    private final AnalyzedRelation analyzedQuery;
+    private final String formattedQuery;
+    private final String schema;
+    private final List<String> columns;
+    private final List<DataType> columnTypes;
+    @Nullable
+    private final RelationName source;
+    private final List<String> keys;
+    private final List<String> sourceKeys;
+    private final boolean keysArePrimaryKey;
+    private final boolean ifNotExists;
+
+    AnalyzedCreateMaterializedView(RelationName name,
+                                   AnalyzedRelation analyzedQuery,
+                                   String formattedQuery,
+                                   String schema,
+                                   List<String> columns,
+                                   List<DataType> columnTypes,
+                                   @Nullable RelationName source,
+                                   List<String> keys,
+                                   List<String> sourceKeys,
+                                   boolean keysArePrimaryKey,
+                                   boolean ifNotExists) {
+        this.name = name;
+        this.analyzedQuery = analyzedQuery;
+        this.formattedQuery = formattedQuery;
+        this.schema = schema;
+        this.columns = columns;
+        this.columnTypes = columnTypes;
+        this.source = source;
+        this.keys = keys;
+        this.sourceKeys = sourceKeys;
+        this.keysArePrimaryKey = keysArePrimaryKey;
+        this.ifNotExists = ifNotExists;
+    }
+
+    public RelationName name() {
+        return name;
+    }
+
+    public AnalyzedRelation analyzedQuery() {
+        return analyzedQuery;
+    }
+
+    public String formattedQuery() {
+        return formattedQuery;
+    }
+
+    /**
+     * The schema used to resolve the relations of the query; Refreshes must use the same one.
+     */
+    public String schema() {
+        return schema;
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    public List<DataType> columnTypes() {
+        return columnTypes;
+    }
+
+    /**
+     * @return the table the query aggregates if the view can be refreshed incrementally, otherwise null.
+     */
+    @Nullable
+    public RelationName source() {
+        return source;
+    }
+
+    /**
+     * The group keys as columns of the view; Same order as {@link #sourceKeys()}
+     */
+    public List<String> keys() {
+        return keys;
+    }
+
+    /**
+     * The group keys as columns of the {@link #source()} table
+     */
+    public List<String> sourceKeys() {
+        return sourceKeys;
+    }
+
+    /**
+     * @return true if the {@link #keys()} can't be null and are the primary key of the view.
+     *         Re-inserting a group then overwrites its row instead of adding another one.
+     */
+    public boolean keysArePrimaryKey() {
+        return keysArePrimaryKey;
+    }
+
+    public boolean ifNotExists() {
+        return ifNotExists;
+    }
+
+    @Override
+    public <C, R> R accept(AnalyzedStatementVisitor<C, R> visitor, C context) {
+        return visitor.visitCreateMaterializedView(this, context);
+    }
+
+    @Override
+    public boolean isWriteOperation() {
+        return true;
+    }
+}
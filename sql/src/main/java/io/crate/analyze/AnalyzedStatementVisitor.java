@@ -203,6 +203,14 @@ public class AnalyzedStatementVisitor<C, R> {
         return visitAnalyzedStatement(dropView, context);
     }
 
+    public R visitCreateMaterializedView(AnalyzedCreateMaterializedView createMaterializedView, C context) {
+        return visitAnalyzedStatement(createMaterializedView, context);
+    }
+
+    public R visitRefreshMaterializedView(AnalyzedRefreshMaterializedView refreshMaterializedView, C context) {
+        return visitAnalyzedStatement(refreshMaterializedView, context);
+    }
+
     public R visitSwapTable(AnalyzedSwapTable swapTable, C context) {
         return visitAnalyzedStatement(swapTable, context);
     }
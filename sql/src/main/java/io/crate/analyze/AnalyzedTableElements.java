@@ -479,7 +479,7 @@ public class AnalyzedTableElements<T> {
     }
 
     @Nullable
-    private static AnalyzedColumnDefinition<Object> columnDefinitionByIdent(AnalyzedTableElements<Object> elements, ColumnIdent ident) {
+    public static AnalyzedColumnDefinition<Object> columnDefinitionByIdent(AnalyzedTableElements<Object> elements, ColumnIdent ident) {
         AnalyzedColumnDefinition<Object> result = null;
         ColumnIdent root = ident.getRoot();
         for (AnalyzedColumnDefinition<Object> column : elements.columns) {
@@ -46,6 +46,7 @@ import io.crate.sql.tree.CopyTo;
 import io.crate.sql.tree.CreateAnalyzer;
 import io.crate.sql.tree.CreateBlobTable;
 import io.crate.sql.tree.CreateFunction;
+import io.crate.sql.tree.CreateMaterializedView;
 import io.crate.sql.tree.CreateRepository;
 import io.crate.sql.tree.CreateSnapshot;
 import io.crate.sql.tree.CreateTable;
@@ -71,6 +72,7 @@ import io.crate.sql.tree.Insert;
 import io.crate.sql.tree.KillStatement;
 import io.crate.sql.tree.OptimizeStatement;
 import io.crate.sql.tree.Query;
+import io.crate.sql.tree.RefreshMaterializedView;
 import io.crate.sql.tree.RefreshStatement;
 import io.crate.sql.tree.ResetStatement;
 import io.crate.sql.tree.RestoreSnapshot;
@@ -123,6 +125,7 @@ public class Analyzer {
     private final AlterTableRerouteAnalyzer alterTableRerouteAnalyzer;
     private final UserAnalyzer userAnalyzer;
     private final ViewAnalyzer viewAnalyzer;
+    private final MaterializedViewAnalyzer materializedViewAnalyzer;
     private final SwapTableAnalyzer swapTableAnalyzer;
     private final DecommissionNodeAnalyzer decommissionNodeAnalyzer;
     private final KillAnalyzer killAnalyzer;
@@ -150,6 +153,7 @@ public class Analyzer {
         this.alterTableAddColumnAnalyzer = new AlterTableAddColumnAnalyzer(schemas, functions);
         this.swapTableAnalyzer = new SwapTableAnalyzer(functions, schemas);
         this.viewAnalyzer = new ViewAnalyzer(relationAnalyzer, schemas);
+        this.materializedViewAnalyzer = new MaterializedViewAnalyzer(relationAnalyzer, schemas);
         this.explainStatementAnalyzer = new ExplainStatementAnalyzer(this);
         this.showStatementAnalyzer = new ShowStatementAnalyzer(this, schemas);
         this.updateAnalyzer = new UpdateAnalyzer(functions, relationAnalyzer);
@@ -425,6 +429,16 @@ public class Analyzer {
             return viewAnalyzer.analyze(node, context.transactionContext());
         }
 
+        @Override
+        public AnalyzedStatement visitCreateMaterializedView(CreateMaterializedView node, Analysis context) {
+            return materializedViewAnalyzer.analyze(node, context.transactionContext());
+        }
+
+        @Override
+        public AnalyzedStatement visitRefreshMaterializedView(RefreshMaterializedView node, Analysis context) {
+            return materializedViewAnalyzer.analyze(node, context.transactionContext());
+        }
+
         @Override
         protected AnalyzedStatement visitExplain(Explain node, Analysis context) {
             return explainStatementAnalyzer.analyze(node, context);
@@ -35,6 +35,7 @@ import java.util.Map;
 public class BoundCopyTo {
 
     private final QueriedSelectRelation<? extends AbstractTableRelation<?>> relation;
+    @Nullable
     private final Symbol uri;
     private final boolean columnsDefined;
     @Nullable
@@ -50,7 +51,7 @@ public class BoundCopyTo {
     private final Map<ColumnIdent, Symbol> overwrites;
 
     public BoundCopyTo(QueriedSelectRelation<? extends AbstractTableRelation<?>> relation,
-                       Symbol uri,
+                       @Nullable Symbol uri,
                        @Nullable WriterProjection.CompressionType compressionType,
                        @Nullable WriterProjection.OutputFormat outputFormat,
                        @Nullable List<String> outputNames,
@@ -69,6 +70,7 @@ public class BoundCopyTo {
         return relation;
     }
 
+    @Nullable
     public Symbol uri() {
         return uri;
     }
@@ -0,0 +1,239 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.analyze.relations.RelationAnalyzer;
+import io.crate.exceptions.InvalidColumnNameException;
+import io.crate.expression.symbol.Field;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
+import io.crate.metadata.ColumnIdent;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.Reference;
+import io.crate.metadata.RelationName;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.blob.BlobSchemaInfo;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.table.Operation;
+import io.crate.metadata.table.TableInfo;
+import io.crate.sql.SqlFormatter;
+import io.crate.sql.parser.SqlParser;
+import io.crate.sql.tree.CreateMaterializedView;
+import io.crate.sql.tree.ParameterExpression;
+import io.crate.sql.tree.Query;
+import io.crate.sql.tree.RefreshMaterializedView;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+public final class MaterializedViewAnalyzer {
+
+    private static final ParamTypeHints NO_PARAMETERS = new ParamTypeHints(List.of()) {
+
+        @Override
+        public Symbol apply(@Nullable ParameterExpression input) {
+            throw new UnsupportedOperationException(
+                "Materialized view definition must not contain any parameter placeholders");
+        }
+    };
+
+    private final RelationAnalyzer relationAnalyzer;
+    private final Schemas schemas;
+
+    MaterializedViewAnalyzer(RelationAnalyzer relationAnalyzer, Schemas schemas) {
+        this.relationAnalyzer = relationAnalyzer;
+        this.schemas = schemas;
+    }
+
+    public AnalyzedCreateMaterializedView analyze(CreateMaterializedView createMaterializedView,
+                                                  CoordinatorTxnCtx txnCtx) {
+        String currentSchema = txnCtx.sessionContext().searchPath().currentSchema();
+        RelationName name = RelationName.of(createMaterializedView.name(), currentSchema);
+        name.ensureValidForRelationCreation();
+        if (BlobSchemaInfo.NAME.equals(name.schema())) {
+            throw new UnsupportedOperationException(
+                "Creating a materialized view in the \"blob\" schema is not supported");
+        }
+        String formattedQuery = SqlFormatter.formatSql(createMaterializedView.query());
+        // Analyze the formatted query, it is what refreshes will execute
+        AnalyzedRelation query = relationAnalyzer.analyze(
+            (Query) SqlParser.createStatement(formattedQuery), txnCtx, NO_PARAMETERS);
+
+        List<Field> fields = query.fields();
+        List<String> columns = new ArrayList<>(fields.size());
+        List<DataType> columnTypes = new ArrayList<>(fields.size());
+        HashSet<String> uniqueColumns = new HashSet<>();
+        for (Field field : fields) {
+            String column = field.path().sqlFqn();
+            try {
+                ColumnIdent.validateColumnName(column);
+            } catch (InvalidColumnNameException e) {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Invalid column name \"%s\" in CREATE MATERIALIZED VIEW, use an alias: %s", column, e.getMessage()));
+            }
+            if (!uniqueColumns.add(column)) {
+                throw new IllegalArgumentException(
+                    "Query in CREATE MATERIALIZED VIEW must not have duplicate column names");
+            }
+            DataType<?> type = field.valueType();
+            if (type.id() == DataTypes.UNDEFINED.id()) {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Cannot determine the type of column \"%s\" in CREATE MATERIALIZED VIEW, use a cast", column));
+            }
+            columns.add(column);
+            columnTypes.add(type);
+        }
+
+        List<String> keys = new ArrayList<>();
+        List<String> sourceKeys = new ArrayList<>();
+        RelationName source = incrementalSource(query, columns, keys, sourceKeys);
+        boolean keysArePrimaryKey = source != null && keysAreNotNull(query, sourceKeys);
+        return new AnalyzedCreateMaterializedView(
+            name,
+            query,
+            formattedQuery,
+            currentSchema,
+            columns,
+            columnTypes,
+            source,
+            keys,
+            sourceKeys,
+            keysArePrimaryKey,
+            createMaterializedView.ifNotExists()
+        );
+    }
+
+    public AnalyzedRefreshMaterializedView analyze(RefreshMaterializedView refreshMaterializedView,
+                                                   CoordinatorTxnCtx txnCtx) {
+        TableInfo tableInfo = schemas.resolveTableInfo(
+            refreshMaterializedView.name(),
+            Operation.INSERT,
+            txnCtx.sessionContext().user(),
+            txnCtx.sessionContext().searchPath());
+        if (!(tableInfo instanceof DocTableInfo)) {
+            throw new IllegalArgumentException(
+                "Relation '" + tableInfo.ident().fqn() + "' is not a materialized view");
+        }
+        return new AnalyzedRefreshMaterializedView((DocTableInfo) tableInfo);
+    }
+
+    /**
+     * A view can be refreshed incrementally if it is a grouping over a single table, where all group keys are
+     * plain columns which are part of the outputs.
+     * Recomputing the groups of changed rows then yields the same result as recomputing everything.
+     *
+     * Filters must be deterministic, otherwise groups could change without a change of their rows.
+     *
+     * @return the source table or null if the view must always be refreshed completely.
+     */
+    @Nullable
+    private static RelationName incrementalSource(AnalyzedRelation query,
+                                                  List<String> columns,
+                                                  List<String> keys,
+                                                  List<String> sourceKeys) {
+        if (!(query instanceof QueriedSelectRelation)) {
+            return null;
+        }
+        QueriedSelectRelation<?> relation = (QueriedSelectRelation<?>) query;
+        if (!(relation.subRelation() instanceof DocTableRelation)
+            || relation.groupBy().isEmpty()
+            || relation.isDistinct()
+            || relation.limit() != null
+            || relation.offset() != null
+            || isNonDeterministic(relation.where().queryOrFallback())
+            || (relation.having() != null && isNonDeterministic(relation.having().queryOrFallback()))) {
+            return null;
+        }
+        DocTableInfo table = ((DocTableRelation) relation.subRelation()).tableInfo();
+        List<Symbol> outputs = relation.outputs();
+        for (Symbol groupKey : relation.groupBy()) {
+            Symbol key = unwrap(groupKey);
+            if (!(key instanceof Reference)) {
+                return null;
+            }
+            Reference ref = (Reference) key;
+            ColumnIdent column = ref.column();
+            if (!ref.ident().tableIdent().equals(table.ident())
+                || !column.isTopLevel()
+                || column.isSystemColumn()
+                || !DataTypes.isPrimitive(ref.valueType())) {
+                return null;
+            }
+            int idx = indexOf(outputs, ref);
+            if (idx < 0) {
+                return null;
+            }
+            keys.add(columns.get(idx));
+            sourceKeys.add(column.name());
+        }
+        return table.ident();
+    }
+
+    /**
+     * The group keys can be used as primary key of the view if none of them can be null.
+     * A group with a null key is then stored as well.
+     */
+    private static boolean keysAreNotNull(AnalyzedRelation query, List<String> sourceKeys) {
+        DocTableInfo table = ((DocTableRelation) ((QueriedSelectRelation<?>) query).subRelation()).tableInfo();
+        for (String sourceKey : sourceKeys) {
+            ColumnIdent column = new ColumnIdent(sourceKey);
+            Reference ref = table.getReference(column);
+            if (ref == null || (ref.isNullable() && !table.primaryKey().contains(column))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNonDeterministic(Symbol query) {
+        return SymbolVisitors.any(
+            s -> s instanceof SelectSymbol || (s instanceof Function && !((Function) s).info().isDeterministic()),
+            query
+        );
+    }
+
+    private static int indexOf(List<Symbol> outputs, Reference ref) {
+        for (int i = 0; i < outputs.size(); i++) {
+            if (unwrap(outputs.get(i)).equals(ref)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Symbol unwrap(Symbol symbol) {
+        while (symbol instanceof Field) {
+            symbol = ((Field) symbol).pointer();
+        }
+        return symbol;
+    }
+}
@@ -23,6 +23,7 @@ package io.crate.analyze;
 
 import com.google.common.collect.ImmutableMap;
 import io.crate.blob.v2.BlobIndicesService;
+import io.crate.metadata.doc.SourceFormat;
 import io.crate.metadata.settings.NumberOfReplicasSetting;
 import io.crate.metadata.settings.Validators;
 import io.crate.metadata.table.ColumnPolicies;
@@ -39,6 +40,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.MergeSchedulerConfig;
 import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.mapper.MapperService;
@@ -102,6 +104,8 @@ public class TableParameters {
             EngineConfig.INDEX_CODEC_SETTING,
             IndexModule.INDEX_STORE_TYPE_SETTING,
             MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
+            SourceFormat.SETTING,
+            IndexSortConfig.INDEX_SORT_BY_SETTING,
 
             // this setting is needed for tests and is not documented. see ClusterDisruptionIT for usages.
             IndexService.GLOBAL_CHECKPOINT_SYNC_INTERVAL_SETTING
@@ -113,7 +117,8 @@ public class TableParameters {
     static final Set<Setting> SETTINGS_NOT_INCLUDED_IN_DEFAULT = Set.of(
         IndexMetaData.INDEX_NUMBER_OF_ROUTING_SHARDS_SETTING,
         IndexService.GLOBAL_CHECKPOINT_SYNC_INTERVAL_SETTING,
-        MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING
+        MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
+        IndexSortConfig.INDEX_SORT_BY_SETTING
     );
 
     private static final Map<String, Setting<?>> SUPPORTED_SETTINGS_DEFAULT
@@ -23,8 +23,13 @@ package io.crate.analyze;
 
 import io.crate.exceptions.VersioninigValidationException;
 import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
 import io.crate.expression.symbol.Symbols;
 import io.crate.metadata.doc.DocSysColumns;
 
@@ -42,6 +47,9 @@ public class WhereClause extends QueryClause {
     public static final WhereClause MATCH_ALL = new WhereClause(null);
     public static final WhereClause NO_MATCH = new WhereClause(Literal.BOOLEAN_FALSE);
 
+    private static final Set<String> SEQ_NO_RANGE_OPERATORS = Set.of(
+        GtOperator.NAME, GteOperator.NAME, LtOperator.NAME, LteOperator.NAME);
+
     private final Set<Symbol> clusteredBy;
     private final List<String> partitions;
 
@@ -63,7 +71,14 @@ public class WhereClause extends QueryClause {
     }
 
     private void validateVersioningColumnsUsage() {
-        if (Symbols.containsColumn(query, DocSysColumns.SEQ_NO)) {
+        if (SymbolVisitors.any(WhereClause::isSeqNoRangeComparison, query)) {
+            if (!isSeqNoRangeFilter(query)) {
+                throw VersioninigValidationException.seqNoAndPrimaryTermUsage();
+            }
+            if (Symbols.containsColumn(query, DocSysColumns.VERSION)) {
+                throw VersioninigValidationException.mixedVersioningMeachanismsUsage();
+            }
+        } else if (Symbols.containsColumn(query, DocSysColumns.SEQ_NO)) {
             if (!Symbols.containsColumn(query, DocSysColumns.PRIMARY_TERM)) {
                 throw VersioninigValidationException.seqNoAndPrimaryTermUsage();
             } else {
@@ -82,6 +97,40 @@ public class WhereClause extends QueryClause {
         }
     }
 
+    /**
+     * Returns true if the given function is a range comparison (`>`, `>=`, `<`, `<=`) on `_seq_no`.
+     */
+    public static boolean isSeqNoRangeComparison(Symbol symbol) {
+        if (!(symbol instanceof io.crate.expression.symbol.Function)) {
+            return false;
+        }
+        io.crate.expression.symbol.Function function = (io.crate.expression.symbol.Function) symbol;
+        return SEQ_NO_RANGE_OPERATORS.contains(function.info().ident().name())
+               && function.arguments().size() == 2
+               && isSeqNo(function.arguments().get(0));
+    }
+
+    /**
+     * `_seq_no` used exclusively within range comparisons (e.g. `_seq_no > ?`) is a plain filter
+     * (as used to find rows written since a known checkpoint) and not an optimistic concurrency control condition,
+     * so it doesn't require `_primary_term`.
+     */
+    private static boolean isSeqNoRangeFilter(Symbol query) {
+        if (Symbols.containsColumn(query, DocSysColumns.PRIMARY_TERM)) {
+            return false;
+        }
+        return !SymbolVisitors.any(
+            s -> s instanceof io.crate.expression.symbol.Function
+                 && !isSeqNoRangeComparison(s)
+                 && ((io.crate.expression.symbol.Function) s).arguments().stream().anyMatch(WhereClause::isSeqNo),
+            query
+        );
+    }
+
+    private static boolean isSeqNo(Symbol symbol) {
+        return Symbols.IS_COLUMN.test(symbol) && Symbols.pathFromSymbol(symbol).equals(DocSysColumns.SEQ_NO);
+    }
+
     public Set<Symbol> clusteredBy() {
         return clusteredBy;
     }
@@ -26,7 +26,10 @@ package io.crate.analyze.where;
 import com.google.common.collect.ImmutableSet;
 import io.crate.exceptions.VersioninigValidationException;
 import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
 import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
 import io.crate.expression.operator.any.AnyOperators;
 import io.crate.expression.predicate.NotPredicate;
 import io.crate.expression.symbol.Field;
@@ -73,6 +76,10 @@ public final class WhereClauseValidator {
         private static final String PRIMARY_TERM = "_primary_term";
         private static final Set<String> VERSIONING_ALLOWED_COMPARISONS = ImmutableSet.of(
             EqOperator.NAME, AnyOperators.Names.NEQ);
+        private static final Set<String> SEQ_NO_ALLOWED_COMPARISONS = ImmutableSet.<String>builder()
+            .addAll(VERSIONING_ALLOWED_COMPARISONS)
+            .add(GtOperator.NAME, GteOperator.NAME, LtOperator.NAME, LteOperator.NAME)
+            .build();
 
         private static final String SCORE_ERROR = String.format(Locale.ENGLISH,
                                                                 "System column '%s' can only be used within a '%s' comparison without any surrounded predicate",
@@ -125,7 +132,9 @@ public final class WhereClauseValidator {
         private void validateSysReference(Context context, String columnName) {
             if (columnName.equalsIgnoreCase(VERSION)) {
                 validateSysReference(context, VERSIONING_ALLOWED_COMPARISONS, VersioninigValidationException::versionInvalidUsage);
-            } else if (columnName.equalsIgnoreCase(SEQ_NO) || columnName.equalsIgnoreCase(PRIMARY_TERM)) {
+            } else if (columnName.equalsIgnoreCase(SEQ_NO)) {
+                validateSysReference(context, SEQ_NO_ALLOWED_COMPARISONS, VersioninigValidationException::seqNoAndPrimaryTermUsage);
+            } else if (columnName.equalsIgnoreCase(PRIMARY_TERM)) {
                 validateSysReference(context, VERSIONING_ALLOWED_COMPARISONS, VersioninigValidationException::seqNoAndPrimaryTermUsage);
             } else if (columnName.equalsIgnoreCase(SCORE)) {
                 validateSysReference(context, SCORE_ALLOWED_COMPARISONS, () -> new UnsupportedOperationException(SCORE_ERROR));
@@ -46,7 +46,7 @@ public class RowAccountingWithEstimators implements RowAccounting<Row> {
      * @param columnTypes     Column types are needed to use the correct {@link SizeEstimator} per column
      * @param ramAccounting   {@link RamAccounting} implementing the CircuitBreaker logic
      * @param extraSizePerRow Extra size that need to be calculated per row. E.g. {@link HashInnerJoinBatchIterator}
-     *                        might instantiate an ArrayList per row used for the internal hash->row buffer
+     *                        stores a hash and pointers per row in its internal hash->row buffer
      */
     public RowAccountingWithEstimators(Collection<? extends DataType> columnTypes,
                                        RamAccounting ramAccounting,
@@ -0,0 +1,488 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.ddl.views;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.crate.action.FutureActionListener;
+import io.crate.action.sql.BaseResultReceiver;
+import io.crate.action.sql.SQLOperations;
+import io.crate.action.sql.Session;
+import io.crate.analyze.AnalyzedCreateMaterializedView;
+import io.crate.auth.user.User;
+import io.crate.common.collections.Lists2;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.exceptions.RelationAlreadyExists;
+import io.crate.exceptions.RelationUnknown;
+import io.crate.metadata.RelationName;
+import io.crate.metadata.Schemas;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.view.MaterializedViewSettings;
+import io.crate.sql.Identifiers;
+import io.crate.sql.SqlFormatter;
+import io.crate.sql.tree.CollectionColumnType;
+import io.crate.sql.tree.ColumnDefinition;
+import io.crate.sql.tree.ColumnType;
+import io.crate.sql.tree.CreateTable;
+import io.crate.sql.tree.Expression;
+import io.crate.sql.tree.GenericProperties;
+import io.crate.sql.tree.ObjectColumnType;
+import io.crate.sql.tree.PrimaryKeyConstraint;
+import io.crate.sql.tree.QualifiedName;
+import io.crate.sql.tree.QualifiedNameReference;
+import io.crate.sql.tree.Table;
+import io.crate.sql.tree.TableElement;
+import io.crate.types.ArrayType;
+import io.crate.types.DataType;
+import io.crate.types.ObjectType;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.admin.indices.settings.put.TransportUpdateSettingsAction;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsRequest;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import org.elasticsearch.action.admin.indices.stats.TransportIndicesStatsAction;
+import org.elasticsearch.action.support.master.AcknowledgedResponse;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Settings;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Creates and refreshes materialized views.
+ *
+ * <p>
+ * A materialized view is a regular table holding the result of its query, see {@link MaterializedViewSettings}.
+ * All data changes are done with SQL statements executed as superuser; privileges are checked on the
+ * {@code CREATE MATERIALIZED VIEW} and {@code REFRESH MATERIALIZED VIEW} statements.
+ * </p>
+ *
+ * <p>
+ * A full refresh deletes all rows of the view and inserts the result of the query again.
+ * An incremental refresh looks up the group keys of all source rows with a {@code _seq_no} above the
+ * global checkpoint recorded by the previous refresh, and only deletes and re-inserts those groups.
+ * </p>
+ *
+ * <p>
+ * If the group keys can't be null they are the primary key of the view, and rows are inserted with
+ * {@code ON CONFLICT DO UPDATE}. Refreshes running concurrently on different nodes then can't duplicate groups.
+ * </p>
+ */
+@Singleton
+public class MaterializedViewOperation {
+
+    private static final Logger LOGGER = LogManager.getLogger(MaterializedViewOperation.class);
+
+    private final ClusterService clusterService;
+    private final Schemas schemas;
+    private final SQLOperations sqlOperations;
+    private final TransportIndicesStatsAction indicesStatsAction;
+    private final TransportUpdateSettingsAction updateSettingsAction;
+    // Only guards against concurrent refreshes started on this node
+    private final Set<RelationName> refreshing = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    public MaterializedViewOperation(ClusterService clusterService,
+                                     Schemas schemas,
+                                     SQLOperations sqlOperations,
+                                     TransportIndicesStatsAction indicesStatsAction,
+                                     TransportUpdateSettingsAction updateSettingsAction) {
+        this.clusterService = clusterService;
+        this.schemas = schemas;
+        this.sqlOperations = sqlOperations;
+        this.indicesStatsAction = indicesStatsAction;
+        this.updateSettingsAction = updateSettingsAction;
+    }
+
+    /**
+     * Creates the table of the view and fills it.
+     *
+     * @return the number of rows of the view, or 0 if it already existed and {@code IF NOT EXISTS} was used.
+     */
+    public CompletableFuture<Long> create(AnalyzedCreateMaterializedView stmt) {
+        RelationName name = stmt.name();
+        if (schemas.tableExists(name) || schemas.viewExists(name)) {
+            if (stmt.ifNotExists()) {
+                return CompletableFuture.completedFuture(0L);
+            }
+            return CompletableFuture.failedFuture(new RelationAlreadyExists(name));
+        }
+        Settings.Builder viewSettings = Settings.builder()
+            .put(MaterializedViewSettings.STMT.getKey(), stmt.formattedQuery())
+            .put(MaterializedViewSettings.SCHEMA.getKey(), stmt.schema())
+            .putList(MaterializedViewSettings.COLUMNS.getKey(), stmt.columns());
+        RelationName source = stmt.source();
+        if (source != null) {
+            viewSettings
+                .put(MaterializedViewSettings.SOURCE.getKey(), source.indexNameOrAlias())
+                .putList(MaterializedViewSettings.KEYS.getKey(), stmt.keys())
+                .putList(MaterializedViewSettings.SOURCE_KEYS.getKey(), stmt.sourceKeys());
+        }
+        Session session = sqlOperations.newSystemSession();
+        return execute(session, createTableStmt(stmt), Row.EMPTY)
+            .thenCompose(ignored -> updateSettings(name.indexNameOrAlias(), viewSettings.build()))
+            .thenCompose(ignored -> refresh(name));
+    }
+
+    /**
+     * Brings the view up to date with its query.
+     *
+     * @return the number of rows written to the view
+     */
+    public CompletableFuture<Long> refresh(DocTableInfo view) {
+        return refresh(view.ident());
+    }
+
+    private CompletableFuture<Long> refresh(RelationName view) {
+        IndexMetaData indexMetaData = clusterService.state().metaData().index(view.indexNameOrAlias());
+        if (indexMetaData == null) {
+            return CompletableFuture.failedFuture(new RelationUnknown(view));
+        }
+        Settings settings = indexMetaData.getSettings();
+        if (!MaterializedViewSettings.isMaterializedView(settings)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                "Relation '" + view.fqn() + "' is not a materialized view"));
+        }
+        if (!refreshing.add(view)) {
+            return CompletableFuture.failedFuture(new IllegalStateException(
+                "Materialized view '" + view.fqn() + "' is already being refreshed"));
+        }
+        CompletableFuture<Long> result;
+        try {
+            DocTableInfo viewTable = schemas.getTableInfo(view);
+            boolean upsert = !viewTable.hasAutoGeneratedPrimaryKey();
+            Session session = sqlOperations.createSession(
+                MaterializedViewSettings.SCHEMA.get(settings), User.CRATE_USER);
+            if (MaterializedViewSettings.isIncremental(settings)) {
+                result = refreshIncremental(session, view, settings, upsert);
+            } else {
+                result = refreshFully(session, view, settings, upsert);
+            }
+        } catch (Throwable t) {
+            result = CompletableFuture.failedFuture(t);
+        }
+        return result.whenComplete((rowCount, err) -> refreshing.remove(view));
+    }
+
+    private CompletableFuture<Long> refreshFully(Session session,
+                                                 RelationName view,
+                                                 Settings settings,
+                                                 boolean upsert) {
+        String insert = insertStmt(view, settings, MaterializedViewSettings.STMT.get(settings), upsert);
+        return execute(session, "DELETE FROM " + view.sqlFqn(), Row.EMPTY)
+            .thenCompose(ignored -> execute(session, insert, Row.EMPTY))
+            .thenCompose(rowCount -> execute(session, "REFRESH TABLE " + view.sqlFqn(), Row.EMPTY)
+                .thenApply(ignored -> rowCount));
+    }
+
+    private CompletableFuture<Long> refreshIncremental(Session session,
+                                                       RelationName view,
+                                                       Settings settings,
+                                                       boolean upsert) {
+        RelationName source = RelationName.fromIndexName(MaterializedViewSettings.SOURCE.get(settings));
+        DocTableInfo sourceTable = schemas.getTableInfo(source);
+        List<String> sourceIndices = List.of(sourceTable.concreteOpenIndices());
+        MetaData metaData = clusterService.state().metaData();
+        List<String> sourceIndexUUIDs = new ArrayList<>(sourceIndices.size());
+        int numPrimaries = 0;
+        for (String index : sourceIndices) {
+            IndexMetaData sourceIndexMetaData = metaData.index(index);
+            sourceIndexUUIDs.add(sourceIndexMetaData.getIndexUUID());
+            numPrimaries += sourceIndexMetaData.getNumberOfShards();
+        }
+        int expectedPrimaries = numPrimaries;
+        long checkpoint = MaterializedViewSettings.CHECKPOINT.get(settings);
+        boolean canRefreshIncrementally = checkpoint >= 0
+            && Set.copyOf(MaterializedViewSettings.SOURCE_INDICES.get(settings)).equals(Set.copyOf(sourceIndexUUIDs));
+
+        return globalCheckpoints(sourceIndices)
+            .thenApply(shardStats -> minGlobalCheckpoint(shardStats, expectedPrimaries))
+            .thenCompose(newCheckpoint -> execute(session, "REFRESH TABLE " + source.sqlFqn(), Row.EMPTY)
+                .thenCompose(ignored -> canRefreshIncrementally
+                    ? refreshChangedGroups(session, view, source, settings, checkpoint, upsert)
+                    : refreshFully(session, view, settings, upsert))
+                .thenCompose(rowCount -> {
+                    // Without a known checkpoint the next refresh must be a full refresh again
+                    Settings newSettings = Settings.builder()
+                        .put(MaterializedViewSettings.CHECKPOINT.getKey(), newCheckpoint == null ? -1L : newCheckpoint)
+                        .putList(
+                            MaterializedViewSettings.SOURCE_INDICES.getKey(),
+                            newCheckpoint == null ? List.of() : sourceIndexUUIDs)
+                        .build();
+                    return updateSettings(view.indexNameOrAlias(), newSettings).thenApply(ignored -> rowCount);
+                })
+            );
+    }
+
+    private CompletableFuture<Long> refreshChangedGroups(Session session,
+                                                         RelationName view,
+                                                         RelationName source,
+                                                         Settings settings,
+                                                         long checkpoint,
+                                                         boolean upsert) {
+        List<String> keys = MaterializedViewSettings.KEYS.get(settings);
+        List<String> sourceKeys = MaterializedViewSettings.SOURCE_KEYS.get(settings);
+        String changedKeysStmt = String.format(Locale.ENGLISH,
+            "SELECT DISTINCT %s FROM %s WHERE _seq_no > %d",
+            quotedList(sourceKeys),
+            source.sqlFqn(),
+            checkpoint);
+        return query(session, changedKeysStmt, Row.EMPTY).thenCompose(rows -> {
+            if (rows.isEmpty()) {
+                return CompletableFuture.completedFuture(0L);
+            }
+            ChangedKeys changedKeys = new ChangedKeys(keys.size());
+            for (Object[] row : rows) {
+                changedKeys.add(row);
+            }
+            String predicate = changedKeys.predicate(keys);
+            Row params = changedKeys.params();
+            // Filtering on the group keys is pushed beneath the grouping by the optimizer
+            String changedGroups = String.format(Locale.ENGLISH,
+                "SELECT * FROM (%s) mv WHERE %s",
+                MaterializedViewSettings.STMT.get(settings),
+                predicate);
+            String insert = insertStmt(view, settings, changedGroups, upsert);
+            return execute(session, "DELETE FROM " + view.sqlFqn() + " WHERE " + predicate, params)
+                .thenCompose(ignored -> execute(session, insert, params))
+                .thenCompose(rowCount -> execute(session, "REFRESH TABLE " + view.sqlFqn(), Row.EMPTY)
+                    .thenApply(ignored -> rowCount));
+        });
+    }
+
+    private CompletableFuture<ShardStats[]> globalCheckpoints(List<String> indices) {
+        if (indices.isEmpty()) {
+            return CompletableFuture.completedFuture(new ShardStats[0]);
+        }
+        IndicesStatsRequest request = new IndicesStatsRequest()
+            .indices(indices.toArray(new String[0]))
+            .clear();
+        FutureActionListener<IndicesStatsResponse, ShardStats[]> listener =
+            new FutureActionListener<>(IndicesStatsResponse::getShards);
+        indicesStatsAction.execute(request, listener);
+        return listener;
+    }
+
+    /**
+     * @return the smallest global checkpoint of all primaries, or null if it isn't known for each primary.
+     *         All operations up to the returned sequence number have been processed on all in-sync shard copies.
+     */
+    @VisibleForTesting
+    @Nullable
+    static Long minGlobalCheckpoint(ShardStats[] shardStats, int expectedPrimaries) {
+        long min = Long.MAX_VALUE;
+        int numPrimaries = 0;
+        for (ShardStats stats : shardStats) {
+            if (!stats.getShardRouting().primary()) {
+                continue;
+            }
+            if (stats.getSeqNoStats() == null || stats.getSeqNoStats().getGlobalCheckpoint() < -1) {
+                return null;
+            }
+            numPrimaries++;
+            min = Math.min(min, stats.getSeqNoStats().getGlobalCheckpoint());
+        }
+        if (numPrimaries != expectedPrimaries) {
+            return null;
+        }
+        return numPrimaries == 0 ? -1L : min;
+    }
+
+    private CompletableFuture<AcknowledgedResponse> updateSettings(String indexName, Settings settings) {
+        FutureActionListener<AcknowledgedResponse, AcknowledgedResponse> listener = FutureActionListener.newInstance();
+        updateSettingsAction.execute(new UpdateSettingsRequest(settings, indexName), listener);
+        return listener;
+    }
+
+    private static String createTableStmt(AnalyzedCreateMaterializedView stmt) {
+        List<String> columns = stmt.columns();
+        List<DataType> columnTypes = stmt.columnTypes();
+        List<TableElement<Expression>> elements = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            elements.add(new ColumnDefinition<>(columns.get(i), null, null, toColumnType(columnTypes.get(i)), List.of()));
+        }
+        if (stmt.keysArePrimaryKey()) {
+            List<Expression> primaryKey = Lists2.map(
+                stmt.keys(), key -> new QualifiedNameReference(QualifiedName.of(key)));
+            elements.add(new PrimaryKeyConstraint<>(primaryKey));
+        }
+        RelationName name = stmt.name();
+        CreateTable<Expression> createTable = new CreateTable<>(
+            new Table<>(QualifiedName.of(name.schema(), name.name())),
+            elements,
+            Optional.empty(),
+            Optional.empty(),
+            new GenericProperties<>(),
+            false
+        );
+        return SqlFormatter.formatSql(createTable);
+    }
+
+    private static ColumnType<Expression> toColumnType(DataType<?> type) {
+        if (type instanceof ArrayType) {
+            return new CollectionColumnType<>(toColumnType(((ArrayType<?>) type).innerType()));
+        }
+        if (type.id() == ObjectType.ID) {
+            return new ObjectColumnType<>(null, List.of());
+        }
+        return new ColumnType<>(type.getName());
+    }
+
+    private static String insertStmt(RelationName view, Settings settings, String query, boolean upsert) {
+        List<String> columns = MaterializedViewSettings.COLUMNS.get(settings);
+        String insert = String.format(Locale.ENGLISH,
+            "INSERT INTO %s (%s) %s",
+            view.sqlFqn(),
+            quotedList(columns),
+            query);
+        if (!upsert) {
+            return insert;
+        }
+        List<String> keys = MaterializedViewSettings.KEYS.get(settings);
+        List<String> assignments = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            if (!keys.contains(column)) {
+                String quotedColumn = Identifiers.quoteIfNeeded(column);
+                assignments.add(quotedColumn + " = excluded." + quotedColumn);
+            }
+        }
+        return insert + " ON CONFLICT (" + quotedList(keys) + ") "
+               + (assignments.isEmpty() ? "DO NOTHING" : "DO UPDATE SET " + String.join(", ", assignments));
+    }
+
+    private static String quotedList(List<String> columns) {
+        return columns.stream().map(Identifiers::quoteIfNeeded).collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Executes the statement and returns the row count of the result
+     */
+    private static CompletableFuture<Long> execute(Session session, String stmt, Row params) {
+        return query(session, stmt, params).thenApply(rows -> {
+            if (rows.isEmpty() || !(rows.get(0)[0] instanceof Number)) {
+                return 0L;
+            }
+            return ((Number) rows.get(0)[0]).longValue();
+        });
+    }
+
+    private static CompletableFuture<List<Object[]>> query(Session session, String stmt, Row params) {
+        RowCollector receiver = new RowCollector();
+        try {
+            session.quickExec(stmt, receiver, params);
+        } catch (Throwable t) {
+            LOGGER.debug("Error executing statement for materialized view: " + stmt, t);
+            return CompletableFuture.failedFuture(t);
+        }
+        return receiver.completionFuture().thenApply(ignored -> receiver.rows);
+    }
+
+    private static class RowCollector extends BaseResultReceiver {
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public void setNextRow(Row row) {
+            rows.add(row.materialize());
+        }
+    }
+
+    /**
+     * The distinct values of each group key of changed rows.
+     * The resulting predicate matches all combinations of those values, which is a superset of the changed groups.
+     * That is fine as long as the same predicate is used to delete and to re-insert groups.
+     */
+    @VisibleForTesting
+    static final class ChangedKeys {
+
+        private final List<Set<Object>> values;
+        private final boolean[] hasNull;
+
+        ChangedKeys(int numKeys) {
+            values = new ArrayList<>(numKeys);
+            for (int i = 0; i < numKeys; i++) {
+                values.add(new LinkedHashSet<>());
+            }
+            hasNull = new boolean[numKeys];
+        }
+
+        void add(Object[] row) {
+            for (int i = 0; i < hasNull.length; i++) {
+                Object value = row[i];
+                if (value == null) {
+                    hasNull[i] = true;
+                } else {
+                    values.get(i).add(value);
+                }
+            }
+        }
+
+        /**
+         * @return a predicate on the given key columns, referencing {@link #params()} as parameter placeholders
+         */
+        String predicate(List<String> columns) {
+            assert columns.size() == hasNull.length : "Must have a column for each key";
+            ArrayList<String> conditions = new ArrayList<>(columns.size());
+            int paramIdx = 1;
+            for (int i = 0; i < columns.size(); i++) {
+                String column = Identifiers.quoteIfNeeded(columns.get(i));
+                String condition;
+                if (values.get(i).isEmpty()) {
+                    condition = column + " IS NULL";
+                } else {
+                    condition = column + " = ANY($" + paramIdx + ")";
+                    paramIdx++;
+                    if (hasNull[i]) {
+                        condition = "(" + condition + " OR " + column + " IS NULL)";
+                    }
+                }
+                conditions.add(condition);
+            }
+            return String.join(" AND ", conditions);
+        }
+
+        Row params() {
+            ArrayList<Object> params = new ArrayList<>(values.size());
+            for (Set<Object> keyValues : values) {
+                if (!keyValues.isEmpty()) {
+                    params.add(keyValues.toArray());
+                }
+            }
+            return new RowN(params.toArray());
+        }
+    }
+}
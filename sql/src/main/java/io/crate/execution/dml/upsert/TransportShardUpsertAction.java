@@ -40,6 +40,7 @@ import io.crate.metadata.RelationName;
 import io.crate.metadata.Schemas;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.metadata.doc.SourceFormat;
 import io.crate.metadata.table.Operation;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.support.replication.TransportReplicationAction;
@@ -52,8 +53,6 @@ import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.xcontent.DeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
-import org.elasticsearch.common.xcontent.XContentFactory;
-import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.DocumentMissingException;
@@ -219,7 +218,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                 indexShard.shardId().getIndexName(),
                 item.id(),
                 item.source(),
-                XContentType.JSON
+                SourceFormat.detect(item.source())
             );
 
             Engine.IndexResult indexResult = indexShard.applyIndexOperationOnReplica(
@@ -316,13 +315,14 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
         BytesReference rawSource;
         Map<String, Object> source = null;
         try {
-            // This optimizes for the case where the insert value is already string-based, so we can take directly
-            // the rawSource
-            if (insertSourceGen instanceof FromRawInsertSource) {
+            // This optimizes for the case where the insert value is already string-based and the table stores
+            // its source as JSON, so we can take directly the rawSource
+            SourceFormat sourceFormat = SourceFormat.of(indexShard.indexSettings().getSettings());
+            if (insertSourceGen instanceof FromRawInsertSource && sourceFormat == SourceFormat.JSON) {
                 rawSource = insertSourceGen.generateSourceAndCheckConstraintsAsBytesReference(item.insertValues());
             } else {
                 source = insertSourceGen.generateSourceAndCheckConstraints(item.insertValues());
-                rawSource = BytesReference.bytes(XContentFactory.jsonBuilder().map(source));
+                rawSource = sourceFormat.toBytes(source);
             }
         } catch (IOException e) {
             throw ExceptionsHelper.convertToElastic(e);
@@ -355,7 +355,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                     indexResult.getSeqNo(),
                     indexResult.getTerm(),
                     source,
-                    rawSource::utf8ToString
+                    () -> SourceFormat.toJsonString(rawSource)
                 )
             );
         }
@@ -374,7 +374,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
             item.updateAssignments(),
             item.insertValues()
         );
-        BytesReference rawSource = BytesReference.bytes(XContentFactory.jsonBuilder().map(source));
+        BytesReference rawSource = SourceFormat.of(indexShard.indexSettings().getSettings()).toBytes(source);
         item.source(rawSource);
         long seqNo = item.seqNo();
         long primaryTerm = item.primaryTerm();
@@ -392,7 +392,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                     indexResult.getSeqNo(),
                     indexResult.getTerm(),
                     source,
-                    rawSource::utf8ToString
+                    () -> SourceFormat.toJsonString(rawSource)
                 )
             );
         }
@@ -409,7 +409,7 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
             indexShard.shardId().getIndexName(),
             item.id(),
             item.source(),
-            XContentType.JSON
+            SourceFormat.detect(item.source())
         );
 
         Engine.IndexResult indexResult = executeOnPrimaryHandlingMappingUpdate(
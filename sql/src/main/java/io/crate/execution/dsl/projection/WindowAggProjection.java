@@ -47,10 +47,22 @@ public class WindowAggProjection extends Projection {
     private final ArrayList<Symbol> outputs;
     private final ArrayList<WindowFunctionContext> windowFunctionContexts;
     private final ArrayList<WindowFunction> windowFunctions;
+    private final boolean sourceIsSorted;
 
     public WindowAggProjection(WindowDefinition windowDefinition,
                                ArrayList<WindowFunctionContext> windowFunctionContexts,
                                List<Symbol> standaloneWithInputs) {
+        this(windowDefinition, windowFunctionContexts, standaloneWithInputs, false);
+    }
+
+    /**
+     * @param sourceIsSorted true if the rows are already sorted by the PARTITION BY and ORDER BY
+     *                       expressions of the window definition when they reach the projection.
+     */
+    public WindowAggProjection(WindowDefinition windowDefinition,
+                               ArrayList<WindowFunctionContext> windowFunctionContexts,
+                               List<Symbol> standaloneWithInputs,
+                               boolean sourceIsSorted) {
         this.windowFunctions = windowFunctionContexts.stream()
             .map(WindowFunctionContext::function)
             .collect(Collectors.toCollection(ArrayList::new));
@@ -61,6 +73,7 @@ public class WindowAggProjection extends Projection {
         this.windowDefinition = windowDefinition;
         this.windowFunctionContexts = windowFunctionContexts;
         this.standaloneWithInputs = standaloneWithInputs;
+        this.sourceIsSorted = sourceIsSorted;
         outputs = new ArrayList<>(standaloneWithInputs);
         outputs.addAll(windowFunctions);
     }
@@ -85,6 +98,11 @@ public class WindowAggProjection extends Projection {
                 new WindowFunctionContext(function, inputs, filter));
             windowFunctions.add(function);
         }
+        if (in.getVersion().onOrAfter(Version.V_4_2_0)) {
+            sourceIsSorted = in.readBoolean();
+        } else {
+            sourceIsSorted = false;
+        }
         outputs = new ArrayList<>(standaloneWithInputs);
         outputs.addAll(windowFunctions);
     }
@@ -101,6 +119,10 @@ public class WindowAggProjection extends Projection {
         return standaloneWithInputs;
     }
 
+    public boolean sourceIsSorted() {
+        return sourceIsSorted;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -110,13 +132,14 @@ public class WindowAggProjection extends Projection {
             return false;
         }
         WindowAggProjection that = (WindowAggProjection) o;
-        return Objects.equals(windowDefinition, that.windowDefinition) &&
+        return sourceIsSorted == that.sourceIsSorted &&
+               Objects.equals(windowDefinition, that.windowDefinition) &&
                Objects.equals(windowFunctionContexts, that.windowFunctionContexts);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), windowDefinition, windowFunctionContexts);
+        return Objects.hash(super.hashCode(), windowDefinition, windowFunctionContexts, sourceIsSorted);
     }
 
     @Override
@@ -153,6 +176,9 @@ public class WindowAggProjection extends Projection {
             }
             Symbols.toStream(windowFunctionContext.inputs(), out);
         }
+        if (out.getVersion().onOrAfter(Version.V_4_2_0)) {
+            out.writeBoolean(sourceIsSorted);
+        }
     }
 
     @Override
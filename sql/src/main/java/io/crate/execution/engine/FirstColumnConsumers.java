@@ -42,9 +42,13 @@ public class FirstColumnConsumers {
 
     private static class AllValues implements Collector<Row, Collection<Object>, Object[]> {
 
-        private static final AllValues INSTANCE = new AllValues();
+        private static final AllValues INSTANCE = new AllValues(Integer.MAX_VALUE);
 
-        private AllValues() {}
+        private final int maxValues;
+
+        private AllValues(int maxValues) {
+            this.maxValues = maxValues;
+        }
 
         @Override
         public Supplier<Collection<Object>> supplier() {
@@ -54,7 +58,10 @@ public class FirstColumnConsumers {
         @Override
         public BiConsumer<Collection<Object>, Row> accumulator() {
             return (agg, row) -> {
-                agg.add(row.get(0));
+                // Keep one value more than allowed to detect that the limit is exceeded
+                if (agg.size() <= maxValues) {
+                    agg.add(row.get(0));
+                }
             };
         }
 
@@ -65,7 +72,7 @@ public class FirstColumnConsumers {
 
         @Override
         public Function<Collection<Object>, Object[]> finisher() {
-            return Collection::toArray;
+            return agg -> agg.size() > maxValues ? null : agg.toArray();
         }
 
         @Override
@@ -128,4 +135,11 @@ public class FirstColumnConsumers {
     public static CollectingRowConsumer<Collection<Object>, Object[]> createAllRowsConsumer() {
         return new CollectingRowConsumer<>(AllValues.INSTANCE);
     }
+
+    /**
+     * Like {@link #createAllRowsConsumer()}, but results in {@code null} if there are more than {@code maxValues} rows.
+     */
+    public static CollectingRowConsumer<Collection<Object>, Object[]> createAllRowsConsumer(int maxValues) {
+        return new CollectingRowConsumer<>(new AllValues(maxValues));
+    }
 }
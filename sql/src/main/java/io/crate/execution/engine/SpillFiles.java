@@ -0,0 +1,75 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine;
+
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.PathUtils;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Files to which operations spill their state once it exceeds the memory they may use.
+ * <p>
+ * The files are created in a {@code spill} directory below the first data path of the node, so they're written
+ * to the disk provisioned for the node instead of the (often small) temporary directory of the system.
+ */
+public final class SpillFiles {
+
+    private static final String DIRECTORY_NAME = "spill";
+
+    private SpillFiles() {
+    }
+
+    /**
+     * @return the directory for spill files or null if the node has no data path,
+     *         in which case the temporary directory of the system is used.
+     */
+    @Nullable
+    public static Path directory(Settings settings) {
+        List<String> dataPaths = Environment.PATH_DATA_SETTING.get(settings);
+        if (dataPaths.isEmpty() == false) {
+            return PathUtils.get(dataPaths.get(0)).resolve(DIRECTORY_NAME);
+        }
+        if (DiscoveryNode.nodeRequiresLocalStorage(settings) && Environment.PATH_HOME_SETTING.exists(settings)) {
+            return PathUtils.get(Environment.PATH_HOME_SETTING.get(settings)).resolve("data").resolve(DIRECTORY_NAME);
+        }
+        return null;
+    }
+
+    /**
+     * Creates a new empty file in the given directory, creating the directory if it doesn't exist yet.
+     */
+    public static Path create(@Nullable Path directory, String prefix) throws IOException {
+        if (directory == null) {
+            return Files.createTempFile(prefix, ".spill");
+        }
+        Files.createDirectories(directory);
+        return Files.createTempFile(directory, prefix, ".spill");
+    }
+}
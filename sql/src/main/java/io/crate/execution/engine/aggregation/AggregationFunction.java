@@ -105,6 +105,16 @@ public abstract class AggregationFunction<TPartial, TFinal> implements FunctionI
         return false;
     }
 
+    /**
+     * Indicates if the partial states of this aggregation are immutable values, so that
+     * {@link #reduce(RamAccounting, Object, Object)} never changes the given states.
+     * States of such functions can be shared and reduced repeatedly, e.g. to compute sliding window frames
+     * from pre-aggregated states if the function is not {@link #isRemovableCumulative() removable cumulative}.
+     */
+    public boolean hasImmutableStates() {
+        return false;
+    }
+
     public TPartial removeFromAggregatedState(RamAccounting ramAccounting,
                                               TPartial previousAggState,
                                               Input[] stateToRemove) {
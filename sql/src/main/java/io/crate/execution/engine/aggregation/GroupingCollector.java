@@ -22,7 +22,11 @@
 
 package io.crate.execution.engine.aggregation;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import io.crate.Streamer;
+import io.crate.breaker.BlockBasedRamAccounting;
 import io.crate.breaker.RamAccounting;
 import io.crate.breaker.SizeEstimator;
 import io.crate.breaker.SizeEstimatorFactory;
@@ -34,10 +38,15 @@ import io.crate.expression.InputCondition;
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.memory.MemoryManager;
 import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.Version;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -48,14 +57,24 @@ import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
+import java.util.stream.IntStream;
 
 /**
  * Collector implementation which uses {@link AggregateMode}s and {@code keyInputs}
  * to group rows by key and aggregate the grouped values.
+ * <p>
+ * If a {@code spillThresholdInBytes} is set and the memory accounted while collecting exceeds it, the states are
+ * written to files in the {@code spillDirectory} partitioned by key ({@link SpilledPartitions}). Each partition is then re-aggregated separately
+ * once the result is consumed. The collector must be closed to remove any spilled files.
  *
  * @param <K> type of the key
  */
-public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, Iterable<Row>> {
+public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, Iterable<Row>>, AutoCloseable {
+
+    /**
+     * Number of partitions the states are split into once they're spilled to disk.
+     */
+    private static final int NUM_SPILL_PARTITIONS = 16;
 
     private final CollectExpression<Row, ?>[] expressions;
     private final AggregationFunction[] aggregations;
@@ -72,6 +91,14 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
     private final BiConsumer<Map<K, Object[]>, Row> accumulator;
     private final Supplier<Map<K, Object[]>> supplier;
     private final Version minNodeVersion;
+    private final List<? extends DataType> keyTypes;
+    private final Function<Object[], K> keyFromCells;
+
+    private final boolean spillingEnabled;
+    @Nullable
+    private final Path spillDirectory;
+    @Nullable
+    private SpilledPartitions spilledPartitions;
 
     static GroupingCollector<Object> singleKey(CollectExpression<Row, ?>[] expressions,
                                                AggregateMode mode,
@@ -83,26 +110,33 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                                                Version minNodeVersion,
                                                Input<?> keyInput,
                                                DataType keyType,
-                                               Version indexVersionCreated) {
+                                               Version indexVersionCreated,
+                                               long spillThresholdInBytes,
+                                               @Nullable Path spillDirectory) {
+        RamAccounting statesRamAccounting = statesRamAccounting(ramAccounting, spillThresholdInBytes);
         return new GroupingCollector<>(
             expressions,
             aggregations,
             mode,
             inputs,
             filters,
-            ramAccounting,
+            statesRamAccounting,
             memoryManager,
             minNodeVersion,
             (key, cells) -> cells[0] = key,
             1,
             GroupByMaps.accountForNewEntry(
-                ramAccounting,
+                statesRamAccounting,
                 SizeEstimatorFactory.create(keyType),
                 keyType
             ),
             row -> keyInput.value(),
             indexVersionCreated,
-            GroupByMaps.mapForType(keyType)
+            GroupByMaps.mapForType(keyType),
+            List.of(keyType),
+            keyCells -> keyCells[0],
+            spillThresholdInBytes,
+            spillDirectory
         );
     }
 
@@ -116,29 +150,119 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                                                     Version minNodeVersion,
                                                     List<Input<?>> keyInputs,
                                                     List<? extends DataType> keyTypes,
-                                                    Version indexVersionCreated) {
+                                                    Version indexVersionCreated,
+                                                    long spillThresholdInBytes,
+                                                    @Nullable Path spillDirectory) {
+        RamAccounting statesRamAccounting = statesRamAccounting(ramAccountingContext, spillThresholdInBytes);
         return new GroupingCollector<>(
             expressions,
             aggregations,
             mode,
             inputs,
             filters,
-            ramAccountingContext,
+            statesRamAccounting,
             memoryManager,
             minNodeVersion,
             GroupingCollector::applyKeysToCells,
             keyInputs.size(),
             GroupByMaps.accountForNewEntry(
-                ramAccountingContext,
+                statesRamAccounting,
                 new MultiSizeEstimator(keyTypes),
                 null
             ),
             row -> evalKeyInputs(keyInputs),
             indexVersionCreated,
-            HashMap::new
+            HashMap::new,
+            keyTypes,
+            keyCells -> Arrays.asList(keyCells.clone()),
+            spillThresholdInBytes,
+            spillDirectory
         );
     }
 
+    /**
+     * Like {@link #manyKeys} but stores the keys packed into a {@link PackedKeysMap}.
+     * All {@code keyTypes} must be supported by {@link PackedKeysMap#supportsTypes(List)}.
+     */
+    static GroupingCollector<long[]> packedKeys(CollectExpression<Row, ?>[] expressions,
+                                                AggregateMode mode,
+                                                AggregationFunction[] aggregations,
+                                                Input[][] inputs,
+                                                Input<Boolean>[] filters,
+                                                RamAccounting ramAccounting,
+                                                MemoryManager memoryManager,
+                                                Version minNodeVersion,
+                                                List<Input<?>> keyInputs,
+                                                List<? extends DataType> keyTypes,
+                                                Version indexVersionCreated,
+                                                long spillThresholdInBytes,
+                                                @Nullable Path spillDirectory) {
+        assert PackedKeysMap.supportsTypes(keyTypes) : "keyTypes must be supported by PackedKeysMap";
+        int numKeys = keyInputs.size();
+        // Re-used for every row; PackedKeysMap copies the key on insert
+        long[] key = PackedKeysMap.newKey(numKeys);
+        RamAccounting statesRamAccounting = statesRamAccounting(ramAccounting, spillThresholdInBytes);
+        return new GroupingCollector<>(
+            expressions,
+            aggregations,
+            mode,
+            inputs,
+            filters,
+            statesRamAccounting,
+            memoryManager,
+            minNodeVersion,
+            (packedKey, cells) -> applyPackedKeysToCells(packedKey, keyTypes, cells),
+            numKeys,
+            (map, k) -> {
+                // PackedKeysMap accounts for the memory of its table
+            },
+            row -> evalPackedKeyInputs(keyInputs, keyTypes, key),
+            indexVersionCreated,
+            () -> new PackedKeysMap<>(numKeys, statesRamAccounting),
+            keyTypes,
+            keyCells -> packKeyCells(keyCells, keyTypes, key),
+            spillThresholdInBytes,
+            spillDirectory
+        );
+    }
+
+    /**
+     * Spilling releases the memory accounted for the states, so they are accounted in a child of the given
+     * {@code ramAccounting}. That way the spill threshold and the release only cover the states and not the bytes
+     * other operations account on the same {@code ramAccounting}.
+     * <p>
+     * The child forwards every allocation and releases it from the parent. If the parent reserves memory
+     * in blocks (e.g. {@link BlockBasedRamAccounting}) it keeps the memory it reserved from the circuit breaker
+     * and re-uses it for the states collected after a spill, so the reserved memory stays at its peak
+     * instead of growing further.
+     */
+    private static RamAccounting statesRamAccounting(RamAccounting ramAccounting, long spillThresholdInBytes) {
+        if (spillThresholdInBytes > 0) {
+            return new BlockBasedRamAccounting(ramAccounting::addBytes, 0);
+        }
+        return ramAccounting;
+    }
+
+    private static long[] evalPackedKeyInputs(List<Input<?>> keyInputs, List<? extends DataType> keyTypes, long[] key) {
+        for (int i = 0; i < keyInputs.size(); i++) {
+            PackedKeysMap.setKey(key, i, keyTypes.get(i), keyInputs.get(i).value());
+        }
+        return key;
+    }
+
+    private static long[] packKeyCells(Object[] keyCells, List<? extends DataType> keyTypes, long[] key) {
+        for (int i = 0; i < keyCells.length; i++) {
+            PackedKeysMap.setKey(key, i, keyTypes.get(i), keyCells[i]);
+        }
+        return key;
+    }
+
+    private static void applyPackedKeysToCells(long[] key, List<? extends DataType> keyTypes, Object[] cells) {
+        for (int i = 0; i < keyTypes.size(); i++) {
+            cells[i] = PackedKeysMap.getKey(key, i, keyTypes.get(i));
+        }
+    }
+
     private static List<Object> evalKeyInputs(List<Input<?>> keyInputs) {
         List<Object> key = new ArrayList<>(keyInputs.size());
         for (Input<?> keyInput : keyInputs) {
@@ -166,7 +290,11 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
                               BiConsumer<Map<K, Object[]>, K> accountForNewEntry,
                               Function<Row, K> keyExtractor,
                               Version indexVersionCreated,
-                              Supplier<Map<K, Object[]>> supplier) {
+                              Supplier<Map<K, Object[]>> supplier,
+                              List<? extends DataType> keyTypes,
+                              Function<Object[], K> keyFromCells,
+                              long spillThresholdInBytes,
+                              @Nullable Path spillDirectory) {
         this.expressions = expressions;
         this.aggregations = aggregations;
         this.mode = mode;
@@ -179,9 +307,23 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         this.accountForNewEntry = accountForNewEntry;
         this.keyExtractor = keyExtractor;
         this.indexVersionCreated = indexVersionCreated;
-        this.accumulator = mode == AggregateMode.PARTIAL_FINAL ? this::reduce : this::iter;
+        BiConsumer<Map<K, Object[]>, Row> accumulator = mode == AggregateMode.PARTIAL_FINAL ? this::reduce : this::iter;
+        this.spillingEnabled = spillThresholdInBytes > 0;
+        this.spillDirectory = spillDirectory;
+        if (spillingEnabled) {
+            this.accumulator = (statesByKey, row) -> {
+                accumulator.accept(statesByKey, row);
+                if (ramAccounting.totalBytes() >= spillThresholdInBytes) {
+                    spill(statesByKey);
+                }
+            };
+        } else {
+            this.accumulator = accumulator;
+        }
         this.supplier = supplier;
         this.minNodeVersion = minNodeVersion;
+        this.keyTypes = keyTypes;
+        this.keyFromCells = keyFromCells;
     }
 
     @Override
@@ -203,7 +345,7 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
 
     @Override
     public Function<Map<K, Object[]>, Iterable<Row>> finisher() {
-        return this::mapToRows;
+        return this::finish;
     }
 
     @Override
@@ -270,6 +412,110 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         addWithAccounting(statesByKey, key, states);
     }
 
+    /**
+     * Writes all states to the {@link SpilledPartitions}, clears the map and releases the memory
+     * accounted for the states.
+     */
+    private void spill(Map<K, Object[]> statesByKey) {
+        if (spilledPartitions == null) {
+            Streamer[] stateStreamers = new Streamer[aggregations.length];
+            for (int i = 0; i < aggregations.length; i++) {
+                stateStreamers[i] = aggregations[i].partialType().streamer();
+            }
+            spilledPartitions = new SpilledPartitions(
+                NUM_SPILL_PARTITIONS,
+                DataTypes.getStreamers(keyTypes),
+                stateStreamers,
+                spillDirectory
+            );
+        }
+        Object[] keyCells = new Object[numKeyColumns];
+        try {
+            for (Map.Entry<K, Object[]> entry : statesByKey.entrySet()) {
+                applyKeyToCells.accept(entry.getKey(), keyCells);
+                spilledPartitions.add(keyCells, entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        clearAndRelease(statesByKey);
+    }
+
+    /**
+     * Clears the map and releases the memory accounted for the states.
+     * A {@link PackedKeysMap} keeps a table of its initial capacity which it releases once it grows,
+     * so the bytes of that table are accounted again.
+     */
+    private void clearAndRelease(Map<K, Object[]> statesByKey) {
+        statesByKey.clear();
+        ramAccounting.release();
+        if (statesByKey instanceof PackedKeysMap) {
+            ramAccounting.addBytes(((PackedKeysMap<?>) statesByKey).ramBytesUsed());
+        }
+    }
+
+    @VisibleForTesting
+    long accountedBytes() {
+        return ramAccounting.totalBytes();
+    }
+
+    private Iterable<Row> finish(Map<K, Object[]> statesByKey) {
+        if (spilledPartitions == null) {
+            return mapToRows(statesByKey);
+        }
+        spill(statesByKey);
+        try {
+            spilledPartitions.finishWriting();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Partitions are re-aggregated one after another while the result is consumed,
+        // so only the states of a single partition are held in memory.
+        return () -> Iterators.concat(Iterators.transform(
+            IntStream.range(0, spilledPartitions.numPartitions()).iterator(),
+            partition -> mapToRows(loadPartition(partition, statesByKey)).iterator()
+        ));
+    }
+
+    private Map<K, Object[]> loadPartition(int partition, Map<K, Object[]> statesByKey) {
+        clearAndRelease(statesByKey);
+        try {
+            spilledPartitions.forEachEntry(partition, (keyCells, states) -> {
+                K key = keyFromCells.apply(keyCells);
+                Object[] existingStates = statesByKey.get(key);
+                if (existingStates == null) {
+                    addWithAccounting(statesByKey, key, states);
+                } else {
+                    for (int i = 0; i < aggregations.length; i++) {
+                        existingStates[i] = aggregations[i].reduce(ramAccounting, existingStates[i], states[i]);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return statesByKey;
+    }
+
+    /**
+     * Removes the files of any states that have been spilled to disk.
+     * If spilling is enabled, this also releases the memory accounted for the states.
+     */
+    @Override
+    public void close() {
+        if (spillingEnabled) {
+            ramAccounting.close();
+        }
+        if (spilledPartitions != null) {
+            try {
+                spilledPartitions.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            spilledPartitions = null;
+        }
+    }
+
     private Iterable<Row> mapToRows(Map<K, Object[]> statesByKey) {
         return Iterables.transform(statesByKey.entrySet(), new com.google.common.base.Function<>() {
 
@@ -22,8 +22,10 @@
 
 package io.crate.execution.engine.aggregation;
 
+import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccounting;
 import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
 import io.crate.data.CollectingBatchIterator;
 import io.crate.data.Input;
 import io.crate.data.Projector;
@@ -32,19 +34,31 @@ import io.crate.execution.engine.collect.CollectExpression;
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.expression.symbol.Symbol;
 import io.crate.memory.MemoryManager;
+import io.crate.settings.CrateSetting;
 import io.crate.types.ArrayType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 
+import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.stream.Collector;
 
 import static io.crate.expression.symbol.Symbols.typeView;
 
 public class GroupingProjector implements Projector {
 
-    private final Collector<Row, ?, Iterable<Row>> collector;
+    /**
+     * Fraction of the query circuit breaker limit that a GROUP BY operation may use before its
+     * aggregation states are spilled to disk. 0 disables spilling.
+     */
+    public static final CrateSetting<Double> SPILL_THRESHOLD_SETTING = CrateSetting.of(Setting.doubleSetting(
+        "memory.group_by.spill_threshold", 0.0d, 0.0d, 1.0d, Setting.Property.NodeScope), DataTypes.DOUBLE);
+
+    private final GroupingCollector<?> collector;
 
 
     public GroupingProjector(List<? extends Symbol> keys,
@@ -55,7 +69,9 @@ public class GroupingProjector implements Projector {
                              RamAccounting ramAccounting,
                              MemoryManager memoryManager,
                              Version minNodeVersion,
-                             Version indexVersionCreated) {
+                             Version indexVersionCreated,
+                             long spillThresholdInBytes,
+                             @Nullable Path spillDirectory) {
         assert keys.size() == keyInputs.size() : "number of key types must match with number of key inputs";
         ensureAllTypesSupported(keys);
 
@@ -81,11 +97,28 @@ public class GroupingProjector implements Projector {
                 minNodeVersion,
                 keyInputs.get(0),
                 key.valueType(),
-                indexVersionCreated
+                indexVersionCreated,
+                spillThresholdInBytes,
+                spillDirectory
+            );
+        } else if (PackedKeysMap.supportsTypes(typeView(keys))) {
+            collector = GroupingCollector.packedKeys(
+                collectExpressions,
+                mode,
+                functions,
+                inputs,
+                filters,
+                ramAccounting,
+                memoryManager,
+                minNodeVersion,
+                keyInputs,
+                typeView(keys),
+                indexVersionCreated,
+                spillThresholdInBytes,
+                spillDirectory
             );
         } else {
-            //noinspection unchecked
-            collector = (GroupingCollector<Object>) (GroupingCollector) GroupingCollector.manyKeys(
+            collector = GroupingCollector.manyKeys(
                 collectExpressions,
                 mode,
                 functions,
@@ -96,7 +129,9 @@ public class GroupingProjector implements Projector {
                 minNodeVersion,
                 keyInputs,
                 typeView(keys),
-                indexVersionCreated
+                indexVersionCreated,
+                spillThresholdInBytes,
+                spillDirectory
             );
         }
     }
@@ -110,12 +145,45 @@ public class GroupingProjector implements Projector {
         }
     }
 
+    /**
+     * @param settings the settings of the node
+     * @param clusterSettings the persistent and transient cluster settings; the query breaker limit is dynamic
+     *                        and a value set on the cluster overrides the one of the node
+     * @return the number of accounted bytes after which the aggregation states are spilled to disk,
+     *         or -1 if spilling is disabled.
+     */
+    public static long spillThresholdInBytes(Settings settings, Settings clusterSettings) {
+        double spillThreshold = SPILL_THRESHOLD_SETTING.setting().get(settings);
+        if (spillThreshold <= 0.0d) {
+            return -1L;
+        }
+        Setting<ByteSizeValue> breakerLimitSetting = CrateCircuitBreakerService.QUERY_CIRCUIT_BREAKER_LIMIT_SETTING.setting();
+        long breakerLimit = breakerLimitSetting.exists(clusterSettings)
+            ? breakerLimitSetting.get(clusterSettings).getBytes()
+            : breakerLimitSetting.get(settings).getBytes();
+        if (breakerLimit <= 0) {
+            return -1L;
+        }
+        return (long) (breakerLimit * spillThreshold);
+    }
+
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
-        return CollectingBatchIterator.newInstance(batchIterator, collector);
+        return CollectingBatchIterator.newInstance(
+            () -> {
+                batchIterator.close();
+                collector.close();
+            },
+            batchIterator::kill,
+            () -> BatchIterators.collect(batchIterator, collector),
+            batchIterator.involvesIO()
+        );
     }
 
-    public Collector<Row, ?, Iterable<Row>> getCollector() {
+    /**
+     * The collector must be closed by the caller after the result has been consumed.
+     */
+    public GroupingCollector<?> getCollector() {
         return collector;
     }
 
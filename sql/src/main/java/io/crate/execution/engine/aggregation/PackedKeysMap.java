@@ -0,0 +1,365 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import com.carrotsearch.hppc.BitMixer;
+import io.crate.breaker.RamAccounting;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Open-addressing hash map for composite keys where every key column has a fixed-width type.
+ *
+ * <p>
+ * A key is packed into {@code numKeys + 1} longs: one word per key column (see {@link #encode(DataType, Object)})
+ * followed by a bitmask word marking the columns which are null.
+ * All keys live in a single {@code long[]} and are compared word by word, so a lookup
+ * with a re-used key buffer doesn't allocate.
+ * {@link #put(long[], Object)} copies the key into the table; callers can re-use the same buffer for every row.
+ * </p>
+ *
+ * <p>
+ * The memory of the table arrays is accounted exactly using {@link RamAccounting} whenever the table grows.
+ * Values must not be null.
+ * </p>
+ */
+public final class PackedKeysMap<V> extends AbstractMap<long[], V> {
+
+    /**
+     * Max number of key columns; limited by the size of the null bitmask word
+     */
+    public static final int MAX_KEYS = Long.SIZE;
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private final int stride;
+    private final RamAccounting ramAccounting;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size = 0;
+    private int resizeAt;
+
+    public PackedKeysMap(int numKeys, RamAccounting ramAccounting) {
+        assert numKeys > 0 && numKeys <= MAX_KEYS : "numKeys must be between 1 and " + MAX_KEYS;
+        this.stride = numKeys + 1;
+        this.ramAccounting = ramAccounting;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return true if all types can be packed into a {@link PackedKeysMap} key.
+     */
+    public static boolean supportsTypes(List<? extends DataType> types) {
+        if (types.isEmpty() || types.size() > MAX_KEYS) {
+            return false;
+        }
+        for (DataType<?> type : types) {
+            switch (type.id()) {
+                case BooleanType.ID:
+                case ByteType.ID:
+                case ShortType.ID:
+                case IntegerType.ID:
+                case LongType.ID:
+                case TimestampType.ID_WITH_TZ:
+                case TimestampType.ID_WITHOUT_TZ:
+                case FloatType.ID:
+                case DoubleType.ID:
+                    break;
+
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates a new key buffer suitable for lookups in a map with {@code numKeys} key columns.
+     */
+    public static long[] newKey(int numKeys) {
+        return new long[numKeys + 1];
+    }
+
+    /**
+     * Sets column {@code idx} of {@code key} to {@code value}.
+     */
+    public static void setKey(long[] key, int idx, DataType<?> type, @Nullable Object value) {
+        int nullMaskIdx = key.length - 1;
+        if (value == null) {
+            key[idx] = 0L;
+            key[nullMaskIdx] |= 1L << idx;
+        } else {
+            key[idx] = encode(type, value);
+            key[nullMaskIdx] &= ~(1L << idx);
+        }
+    }
+
+    /**
+     * @return the value of column {@code idx} of {@code key}, decoded into the java representation of {@code type}
+     */
+    @Nullable
+    public static Object getKey(long[] key, int idx, DataType<?> type) {
+        if ((key[key.length - 1] & (1L << idx)) != 0) {
+            return null;
+        }
+        return decode(type, key[idx]);
+    }
+
+    static long encode(DataType<?> type, Object value) {
+        switch (type.id()) {
+            case BooleanType.ID:
+                return ((Boolean) value) ? 1L : 0L;
+
+            case ByteType.ID:
+            case ShortType.ID:
+            case IntegerType.ID:
+            case LongType.ID:
+            case TimestampType.ID_WITH_TZ:
+            case TimestampType.ID_WITHOUT_TZ:
+                return ((Number) value).longValue();
+
+            // Use the same bit representation as Float.equals/Double.equals to keep the grouping semantics
+            case FloatType.ID:
+                return Float.floatToIntBits(((Number) value).floatValue());
+            case DoubleType.ID:
+                return Double.doubleToLongBits(((Number) value).doubleValue());
+
+            default:
+                throw new IllegalArgumentException("Type " + type + " is not supported in PackedKeysMap");
+        }
+    }
+
+    static Object decode(DataType<?> type, long word) {
+        switch (type.id()) {
+            case BooleanType.ID:
+                return word == 1L;
+            case ByteType.ID:
+                return (byte) word;
+            case ShortType.ID:
+                return (short) word;
+            case IntegerType.ID:
+                return (int) word;
+            case LongType.ID:
+            case TimestampType.ID_WITH_TZ:
+            case TimestampType.ID_WITHOUT_TZ:
+                return word;
+            case FloatType.ID:
+                return Float.intBitsToFloat((int) word);
+            case DoubleType.ID:
+                return Double.longBitsToDouble(word);
+
+            default:
+                throw new IllegalArgumentException("Type " + type + " is not supported in PackedKeysMap");
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        long[] k = (long[]) key;
+        assert k.length == stride : "key must have " + stride + " words";
+        for (int slot = slotFor(k, 0); ; slot = (slot + 1) & mask) {
+            Object value = values[slot];
+            if (value == null) {
+                return null;
+            }
+            if (keyEquals(slot, k)) {
+                return (V) value;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(long[] key, V value) {
+        assert key.length == stride : "key must have " + stride + " words";
+        assert value != null : "PackedKeysMap doesn't support null values";
+        int slot = slotFor(key, 0);
+        while (values[slot] != null) {
+            if (keyEquals(slot, key)) {
+                V prev = (V) values[slot];
+                values[slot] = value;
+                return prev;
+            }
+            slot = (slot + 1) & mask;
+        }
+        System.arraycopy(key, 0, keys, slot * stride, stride);
+        values[slot] = value;
+        size++;
+        if (size >= resizeAt) {
+            resize();
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(Object key) {
+        throw new UnsupportedOperationException("remove is not supported on PackedKeysMap");
+    }
+
+    /**
+     * Removes all entries and shrinks the table back to its initial capacity, releasing the accounted memory.
+     */
+    @Override
+    public void clear() {
+        ramAccounting.addBytes(-bytesUsed(values.length));
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    /**
+     * @return the number of bytes used by the table arrays
+     */
+    public long ramBytesUsed() {
+        return bytesUsed(values.length);
+    }
+
+    @Override
+    public Set<Entry<long[], V>> entrySet() {
+        return new AbstractSet<>() {
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Iterator<Entry<long[], V>> iterator() {
+                return new EntryIterator();
+            }
+        };
+    }
+
+    private boolean keyEquals(int slot, long[] key) {
+        int offset = slot * stride;
+        for (int i = 0; i < stride; i++) {
+            if (keys[offset + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int slotFor(long[] words, int offset) {
+        long hash = 0;
+        for (int i = offset; i < offset + stride; i++) {
+            hash = 31 * hash + words[i];
+        }
+        return (int) BitMixer.mix64(hash) & mask;
+    }
+
+    private void allocate(int capacity) {
+        ramAccounting.addBytes(bytesUsed(capacity));
+        keys = new long[capacity * stride];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldValues.length << 1);
+        for (int oldSlot = 0; oldSlot < oldValues.length; oldSlot++) {
+            Object value = oldValues[oldSlot];
+            if (value == null) {
+                continue;
+            }
+            int oldOffset = oldSlot * stride;
+            int slot = slotFor(oldKeys, oldOffset);
+            while (values[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            System.arraycopy(oldKeys, oldOffset, keys, slot * stride, stride);
+            values[slot] = value;
+        }
+        ramAccounting.addBytes(-bytesUsed(oldValues.length));
+    }
+
+    private long bytesUsed(int capacity) {
+        return RamUsageEstimator.alignObjectSize(
+                   RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) capacity * stride * Long.BYTES)
+               + RamUsageEstimator.alignObjectSize(
+                   RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) capacity * RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+    }
+
+    private class EntryIterator implements Iterator<Entry<long[], V>> {
+
+        private int slot = -1;
+        private int visited = 0;
+
+        @Override
+        public boolean hasNext() {
+            return visited < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry<long[], V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("PackedKeysMap has no more entries");
+            }
+            do {
+                slot++;
+            } while (values[slot] == null);
+            visited++;
+            int offset = slot * stride;
+            return new SimpleImmutableEntry<>(Arrays.copyOfRange(keys, offset, offset + stride), (V) values[slot]);
+        }
+    }
+}
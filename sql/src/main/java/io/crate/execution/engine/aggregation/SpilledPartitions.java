@@ -0,0 +1,173 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.Streamer;
+import io.crate.execution.engine.SpillFiles;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Aggregation states which have been spilled to local files (see {@link SpillFiles}) by the {@link GroupingCollector}.
+ *
+ * <p>
+ * Entries are partitioned by the hash of their key, so all states of a key end up in the same partition
+ * and each partition can be re-aggregated on its own.
+ * Keys are written using the {@link Streamer} of the key types, states using the streamer of the
+ * {@link AggregationFunction#partialType()}.
+ * </p>
+ *
+ * <pre>
+ *  entry:  true | key1 | ... | keyN | state1 | ... | stateN
+ *  file:   entry* | false
+ * </pre>
+ */
+final class SpilledPartitions implements Closeable {
+
+    private final Streamer[] keyStreamers;
+    private final Streamer[] stateStreamers;
+    @Nullable
+    private final Path directory;
+    private final Path[] files;
+    private final StreamOutput[] outputs;
+    private boolean finishedWriting = false;
+
+    SpilledPartitions(int numPartitions,
+                      Streamer[] keyStreamers,
+                      Streamer[] stateStreamers,
+                      @Nullable Path directory) {
+        this.keyStreamers = keyStreamers;
+        this.stateStreamers = stateStreamers;
+        this.directory = directory;
+        this.files = new Path[numPartitions];
+        this.outputs = new StreamOutput[numPartitions];
+    }
+
+    int numPartitions() {
+        return files.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    void add(Object[] keyCells, Object[] states) throws IOException {
+        assert !finishedWriting : "Cannot add entries after finishWriting() has been called";
+        StreamOutput out = output(Math.floorMod(Arrays.hashCode(keyCells), files.length));
+        out.writeBoolean(true);
+        for (int i = 0; i < keyStreamers.length; i++) {
+            keyStreamers[i].writeValueTo(out, keyCells[i]);
+        }
+        for (int i = 0; i < stateStreamers.length; i++) {
+            stateStreamers[i].writeValueTo(out, states[i]);
+        }
+    }
+
+    /**
+     * Completes all partition files. Must be called once before the partitions can be read.
+     */
+    void finishWriting() throws IOException {
+        for (StreamOutput out : outputs) {
+            if (out != null) {
+                out.writeBoolean(false);
+                out.close();
+            }
+        }
+        Arrays.fill(outputs, null);
+        finishedWriting = true;
+    }
+
+    /**
+     * Reads all entries of a partition.
+     * The {@code keyCells} array passed to the consumer is re-used for each entry, the {@code states} array is not.
+     */
+    void forEachEntry(int partition, BiConsumer<Object[], Object[]> consumer) throws IOException {
+        assert finishedWriting : "finishWriting() must be called before reading partitions";
+        Path file = files[partition];
+        if (file == null) {
+            return;
+        }
+        Object[] keyCells = new Object[keyStreamers.length];
+        try (StreamInput in = new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (in.readBoolean()) {
+                for (int i = 0; i < keyStreamers.length; i++) {
+                    keyCells[i] = keyStreamers[i].readValueFrom(in);
+                }
+                Object[] states = new Object[stateStreamers.length];
+                for (int i = 0; i < stateStreamers.length; i++) {
+                    states[i] = stateStreamers[i].readValueFrom(in);
+                }
+                consumer.accept(keyCells, states);
+            }
+        }
+    }
+
+    private StreamOutput output(int partition) throws IOException {
+        StreamOutput out = outputs[partition];
+        if (out == null) {
+            Path file = SpillFiles.create(directory, "crate-group-by-");
+            files[partition] = file;
+            out = new OutputStreamStreamOutput(new BufferedOutputStream(Files.newOutputStream(file)));
+            outputs[partition] = out;
+        }
+        return out;
+    }
+
+    /**
+     * Closes any open file and removes all partition files.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (int i = 0; i < files.length; i++) {
+            try {
+                if (outputs[i] != null) {
+                    outputs[i].close();
+                    outputs[i] = null;
+                }
+                if (files[i] != null) {
+                    Files.deleteIfExists(files[i]);
+                    files[i] = null;
+                }
+            } catch (IOException e) {
+                if (exception == null) {
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
@@ -22,8 +22,12 @@
 
 package io.crate.execution.engine.collect;
 
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.carrotsearch.hppc.cursors.LongObjectCursor;
+import com.google.common.collect.Iterators;
 import io.crate.breaker.RamAccounting;
 import io.crate.breaker.StringSizeEstimator;
+import io.crate.common.collections.Lists2;
 import io.crate.data.BatchIterator;
 import io.crate.data.CollectingBatchIterator;
 import io.crate.data.Row;
@@ -51,8 +55,19 @@ import io.crate.memory.MemoryManager;
 import io.crate.metadata.Reference;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocTableInfo;
-import io.crate.types.DataTypes;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -76,10 +91,14 @@ import org.elasticsearch.index.shard.ShardId;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -109,37 +128,64 @@ final class GroupByOptimizedIterator {
     private static final double CARDINALITY_RATIO_THRESHOLD = 0.5;
     private static final long HASH_MAP_ENTRY_OVERHEAD = 32; // see private RamUsageEstimator.shallowSizeOfInstance(HashMap.Node.class)
 
+    private static final Set<Integer> NUMERIC_KEY_TYPES = Set.of(
+        ByteType.ID,
+        ShortType.ID,
+        IntegerType.ID,
+        LongType.ID,
+        TimestampType.ID_WITH_TZ,
+        TimestampType.ID_WITHOUT_TZ
+    );
+
+    /**
+     * Returns a BatchIterator which applies the group projection of the collect phase directly on the doc values
+     * if the group keys are either string columns (grouped by ordinals) or a single numeric column.
+     * Returns null if the optimization isn't applicable or if the keys have a high cardinality.
+     */
     @Nullable
-    static BatchIterator<Row> tryOptimizeSingleStringKey(IndexShard indexShard,
-                                                         DocTableInfo table,
-                                                         LuceneQueryBuilder luceneQueryBuilder,
-                                                         FieldTypeLookup fieldTypeLookup,
-                                                         BigArrays bigArrays,
-                                                         InputFactory inputFactory,
-                                                         DocInputFactory docInputFactory,
-                                                         RoutedCollectPhase collectPhase,
-                                                         CollectTask collectTask) {
+    static BatchIterator<Row> tryOptimize(IndexShard indexShard,
+                                          DocTableInfo table,
+                                          LuceneQueryBuilder luceneQueryBuilder,
+                                          FieldTypeLookup fieldTypeLookup,
+                                          BigArrays bigArrays,
+                                          InputFactory inputFactory,
+                                          DocInputFactory docInputFactory,
+                                          RoutedCollectPhase collectPhase,
+                                          CollectTask collectTask) {
         Collection<? extends Projection> shardProjections = shardProjections(collectPhase.projections());
-        GroupProjection groupProjection = getSingleStringKeyGroupProjection(shardProjections);
+        GroupProjection groupProjection = getSingleGroupProjection(shardProjections);
         if (groupProjection == null) {
             return null;
         }
-        assert groupProjection.keys().size() == 1 : "Must have 1 key if getSingleStringKeyGroupProjection returned a projection";
-        Reference keyRef = getKeyRef(collectPhase.toCollect(), groupProjection.keys().get(0));
-        if (keyRef == null) {
-            return null; // group by on non-reference
-        }
-        MappedFieldType keyFieldType = fieldTypeLookup.get(keyRef.column().fqn());
-        if (keyFieldType == null || !keyFieldType.hasDocValues()) {
+        List<Symbol> keys = groupProjection.keys();
+        boolean stringKeys = keys.stream().allMatch(key -> key.valueType().id() == StringType.ID);
+        boolean numericKey = keys.size() == 1 && NUMERIC_KEY_TYPES.contains(keys.get(0).valueType().id());
+        if (!stringKeys && !numericKey) {
             return null;
         }
+        List<MappedFieldType> keyFieldTypes = new ArrayList<>(keys.size());
+        for (Symbol key : keys) {
+            Reference keyRef = getKeyRef(collectPhase.toCollect(), key);
+            if (keyRef == null) {
+                return null; // group by on non-reference
+            }
+            MappedFieldType keyFieldType = fieldTypeLookup.get(keyRef.column().fqn());
+            if (keyFieldType == null || !keyFieldType.hasDocValues()) {
+                return null;
+            }
+            keyFieldTypes.add(keyFieldType);
+        }
         if (Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE)
             || Symbols.containsColumn(collectPhase.where(), DocSysColumns.SCORE)) {
             // We could optimize this, but since it's assumed to be an uncommon case we fallback to generic group-by
             // to keep the optimized implementation a bit simpler
             return null;
         }
-        if (hasHighCardinalityRatio(() -> indexShard.acquireSearcher("group-by-cardinality-check"), keyFieldType.name())) {
+        List<String> keyColumnNames = Lists2.map(keyFieldTypes, MappedFieldType::name);
+        Supplier<Engine.Searcher> acquireSearcher = () -> indexShard.acquireSearcher("group-by-cardinality-check");
+        if (stringKeys
+            ? hasHighCardinalityRatio(acquireSearcher, keyColumnNames)
+            : hasHighNumericCardinalityRatio(acquireSearcher, keyColumnNames.get(0))) {
             return null;
         }
 
@@ -154,7 +200,6 @@ final class GroupByOptimizedIterator {
 
             InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx = docInputFactory.getCtx(collectTask.txnCtx());
             docCtx.add(collectPhase.toCollect().stream()::iterator);
-            IndexOrdinalsFieldData keyIndexFieldData = queryShardContext.getForField(keyFieldType);
 
             InputFactory.Context<CollectExpression<Row, ?>> ctxForAggregations = inputFactory.ctxForAggregations(collectTask.txnCtx());
             ctxForAggregations.add(groupProjection.values());
@@ -180,11 +225,30 @@ final class GroupByOptimizedIterator {
                 sharedShardContext.indexService().cache()
             );
 
+            final Supplier<Grouping> grouping;
+            if (numericKey) {
+                DataType<?> keyType = keys.get(0).valueType();
+                String keyColumnName = keyColumnNames.get(0);
+                grouping = () -> new NumericKeyGrouping(keyColumnName, keyType, aggregations, ramAccounting);
+            } else {
+                List<Function<LeafReaderContext, SortedSetDocValues>> ordinalsFunctions = Lists2.map(
+                    keyFieldTypes,
+                    keyFieldType -> {
+                        IndexOrdinalsFieldData keyIndexFieldData = queryShardContext.getForField(keyFieldType);
+                        return leaf -> keyIndexFieldData.load(leaf).getOrdinalsValues();
+                    }
+                );
+                if (ordinalsFunctions.size() == 1) {
+                    grouping = () -> new SingleKeyOrdinalsGrouping(
+                        bigArrays, ordinalsFunctions.get(0), keyColumnNames.get(0), aggregations, ramAccounting);
+                } else {
+                    grouping = () -> new MultiKeyOrdinalsGrouping(
+                        ordinalsFunctions, keyColumnNames, aggregations, ramAccounting);
+                }
+            }
             return getIterator(
-                bigArrays,
                 indexSearcher,
-                leaf -> keyIndexFieldData.load(leaf).getOrdinalsValues(),
-                keyIndexFieldData.getFieldName(),
+                grouping,
                 aggregations,
                 expressions,
                 aggExpressions,
@@ -215,6 +279,34 @@ final class GroupByOptimizedIterator {
                                           Query query,
                                           CollectorContext collectorContext,
                                           AggregateMode aggregateMode) {
+        return getIterator(
+            indexSearcher,
+            () -> new SingleKeyOrdinalsGrouping(bigArrays, ordinalsFunction, keyColumnName, aggregations, ramAccounting),
+            aggregations,
+            expressions,
+            aggExpressions,
+            ramAccounting,
+            memoryManager,
+            minNodeVersion,
+            inputRow,
+            query,
+            collectorContext,
+            aggregateMode
+        );
+    }
+
+    static BatchIterator<Row> getIterator(IndexSearcher indexSearcher,
+                                          Supplier<Grouping> groupingFactory,
+                                          List<AggregationContext> aggregations,
+                                          List<? extends LuceneCollectorExpression<?>> expressions,
+                                          List<CollectExpression<Row, ?>> aggExpressions,
+                                          RamAccounting ramAccounting,
+                                          MemoryManager memoryManager,
+                                          Version minNodeVersion,
+                                          InputRow inputRow,
+                                          Query query,
+                                          CollectorContext collectorContext,
+                                          AggregateMode aggregateMode) {
         for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
             expressions.get(i).startCollect(collectorContext);
         }
@@ -226,28 +318,23 @@ final class GroupByOptimizedIterator {
             killed::set,
             () -> {
                 try {
+                    Grouping grouping = groupingFactory.get();
+                    applyAggregatesGroupedByKey(
+                        indexSearcher,
+                        grouping,
+                        aggregations,
+                        expressions,
+                        aggExpressions,
+                        ramAccounting,
+                        memoryManager,
+                        minNodeVersion,
+                        inputRow,
+                        query,
+                        killed,
+                        closed
+                    );
                     return CompletableFuture.completedFuture(
-                        getRows(
-                            applyAggregatesGroupedByKey(
-                                bigArrays,
-                                indexSearcher,
-                                ordinalsFunction,
-                                keyColumnName,
-                                aggregations,
-                                expressions,
-                                aggExpressions,
-                                ramAccounting,
-                                memoryManager,
-                                minNodeVersion,
-                                inputRow,
-                                query,
-                                killed,
-                                closed
-                            ),
-                            ramAccounting,
-                            aggregations,
-                            aggregateMode
-                        )
+                        grouping.getRows(aggregateMode)
                     );
                 } catch (Throwable t) {
                     return CompletableFuture.failedFuture(t);
@@ -258,48 +345,21 @@ final class GroupByOptimizedIterator {
 
     }
 
-    private static Iterable<Row> getRows(Map<BytesRef, Object[]> groupedStates,
-                                         RamAccounting ramAccounting,
-                                         List<AggregationContext> aggregations,
-                                         AggregateMode mode) {
-        return () -> groupedStates.entrySet().stream()
-            .map(new Function<Map.Entry<BytesRef, Object[]>, Row>() {
-
-                final Object[] cells = new Object[1 + aggregations.size()];
-                final RowN row = new RowN(cells);
-
-                @Override
-                public Row apply(Map.Entry<BytesRef, Object[]> entry) {
-                    cells[0] = BytesRefs.toString(entry.getKey());
-                    Object[] states = entry.getValue();
-                    for (int i = 0, c = 1; i < states.length; i++, c++) {
-                        //noinspection unchecked
-                        cells[c] = mode.finishCollect(ramAccounting, aggregations.get(i).function(), states[i]);
-                    }
-                    return row;
-                }
-            })
-            .iterator();
-    }
-
-    private static Map<BytesRef, Object[]> applyAggregatesGroupedByKey(BigArrays bigArrays,
-                                                                       IndexSearcher indexSearcher,
-                                                                       Function<LeafReaderContext, SortedSetDocValues> ordinalsFunction,
-                                                                       String keyColumnName,
-                                                                       List<AggregationContext> aggregations,
-                                                                       List<? extends LuceneCollectorExpression<?>> expressions,
-                                                                       List<CollectExpression<Row, ?>> aggExpressions,
-                                                                       RamAccounting ramAccounting,
-                                                                       MemoryManager memoryManager,
-                                                                       Version minNodeVersion,
-                                                                       InputRow inputRow,
-                                                                       Query query,
-                                                                       AtomicReference<Throwable> killed,
-                                                                       AtomicBoolean closed) throws IOException {
-        final Map<BytesRef, Object[]> statesByKey = new HashMap<>();
+    private static void applyAggregatesGroupedByKey(IndexSearcher indexSearcher,
+                                                    Grouping grouping,
+                                                    List<AggregationContext> aggregations,
+                                                    List<? extends LuceneCollectorExpression<?>> expressions,
+                                                    List<CollectExpression<Row, ?>> aggExpressions,
+                                                    RamAccounting ramAccounting,
+                                                    MemoryManager memoryManager,
+                                                    Version minNodeVersion,
+                                                    InputRow inputRow,
+                                                    Query query,
+                                                    AtomicReference<Throwable> killed,
+                                                    AtomicBoolean closed) throws IOException {
         final Weight weight = indexSearcher.createWeight(indexSearcher.rewrite(query), ScoreMode.COMPLETE, 1f);
         final List<LeafReaderContext> leaves = indexSearcher.getTopReaderContext().leaves();
-        Object[] nullStates = null;
+        final Runnable raiseIfClosedOrKilled = () -> raiseIfClosedOrKilled(killed, closed);
 
         for (LeafReaderContext leaf: leaves) {
             raiseIfClosedOrKilled(killed, closed);
@@ -310,8 +370,8 @@ final class GroupByOptimizedIterator {
             for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
                 expressions.get(i).setNextReader(leaf);
             }
-            SortedSetDocValues values = ordinalsFunction.apply(leaf);
-            try (ObjectArray<Object[]> statesByOrd = bigArrays.newObjectArray(values.getValueCount())) {
+            grouping.setNextReader(leaf);
+            try {
                 DocIdSetIterator docs = scorer.iterator();
                 Bits liveDocs = leaf.reader().getLiveDocs();
                 for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
@@ -325,66 +385,500 @@ final class GroupByOptimizedIterator {
                     for (int i = 0, expressionsSize = aggExpressions.size(); i < expressionsSize; i++) {
                         aggExpressions.get(i).setNextRow(inputRow);
                     }
-                    if (values.advanceExact(doc)) {
-                        long ord = values.nextOrd();
-                        Object[] states = statesByOrd.get(ord);
-                        if (states == null) {
-                            statesByOrd.set(ord, initStates(aggregations, ramAccounting, memoryManager, minNodeVersion));
-                        } else {
-                            aggregateValues(aggregations, ramAccounting, memoryManager, states);
-                        }
-                        if (values.nextOrd() != SortedSetDocValues.NO_MORE_ORDS) {
-                            throw new GroupByOnArrayUnsupportedException(keyColumnName);
-                        }
+                    Object[] states = grouping.statesForDoc(doc);
+                    if (states == null) {
+                        grouping.putStates(initStates(aggregations, ramAccounting, memoryManager, minNodeVersion));
                     } else {
-                        if (nullStates == null) {
-                            nullStates = initStates(aggregations, ramAccounting, memoryManager, minNodeVersion);
-                        } else {
-                            aggregateValues(aggregations, ramAccounting, memoryManager, nullStates);
-                        }
+                        aggregateValues(aggregations, ramAccounting, memoryManager, states);
                     }
                 }
-                for (long ord = 0; ord < statesByOrd.size(); ord++) {
-                    raiseIfClosedOrKilled(killed, closed);
-                    Object[] states = statesByOrd.get(ord);
-                    if (states == null) {
-                        continue;
+                grouping.finishReader(raiseIfClosedOrKilled);
+            } finally {
+                grouping.releaseReader();
+            }
+        }
+    }
+
+    /**
+     * Maps documents to the aggregation states of their group.
+     * <p>
+     * Groupings based on ordinals keep the states per segment in structures indexed by the segment ordinals
+     * and only resolve the ordinals to the actual key values once a segment is completed.
+     */
+    interface Grouping {
+
+        void setNextReader(LeafReaderContext leaf) throws IOException;
+
+        /**
+         * Positions the grouping on the key of {@code doc}.
+         *
+         * @return the states of the key or null if there are no states for the key yet.
+         */
+        @Nullable
+        Object[] statesForDoc(int doc) throws IOException;
+
+        /**
+         * Sets the states for the key the grouping is positioned on
+         */
+        void putStates(Object[] states);
+
+        /**
+         * Called once all documents of the current segment are processed
+         */
+        void finishReader(Runnable raiseIfClosedOrKilled) throws IOException;
+
+        /**
+         * Releases the resources of the current segment; called after {@link #finishReader(Runnable)} or on failure.
+         */
+        void releaseReader();
+
+        /**
+         * @return rows consisting of the key values followed by the finished aggregation values.
+         */
+        Iterable<Row> getRows(AggregateMode mode);
+    }
+
+    static final class SingleKeyOrdinalsGrouping implements Grouping {
+
+        private final BigArrays bigArrays;
+        private final Function<LeafReaderContext, SortedSetDocValues> ordinalsFunction;
+        private final String keyColumnName;
+        private final List<AggregationContext> aggregations;
+        private final RamAccounting ramAccounting;
+        private final Map<BytesRef, Object[]> statesByKey = new HashMap<>();
+
+        private Object[] nullStates = null;
+        private SortedSetDocValues values;
+        private ObjectArray<Object[]> statesByOrd;
+        private long currentOrd;
+
+        SingleKeyOrdinalsGrouping(BigArrays bigArrays,
+                                  Function<LeafReaderContext, SortedSetDocValues> ordinalsFunction,
+                                  String keyColumnName,
+                                  List<AggregationContext> aggregations,
+                                  RamAccounting ramAccounting) {
+            this.bigArrays = bigArrays;
+            this.ordinalsFunction = ordinalsFunction;
+            this.keyColumnName = keyColumnName;
+            this.aggregations = aggregations;
+            this.ramAccounting = ramAccounting;
+        }
+
+        @Override
+        public void setNextReader(LeafReaderContext leaf) {
+            values = ordinalsFunction.apply(leaf);
+            statesByOrd = bigArrays.newObjectArray(values.getValueCount());
+        }
+
+        @Override
+        public Object[] statesForDoc(int doc) throws IOException {
+            currentOrd = nextOrd(values, doc, keyColumnName);
+            return currentOrd == -1 ? nullStates : statesByOrd.get(currentOrd);
+        }
+
+        @Override
+        public void putStates(Object[] states) {
+            if (currentOrd == -1) {
+                nullStates = states;
+            } else {
+                statesByOrd.set(currentOrd, states);
+            }
+        }
+
+        @Override
+        public void finishReader(Runnable raiseIfClosedOrKilled) throws IOException {
+            for (long ord = 0; ord < statesByOrd.size(); ord++) {
+                raiseIfClosedOrKilled.run();
+                Object[] states = statesByOrd.get(ord);
+                if (states == null) {
+                    continue;
+                }
+                BytesRef sharedKey = values.lookupOrd(ord);
+                Object[] prevStates = statesByKey.get(sharedKey);
+                if (prevStates == null) {
+                    ramAccounting.addBytes(StringSizeEstimator.estimateSize(sharedKey) + HASH_MAP_ENTRY_OVERHEAD);
+                    statesByKey.put(BytesRef.deepCopyOf(sharedKey), states);
+                } else {
+                    reduceStates(ramAccounting, aggregations, prevStates, states);
+                }
+            }
+        }
+
+        @Override
+        public void releaseReader() {
+            if (statesByOrd != null) {
+                statesByOrd.close();
+                statesByOrd = null;
+            }
+        }
+
+        @Override
+        public Iterable<Row> getRows(AggregateMode mode) {
+            if (nullStates != null) {
+                statesByKey.put(null, nullStates);
+            }
+            return () -> statesByKey.entrySet().stream()
+                .map(new Function<Map.Entry<BytesRef, Object[]>, Row>() {
+
+                    final Object[] cells = new Object[1 + aggregations.size()];
+                    final RowN row = new RowN(cells);
+
+                    @Override
+                    public Row apply(Map.Entry<BytesRef, Object[]> entry) {
+                        cells[0] = BytesRefs.toString(entry.getKey());
+                        finishStates(ramAccounting, aggregations, mode, entry.getValue(), cells, 1);
+                        return row;
                     }
-                    BytesRef sharedKey = values.lookupOrd(ord);
-                    Object[] prevStates = statesByKey.get(sharedKey);
-                    if (prevStates == null) {
-                        ramAccounting.addBytes(StringSizeEstimator.estimateSize(sharedKey) + HASH_MAP_ENTRY_OVERHEAD);
-                        statesByKey.put(BytesRef.deepCopyOf(sharedKey), states);
-                    } else {
-                        for (int i = 0; i < aggregations.size(); i++) {
-                            AggregationContext aggregation = aggregations.get(i);
-                            //noinspection unchecked
-                            prevStates[i] = aggregation.function().reduce(
-                                ramAccounting,
-                                prevStates[i],
-                                states[i]
-                            );
+                })
+                .iterator();
+        }
+    }
+
+    /**
+     * Groups by multiple string keys. The ordinals of the keys within a segment are combined into a single
+     * composite id: {@code sum((ord_i + 1) * multiplier_i)} where {@code multiplier_i} is the product of
+     * {@code valueCount_j + 1} for all keys {@code j < i}; ordinal {@code -1} stands for a missing value.
+     * If the composite id space of a segment doesn't fit into a long, the keys of that segment are resolved
+     * per document instead.
+     */
+    static final class MultiKeyOrdinalsGrouping implements Grouping {
+
+        private final List<Function<LeafReaderContext, SortedSetDocValues>> ordinalsFunctions;
+        private final List<String> keyColumnNames;
+        private final List<AggregationContext> aggregations;
+        private final RamAccounting ramAccounting;
+        private final SortedSetDocValues[] values;
+        private final long[] multipliers;
+        private final Map<List<BytesRef>, Object[]> statesByKeys = new HashMap<>();
+
+        /**
+         * Ordinals of the keys the grouping is positioned on and the (not copied) values of these ordinals,
+         * used to look up existing groups without allocating a new key per document
+         */
+        private final long[] currentOrds;
+        private final List<BytesRef> currentKeys;
+
+        private boolean useCompositeIds;
+        private LongObjectHashMap<Object[]> statesByCompositeId;
+        private long compositeIdBytes;
+        private long currentId;
+
+        MultiKeyOrdinalsGrouping(List<Function<LeafReaderContext, SortedSetDocValues>> ordinalsFunctions,
+                                 List<String> keyColumnNames,
+                                 List<AggregationContext> aggregations,
+                                 RamAccounting ramAccounting) {
+            this.ordinalsFunctions = ordinalsFunctions;
+            this.keyColumnNames = keyColumnNames;
+            this.aggregations = aggregations;
+            this.ramAccounting = ramAccounting;
+            this.values = new SortedSetDocValues[ordinalsFunctions.size()];
+            this.multipliers = new long[ordinalsFunctions.size()];
+            this.currentOrds = new long[ordinalsFunctions.size()];
+            this.currentKeys = Arrays.asList(new BytesRef[ordinalsFunctions.size()]);
+        }
+
+        @Override
+        public void setNextReader(LeafReaderContext leaf) {
+            useCompositeIds = true;
+            long multiplier = 1;
+            for (int i = 0; i < values.length; i++) {
+                values[i] = ordinalsFunctions.get(i).apply(leaf);
+                multipliers[i] = multiplier;
+                try {
+                    multiplier = Math.multiplyExact(multiplier, values[i].getValueCount() + 1);
+                } catch (ArithmeticException e) {
+                    useCompositeIds = false;
+                }
+            }
+            statesByCompositeId = useCompositeIds ? new LongObjectHashMap<>() : null;
+        }
+
+        @Override
+        public Object[] statesForDoc(int doc) throws IOException {
+            if (useCompositeIds) {
+                long id = 0;
+                for (int i = 0; i < values.length; i++) {
+                    id += (nextOrd(values[i], doc, keyColumnNames.get(i)) + 1) * multipliers[i];
+                }
+                currentId = id;
+                return statesByCompositeId.get(id);
+            }
+            for (int i = 0; i < values.length; i++) {
+                currentOrds[i] = nextOrd(values[i], doc, keyColumnNames.get(i));
+            }
+            return statesByKeys.get(lookupCurrentKeys());
+        }
+
+        @Override
+        public void putStates(Object[] states) {
+            if (useCompositeIds) {
+                ramAccounting.addBytes(Long.BYTES + HASH_MAP_ENTRY_OVERHEAD);
+                compositeIdBytes += Long.BYTES + HASH_MAP_ENTRY_OVERHEAD;
+                statesByCompositeId.put(currentId, states);
+            } else {
+                putCurrentKeys(states);
+            }
+        }
+
+        @Override
+        public void finishReader(Runnable raiseIfClosedOrKilled) throws IOException {
+            if (!useCompositeIds) {
+                return;
+            }
+            for (LongObjectCursor<Object[]> cursor : statesByCompositeId) {
+                raiseIfClosedOrKilled.run();
+                for (int i = 0; i < values.length; i++) {
+                    currentOrds[i] = (cursor.key / multipliers[i]) % (values[i].getValueCount() + 1) - 1;
+                }
+                Object[] prevStates = statesByKeys.get(lookupCurrentKeys());
+                if (prevStates == null) {
+                    putCurrentKeys(cursor.value);
+                } else {
+                    reduceStates(ramAccounting, aggregations, prevStates, cursor.value);
+                }
+            }
+        }
+
+        @Override
+        public void releaseReader() {
+            statesByCompositeId = null;
+            ramAccounting.addBytes(-compositeIdBytes);
+            compositeIdBytes = 0;
+        }
+
+        private List<BytesRef> lookupCurrentKeys() throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                long ord = currentOrds[i];
+                currentKeys.set(i, ord == -1 ? null : values[i].lookupOrd(ord));
+            }
+            return currentKeys;
+        }
+
+        /**
+         * Adds a group for the current ordinals; only the keys of new groups are copied
+         */
+        private void putCurrentKeys(Object[] states) throws IOException {
+            ArrayList<BytesRef> keys = new ArrayList<>(values.length);
+            for (int i = 0; i < values.length; i++) {
+                long ord = currentOrds[i];
+                keys.add(ord == -1 ? null : BytesRef.deepCopyOf(values[i].lookupOrd(ord)));
+            }
+            ramAccounting.addBytes(keysSize(keys) + HASH_MAP_ENTRY_OVERHEAD);
+            statesByKeys.put(keys, states);
+        }
+
+        @Override
+        public Iterable<Row> getRows(AggregateMode mode) {
+            int numKeys = values.length;
+            return () -> statesByKeys.entrySet().stream()
+                .map(new Function<Map.Entry<List<BytesRef>, Object[]>, Row>() {
+
+                    final Object[] cells = new Object[numKeys + aggregations.size()];
+                    final RowN row = new RowN(cells);
+
+                    @Override
+                    public Row apply(Map.Entry<List<BytesRef>, Object[]> entry) {
+                        List<BytesRef> keys = entry.getKey();
+                        for (int i = 0; i < numKeys; i++) {
+                            cells[i] = BytesRefs.toString(keys.get(i));
                         }
+                        finishStates(ramAccounting, aggregations, mode, entry.getValue(), cells, numKeys);
+                        return row;
                     }
+                })
+                .iterator();
+        }
+
+        private static long keysSize(List<BytesRef> keys) {
+            long size = 0;
+            for (BytesRef key : keys) {
+                size += StringSizeEstimator.estimateSize(key);
+            }
+            return size;
+        }
+    }
+
+    /**
+     * Groups by a single numeric key. The doc values of numeric columns are the actual values,
+     * so no remapping between segments is necessary and the states are kept in a primitive map.
+     */
+    static final class NumericKeyGrouping implements Grouping {
+
+        private final String keyColumnName;
+        private final DataType<?> keyType;
+        private final List<AggregationContext> aggregations;
+        private final RamAccounting ramAccounting;
+        private final LongObjectHashMap<Object[]> statesByKey = new LongObjectHashMap<>();
+
+        private Object[] nullStates = null;
+        private SortedNumericDocValues values;
+        private long currentKey;
+        private boolean currentKeyIsNull;
+
+        NumericKeyGrouping(String keyColumnName,
+                           DataType<?> keyType,
+                           List<AggregationContext> aggregations,
+                           RamAccounting ramAccounting) {
+            this.keyColumnName = keyColumnName;
+            this.keyType = keyType;
+            this.aggregations = aggregations;
+            this.ramAccounting = ramAccounting;
+        }
+
+        @Override
+        public void setNextReader(LeafReaderContext leaf) throws IOException {
+            values = DocValues.getSortedNumeric(leaf.reader(), keyColumnName);
+        }
+
+        @Override
+        public Object[] statesForDoc(int doc) throws IOException {
+            if (values.advanceExact(doc)) {
+                if (values.docValueCount() != 1) {
+                    throw new GroupByOnArrayUnsupportedException(keyColumnName);
                 }
+                currentKeyIsNull = false;
+                currentKey = values.nextValue();
+                return statesByKey.get(currentKey);
+            }
+            currentKeyIsNull = true;
+            return nullStates;
+        }
+
+        @Override
+        public void putStates(Object[] states) {
+            if (currentKeyIsNull) {
+                nullStates = states;
+            } else {
+                ramAccounting.addBytes(Long.BYTES + HASH_MAP_ENTRY_OVERHEAD);
+                statesByKey.put(currentKey, states);
             }
         }
-        if (nullStates != null) {
-            statesByKey.put(null, nullStates);
+
+        @Override
+        public void finishReader(Runnable raiseIfClosedOrKilled) {
+        }
+
+        @Override
+        public void releaseReader() {
+        }
+
+        @Override
+        public Iterable<Row> getRows(AggregateMode mode) {
+            Object[] cells = new Object[1 + aggregations.size()];
+            RowN row = new RowN(cells);
+            return () -> {
+                Iterator<Row> rows = Iterators.transform(statesByKey.iterator(), cursor -> {
+                    cells[0] = keyType.value(cursor.key);
+                    finishStates(ramAccounting, aggregations, mode, cursor.value, cells, 1);
+                    return row;
+                });
+                if (nullStates == null) {
+                    return rows;
+                }
+                return Iterators.concat(rows, Iterators.transform(Iterators.singletonIterator(nullStates), states -> {
+                    cells[0] = null;
+                    finishStates(ramAccounting, aggregations, mode, states, cells, 1);
+                    return row;
+                }));
+            };
+        }
+    }
+
+    /**
+     * @return the ordinal of the value of {@code doc} or -1 if the document has no value
+     */
+    private static long nextOrd(SortedSetDocValues values, int doc, String keyColumnName) throws IOException {
+        if (values.advanceExact(doc)) {
+            long ord = values.nextOrd();
+            if (values.nextOrd() != SortedSetDocValues.NO_MORE_ORDS) {
+                throw new GroupByOnArrayUnsupportedException(keyColumnName);
+            }
+            return ord;
+        }
+        return -1;
+    }
+
+    private static void reduceStates(RamAccounting ramAccounting,
+                                     List<AggregationContext> aggregations,
+                                     Object[] prevStates,
+                                     Object[] states) {
+        for (int i = 0; i < aggregations.size(); i++) {
+            AggregationContext aggregation = aggregations.get(i);
+            //noinspection unchecked
+            prevStates[i] = aggregation.function().reduce(
+                ramAccounting,
+                prevStates[i],
+                states[i]
+            );
+        }
+    }
+
+    private static void finishStates(RamAccounting ramAccounting,
+                                     List<AggregationContext> aggregations,
+                                     AggregateMode mode,
+                                     Object[] states,
+                                     Object[] cells,
+                                     int offset) {
+        for (int i = 0, c = offset; i < states.length; i++, c++) {
+            //noinspection unchecked
+            cells[c] = mode.finishCollect(ramAccounting, aggregations.get(i).function(), states[i]);
         }
-        return statesByKey;
     }
 
     static boolean hasHighCardinalityRatio(Supplier<Engine.Searcher> acquireSearcher, String fieldName) {
+        return hasHighCardinalityRatio(acquireSearcher, List.of(fieldName));
+    }
+
+    static boolean hasHighCardinalityRatio(Supplier<Engine.Searcher> acquireSearcher, List<String> fieldNames) {
         // acquire separate searcher:
         // Can't use sharedShardContexts() yet, if we bail out the "getOrCreateContext" causes issues later on in the fallback logic
         try (Engine.Searcher searcher = acquireSearcher.get()) {
             for (LeafReaderContext leaf : searcher.reader().leaves()) {
-                Terms terms = leaf.reader().terms(fieldName);
-                if (terms == null) {
+                // The number of distinct combinations is at most the product of the number of terms of the keys
+                double combinations = 1;
+                for (String fieldName : fieldNames) {
+                    Terms terms = leaf.reader().terms(fieldName);
+                    if (terms == null) {
+                        return true;
+                    }
+                    combinations *= terms.size();
+                }
+                double cardinalityRatio = combinations / leaf.reader().numDocs();
+                if (cardinalityRatio > CARDINALITY_RATIO_THRESHOLD) {
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Numeric columns have no terms, the number of distinct values of a segment is instead bounded by the
+     * range of its points and by the number of points.
+     */
+    static boolean hasHighNumericCardinalityRatio(Supplier<Engine.Searcher> acquireSearcher, String fieldName) {
+        try (Engine.Searcher searcher = acquireSearcher.get()) {
+            for (LeafReaderContext leaf : searcher.reader().leaves()) {
+                PointValues points = leaf.reader().getPointValues(fieldName);
+                if (points == null) {
                     return true;
                 }
-                double cardinalityRatio = terms.size() / (double) leaf.reader().numDocs();
+                double range;
+                switch (points.getBytesPerDimension()) {
+                    case Integer.BYTES:
+                        range = (double) IntPoint.decodeDimension(points.getMaxPackedValue(), 0)
+                                - IntPoint.decodeDimension(points.getMinPackedValue(), 0) + 1;
+                        break;
+                    case Long.BYTES:
+                        range = (double) LongPoint.decodeDimension(points.getMaxPackedValue(), 0)
+                                - LongPoint.decodeDimension(points.getMinPackedValue(), 0) + 1;
+                        break;
+                    default:
+                        return true;
+                }
+                double cardinalityRatio = Math.min(range, points.size()) / leaf.reader().numDocs();
                 if (cardinalityRatio > CARDINALITY_RATIO_THRESHOLD) {
                     return true;
                 }
@@ -453,7 +947,8 @@ final class GroupByOptimizedIterator {
         return null;
     }
 
-    private static GroupProjection getSingleStringKeyGroupProjection(Collection<? extends Projection> shardProjections) {
+    @Nullable
+    private static GroupProjection getSingleGroupProjection(Collection<? extends Projection> shardProjections) {
         if (shardProjections.size() != 1) {
             return null;
         }
@@ -461,11 +956,7 @@ final class GroupByOptimizedIterator {
         if (!(shardProjection instanceof GroupProjection)) {
             return null;
         }
-        GroupProjection groupProjection = (GroupProjection) shardProjection;
-        if (groupProjection.keys().size() != 1 || groupProjection.keys().get(0).valueType() != DataTypes.STRING) {
-            return null;
-        }
-        return groupProjection;
+        return (GroupProjection) shardProjection;
     }
 
     private static void raiseIfClosedOrKilled(AtomicReference<Throwable> killed, AtomicBoolean closed) {
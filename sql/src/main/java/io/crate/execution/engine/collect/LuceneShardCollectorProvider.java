@@ -21,10 +21,12 @@
 
 package io.crate.execution.engine.collect;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.crate.data.BatchIterator;
 import io.crate.data.Row;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.engine.collect.collectors.LeafSlices;
 import io.crate.execution.engine.collect.collectors.LuceneBatchIterator;
 import io.crate.execution.engine.collect.collectors.LuceneOrderedDocCollector;
 import io.crate.execution.engine.collect.collectors.OptimizeQueryForSearchAfter;
@@ -49,6 +51,9 @@ import io.crate.metadata.table.Operation;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Sort;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
@@ -62,6 +67,8 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -78,6 +85,9 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     private final FieldTypeLookup fieldTypeLookup;
     private final DocTableInfo table;
 
+    @VisibleForTesting
+    int minDocsPerSlice = LeafSlices.MIN_DOCS_PER_SLICE;
+
     public LuceneShardCollectorProvider(Schemas schemas,
                                         LuceneQueryBuilder luceneQueryBuilder,
                                         ClusterService clusterService,
@@ -124,34 +134,56 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     protected BatchIterator<Row> getUnorderedIterator(RoutedCollectPhase collectPhase,
                                                       boolean requiresScroll,
                                                       CollectTask collectTask) {
+        return getUnorderedIterators(collectPhase, requiresScroll, collectTask, 1).get(0);
+    }
+
+    @Override
+    protected List<BatchIterator<Row>> getUnorderedIterators(RoutedCollectPhase collectPhase,
+                                                             boolean requiresScroll,
+                                                             CollectTask collectTask,
+                                                             int maxSlices) {
         ShardId shardId = indexShard.shardId();
         SharedShardContext sharedShardContext = collectTask.sharedShardContexts().getOrCreateContext(shardId);
         Engine.Searcher searcher = sharedShardContext.acquireSearcher(formatSource(collectPhase));
         IndexShard indexShard = sharedShardContext.indexShard();
         try {
-            QueryShardContext queryShardContext = sharedShardContext.indexService().newQueryShardContext();
-            LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
-                collectPhase.where(),
-                collectTask.txnCtx(),
-                indexShard.mapperService(),
-                indexShard.shardId().getIndexName(),
-                queryShardContext,
-                table,
-                sharedShardContext.indexService().cache()
+            IndexService indexService = sharedShardContext.indexService();
+            IndexSearcher indexSearcher = searcher.searcher();
+            List<List<LeafReaderContext>> slices = LeafSlices.create(
+                indexSearcher.getTopReaderContext().leaves(),
+                maxSlices,
+                minDocsPerSlice
             );
+            boolean doScores = Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE);
+            ArrayList<BatchIterator<Row>> iterators = new ArrayList<>(slices.size());
+            for (List<LeafReaderContext> slice : slices) {
+                // Slices may be consumed concurrently, so each needs its own query, expressions and field data lookup.
+                // Queries like the GenericFunctionQuery hold per reader state and must not be shared.
+                QueryShardContext queryShardContext = indexService.newQueryShardContext();
+                LuceneQueryBuilder.Context queryContext = luceneQueryBuilder.convert(
+                    collectPhase.where(),
+                    collectTask.txnCtx(),
+                    indexShard.mapperService(),
+                    indexShard.shardId().getIndexName(),
+                    queryShardContext,
+                    table,
+                    indexService.cache()
+                );
+                InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
+                    docInputFactory.extractImplementations(collectTask.txnCtx(), collectPhase);
+                iterators.add(new LuceneBatchIterator(
+                    indexSearcher,
+                    queryContext.query(),
+                    queryContext.minScore(),
+                    doScores,
+                    getCollectorContext(sharedShardContext.readerId(), queryShardContext::getForField),
+                    docCtx.topLevelInputs(),
+                    docCtx.expressions(),
+                    slice
+                ));
+            }
             collectTask.addSearcher(sharedShardContext.readerId(), searcher);
-            InputFactory.Context<? extends LuceneCollectorExpression<?>> docCtx =
-                docInputFactory.extractImplementations(collectTask.txnCtx(), collectPhase);
-
-            return new LuceneBatchIterator(
-                searcher.searcher(),
-                queryContext.query(),
-                queryContext.minScore(),
-                Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
-                getCollectorContext(sharedShardContext.readerId(), queryShardContext::getForField),
-                docCtx.topLevelInputs(),
-                docCtx.expressions()
-            );
+            return iterators;
         } catch (Throwable t) {
             searcher.close();
             throw t;
@@ -161,7 +193,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     @Nullable
     @Override
     protected BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase, CollectTask collectTask) {
-        return GroupByOptimizedIterator.tryOptimizeSingleStringKey(
+        return GroupByOptimizedIterator.tryOptimize(
             indexShard,
             table,
             luceneQueryBuilder,
@@ -214,6 +246,15 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                 sharedShardContext.indexShard().shardId(),
                 batchSize);
         }
+        Sort sort = LuceneSortGenerator.indexSortPrefix(
+            collectPhase.orderBy(),
+            indexShard.indexSettings().getIndexSortConfig(),
+            indexShard.getIndexSort()
+        );
+        if (sort == null) {
+            sort = LuceneSortGenerator.generateLuceneSort(
+                collectTask.txnCtx(), collectorContext, collectPhase.orderBy(), docInputFactory, fieldTypeLookup);
+        }
         OptimizeQueryForSearchAfter optimizeQueryForSearchAfter = new OptimizeQueryForSearchAfter(
             collectPhase.orderBy(),
             queryContext.queryShardContext(),
@@ -229,7 +270,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             collectTask.getRamAccounting(),
             collectorContext,
             optimizeQueryForSearchAfter,
-            LuceneSortGenerator.generateLuceneSort(collectTask.txnCtx(), collectorContext, collectPhase.orderBy(), docInputFactory, fieldTypeLookup),
+            sort,
             ctx.topLevelInputs(),
             ctx.expressions()
         );
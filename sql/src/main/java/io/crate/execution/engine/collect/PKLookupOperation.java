@@ -38,9 +38,9 @@ import io.crate.expression.reference.Doc;
 import io.crate.expression.reference.doc.lucene.SourceFieldVisitor;
 import io.crate.memory.MemoryManager;
 import io.crate.metadata.TransactionContext;
+import io.crate.metadata.doc.SourceFormat;
 import io.crate.planner.operators.PKAndVersion;
 import org.apache.lucene.index.Term;
-import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.VersionType;
@@ -146,8 +146,8 @@ public final class PKLookupOperation {
                 docIdAndVersion.version,
                 docIdAndVersion.seqNo,
                 docIdAndVersion.primaryTerm,
-                convertToMap(visitor.source(), false, XContentType.JSON).v2(),
-                () -> visitor.source().utf8ToString()
+                convertToMap(visitor.source(), false, SourceFormat.detect(visitor.source())).v2(),
+                () -> SourceFormat.toJsonString(visitor.source())
             );
         }
     }
@@ -22,13 +22,20 @@
 
 package io.crate.execution.engine.collect;
 
+import com.google.common.annotations.VisibleForTesting;
 import io.crate.analyze.QueryClause;
+import io.crate.common.collections.Lists2;
 import io.crate.data.BatchIterator;
 import io.crate.data.InMemoryBatchIterator;
 import io.crate.data.Row;
 import io.crate.data.SentinelRow;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.dsl.projection.AggregationProjection;
+import io.crate.execution.dsl.projection.EvalProjection;
+import io.crate.execution.dsl.projection.FilterProjection;
+import io.crate.execution.dsl.projection.GroupProjection;
+import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.dsl.projection.Projections;
 import io.crate.execution.engine.collect.collectors.OrderedDocCollector;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
@@ -39,6 +46,7 @@ import io.crate.execution.jobs.SharedShardContext;
 import io.crate.expression.InputFactory;
 import io.crate.expression.eval.EvaluatingNormalizer;
 import io.crate.expression.reference.sys.shard.ShardRowContext;
+import io.crate.expression.symbol.AggregateMode;
 import io.crate.metadata.Functions;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.Schemas;
@@ -50,6 +58,8 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
 
 public abstract class ShardCollectorProvider {
 
@@ -98,6 +108,22 @@ public abstract class ShardCollectorProvider {
     public BatchIterator<Row> getIterator(RoutedCollectPhase collectPhase,
                                           boolean requiresScroll,
                                           CollectTask collectTask) throws Exception {
+        List<BatchIterator<Row>> iterators = getIterators(collectPhase, requiresScroll, collectTask, 1);
+        assert iterators.size() == 1 : "Must return a single iterator if maxSlices is 1";
+        return iterators.get(0);
+    }
+
+    /**
+     * Like {@link #getIterator(RoutedCollectPhase, boolean, CollectTask)}, but if {@code maxSlices} is greater than
+     * one and the shard projections aggregate the rows, the shard may be split into up to {@code maxSlices} slices.
+     * Each slice is collected and aggregated by its own iterator, so the iterators can be consumed concurrently.
+     * The partial results of the slices are merged by the node projections, the same way as the results of
+     * different shards.
+     */
+    public List<BatchIterator<Row>> getIterators(RoutedCollectPhase collectPhase,
+                                                 boolean requiresScroll,
+                                                 CollectTask collectTask,
+                                                 int maxSlices) throws Exception {
         assert collectPhase.orderBy() == null
             : "getDocCollector shouldn't be called if there is an orderBy on the collectPhase";
         assert collectPhase.maxRowGranularity() == RowGranularity.DOC :
@@ -106,23 +132,56 @@ public abstract class ShardCollectorProvider {
         RoutedCollectPhase normalizedCollectNode = collectPhase.normalize(shardNormalizer, null);
         BatchIterator<Row> fusedIterator = getProjectionFusedIterator(normalizedCollectNode, collectTask);
         if (fusedIterator != null) {
-            return fusedIterator;
+            return List.of(fusedIterator);
         }
-        final BatchIterator<Row> iterator;
+        Collection<? extends Projection> shardProjections = Projections.shardProjections(collectPhase.projections());
+        final List<BatchIterator<Row>> iterators;
         if (QueryClause.canMatch(normalizedCollectNode.where())) {
-            iterator = getUnorderedIterator(normalizedCollectNode, requiresScroll, collectTask);
+            if (maxSlices > 1 && canCollectInSlices(shardProjections)) {
+                iterators = getUnorderedIterators(normalizedCollectNode, requiresScroll, collectTask, maxSlices);
+            } else {
+                iterators = List.of(getUnorderedIterator(normalizedCollectNode, requiresScroll, collectTask));
+            }
         } else {
-            iterator = InMemoryBatchIterator.empty(SentinelRow.SENTINEL);
+            iterators = List.of(InMemoryBatchIterator.empty(SentinelRow.SENTINEL));
         }
-        return Projectors.wrap(
-            Projections.shardProjections(collectPhase.projections()),
+        return Lists2.map(iterators, iterator -> Projectors.wrap(
+            shardProjections,
             collectPhase.jobId(),
             collectTask.txnCtx(),
             collectTask.getRamAccounting(),
             collectTask.memoryManager(),
             projectorFactory,
             iterator
-        );
+        ));
+    }
+
+    /**
+     * Slices can only be collected independently if the shard projections reduce the rows to partial aggregation
+     * results, which are merged afterwards. Any other projection (e.g. a limit, a writer or a final aggregation)
+     * depends on seeing all rows of the shard.
+     */
+    @VisibleForTesting
+    static boolean canCollectInSlices(Collection<? extends Projection> shardProjections) {
+        boolean aggregates = false;
+        for (Projection projection : shardProjections) {
+            if (aggregates) {
+                return false;
+            }
+            if (projection instanceof FilterProjection || projection instanceof EvalProjection) {
+                continue;
+            }
+            if (projection instanceof AggregationProjection
+                && ((AggregationProjection) projection).mode() == AggregateMode.ITER_PARTIAL) {
+                aggregates = true;
+            } else if (projection instanceof GroupProjection
+                       && ((GroupProjection) projection).mode() == AggregateMode.ITER_PARTIAL) {
+                aggregates = true;
+            } else {
+                return false;
+            }
+        }
+        return aggregates;
     }
 
     /**
@@ -138,6 +197,17 @@ public abstract class ShardCollectorProvider {
                                                                boolean requiresScroll,
                                                                CollectTask collectTask);
 
+    /**
+     * @return iterators which together expose the same rows as {@link #getUnorderedIterator}, each covering a slice
+     *         of the shard. Implementations which can't split a shard return a single iterator.
+     */
+    protected List<BatchIterator<Row>> getUnorderedIterators(RoutedCollectPhase collectPhase,
+                                                             boolean requiresScroll,
+                                                             CollectTask collectTask,
+                                                             int maxSlices) {
+        return List.of(getUnorderedIterator(collectPhase, requiresScroll, collectTask));
+    }
+
 
     public abstract OrderedDocCollector getOrderedCollector(RoutedCollectPhase collectPhase,
                                                             SharedShardContext sharedShardContext,
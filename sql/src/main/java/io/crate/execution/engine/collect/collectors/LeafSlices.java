@@ -0,0 +1,87 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.collectors;
+
+import org.apache.lucene.index.LeafReaderContext;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Splits the segments of a shard into slices which can be collected independently.
+ * Segments are never split; a shard with a single large segment results in a single slice.
+ */
+public final class LeafSlices {
+
+    /**
+     * Minimum number of documents a slice should contain. Collecting smaller slices concurrently
+     * isn't worth the overhead of the additional iterators and aggregation states.
+     */
+    public static final int MIN_DOCS_PER_SLICE = 250_000;
+
+    private LeafSlices() {
+    }
+
+    /**
+     * Distributes the leaves over at most {@code maxSlices} slices, so that the number of documents per slice
+     * is roughly balanced and each slice contains at least {@code minDocsPerSlice} documents.
+     *
+     * @return the slices; always contains at least one (possibly empty) slice.
+     */
+    public static List<List<LeafReaderContext>> create(List<LeafReaderContext> leaves,
+                                                       int maxSlices,
+                                                       int minDocsPerSlice) {
+        if (maxSlices <= 1 || leaves.size() <= 1) {
+            return List.of(leaves);
+        }
+        long totalDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            totalDocs += leaf.reader().maxDoc();
+        }
+        long numSlices = Math.min(Math.min(maxSlices, leaves.size()), totalDocs / Math.max(1, minDocsPerSlice));
+        if (numSlices <= 1) {
+            return List.of(leaves);
+        }
+        ArrayList<LeafReaderContext> sortedLeaves = new ArrayList<>(leaves);
+        sortedLeaves.sort(Comparator.comparingInt((LeafReaderContext leaf) -> leaf.reader().maxDoc()).reversed());
+
+        int numSlicesInt = (int) numSlices;
+        ArrayList<List<LeafReaderContext>> slices = new ArrayList<>(numSlicesInt);
+        long[] docsPerSlice = new long[numSlicesInt];
+        for (int i = 0; i < numSlicesInt; i++) {
+            slices.add(new ArrayList<>());
+        }
+        for (LeafReaderContext leaf : sortedLeaves) {
+            int smallest = 0;
+            for (int i = 1; i < numSlicesInt; i++) {
+                if (docsPerSlice[i] < docsPerSlice[smallest]) {
+                    smallest = i;
+                }
+            }
+            slices.get(smallest).add(leaf);
+            docsPerSlice[smallest] += leaf.reader().maxDoc();
+        }
+        return slices;
+    }
+}
@@ -79,6 +79,30 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
                                CollectorContext collectorContext,
                                List<? extends Input<?>> inputs,
                                Collection<? extends LuceneCollectorExpression<?>> expressions) {
+        this(
+            indexSearcher,
+            query,
+            minScore,
+            doScores,
+            collectorContext,
+            inputs,
+            expressions,
+            indexSearcher.getTopReaderContext().leaves()
+        );
+    }
+
+    /**
+     * Creates a BatchIterator which only visits the given {@code leaves}, which must be a subset of the leaves of
+     * the {@code indexSearcher}. Used to collect different slices of a shard with separate iterators.
+     */
+    public LuceneBatchIterator(IndexSearcher indexSearcher,
+                               Query query,
+                               @Nullable Float minScore,
+                               boolean doScores,
+                               CollectorContext collectorContext,
+                               List<? extends Input<?>> inputs,
+                               Collection<? extends LuceneCollectorExpression<?>> expressions,
+                               List<LeafReaderContext> leaves) {
         this.indexSearcher = indexSearcher;
         this.query = query;
         this.doScores = doScores || minScore != null;
@@ -86,7 +110,7 @@ public class LuceneBatchIterator implements BatchIterator<Row> {
         this.collectorContext = collectorContext;
         this.row = new InputRow(inputs);
         this.expressions = expressions.toArray(new LuceneCollectorExpression[0]);
-        leaves = indexSearcher.getTopReaderContext().leaves();
+        this.leaves = leaves;
         leavesIt = leaves.iterator();
     }
 
@@ -23,8 +23,12 @@ package io.crate.execution.engine.collect.count;
 
 import com.carrotsearch.hppc.IntIndexedContainer;
 import com.carrotsearch.hppc.cursors.IntCursor;
+import io.crate.common.collections.Lists2;
+import io.crate.execution.engine.collect.collectors.LeafSlices;
 import io.crate.execution.support.ThreadPools;
+import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
 import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.metadata.IndexParts;
 import io.crate.metadata.RelationName;
@@ -33,11 +37,17 @@ import io.crate.metadata.TransactionContext;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.table.Operation;
 
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.index.Index;
@@ -45,27 +55,34 @@ import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ThreadPoolExecutor;
-import java.util.function.Function;
+import java.util.function.IntSupplier;
 import java.util.function.Supplier;
 
 @Singleton
 public class InternalCountOperation implements CountOperation {
 
+    private static final MergePartialCountFunction MERGE_PARTIAL_COUNTS = new MergePartialCountFunction();
+
     private final LuceneQueryBuilder queryBuilder;
     private final IndicesService indicesService;
     private final ClusterService clusterService;
     private final ThreadPoolExecutor executor;
     private final int numProcessors;
     private final Schemas schemas;
+    private final SegmentCountCache segmentCountCache = new SegmentCountCache(SegmentCountCache.DEFAULT_MAX_BYTES);
 
     @Inject
     public InternalCountOperation(Settings settings,
@@ -86,7 +103,7 @@ public class InternalCountOperation implements CountOperation {
     public CompletableFuture<Long> count(TransactionContext txnCtx,
                                          Map<String, IntIndexedContainer> indexShardMap,
                                          Symbol filter) {
-        List<Supplier<Long>> suppliers = new ArrayList<>();
+        List<ShardId> shardIds = new ArrayList<>();
         MetaData metaData = clusterService.state().getMetaData();
         for (Map.Entry<String, IntIndexedContainer> entry : indexShardMap.entrySet()) {
             String indexName = entry.getKey();
@@ -99,59 +116,150 @@ public class InternalCountOperation implements CountOperation {
             }
             final Index index = indexMetaData.getIndex();
             for (IntCursor shardCursor : entry.getValue()) {
-                int shardValue = shardCursor.value;
-                suppliers.add(() -> {
-                    try {
-                        return count(txnCtx, index, shardValue, filter);
-                    } catch (IOException | InterruptedException e) {
-                        throw new RuntimeException(e);
-                    }
-                });
+                shardIds.add(new ShardId(index, shardCursor.value));
             }
         }
-        MergePartialCountFunction mergeFunction = new MergePartialCountFunction();
-        CompletableFuture<List<Long>> futurePartialCounts = ThreadPools.runWithAvailableThreads(
+        IntSupplier availableThreads = ThreadPools.numIdleThreads(executor, numProcessors);
+        // Use idle threads which aren't needed to count the shards concurrently to count slices of the shards
+        int maxSlicesPerShard = Math.max(1, availableThreads.getAsInt() / Math.max(1, shardIds.size()));
+        ConcurrentLinkedQueue<Engine.Searcher> searchers = new ConcurrentLinkedQueue<>();
+        List<Supplier<ShardCount>> suppliers = Lists2.map(shardIds, shardId -> () -> {
+            try {
+                return prepareCount(txnCtx, shardId.getIndex(), shardId.id(), filter, maxSlicesPerShard, searchers);
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        CompletableFuture<List<ShardCount>> futureShardCounts = ThreadPools.runWithAvailableThreads(
             executor,
-            ThreadPools.numIdleThreads(executor, numProcessors),
+            availableThreads,
             suppliers
         );
-        return futurePartialCounts.thenApply(mergeFunction);
+        return futureShardCounts
+            .thenCompose(shardCounts -> countSlices(shardCounts, availableThreads))
+            .whenComplete((result, err) -> Releasables.close(searchers));
+    }
+
+    private CompletableFuture<Long> countSlices(List<ShardCount> shardCounts, IntSupplier availableThreads) {
+        long count = 0L;
+        List<Supplier<Long>> sliceCounts = new ArrayList<>();
+        for (ShardCount shardCount : shardCounts) {
+            count += shardCount.count;
+            sliceCounts.addAll(shardCount.sliceCounts);
+        }
+        if (sliceCounts.isEmpty()) {
+            return CompletableFuture.completedFuture(count);
+        }
+        long shardsCount = count;
+        return ThreadPools.runWithAvailableThreads(executor, availableThreads, sliceCounts)
+            .thenApply(partialCounts -> shardsCount + MERGE_PARTIAL_COUNTS.apply(partialCounts));
     }
 
     @Override
     public long count(TransactionContext txnCtx, Index index, int shardId, Symbol filter) throws IOException, InterruptedException {
+        ArrayList<Engine.Searcher> searchers = new ArrayList<>(1);
+        try {
+            ShardCount shardCount = prepareCount(txnCtx, index, shardId, filter, 1, searchers);
+            assert shardCount.sliceCounts.isEmpty() : "Shard must be counted in a single slice";
+            return shardCount.count;
+        } finally {
+            Releasables.close(searchers);
+        }
+    }
+
+    /**
+     * Counts the documents of a shard matching the filter. If the shard is split into more than one slice,
+     * the returned {@link ShardCount} contains the suppliers to count the slices, which can be run concurrently.
+     * The acquired searcher is added to {@code searchers} and must be closed once all slices are counted.
+     */
+    private ShardCount prepareCount(TransactionContext txnCtx,
+                                    Index index,
+                                    int shardId,
+                                    Symbol filter,
+                                    int maxSlices,
+                                    Collection<Engine.Searcher> searchers) throws IOException, InterruptedException {
         IndexService indexService;
         try {
             indexService = indicesService.indexServiceSafe(index);
         } catch (IndexNotFoundException e) {
             if (IndexParts.isPartitioned(index.getName())) {
-                return 0L;
+                return new ShardCount(0L, List.of());
             }
             throw e;
         }
 
         IndexShard indexShard = indexService.getShard(shardId);
-        try (Engine.Searcher searcher = indexShard.acquireSearcher("count-operation")) {
-            String indexName = indexShard.shardId().getIndexName();
-            var relationName = RelationName.fromIndexName(indexName);
-            DocTableInfo table = schemas.getTableInfo(relationName, Operation.READ);
-            LuceneQueryBuilder.Context queryCtx = queryBuilder.convert(
-                filter,
-                txnCtx,
-                indexService.mapperService(),
-                indexName,
-                indexService.newQueryShardContext(),
-                table,
-                indexService.cache()
-            );
-            if (Thread.interrupted()) {
-                throw new InterruptedException("thread interrupted during count-operation");
-            }
-            return searcher.searcher().count(queryCtx.query());
+        Engine.Searcher searcher = indexShard.acquireSearcher("count-operation");
+        searchers.add(searcher);
+        String indexName = indexShard.shardId().getIndexName();
+        var relationName = RelationName.fromIndexName(indexName);
+        DocTableInfo table = schemas.getTableInfo(relationName, Operation.READ);
+        if (Thread.interrupted()) {
+            throw new InterruptedException("thread interrupted during count-operation");
+        }
+        IndexSearcher indexSearcher = searcher.searcher();
+        boolean cacheable = !SymbolVisitors.any(InternalCountOperation::isNonDeterministic, filter);
+        List<List<LeafReaderContext>> slices = LeafSlices.create(
+            indexSearcher.getIndexReader().leaves(),
+            maxSlices,
+            LeafSlices.MIN_DOCS_PER_SLICE
+        );
+        if (slices.size() == 1) {
+            Query query = toQuery(txnCtx, filter, indexService, indexName, table, indexSearcher);
+            Weight weight = indexSearcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1f);
+            return new ShardCount(segmentCountCache.count(slices.get(0), query, weight, cacheable), List.of());
+        }
+        ArrayList<Supplier<Long>> sliceCounts = new ArrayList<>(slices.size());
+        for (List<LeafReaderContext> slice : slices) {
+            // Slices are counted concurrently. Queries like the GenericFunctionQuery hold per reader state,
+            // so each slice needs its own query and weight.
+            Query query = toQuery(txnCtx, filter, indexService, indexName, table, indexSearcher);
+            Weight weight = indexSearcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1f);
+            sliceCounts.add(() -> {
+                try {
+                    return segmentCountCache.count(slice, query, weight, cacheable);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return new ShardCount(0L, sliceCounts);
+    }
+
+    private Query toQuery(TransactionContext txnCtx,
+                          Symbol filter,
+                          IndexService indexService,
+                          String indexName,
+                          DocTableInfo table,
+                          IndexSearcher indexSearcher) throws IOException {
+        LuceneQueryBuilder.Context queryCtx = queryBuilder.convert(
+            filter,
+            txnCtx,
+            indexService.mapperService(),
+            indexName,
+            indexService.newQueryShardContext(),
+            table,
+            indexService.cache()
+        );
+        return indexSearcher.rewrite(queryCtx.query());
+    }
+
+    private static boolean isNonDeterministic(Symbol symbol) {
+        return symbol instanceof Function && !((Function) symbol).info().isDeterministic();
+    }
+
+    private static class ShardCount {
+
+        private final long count;
+        private final List<Supplier<Long>> sliceCounts;
+
+        ShardCount(long count, List<Supplier<Long>> sliceCounts) {
+            this.count = count;
+            this.sliceCounts = sliceCounts;
         }
     }
 
-    private static class MergePartialCountFunction implements Function<List<Long>, Long> {
+    private static class MergePartialCountFunction implements java.util.function.Function<List<Long>, Long> {
 
         @Override
         public Long apply(List<Long> partialResults) {
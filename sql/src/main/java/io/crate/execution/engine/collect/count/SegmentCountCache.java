@@ -0,0 +1,183 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.count;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.BulkScorer;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Accountable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the documents of segments matching a query and caches the per segment results.
+ * <p>
+ * Segments are immutable apart from deletions, and deletions within a segment only ever grow.
+ * The combination of the segment core key and the number of deleted documents therefore identifies
+ * the set of live documents of a segment, and a count for it never becomes stale.
+ * <p>
+ * The entries of a segment are removed once its core is closed. The size of the cache is bounded by the
+ * estimated memory of the entries, which is dominated by the queries they are keyed on.
+ */
+final class SegmentCountCache {
+
+    static final long DEFAULT_MAX_BYTES = 10 * 1024 * 1024;
+
+    // same as LRUQueryCache.QUERY_DEFAULT_RAM_BYTES_USED, used for queries which aren't Accountable
+    private static final long QUERY_DEFAULT_RAM_BYTES_USED = 1024;
+    private static final long ENTRY_OVERHEAD = 128;
+
+    private final Cache<Key, Integer> cache;
+    private final Set<IndexReader.CacheKey> registeredCoreKeys = ConcurrentHashMap.newKeySet();
+
+    SegmentCountCache(long maxBytes) {
+        cache = CacheBuilder.newBuilder()
+            .maximumWeight(maxBytes)
+            .weigher((Key key, Integer count) -> (int) Math.min(Integer.MAX_VALUE, key.ramBytesUsed()))
+            .build();
+    }
+
+    /**
+     * @param cacheable false if the query must be evaluated on every call,
+     *                  e.g. because it contains non-deterministic functions.
+     */
+    long count(List<LeafReaderContext> leaves, Query query, Weight weight, boolean cacheable) throws IOException {
+        long count = 0L;
+        for (LeafReaderContext leaf : leaves) {
+            count += count(leaf, query, weight, cacheable);
+        }
+        return count;
+    }
+
+    private int count(LeafReaderContext leaf, Query query, Weight weight, boolean cacheable) throws IOException {
+        LeafReader reader = leaf.reader();
+        IndexReader.CacheHelper coreCacheHelper = reader.getCoreCacheHelper();
+        if (!cacheable || coreCacheHelper == null) {
+            return countLeaf(leaf, query, weight);
+        }
+        IndexReader.CacheKey coreKey = coreCacheHelper.getKey();
+        if (registeredCoreKeys.add(coreKey)) {
+            coreCacheHelper.addClosedListener(this::evict);
+        }
+        Key key = new Key(coreKey, reader.numDeletedDocs(), query);
+        Integer count = cache.getIfPresent(key);
+        if (count == null) {
+            count = countLeaf(leaf, query, weight);
+            cache.put(key, count);
+        }
+        return count;
+    }
+
+    private void evict(IndexReader.CacheKey coreKey) {
+        registeredCoreKeys.remove(coreKey);
+        cache.asMap().keySet().removeIf(key -> key.coreKey == coreKey);
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    /**
+     * Same as {@link org.apache.lucene.search.IndexSearcher#count(Query)} but for a single segment:
+     * Match-all and term queries are answered from the segment statistics, other queries are evaluated
+     * by iterating over the matching documents.
+     */
+    static int countLeaf(LeafReaderContext leaf, Query query, Weight weight) throws IOException {
+        LeafReader reader = leaf.reader();
+        if (query instanceof MatchAllDocsQuery) {
+            return reader.numDocs();
+        }
+        if (query instanceof TermQuery && !reader.hasDeletions()) {
+            return reader.docFreq(((TermQuery) query).getTerm());
+        }
+        BulkScorer scorer = weight.bulkScorer(leaf);
+        if (scorer == null) {
+            return 0;
+        }
+        int[] count = new int[] { 0 };
+        scorer.score(new LeafCollector() {
+
+            @Override
+            public void setScorer(Scorable scorer) {
+            }
+
+            @Override
+            public void collect(int doc) {
+                count[0]++;
+            }
+        }, reader.getLiveDocs());
+        return count[0];
+    }
+
+    private static final class Key {
+
+        private final IndexReader.CacheKey coreKey;
+        private final int numDeletedDocs;
+        private final Query query;
+
+        Key(IndexReader.CacheKey coreKey, int numDeletedDocs, Query query) {
+            this.coreKey = coreKey;
+            this.numDeletedDocs = numDeletedDocs;
+            this.query = query;
+        }
+
+        long ramBytesUsed() {
+            long queryBytes = query instanceof Accountable
+                ? ((Accountable) query).ramBytesUsed()
+                : QUERY_DEFAULT_RAM_BYTES_USED;
+            return ENTRY_OVERHEAD + queryBytes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return numDeletedDocs == key.numDeletedDocs
+                   && coreKey.equals(key.coreKey)
+                   && query.equals(key.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(coreKey, numDeletedDocs, query);
+        }
+    }
+}
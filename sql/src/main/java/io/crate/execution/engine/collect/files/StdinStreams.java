@@ -0,0 +1,67 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.files;
+
+import org.elasticsearch.common.inject.Singleton;
+
+import javax.annotation.Nullable;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Node local registry of the streams client connections provide for {@code COPY FROM STDIN}.
+ * <p>
+ * A protocol handler registers the stream under an id before it executes the statement,
+ * the collect phase then reads it using a {@code stdin:///<id>} uri, see {@link StdinFileInput}.
+ */
+@Singleton
+public class StdinStreams {
+
+    public static final String SCHEME = "stdin";
+
+    private final ConcurrentMap<String, InputStream> streams = new ConcurrentHashMap<>();
+
+    public static String uri(String id) {
+        return SCHEME + ":///" + id;
+    }
+
+    public void register(String id, InputStream stream) {
+        InputStream previous = streams.putIfAbsent(id, stream);
+        if (previous != null) {
+            throw new IllegalStateException("A stream with id " + id + " is already registered");
+        }
+    }
+
+    public void unregister(String id) {
+        streams.remove(id);
+    }
+
+    /**
+     * Removes and returns the stream registered under the id; a stream can only be consumed once.
+     */
+    @Nullable
+    InputStream claim(String id) {
+        return streams.remove(id);
+    }
+}
@@ -403,6 +403,7 @@ public class ShardCollectSource implements CollectSource {
 
         MetaData metaData = clusterService.state().metaData();
         List<BatchIterator<Row>> iterators = new ArrayList<>();
+        int maxSlicesPerShard = maxSlicesPerShard(collectPhase, indexShards);
         for (Map.Entry<String, IntIndexedContainer> entry : indexShards.entrySet()) {
             String indexName = entry.getKey();
             IndexMetaData indexMD = metaData.index(indexName);
@@ -425,12 +426,12 @@ public class ShardCollectSource implements CollectSource {
                 ShardId shardId = new ShardId(index, shardCursor.value);
                 try {
                     ShardCollectorProvider shardCollectorProvider = getCollectorProviderSafe(shardId);
-                    BatchIterator<Row> iterator = shardCollectorProvider.getIterator(
+                    iterators.addAll(shardCollectorProvider.getIterators(
                         collectPhase,
                         requiresScroll,
-                        collectTask
-                    );
-                    iterators.add(iterator);
+                        collectTask,
+                        maxSlicesPerShard
+                    ));
                 } catch (ShardNotFoundException | IllegalIndexShardStateException e) {
                     // If toCollect contains a docId it means that this is a QueryThenFetch operation.
                     // In such a case RemoteCollect cannot be used because on that node the FetchTask is missing
@@ -454,6 +455,21 @@ public class ShardCollectSource implements CollectSource {
         return iterators;
     }
 
+    /**
+     * Shards which are aggregated can be split into slices which are collected concurrently if there are fewer
+     * local shards than idle search threads; otherwise the shards alone already utilize the available threads.
+     */
+    private int maxSlicesPerShard(RoutedCollectPhase collectPhase, Map<String, IntIndexedContainer> indexShards) {
+        if (!Projections.hasAnyShardProjections(collectPhase.projections())) {
+            return 1;
+        }
+        int numShards = 0;
+        for (IntIndexedContainer shardIds : indexShards.values()) {
+            numShards += shardIds.size();
+        }
+        return Math.max(1, availableThreads.getAsInt() / Math.max(1, numShards));
+    }
+
     private Iterable<Row> getShardsIterator(TransactionContext txnCtx, RoutedCollectPhase collectPhase, String localNodeId) {
         Map<String, Map<String, IntIndexedContainer>> locations = collectPhase.routing().locations();
         List<UnassignedShard> unassignedShards = new ArrayList<>();
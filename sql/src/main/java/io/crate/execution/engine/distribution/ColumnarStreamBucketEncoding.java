@@ -0,0 +1,373 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import io.crate.Streamer;
+import io.crate.breaker.StringSizeEstimator;
+import io.crate.data.Row;
+import io.crate.types.ByteType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column oriented encoding of the rows of a {@link StreamBucket}, used to reduce the size of buckets sent over the wire.
+ *
+ * <ul>
+ *     <li>Text columns with repeating values are dictionary encoded per bucket</li>
+ *     <li>Integral and timestamp columns are delta encoded with zig-zag variable length longs</li>
+ *     <li>All other columns are written column by column with their {@link Streamer}</li>
+ * </ul>
+ *
+ * The columns are built while rows are added to a bucket, see {@link Columns}.
+ */
+final class ColumnarStreamBucketEncoding {
+
+    private static final byte PLAIN = 0;
+    private static final byte DICTIONARY = 1;
+    private static final byte DELTA = 2;
+
+    private ColumnarStreamBucketEncoding() {
+    }
+
+    /**
+     * @return true if at least one of the columns can be encoded in a more compact form than {@link #PLAIN}
+     */
+    static boolean hasEncodableColumn(Streamer<?>[] streamers) {
+        for (Streamer<?> streamer : streamers) {
+            if (isEncodable(streamer)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isEncodable(Streamer<?> streamer) {
+        return streamer instanceof StringType || isIntegral(streamer);
+    }
+
+    /**
+     * Collects the values of the rows added to a bucket column by column.
+     * <p>
+     * Values of columns which are dictionary or delta encoded are kept until the bucket is built, because their
+     * encoding depends on all values of the column. All other columns are written to their own stream right away.
+     */
+    static final class Columns {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final Streamer<?>[] streamers;
+        private final Object[][] values;
+        private final BytesStreamOutput[] plainColumns;
+        private int size = 0;
+        private long plainBytes = 0;
+
+        Columns(Streamer<?>[] streamers) {
+            this.streamers = streamers;
+            this.values = new Object[streamers.length][];
+            this.plainColumns = new BytesStreamOutput[streamers.length];
+            for (int c = 0; c < streamers.length; c++) {
+                if (isEncodable(streamers[c])) {
+                    values[c] = new Object[INITIAL_CAPACITY];
+                } else {
+                    plainColumns[c] = new BytesStreamOutput();
+                }
+            }
+        }
+
+        /**
+         * @return the number of bytes the row added to the columns
+         */
+        @SuppressWarnings("unchecked")
+        long add(Row row) throws IOException {
+            long bytes = 0;
+            for (int c = 0; c < streamers.length; c++) {
+                Object value = row.get(c);
+                Object[] columnValues = values[c];
+                if (columnValues == null) {
+                    ((Streamer<Object>) streamers[c]).writeValueTo(plainColumns[c], value);
+                    continue;
+                }
+                if (size == columnValues.length) {
+                    columnValues = Arrays.copyOf(columnValues, size << 1);
+                    values[c] = columnValues;
+                    bytes += (long) size * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+                }
+                columnValues[size] = value;
+                bytes += value instanceof String
+                    ? StringSizeEstimator.estimate((String) value)
+                    : RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + Long.BYTES;
+            }
+            size++;
+            long newPlainBytes = 0;
+            for (BytesStreamOutput plainColumn : plainColumns) {
+                if (plainColumn != null) {
+                    newPlainBytes += plainColumn.size();
+                }
+            }
+            bytes += newPlainBytes - plainBytes;
+            plainBytes = newPlainBytes;
+            return bytes;
+        }
+
+        /**
+         * @return the columnar encoded rows or null if every column would be {@link #PLAIN};
+         *         in that case the columnar encoding doesn't pay off and {@link #rowBytes()} should be used instead.
+         */
+        @Nullable
+        BytesReference encode() throws IOException {
+            Dictionary[] dictionaries = new Dictionary[streamers.length];
+            boolean allPlain = true;
+            for (int c = 0; c < streamers.length; c++) {
+                Streamer<?> streamer = streamers[c];
+                if (streamer instanceof StringType) {
+                    Dictionary dictionary = Dictionary.build(values[c], size);
+                    if (dictionary.paysOff(size)) {
+                        dictionaries[c] = dictionary;
+                        allPlain = false;
+                    }
+                } else if (isIntegral(streamer)) {
+                    allPlain = false;
+                }
+            }
+            if (allPlain) {
+                return null;
+            }
+            BytesStreamOutput out = new BytesStreamOutput();
+            for (int c = 0; c < streamers.length; c++) {
+                Streamer<?> streamer = streamers[c];
+                if (dictionaries[c] != null) {
+                    dictionaries[c].writeTo(out);
+                } else if (isIntegral(streamer)) {
+                    writeDeltas(out, values[c], size);
+                } else if (values[c] != null) {
+                    writePlain(out, streamer, values[c], size);
+                } else {
+                    out.writeByte(PLAIN);
+                    plainColumns[c].bytes().writeTo(out);
+                }
+            }
+            return out.bytes();
+        }
+
+        /**
+         * @return the values row by row, each written with the {@link Streamer} of its column
+         */
+        @SuppressWarnings("unchecked")
+        BytesReference rowBytes() throws IOException {
+            StreamInput[] plainInputs = new StreamInput[streamers.length];
+            for (int c = 0; c < streamers.length; c++) {
+                if (plainColumns[c] != null) {
+                    plainInputs[c] = plainColumns[c].bytes().streamInput();
+                }
+            }
+            BytesStreamOutput out = new BytesStreamOutput();
+            for (int r = 0; r < size; r++) {
+                for (int c = 0; c < streamers.length; c++) {
+                    Streamer<Object> streamer = (Streamer<Object>) streamers[c];
+                    Object value = values[c] == null ? streamer.readValueFrom(plainInputs[c]) : values[c][r];
+                    streamer.writeValueTo(out, value);
+                }
+            }
+            return out.bytes();
+        }
+
+        void reset() {
+            for (int c = 0; c < streamers.length; c++) {
+                if (values[c] == null) {
+                    plainColumns[c] = new BytesStreamOutput();
+                } else {
+                    Arrays.fill(values[c], 0, size, null);
+                }
+            }
+            size = 0;
+            plainBytes = 0;
+        }
+    }
+
+    static Object[][] decode(Streamer<?>[] streamers, int size, StreamInput in) throws IOException {
+        Object[][] columns = new Object[streamers.length][];
+        for (int c = 0; c < streamers.length; c++) {
+            Streamer<?> streamer = streamers[c];
+            Object[] values = new Object[size];
+            byte encoding = in.readByte();
+            switch (encoding) {
+                case DICTIONARY:
+                    readDictionary(in, values);
+                    break;
+
+                case DELTA:
+                    readDeltas(in, streamer, values);
+                    break;
+
+                case PLAIN:
+                    for (int r = 0; r < size; r++) {
+                        values[r] = streamer.readValueFrom(in);
+                    }
+                    break;
+
+                default:
+                    throw new IllegalStateException("Invalid column encoding: " + encoding);
+            }
+            columns[c] = values;
+        }
+        return columns;
+    }
+
+    private static boolean isIntegral(Streamer<?> streamer) {
+        return streamer instanceof ByteType
+               || streamer instanceof ShortType
+               || streamer instanceof IntegerType
+               || streamer instanceof LongType
+               || streamer instanceof TimestampType;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writePlain(BytesStreamOutput out, Streamer<?> streamer, Object[] values, int size) throws IOException {
+        out.writeByte(PLAIN);
+        for (int r = 0; r < size; r++) {
+            ((Streamer<Object>) streamer).writeValueTo(out, values[r]);
+        }
+    }
+
+    private static final class Dictionary {
+
+        private final List<String> values;
+        private final int[] valueIds;
+
+        private Dictionary(List<String> values, int[] valueIds) {
+            this.values = values;
+            this.valueIds = valueIds;
+        }
+
+        static Dictionary build(Object[] values, int size) {
+            ObjectIntHashMap<Object> ids = new ObjectIntHashMap<>();
+            List<String> dictionary = new ArrayList<>();
+            int[] valueIds = new int[size];
+            for (int r = 0; r < size; r++) {
+                Object value = values[r];
+                if (value == null) {
+                    continue;
+                }
+                int id = ids.getOrDefault(value, 0);
+                if (id == 0) {
+                    dictionary.add((String) value);
+                    id = dictionary.size();
+                    ids.put(value, id);
+                }
+                valueIds[r] = id;
+            }
+            return new Dictionary(dictionary, valueIds);
+        }
+
+        /**
+         * A dictionary only pays off if values repeat
+         */
+        boolean paysOff(int size) {
+            return values.size() * 2 <= size;
+        }
+
+        void writeTo(BytesStreamOutput out) throws IOException {
+            out.writeByte(DICTIONARY);
+            out.writeVInt(values.size());
+            for (String value : values) {
+                out.writeString(value);
+            }
+            for (int id : valueIds) {
+                out.writeVInt(id);
+            }
+        }
+    }
+
+    private static void readDictionary(StreamInput in, Object[] values) throws IOException {
+        String[] dictionary = new String[in.readVInt()];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = in.readString();
+        }
+        for (int r = 0; r < values.length; r++) {
+            int id = in.readVInt();
+            values[r] = id == 0 ? null : dictionary[id - 1];
+        }
+    }
+
+    private static void writeDeltas(BytesStreamOutput out, Object[] values, int size) throws IOException {
+        out.writeByte(DELTA);
+        byte[] nulls = null;
+        for (int r = 0; r < size; r++) {
+            if (values[r] == null) {
+                if (nulls == null) {
+                    nulls = new byte[(size + 7) / 8];
+                }
+                nulls[r >> 3] |= 1 << (r & 7);
+            }
+        }
+        if (nulls == null) {
+            out.writeBoolean(false);
+        } else {
+            out.writeBoolean(true);
+            out.writeByteArray(nulls);
+        }
+        long previous = 0;
+        for (int r = 0; r < size; r++) {
+            Object value = values[r];
+            if (value != null) {
+                long current = ((Number) value).longValue();
+                out.writeZLong(current - previous);
+                previous = current;
+            }
+        }
+    }
+
+    private static void readDeltas(StreamInput in, Streamer<?> streamer, Object[] values) throws IOException {
+        byte[] nulls = in.readBoolean() ? in.readByteArray() : null;
+        long previous = 0;
+        for (int r = 0; r < values.length; r++) {
+            if (nulls != null && (nulls[r >> 3] & (1 << (r & 7))) != 0) {
+                continue;
+            }
+            previous += in.readZLong();
+            if (streamer instanceof ByteType) {
+                values[r] = (byte) previous;
+            } else if (streamer instanceof ShortType) {
+                values[r] = (short) previous;
+            } else if (streamer instanceof IntegerType) {
+                values[r] = (int) previous;
+            } else {
+                values[r] = previous;
+            }
+        }
+    }
+}
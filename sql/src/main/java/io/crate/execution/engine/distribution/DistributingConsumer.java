@@ -33,6 +33,7 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 
 import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -47,8 +48,10 @@ import java.util.concurrent.atomic.AtomicInteger;
  * The rows from the source {@link BatchIterator} are "bucketed" using a {@link MultiBucketBuilder}. So a downstream
  * can either receive a part of the data or all data.
  *
- * Every time requests to the downstreams are made consumption of the source BatchIterator is stopped until a response
- * from all downstreams is received.
+ * While the requests of a page are in flight the next page is already produced. Consumption of the source
+ * BatchIterator is stopped once that page is complete and continues after a response from all downstreams is received.
+ * Downstreams grant credits for more than one page (see {@link io.crate.execution.jobs.CumulativePageBucketReceiver})
+ * and respond as soon as they buffered a page, so a slow downstream doesn't stall the upstream on every page.
  */
 public class DistributingConsumer implements RowConsumer {
 
@@ -70,6 +73,26 @@ public class DistributingConsumer implements RowConsumer {
 
     private volatile Throwable failure;
 
+    private final Object lock = new Object();
+
+    /**
+     * true while requests of a page are in flight
+     */
+    @GuardedBy("lock")
+    private boolean requestsInFlight = false;
+
+    @GuardedBy("lock")
+    private boolean lastPageInFlight = false;
+
+    /**
+     * true if a complete page has been produced while requests of the previous page are in flight
+     */
+    @GuardedBy("lock")
+    private boolean pageReady = false;
+
+    @GuardedBy("lock")
+    private boolean pageReadyIsLast = false;
+
     public DistributingConsumer(Logger logger,
                                 Executor responseExecutor,
                                 UUID jobId,
@@ -117,12 +140,15 @@ public class DistributingConsumer implements RowConsumer {
             while (it.moveNext()) {
                 multiBucketBuilder.add(it.currentElement());
                 if (multiBucketBuilder.size() >= pageSize || multiBucketBuilder.ramBytesUsed() >= Paging.MAX_PAGE_BYTES) {
-                    forwardResults(it, false);
+                    if (pageComplete(it, false)) {
+                        // page has been sent, continue to produce the next page while the requests are in flight
+                        continue;
+                    }
                     return;
                 }
             }
             if (it.allLoaded()) {
-                forwardResults(it, true);
+                pageComplete(it, true);
             } else {
                 it.loadNextBatch().whenComplete((r, t) -> {
                     if (t == null) {
@@ -187,6 +213,57 @@ public class DistributingConsumer implements RowConsumer {
         }
     }
 
+    /**
+     * Sends the page of the {@link #multiBucketBuilder} or, if requests of the previous page are still in flight,
+     * marks it as ready to be sent once they've been answered.
+     *
+     * @return true if the page has been sent and the producer should continue with the next page.
+     */
+    private boolean pageComplete(BatchIterator<Row> it, boolean isLast) {
+        synchronized (lock) {
+            if (requestsInFlight) {
+                pageReady = true;
+                pageReadyIsLast = isLast;
+                return false;
+            }
+            requestsInFlight = true;
+            lastPageInFlight = isLast;
+        }
+        return sendPageOrFinish(it, isLast);
+    }
+
+    /**
+     * @return true if the page has been sent and the producer should continue with the next page.
+     */
+    private boolean sendPageOrFinish(BatchIterator<Row> it, boolean isLast) {
+        if (downstreams.stream().anyMatch(Downstream::needsMoreData)) {
+            if (failure == null) {
+                forwardResults(it, isLast);
+                return isLast == false;
+            } else {
+                forwardFailure(it, failure);
+                return false;
+            }
+        }
+        finish(it);
+        return false;
+    }
+
+    private void finish(BatchIterator<Row> it) {
+        if (failure != null && downstreams.stream().anyMatch(Downstream::needsMoreData)) {
+            forwardFailure(it, failure);
+            return;
+        }
+        // If we've a failure we either communicated it to the other downstreams already,
+        // or were able to send results to all downstreams. In either case, *this* operation succeeded and the
+        // downstreams need to deal with failures.
+
+        // The NodeDisconnectJobMonitorService takes care of node disconnects, so we don't have to manage
+        // that scenario.
+        it.close();
+        completionFuture.complete(null);
+    }
+
     private void forwardResults(BatchIterator<Row> it, boolean isLast) {
         multiBucketBuilder.build(buckets);
 
@@ -194,7 +271,7 @@ public class DistributingConsumer implements RowConsumer {
         for (int i = 0; i < downstreams.size(); i++) {
             Downstream downstream = downstreams.get(i);
             if (downstream.needsMoreData == false) {
-                countdownAndMaybeContinue(it, numActiveRequests, true);
+                countdownAndMaybeContinue(it, numActiveRequests);
                 continue;
             }
             if (traceEnabled) {
@@ -208,7 +285,7 @@ public class DistributingConsumer implements RowConsumer {
                     @Override
                     public void onResponse(DistributedResultResponse response) {
                         downstream.needsMoreData = response.needMore();
-                        countdownAndMaybeContinue(it, numActiveRequests, false);
+                        countdownAndMaybeContinue(it, numActiveRequests);
                     }
 
                     @Override
@@ -216,40 +293,45 @@ public class DistributingConsumer implements RowConsumer {
                         failure = e;
                         downstream.needsMoreData = false;
                         // continue because it's necessary to send something to downstreams still waiting for data
-                        countdownAndMaybeContinue(it, numActiveRequests, false);
+                        countdownAndMaybeContinue(it, numActiveRequests);
                     }
                 }
             );
         }
     }
 
-    private void countdownAndMaybeContinue(BatchIterator<Row> it, AtomicInteger numActiveRequests, boolean sameExecutor) {
+    private void countdownAndMaybeContinue(BatchIterator<Row> it, AtomicInteger numActiveRequests) {
         if (numActiveRequests.decrementAndGet() == 0) {
-            if (downstreams.stream().anyMatch(Downstream::needsMoreData)) {
-                if (failure == null) {
-                    if (sameExecutor) {
+            final boolean isLast;
+            final boolean allPagesSent;
+            synchronized (lock) {
+                requestsInFlight = false;
+                allPagesSent = lastPageInFlight;
+                if (allPagesSent == false && pageReady == false) {
+                    // the producer is still busy with the next page and sends it once it's complete
+                    return;
+                }
+                isLast = pageReadyIsLast;
+                if (allPagesSent == false) {
+                    pageReady = false;
+                    requestsInFlight = true;
+                    lastPageInFlight = isLast;
+                }
+            }
+            if (allPagesSent) {
+                finish(it);
+                return;
+            }
+            // try to dispatch to different executor, if it fails, forward the error in the same thread
+            try {
+                responseExecutor.execute(() -> {
+                    if (sendPageOrFinish(it, isLast)) {
                         consumeIt(it);
-                    } else {
-                        // try to dispatch to different executor, if it fails, forward the error in the same thread
-                        try {
-                            responseExecutor.execute(() -> consumeIt(it));
-                        } catch (EsRejectedExecutionException e) {
-                            failure = e;
-                            forwardFailure(it, failure);
-                        }
                     }
-                } else {
-                    forwardFailure(it, failure);
-                }
-            } else {
-                // If we've a failure we either communicated it to the other downstreams already,
-                // or were able to send results to all downstreams. In either case, *this* operation succeeded and the
-                // downstreams need to deal with failures.
-
-                // The NodeDisconnectJobMonitorService takes care of node disconnects, so we don't have to manage
-                // that scenario.
-                it.close();
-                completionFuture.complete(null);
+                });
+            } catch (EsRejectedExecutionException e) {
+                failure = e;
+                forwardFailure(it, failure);
             }
         }
     }
@@ -257,7 +339,7 @@ public class DistributingConsumer implements RowConsumer {
     private static class Downstream {
 
         private final String nodeId;
-        private boolean needsMoreData = true;
+        private volatile boolean needsMoreData = true;
 
         Downstream(String nodeId) {
             this.nodeId = nodeId;
@@ -28,6 +28,7 @@ import io.crate.data.Bucket;
 import io.crate.data.Row;
 import io.crate.data.RowN;
 import org.apache.lucene.util.Accountable;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -45,9 +46,25 @@ import static java.util.Objects.requireNonNull;
 
 public class StreamBucket implements Bucket, Writeable {
 
+    /**
+     * {@link #bytes} contain the values row by row, each written with the {@link Streamer} of its column
+     */
+    private static final byte ROWS = 0;
+
+    /**
+     * {@link #bytes} contain the values column by column, see {@link ColumnarStreamBucketEncoding}
+     */
+    private static final byte COLUMNS = 1;
+
+    /**
+     * Buckets with less rows are sent row by row, the columnar encoding wouldn't pay off.
+     */
+    private static final int MIN_ROWS_FOR_COLUMNAR_ENCODING = 8;
+
     private Streamer<?>[] streamers;
     private int size = -1;
     private BytesReference bytes;
+    private byte encoding = ROWS;
 
     public static class Builder implements Accountable {
 
@@ -55,6 +72,12 @@ public class StreamBucket implements Bucket, Writeable {
         private final RamAccounting ramAccounting;
         private final Streamer<?>[] streamers;
 
+        /**
+         * Null if none of the columns profits from the columnar encoding, the rows are written as they are then.
+         */
+        @Nullable
+        private final ColumnarStreamBucketEncoding.Columns columns;
+
         private int size = 0;
         private BytesStreamOutput out;
         private int prevOutSize = 0;
@@ -63,13 +86,26 @@ public class StreamBucket implements Bucket, Writeable {
             this.ramAccounting = requireNonNull(ramAccounting, "RamAccounting must not be null");
             assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
             this.streamers = streamers;
-            out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            if (ColumnarStreamBucketEncoding.hasEncodableColumn(streamers)) {
+                columns = new ColumnarStreamBucketEncoding.Columns(streamers);
+            } else {
+                columns = null;
+                out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            }
         }
 
         public void add(Row row) {
             assert streamers.length == row.numColumns() : "number of streamer must match row size";
 
             size++;
+            if (columns != null) {
+                try {
+                    ramAccounting.addBytes(columns.add(row));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
             for (int i = 0; i < row.numColumns(); i++) {
                 try {
                     //noinspection unchecked
@@ -85,12 +121,30 @@ public class StreamBucket implements Bucket, Writeable {
         public StreamBucket build() {
             StreamBucket sb = new StreamBucket(streamers);
             sb.size = size;
-            sb.bytes = out.bytes();
+            if (columns == null) {
+                sb.bytes = out.bytes();
+                return sb;
+            }
+            try {
+                BytesReference columnarBytes = size < MIN_ROWS_FOR_COLUMNAR_ENCODING ? null : columns.encode();
+                if (columnarBytes == null) {
+                    sb.bytes = columns.rowBytes();
+                } else {
+                    sb.encoding = COLUMNS;
+                    sb.bytes = columnarBytes;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
             return sb;
         }
 
         public void reset() {
-            out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            if (columns == null) {
+                out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            } else {
+                columns.reset();
+            }
             size = 0;
         }
 
@@ -171,6 +225,36 @@ public class StreamBucket implements Bucket, Writeable {
         }
     }
 
+    private static class ColumnsRowIterator implements Iterator<Row> {
+
+        private final Object[][] columns;
+        private final int size;
+        private final Object[] current;
+        private final RowN row;
+        private int pos = 0;
+
+        private ColumnsRowIterator(Object[][] columns, int size) {
+            this.columns = columns;
+            this.size = size;
+            current = new Object[columns.length];
+            row = new RowN(current);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < size;
+        }
+
+        @Override
+        public Row next() {
+            for (int c = 0; c < columns.length; c++) {
+                current[c] = columns[c][pos];
+            }
+            pos++;
+            return row;
+        }
+    }
+
     @Override
     @Nonnull
     public Iterator<Row> iterator() {
@@ -179,6 +263,9 @@ public class StreamBucket implements Bucket, Writeable {
         }
         assert streamers != null : "streamers must not be null";
         try {
+            if (encoding == COLUMNS) {
+                return new ColumnsRowIterator(ColumnarStreamBucketEncoding.decode(streamers, size, bytes.streamInput()), size);
+            }
             return new RowIterator(bytes.streamInput(), streamers, size);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -201,6 +288,9 @@ public class StreamBucket implements Bucket, Writeable {
     public StreamBucket(StreamInput in) throws IOException {
         size = in.readVInt();
         if (size > 0) {
+            if (in.getVersion().onOrAfter(Version.V_4_2_0)) {
+                encoding = in.readByte();
+            }
             bytes = in.readBytesReference();
         }
     }
@@ -217,7 +307,27 @@ public class StreamBucket implements Bucket, Writeable {
         assert size > -1 : "size must be > -1";
         out.writeVInt(size);
         if (size > 0) {
-            out.writeBytesReference(bytes);
+            if (out.getVersion().onOrAfter(Version.V_4_2_0)) {
+                out.writeByte(encoding);
+                out.writeBytesReference(bytes);
+            } else {
+                out.writeBytesReference(rowBytes());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private BytesReference rowBytes() throws IOException {
+        if (encoding == ROWS) {
+            return bytes;
+        }
+        assert streamers != null : "streamers are required to convert a columnar encoded bucket";
+        BytesStreamOutput out = new BytesStreamOutput();
+        for (Row row : this) {
+            for (int c = 0; c < streamers.length; c++) {
+                ((Streamer<Object>) streamers[c]).writeValueTo(out, row.get(c));
+            }
         }
+        return out.bytes();
     }
 }
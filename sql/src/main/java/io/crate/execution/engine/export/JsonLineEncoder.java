@@ -0,0 +1,99 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export;
+
+import io.crate.data.Row;
+import io.crate.exceptions.UnhandledServerException;
+import io.crate.execution.dsl.projection.WriterProjection;
+import io.crate.metadata.ColumnIdent;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Encodes a row into the same JSON line {@link FileWriterCountCollector} writes to a file,
+ * without the trailing new line. Used to stream {@code COPY TO STDOUT} results to the client.
+ *
+ * <p>
+ * The row is expected to contain the outputs of the copy relation:
+ * <ul>
+ *     <li>the values of the selected columns if {@code outputNames} are given</li>
+ *     <li>the document followed by the values of the {@code overwriteColumns} if these are not empty</li>
+ *     <li>the raw source otherwise</li>
+ * </ul>
+ */
+public final class JsonLineEncoder implements Function<Row, String> {
+
+    private final WriterProjection.OutputFormat outputFormat;
+    @Nullable
+    private final List<String> outputNames;
+    private final List<ColumnIdent> overwriteColumns;
+
+    public JsonLineEncoder(WriterProjection.OutputFormat outputFormat,
+                           @Nullable List<String> outputNames,
+                           List<ColumnIdent> overwriteColumns) {
+        this.outputFormat = outputFormat;
+        this.outputNames = outputNames;
+        this.overwriteColumns = overwriteColumns;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public String apply(Row row) {
+        try {
+            if (!overwriteColumns.isEmpty()) {
+                Map<ColumnIdent, Object> overwrites = new HashMap<>();
+                for (int i = 0; i < overwriteColumns.size(); i++) {
+                    overwrites.put(overwriteColumns.get(i), row.get(i + 1));
+                }
+                Map<String, Object> doc = (Map<String, Object>) row.get(0);
+                XContentHelper.update(doc, FileWriterCountCollector.toNestedStringObjectMap(overwrites), false);
+                return Strings.toString(XContentFactory.jsonBuilder().map(doc));
+            } else if (outputFormat == WriterProjection.OutputFormat.JSON_ARRAY) {
+                XContentBuilder builder = XContentFactory.jsonBuilder().startArray();
+                for (int i = 0; i < row.numColumns(); i++) {
+                    builder.value(row.get(i));
+                }
+                return Strings.toString(builder.endArray());
+            } else if (outputNames != null && outputFormat == WriterProjection.OutputFormat.JSON_OBJECT) {
+                XContentBuilder builder = XContentFactory.jsonBuilder().startObject();
+                for (int i = 0; i < row.numColumns(); i++) {
+                    builder.field(outputNames.get(i), row.get(i));
+                }
+                return Strings.toString(builder.endObject());
+            } else {
+                return (String) row.get(0);
+            }
+        } catch (IOException e) {
+            throw new UnhandledServerException("Failed to encode row", e);
+        }
+    }
+}
@@ -22,17 +22,21 @@
 
 package io.crate.execution.engine.join;
 
-import com.carrotsearch.hppc.IntObjectHashMap;
+import com.carrotsearch.hppc.BitMixer;
+import io.crate.Streamer;
 import io.crate.data.BatchIterator;
 import io.crate.data.Paging;
 import io.crate.data.Row;
-import io.crate.data.UnsafeArrayRow;
 import io.crate.data.join.CombinedRow;
 import io.crate.data.join.JoinBatchIterator;
+import io.crate.exceptions.Exceptions;
+import io.crate.execution.engine.SpillFiles;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.concurrent.CompletionStage;
 import java.util.function.IntSupplier;
 import java.util.function.Predicate;
@@ -42,14 +46,14 @@ import java.util.function.ToIntFunction;
  * <pre>
  *     Build Phase:
  *     for (leftRow in left) {
- *         calculate hash and put in Buffer (HashMap) until the blockSize is reached
+ *         calculate hash and put in Buffer ({@link JoinHashTable}) until the blockSize is reached
  *     }
  *
  *     Probe Phase:
  *     // We iterate on the right until we find a matching row or the right side needs to be loaded a next batch of data
  *     for (rightRow in right) {
  *         if (hash(rightRow) found in Buffer {
- *            for (row in matchedInBuffer) { // Handle duplicate values from left and hash collisions
+ *            for (row in matchedInBuffer) { // Handle duplicate values from left and rows with the same hash
  *                if (joinCondition matches) {
  *                    // We need to check that the joinCondition matches as we can have a hash collision
  *                    // or the join condition can contain more operators.
@@ -75,26 +79,52 @@ import java.util.function.ToIntFunction;
  * <p>
  * This information is not available for the {@link HashInnerJoinBatchIterator}, so it's the responsibility of the
  * caller to provide those two functions that operate on the left and right rows accordingly and return the hash values.
+ * <p>
+ * If streamers for the left and right rows are provided, the iterator switches to a partitioned (grace) hash join
+ * once the first block is full and the left side still has more rows, instead of iterating the right side once per
+ * block:
+ * <pre>
+ *     - the rows of the block and all remaining rows of the left side are written to {@link #NUM_SPILL_PARTITIONS}
+ *       partition files on disk, based on their hash.
+ *     - all rows of the right side are written to partition files in the same way.
+ *     - each pair of left and right partitions is joined using the block based algorithm described above.
+ * </pre>
+ * Rows which match always share the same hash and therefore the same partition.
  */
 public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row> {
 
-    private final Predicate<Row> joinCondition;
+    static final int NUM_SPILL_PARTITIONS = 32;
 
-    /**
-     * Used to avoid instantiating multiple times RowN in {@link #findMatchingRows()}
-     */
-    private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
+    private final Predicate<Row> joinCondition;
     private final ToIntFunction<Row> hashBuilderForLeft;
     private final ToIntFunction<Row> hashBuilderForRight;
     private final IntSupplier calculateBlockSize;
-    private final IntObjectHashMap<List<Object[]>> buffer;
+    private final JoinHashTable buffer;
 
     private int blockSize;
-    private int numberOfRowsInBuffer = 0;
     private boolean leftBatchHasItems = false;
     private int numberOfLeftBatchesForBlock;
     private int numberOfLeftBatchesLoadedForBlock;
-    private Iterator<Object[]> leftMatchingRowsIterator;
+    private int leftMatchingRow = JoinHashTable.NO_ROW;
+    private int rightHash;
+
+    @Nullable
+    private final Streamer[] leftStreamers;
+    @Nullable
+    private final Streamer[] rightStreamers;
+    @Nullable
+    private final Path spillDirectory;
+    private boolean rightProbed = false;
+    @Nullable
+    private SpilledRowPartitions leftPartitions;
+    @Nullable
+    private SpilledRowPartitions rightPartitions;
+    private boolean partitionsWritten = false;
+    private int currentPartition = 0;
+    @Nullable
+    private BatchIterator<Row> partitionJoin;
+    @Nullable
+    private volatile Throwable killed;
 
     public HashInnerJoinBatchIterator(RamAccountingBatchIterator<Row> left,
                                       BatchIterator<Row> right,
@@ -103,13 +133,49 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
                                       ToIntFunction<Row> hashBuilderForLeft,
                                       ToIntFunction<Row> hashBuilderForRight,
                                       IntSupplier calculateBlockSize) {
+        this(left, right, combiner, joinCondition, hashBuilderForLeft, hashBuilderForRight, calculateBlockSize, null, null);
+    }
+
+    /**
+     * @param leftStreamers streamers for the cells of the left rows, spilling to disk is disabled if null
+     * @param rightStreamers streamers for the cells of the right rows, spilling to disk is disabled if null
+     */
+    public HashInnerJoinBatchIterator(RamAccountingBatchIterator<Row> left,
+                                      BatchIterator<Row> right,
+                                      CombinedRow combiner,
+                                      Predicate<Row> joinCondition,
+                                      ToIntFunction<Row> hashBuilderForLeft,
+                                      ToIntFunction<Row> hashBuilderForRight,
+                                      IntSupplier calculateBlockSize,
+                                      @Nullable Streamer[] leftStreamers,
+                                      @Nullable Streamer[] rightStreamers) {
+        this(left, right, combiner, joinCondition, hashBuilderForLeft, hashBuilderForRight, calculateBlockSize,
+            leftStreamers, rightStreamers, null);
+    }
+
+    /**
+     * @param spillDirectory the directory of the spill files, see {@link SpillFiles#directory}
+     */
+    public HashInnerJoinBatchIterator(RamAccountingBatchIterator<Row> left,
+                                      BatchIterator<Row> right,
+                                      CombinedRow combiner,
+                                      Predicate<Row> joinCondition,
+                                      ToIntFunction<Row> hashBuilderForLeft,
+                                      ToIntFunction<Row> hashBuilderForRight,
+                                      IntSupplier calculateBlockSize,
+                                      @Nullable Streamer[] leftStreamers,
+                                      @Nullable Streamer[] rightStreamers,
+                                      @Nullable Path spillDirectory) {
         super(left, right, combiner);
+        this.leftStreamers = leftStreamers;
+        this.rightStreamers = rightStreamers;
+        this.spillDirectory = spillDirectory;
         this.joinCondition = joinCondition;
         this.hashBuilderForLeft = hashBuilderForLeft;
         this.hashBuilderForRight = hashBuilderForRight;
         this.calculateBlockSize = calculateBlockSize;
         // resized upon block size calculation
-        this.buffer = new IntObjectHashMap<>(0);
+        this.buffer = new JoinHashTable();
         recreateBuffer();
         // initially 1 page/batch is loaded
         numberOfLeftBatchesLoadedForBlock = 1;
@@ -123,12 +189,17 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
 
     @Override
     public void moveToStart() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+        closePartitions();
+        rightProbed = false;
         left.moveToStart();
         right.moveToStart();
         activeIt = left;
         recreateBuffer();
         ((RamAccountingBatchIterator) left).releaseAccountedRows();
-        leftMatchingRowsIterator = null;
+        leftMatchingRow = JoinHashTable.NO_ROW;
     }
 
     @Override
@@ -139,9 +210,24 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
         return super.loadNextBatch();
     }
 
+    @Override
+    public boolean allLoaded() {
+        if (partitionsWritten) {
+            return true;
+        }
+        return super.allLoaded();
+    }
+
     @Override
     public boolean moveNext() {
+        if (leftPartitions != null) {
+            return moveNextPartitioned();
+        }
         while (buildBufferAndMatchRight() == false) {
+            if (leftPartitions != null) {
+                // the left side doesn't fit into a single block, continue with the partitioned join
+                return moveNextPartitioned();
+            }
             if (right.allLoaded() && leftBatchHasItems == false && left.allLoaded()) {
                 // both sides are fully loaded, we're done here
                 return false;
@@ -165,8 +251,8 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
     private void recreateBuffer() {
         blockSize = calculateBlockSize.getAsInt();
         buffer.release();
-        buffer.ensureCapacity(blockSize);
-        numberOfRowsInBuffer = 0;
+        // A block of a spilling join may be much larger than a page, the buffer grows on demand beyond that
+        buffer.ensureCapacity(Math.min(blockSize, Paging.PAGE_SIZE));
 
         // A batch is not guaranteed to deliver PAGE_SIZE number of rows. It could be more or less.
         // So we cannot rely on that to decide if processing 1 block is done, we must also know and track how much
@@ -178,14 +264,18 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
     private boolean buildBufferAndMatchRight() {
         if (activeIt == left) {
             while (leftBatchHasItems = left.moveNext()) {
-                Object[] currentRow = left.currentElement().materialize();
-                int hash = hashBuilderForLeft.applyAsInt(left.currentElement());
-                addToBuffer(currentRow, hash);
-                if (numberOfRowsInBuffer == blockSize) {
+                Row currentRow = left.currentElement();
+                buffer.add(currentRow, hashBuilderForLeft.applyAsInt(currentRow));
+                if (buffer.size() == blockSize) {
                     break;
                 }
             }
 
+            if (mustSpill()) {
+                spillBuffer();
+                return false;
+            }
+
             if (mustLoadLeftNextBatch()) {
                 // we should load the left side
                 return false;
@@ -193,19 +283,18 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
 
             if (mustSwitchToRight()) {
                 activeIt = right;
+                rightProbed = true;
             }
         }
 
         // In case of multiple matches on the left side (duplicate values or hash collisions)
-        if (leftMatchingRowsIterator != null && findMatchingRows()) {
+        if (leftMatchingRow != JoinHashTable.NO_ROW && findMatchingRows()) {
             return true;
         }
-        leftMatchingRowsIterator = null;
         while (right.moveNext()) {
-            int rightHash = hashBuilderForRight.applyAsInt(right.currentElement());
-            List<Object[]> leftMatchingRows = buffer.get(rightHash);
-            if (leftMatchingRows != null) {
-                leftMatchingRowsIterator = leftMatchingRows.iterator();
+            rightHash = hashBuilderForRight.applyAsInt(right.currentElement());
+            leftMatchingRow = buffer.firstRow(rightHash);
+            if (leftMatchingRow != JoinHashTable.NO_ROW) {
                 combiner.setRight(right.currentElement());
                 if (findMatchingRows()) {
                     return true;
@@ -217,21 +306,11 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
         return false;
     }
 
-    private void addToBuffer(Object[] currentRow, int hash) {
-        List<Object[]> existingRows = buffer.get(hash);
-        if (existingRows == null) {
-            existingRows = new ArrayList<>();
-            buffer.put(hash, existingRows);
-        }
-        existingRows.add(currentRow);
-        numberOfRowsInBuffer++;
-    }
-
-    @SuppressWarnings("unchecked")
     private boolean findMatchingRows() {
-        while (leftMatchingRowsIterator.hasNext()) {
-            leftRow.cells(leftMatchingRowsIterator.next());
-            combiner.setLeft(leftRow);
+        while (leftMatchingRow != JoinHashTable.NO_ROW) {
+            int row = leftMatchingRow;
+            leftMatchingRow = buffer.nextRow(row, rightHash);
+            combiner.setLeft(buffer.row(row));
             if (joinCondition.test(combiner.currentElement())) {
                 return true;
             }
@@ -241,14 +320,142 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
 
     private boolean mustSwitchToRight() {
         return left.allLoaded()
-               || numberOfRowsInBuffer == blockSize
+               || buffer.size() == blockSize
                || (leftBatchHasItems == false && numberOfLeftBatchesLoadedForBlock == numberOfLeftBatchesForBlock);
     }
 
+    private boolean mustSpill() {
+        return leftStreamers != null
+               && rightStreamers != null
+               && rightProbed == false
+               && buffer.size() == blockSize
+               && left.allLoaded() == false;
+    }
+
+    private static int partition(int hash) {
+        return BitMixer.mix32(hash) & (NUM_SPILL_PARTITIONS - 1);
+    }
+
+    /**
+     * Moves the rows of the current block into the left partitions and releases the buffer.
+     */
+    private void spillBuffer() {
+        leftPartitions = new SpilledRowPartitions(NUM_SPILL_PARTITIONS, leftStreamers, spillDirectory);
+        rightPartitions = new SpilledRowPartitions(NUM_SPILL_PARTITIONS, rightStreamers, spillDirectory);
+        try {
+            for (int row = 0; row < buffer.size(); row++) {
+                leftPartitions.add(partition(buffer.hash(row)), buffer.row(row));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.release();
+        ((RamAccountingBatchIterator) left).releaseAccountedRows();
+    }
+
+    private boolean moveNextPartitioned() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+        assert leftPartitions != null && rightPartitions != null : "partitions must be created before spilling";
+        if (partitionsWritten == false) {
+            try {
+                if (activeIt == left) {
+                    while (left.moveNext()) {
+                        Row row = left.currentElement();
+                        leftPartitions.add(partition(hashBuilderForLeft.applyAsInt(row)), row);
+                    }
+                    ((RamAccountingBatchIterator) left).releaseAccountedRows();
+                    if (left.allLoaded() == false) {
+                        return false;
+                    }
+                    activeIt = right;
+                }
+                while (right.moveNext()) {
+                    Row row = right.currentElement();
+                    rightPartitions.add(partition(hashBuilderForRight.applyAsInt(row)), row);
+                }
+                if (right.allLoaded() == false) {
+                    return false;
+                }
+                leftPartitions.finishWriting();
+                rightPartitions.finishWriting();
+                partitionsWritten = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        while (true) {
+            if (partitionJoin == null) {
+                while (currentPartition < NUM_SPILL_PARTITIONS
+                       && (leftPartitions.isEmpty(currentPartition) || rightPartitions.isEmpty(currentPartition))) {
+                    currentPartition++;
+                }
+                if (currentPartition == NUM_SPILL_PARTITIONS) {
+                    return false;
+                }
+                partitionJoin = new HashInnerJoinBatchIterator(
+                    new RamAccountingBatchIterator<>(
+                        leftPartitions.partition(currentPartition),
+                        ((RamAccountingBatchIterator<Row>) left).rowAccounting()),
+                    rightPartitions.partition(currentPartition),
+                    (CombinedRow) combiner,
+                    joinCondition,
+                    hashBuilderForLeft,
+                    hashBuilderForRight,
+                    calculateBlockSize
+                );
+            }
+            if (partitionJoin.moveNext()) {
+                return true;
+            }
+            partitionJoin.close();
+            partitionJoin = null;
+            currentPartition++;
+        }
+    }
+
+    private void closePartitions() {
+        if (partitionJoin != null) {
+            partitionJoin.close();
+            partitionJoin = null;
+        }
+        try {
+            if (leftPartitions != null) {
+                leftPartitions.close();
+            }
+            if (rightPartitions != null) {
+                rightPartitions.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            leftPartitions = null;
+            rightPartitions = null;
+            partitionsWritten = false;
+            currentPartition = 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            super.close();
+        } finally {
+            closePartitions();
+        }
+    }
+
+    @Override
+    public void kill(@Nonnull Throwable throwable) {
+        killed = throwable;
+        super.kill(throwable);
+    }
+
     private boolean mustLoadLeftNextBatch() {
         return leftBatchHasItems == false
                && left.allLoaded() == false
-               && numberOfRowsInBuffer < blockSize
+               && buffer.size() < blockSize
                && numberOfLeftBatchesLoadedForBlock < numberOfLeftBatchesForBlock;
     }
 }
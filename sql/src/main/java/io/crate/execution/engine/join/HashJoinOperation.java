@@ -22,6 +22,7 @@
 
 package io.crate.execution.engine.join;
 
+import io.crate.Streamer;
 import io.crate.breaker.RowAccounting;
 import io.crate.concurrent.CompletionListenable;
 import io.crate.data.BatchIterator;
@@ -36,8 +37,11 @@ import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.TransactionContext;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 
+import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.IntSupplier;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
@@ -58,7 +62,10 @@ public class HashJoinOperation implements CompletionListenable {
                              InputFactory inputFactory,
                              CircuitBreaker circuitBreaker,
                              long estimatedRowSizeForLeft,
-                             long numberOfRowsForLeft) {
+                             long numberOfRowsForLeft,
+                             @Nullable Streamer[] leftStreamers,
+                             @Nullable Streamer[] rightStreamers,
+                             @Nullable Path spillDirectory) {
 
         this.resultConsumer = nlResultConsumer;
         this.leftConsumer = new CapturingRowConsumer(false, nlResultConsumer.completionFuture());
@@ -77,7 +84,16 @@ public class HashJoinOperation implements CompletionListenable {
                             getHashBuilderFromSymbols(txnCtx, inputFactory, joinLeftInputs),
                             getHashBuilderFromSymbols(txnCtx, inputFactory, joinRightInputs),
                             rowAccounting,
-                            new RamBlockSizeCalculator(Paging.PAGE_SIZE, circuitBreaker, estimatedRowSizeForLeft, numberOfRowsForLeft)
+                            leftStreamers == null || rightStreamers == null
+                                ? new RamBlockSizeCalculator(Paging.PAGE_SIZE, circuitBreaker, estimatedRowSizeForLeft, numberOfRowsForLeft)
+                                : new SpillingBlockSizeCalculator(
+                                    Paging.PAGE_SIZE,
+                                    circuitBreaker,
+                                    estimatedRowSizeForLeft,
+                                    JoinHashTable.estimatedBytesPerRow(numLeftCols)),
+                            leftStreamers,
+                            rightStreamers,
+                            spillDirectory
                         );
                         nlResultConsumer.accept(joinIterator, null);
                     } catch (Exception e) {
@@ -129,7 +145,10 @@ public class HashJoinOperation implements CompletionListenable {
                                                              ToIntFunction<Row> hashBuilderForLeft,
                                                              ToIntFunction<Row> hashBuilderForRight,
                                                              RowAccounting<Row> rowAccounting,
-                                                             RamBlockSizeCalculator blockSizeCalculator) {
+                                                             IntSupplier blockSizeCalculator,
+                                                             @Nullable Streamer[] leftStreamers,
+                                                             @Nullable Streamer[] rightStreamers,
+                                                             @Nullable Path spillDirectory) {
         CombinedRow combiner = new CombinedRow(leftNumCols, rightNumCols);
         return new HashInnerJoinBatchIterator(
             new RamAccountingBatchIterator<>(left, rowAccounting),
@@ -138,6 +157,9 @@ public class HashJoinOperation implements CompletionListenable {
             joinCondition,
             hashBuilderForLeft,
             hashBuilderForRight,
-            blockSizeCalculator);
+            blockSizeCalculator,
+            leftStreamers,
+            rightStreamers,
+            spillDirectory);
     }
 }
@@ -0,0 +1,213 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import com.carrotsearch.hppc.BitMixer;
+import io.crate.data.Row;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.util.Arrays;
+
+/**
+ * Hash table used by the {@link HashInnerJoinBatchIterator} to buffer the rows of the left side.
+ * <p>
+ * Instead of allocating a list per hash and a materialized array per row, the cells of all rows are stored in a
+ * single flat array and rows sharing a bucket are chained using {@code int} pointers.
+ * The full hash of each row is stored as well, so that rows which only share the bucket are skipped without
+ * evaluating the join condition.
+ * <pre>
+ *     buckets: [ 2, -1,  1, ...]                   first row of each bucket
+ *     next:    [-1, -1,  0, ...]                   next row within the same bucket
+ *     hashes:  [h0, h1, h2, ...]
+ *     cells:   [r0c0, r0c1, r1c0, r1c1, r2c0, r2c1, ...]
+ * </pre>
+ */
+public final class JoinHashTable {
+
+    public static final int NO_ROW = -1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final RowView rowView = new RowView();
+
+    private int numColumns = -1;
+    private Object[] cells;
+    private int[] hashes;
+    private int[] next;
+    private int[] buckets;
+    private int mask;
+    private int size = 0;
+
+    public JoinHashTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * The number of bytes the table uses per row, excluding the values of the cells.
+     * The arrays are sized to a power of two, so this assumes they are at most half full.
+     */
+    public static int estimatedBytesPerRow(int numColumns) {
+        return 2 * (numColumns * RamUsageEstimator.NUM_BYTES_OBJECT_REF + 3 * Integer.BYTES);
+    }
+
+    /**
+     * Copies the cells of the row into the table.
+     */
+    public void add(Row row, int hash) {
+        if (numColumns == -1) {
+            numColumns = row.numColumns();
+            cells = new Object[hashes.length * numColumns];
+        }
+        assert row.numColumns() == numColumns : "All rows must have the same number of columns";
+        if (size == hashes.length) {
+            grow();
+        }
+        int offset = size * numColumns;
+        for (int i = 0; i < numColumns; i++) {
+            cells[offset + i] = row.get(i);
+        }
+        hashes[size] = hash;
+        int bucket = BitMixer.mix32(hash) & mask;
+        next[size] = buckets[bucket];
+        buckets[bucket] = size;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the first row with the given hash or {@link #NO_ROW}
+     */
+    public int firstRow(int hash) {
+        return nextWithHash(buckets[BitMixer.mix32(hash) & mask], hash);
+    }
+
+    /**
+     * @return the next row after {@code row} with the given hash or {@link #NO_ROW}
+     */
+    public int nextRow(int row, int hash) {
+        return nextWithHash(next[row], hash);
+    }
+
+    public int hash(int row) {
+        return hashes[row];
+    }
+
+    /**
+     * Returns a shared {@link Row} instance pointing to the given row.
+     * It changes on subsequent calls and must be materialized to be kept.
+     */
+    public Row row(int row) {
+        assert row >= 0 && row < size : "row must be within 0 and size";
+        rowView.offset = row * numColumns;
+        return rowView;
+    }
+
+    /**
+     * Ensures that the table can hold the given number of rows without growing.
+     */
+    public void ensureCapacity(int expectedRows) {
+        if (expectedRows > hashes.length) {
+            int capacity = Integer.highestOneBit(expectedRows - 1) << 1;
+            if (size == 0) {
+                allocate(capacity);
+            } else {
+                resize(capacity);
+            }
+        }
+    }
+
+    /**
+     * Removes all rows and shrinks the table to its initial capacity.
+     */
+    public void release() {
+        size = 0;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * The number of bytes allocated by the table, excluding the values of the cells.
+     */
+    public long ramBytesUsed() {
+        return arraySize(hashes.length, Integer.BYTES) * 3
+               + (cells == null ? 0 : arraySize(cells.length, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+    }
+
+    private static long arraySize(int length, int bytesPerElement) {
+        return RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) length * bytesPerElement);
+    }
+
+    private int nextWithHash(int row, int hash) {
+        while (row != NO_ROW && hashes[row] != hash) {
+            row = next[row];
+        }
+        return row;
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        next = new int[capacity];
+        buckets = new int[capacity];
+        Arrays.fill(buckets, NO_ROW);
+        mask = capacity - 1;
+        cells = numColumns == -1 ? null : new Object[capacity * numColumns];
+    }
+
+    private void grow() {
+        resize(hashes.length << 1);
+    }
+
+    private void resize(int capacity) {
+        assert Integer.bitCount(capacity) == 1 : "capacity must be a power of two";
+        Object[] oldCells = cells;
+        int[] oldHashes = hashes;
+        allocate(capacity);
+        if (oldCells != null) {
+            System.arraycopy(oldCells, 0, cells, 0, size * numColumns);
+        }
+        System.arraycopy(oldHashes, 0, hashes, 0, size);
+        for (int row = 0; row < size; row++) {
+            int bucket = BitMixer.mix32(hashes[row]) & mask;
+            next[row] = buckets[bucket];
+            buckets[bucket] = row;
+        }
+    }
+
+    private class RowView implements Row {
+
+        private int offset;
+
+        @Override
+        public int numColumns() {
+            return numColumns;
+        }
+
+        @Override
+        public Object get(int index) {
+            return cells[offset + index];
+        }
+    }
+}
@@ -65,4 +65,8 @@ public class RamAccountingBatchIterator<T extends Row> extends ForwardingBatchIt
     public void releaseAccountedRows() {
         rowAccounting.release();
     }
+
+    RowAccounting<Row> rowAccounting() {
+        return rowAccounting;
+    }
 }
@@ -0,0 +1,229 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import io.crate.Streamer;
+import io.crate.data.BatchIterator;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.UnsafeArrayRow;
+import io.crate.execution.engine.SpillFiles;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static io.crate.data.SentinelRow.SENTINEL;
+
+/**
+ * Rows of one side of a hash join which have been spilled to local files (see {@link SpillFiles}) by the
+ * {@link HashInnerJoinBatchIterator}.
+ *
+ * <p>
+ * Rows are partitioned by their join hash, so rows which can match each other end up in partitions with the same
+ * index on both sides and each pair of partitions can be joined on its own.
+ * Cells are written using the {@link Streamer} of the output types.
+ * </p>
+ *
+ * <pre>
+ *  row:    true | cell1 | ... | cellN
+ *  file:   row* | false
+ * </pre>
+ */
+final class SpilledRowPartitions implements Closeable {
+
+    private final Streamer[] streamers;
+    @Nullable
+    private final Path directory;
+    private final Path[] files;
+    private final StreamOutput[] outputs;
+    private final List<StreamInput> openInputs = new ArrayList<>();
+    private boolean finishedWriting = false;
+
+    SpilledRowPartitions(int numPartitions, Streamer[] streamers, @Nullable Path directory) {
+        this.streamers = streamers;
+        this.directory = directory;
+        this.files = new Path[numPartitions];
+        this.outputs = new StreamOutput[numPartitions];
+    }
+
+    @SuppressWarnings("unchecked")
+    void add(int partition, Row row) throws IOException {
+        assert !finishedWriting : "Cannot add rows after finishWriting() has been called";
+        StreamOutput out = output(partition);
+        out.writeBoolean(true);
+        for (int i = 0; i < streamers.length; i++) {
+            streamers[i].writeValueTo(out, row.get(i));
+        }
+    }
+
+    /**
+     * Completes all partition files. Must be called once before the partitions can be read.
+     */
+    void finishWriting() throws IOException {
+        for (StreamOutput out : outputs) {
+            if (out != null) {
+                out.writeBoolean(false);
+                out.close();
+            }
+        }
+        Arrays.fill(outputs, null);
+        finishedWriting = true;
+    }
+
+    boolean isEmpty(int partition) {
+        return files[partition] == null;
+    }
+
+    /**
+     * Returns a {@link BatchIterator} over the rows of a partition. It reads the partition file lazily and supports
+     * {@link BatchIterator#moveToStart()} by reading the file again.
+     * The row returned by {@link BatchIterator#currentElement()} is re-used and must be materialized to be kept.
+     */
+    BatchIterator<Row> partition(int partition) {
+        assert finishedWriting : "finishWriting() must be called before reading partitions";
+        Path file = files[partition];
+        if (file == null) {
+            return InMemoryBatchIterator.empty(SENTINEL);
+        }
+        return InMemoryBatchIterator.of(() -> new RowIterator(file), SENTINEL, true);
+    }
+
+    private StreamOutput output(int partition) throws IOException {
+        StreamOutput out = outputs[partition];
+        if (out == null) {
+            Path file = SpillFiles.create(directory, "crate-hash-join-");
+            files[partition] = file;
+            out = new OutputStreamStreamOutput(new BufferedOutputStream(Files.newOutputStream(file)));
+            outputs[partition] = out;
+        }
+        return out;
+    }
+
+    /**
+     * Closes any open file and removes all partition files.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        List<Closeable> closeables = new ArrayList<>(openInputs);
+        Collections.addAll(closeables, outputs);
+        openInputs.clear();
+        Arrays.fill(outputs, null);
+        for (Closeable closeable : closeables) {
+            try {
+                if (closeable != null) {
+                    closeable.close();
+                }
+            } catch (IOException e) {
+                exception = addSuppressed(exception, e);
+            }
+        }
+        for (int i = 0; i < files.length; i++) {
+            try {
+                if (files[i] != null) {
+                    Files.deleteIfExists(files[i]);
+                    files[i] = null;
+                }
+            } catch (IOException e) {
+                exception = addSuppressed(exception, e);
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    private static IOException addSuppressed(IOException exception, IOException e) {
+        if (exception == null) {
+            return e;
+        }
+        exception.addSuppressed(e);
+        return exception;
+    }
+
+    private class RowIterator implements Iterator<Row> {
+
+        private final Path file;
+        private final Object[] cells = new Object[streamers.length];
+        private final UnsafeArrayRow row = new UnsafeArrayRow();
+        private StreamInput in;
+        private Boolean hasNext;
+
+        RowIterator(Path file) {
+            this.file = file;
+            row.cells(cells);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (hasNext == null) {
+                try {
+                    if (in == null) {
+                        in = new InputStreamStreamInput(new BufferedInputStream(Files.newInputStream(file)));
+                        openInputs.add(in);
+                    }
+                    hasNext = in.readBoolean();
+                    if (hasNext == false) {
+                        openInputs.remove(in);
+                        in.close();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return hasNext;
+        }
+
+        @Override
+        public Row next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Partition file has no more rows");
+            }
+            try {
+                for (int i = 0; i < streamers.length; i++) {
+                    cells[i] = streamers[i].readValueFrom(in);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            hasNext = null;
+            return row;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import org.elasticsearch.common.breaker.CircuitBreaker;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Calculates the number of rows to fit in a block for hash joins that can spill the left side to disk.
+ * <p>
+ * A spilling hash join only starts to partition the relations once a block is full, so unlike
+ * {@link RamBlockSizeCalculator} the block size is neither restricted to a page nor to the expected number of rows.
+ * It is based on the available memory only. Such joins run on a single node, so there is no need to switch
+ * between the relations in lockstep with other nodes.
+ * <p>
+ * Only a fraction of the memory available in the circuit breaker is used, so that concurrent queries and the
+ * estimation errors of the row size don't trip the breaker before the join starts to spill.
+ */
+public class SpillingBlockSizeCalculator implements IntSupplier {
+
+    /**
+     * {@link JoinHashTable} sizes its arrays to a power of two, so a block must not hold more rows.
+     */
+    static final int MAX_BLOCK_SIZE = 1 << 30;
+
+    static final double AVAILABLE_MEMORY_FRACTION = 0.5;
+
+    private final int defaultBlockSize;
+    private final CircuitBreaker circuitBreaker;
+    private final long estimatedRowSizeForLeft;
+    private final int hashTableBytesPerRow;
+
+    /**
+     * @param hashTableBytesPerRow the overhead of a row in the {@link JoinHashTable},
+     *                             see {@link JoinHashTable#estimatedBytesPerRow(int)}
+     */
+    public SpillingBlockSizeCalculator(int defaultBlockSize,
+                                       CircuitBreaker circuitBreaker,
+                                       long estimatedRowSizeForLeft,
+                                       int hashTableBytesPerRow) {
+        this.defaultBlockSize = defaultBlockSize;
+        this.circuitBreaker = circuitBreaker;
+        this.estimatedRowSizeForLeft = estimatedRowSizeForLeft;
+        this.hashTableBytesPerRow = hashTableBytesPerRow;
+    }
+
+    @Override
+    public int getAsInt() {
+        if (estimatedRowSizeForLeft <= 0 || circuitBreaker.getLimit() == -1) {
+            return defaultBlockSize;
+        }
+        long availableMemory = (long) ((circuitBreaker.getLimit() - circuitBreaker.getUsed()) * AVAILABLE_MEMORY_FRACTION);
+        long blockSize = Math.min(MAX_BLOCK_SIZE, availableMemory / (estimatedRowSizeForLeft + hashTableBytesPerRow));
+
+        // Same as in RamBlockSizeCalculator: process at least a few rows so that a CircuitBreakerException can be triggered
+        return blockSize <= 0 ? 10 : (int) blockSize;
+    }
+}
@@ -25,12 +25,17 @@ package io.crate.execution.engine.sort;
 import io.crate.analyze.OrderBy;
 import io.crate.execution.engine.collect.DocInputFactory;
 import io.crate.expression.reference.doc.lucene.CollectorContext;
+import io.crate.expression.symbol.Symbol;
 import io.crate.lucene.FieldTypeLookup;
+import io.crate.metadata.Reference;
 import io.crate.metadata.TransactionContext;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.elasticsearch.index.IndexSortConfig;
 
 import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
 
 public class LuceneSortGenerator {
 
@@ -53,4 +58,39 @@ public class LuceneSortGenerator {
         );
         return new Sort(sortFields);
     }
+
+    /**
+     * Returns the leading fields of the index sort if the ORDER BY is a prefix of it, otherwise null.
+     * <p>
+     * The segments of a sorted index are already in this order, so if the returned sort is used for the search
+     * the {@link org.apache.lucene.search.TopFieldCollector} can stop collecting a segment as soon as it has
+     * enough hits instead of visiting every matching document.
+     * Only plain column references with the default null ordering can match as the index sort places nulls
+     * last on ascending and first on descending order.
+     */
+    @Nullable
+    public static Sort indexSortPrefix(OrderBy orderBy, IndexSortConfig indexSortConfig, @Nullable Sort indexSort) {
+        if (indexSort == null) {
+            return null;
+        }
+        List<Symbol> orderBySymbols = orderBy.orderBySymbols();
+        List<IndexSortConfig.FieldSortSpec> sortSpecs = indexSortConfig.sortSpecs();
+        if (orderBySymbols.isEmpty() || orderBySymbols.size() > sortSpecs.size()) {
+            return null;
+        }
+        for (int i = 0; i < orderBySymbols.size(); i++) {
+            Symbol symbol = orderBySymbols.get(i);
+            if (!(symbol instanceof Reference)) {
+                return null;
+            }
+            IndexSortConfig.FieldSortSpec sortSpec = sortSpecs.get(i);
+            boolean reverse = orderBy.reverseFlags()[i];
+            if (!((Reference) symbol).column().fqn().equals(sortSpec.field())
+                || reverse != sortSpec.reverse()
+                || orderBy.nullsFirst()[i] != reverse) {
+                return null;
+            }
+        }
+        return new Sort(Arrays.copyOf(indexSort.getSort(), orderBySymbols.size()));
+    }
 }
@@ -55,6 +55,9 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
     private int seenFrameUpperBound = -1;
     private Object resultForCurrentFrame;
 
+    @Nullable
+    private SegmentTree segmentTree;
+
     AggregateToWindowFunctionAdapter(AggregationFunction aggregationFunction,
                                      ExpressionsInput<Row, Boolean> filter,
                                      Version indexVersionCreated,
@@ -91,7 +94,10 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
                           List<? extends CollectExpression<Row, ?>> expressions,
                           Input... args) {
         if (idxInPartition == 0) {
+            segmentTree = null;
             recomputeFunction(frame, expressions, args);
+        } else if (segmentTree != null) {
+            executeAggregateForFrameUsingSegmentTree(frame);
         } else if (isLowerBoundIncreasing(frame, seenFrameLowerBound)) {
             if (aggregationFunction.isRemovableCumulative()) {
                 removeSeenRowsFromAccumulatedState(frame, expressions, args);
@@ -102,6 +108,21 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
                 }
                 seenFrameLowerBound = frame.lowerBound();
                 seenFrameUpperBound = frame.upperBoundExclusive();
+            } else if (aggregationFunction.hasImmutableStates()) {
+                // The frame is sliding, so all rows of the frame would have to be aggregated again.
+                // Instead, pre-aggregate the whole partition once and answer this and all following frames from it.
+                segmentTree = SegmentTree.build(
+                    aggregationFunction,
+                    filter,
+                    ramAccounting,
+                    indexVersionCreated,
+                    minNodeVersion,
+                    memoryManager,
+                    frame,
+                    expressions,
+                    args
+                );
+                executeAggregateForFrameUsingSegmentTree(frame);
             } else {
                 recomputeFunction(frame, expressions, args);
             }
@@ -111,6 +132,17 @@ public class AggregateToWindowFunctionAdapter implements WindowFunction {
         return resultForCurrentFrame;
     }
 
+    private void executeAggregateForFrameUsingSegmentTree(WindowFrameState frame) {
+        assert segmentTree != null : "segmentTree must be built before it can be used";
+        //noinspection unchecked
+        resultForCurrentFrame = aggregationFunction.terminatePartial(
+            ramAccounting,
+            segmentTree.stateForRange(frame.lowerBound(), frame.upperBoundExclusive())
+        );
+        seenFrameLowerBound = frame.lowerBound();
+        seenFrameUpperBound = frame.upperBoundExclusive();
+    }
+
     private void removeSeenRowsFromAccumulatedState(WindowFrameState frame,
                                                     List<? extends CollectExpression<Row, ?>> expressions,
                                                     Input[] args) {
@@ -0,0 +1,131 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.window;
+
+import io.crate.breaker.RamAccounting;
+import io.crate.data.ArrayRow;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.expression.ExpressionsInput;
+import io.crate.memory.MemoryManager;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.Version;
+
+import java.util.List;
+
+/**
+ * Pre-aggregated states of all rows of a partition which allow to compute the aggregation over any frame of the
+ * partition by reducing at most 2 * log2(partitionSize) states, instead of iterating over all rows of the frame.
+ *
+ * <pre>
+ *                  [0, 4)
+ *          [0, 2)          [2, 4)
+ *      [0, 1)  [1, 2)  [2, 3)  [3, 4)
+ * </pre>
+ *
+ * The states are shared between frames, so this can only be used for aggregations with
+ * {@link AggregationFunction#hasImmutableStates() immutable states}.
+ */
+final class SegmentTree {
+
+    private final AggregationFunction aggregationFunction;
+    private final Object emptyState;
+    private final int numLeaves;
+
+    /**
+     * Nodes of a complete binary tree stored level by level; The children of the node at {@code i} are at
+     * {@code 2 * i} and {@code 2 * i + 1}, the state of the row with index {@code i} is at {@code numLeaves + i}.
+     */
+    private final Object[] nodes;
+
+    @SuppressWarnings("unchecked")
+    static SegmentTree build(AggregationFunction aggregationFunction,
+                             ExpressionsInput<Row, Boolean> filter,
+                             RamAccounting ramAccounting,
+                             Version indexVersionCreated,
+                             Version minNodeVersion,
+                             MemoryManager memoryManager,
+                             WindowFrameState frame,
+                             List<? extends CollectExpression<Row, ?>> expressions,
+                             Input[] args) {
+        assert aggregationFunction.hasImmutableStates()
+            : "SegmentTree can only be used for aggregations with immutable states";
+        Object emptyState = aggregationFunction.newState(
+            ramAccounting, indexVersionCreated, minNodeVersion, memoryManager);
+        int numLeaves = frame.partitionSize();
+        Object[] nodes = new Object[numLeaves * 2];
+        ramAccounting.addBytes(RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) nodes.length * RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+
+        var row = new ArrayRow();
+        for (int i = 0; i < numLeaves; i++) {
+            Object[] cells = frame.getRowInPartitionAtIndexOrNull(i);
+            assert cells != null : "No row at idx=" + i + " in current partition=" + frame;
+            row.cells(cells);
+            for (int j = 0, expressionsSize = expressions.size(); j < expressionsSize; j++) {
+                expressions.get(j).setNextRow(row);
+            }
+            Object state = emptyState;
+            if (filter.value(row)) {
+                state = aggregationFunction.iterate(ramAccounting, memoryManager, state, args);
+            }
+            nodes[numLeaves + i] = state;
+        }
+        for (int i = numLeaves - 1; i > 0; i--) {
+            nodes[i] = aggregationFunction.reduce(ramAccounting, nodes[2 * i], nodes[2 * i + 1]);
+        }
+        return new SegmentTree(aggregationFunction, emptyState, numLeaves, nodes);
+    }
+
+    private SegmentTree(AggregationFunction aggregationFunction, Object emptyState, int numLeaves, Object[] nodes) {
+        this.aggregationFunction = aggregationFunction;
+        this.emptyState = emptyState;
+        this.numLeaves = numLeaves;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns the aggregated state of the rows within [lowerBound, upperBoundExclusive) of the partition.
+     */
+    @SuppressWarnings("unchecked")
+    Object stateForRange(int lowerBound, int upperBoundExclusive) {
+        assert lowerBound >= 0 && upperBoundExclusive <= numLeaves
+            : "Range [" + lowerBound + ", " + upperBoundExclusive + ") is out of the partition bounds";
+        // The states are immutable, reducing them doesn't use additional memory
+        RamAccounting ramAccounting = RamAccounting.NO_ACCOUNTING;
+        Object leftState = emptyState;
+        Object rightState = emptyState;
+        // Reduce the states in order to also support aggregations which aren't commutative
+        for (int lo = lowerBound + numLeaves, hi = upperBoundExclusive + numLeaves; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) {
+                leftState = aggregationFunction.reduce(ramAccounting, leftState, nodes[lo++]);
+            }
+            if ((hi & 1) == 1) {
+                rightState = aggregationFunction.reduce(ramAccounting, nodes[--hi], rightState);
+            }
+        }
+        return aggregationFunction.reduce(ramAccounting, leftState, rightState);
+    }
+}
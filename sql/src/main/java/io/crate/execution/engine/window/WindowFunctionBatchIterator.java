@@ -23,7 +23,9 @@
 package io.crate.execution.engine.window;
 
 import com.google.common.collect.Iterables;
+import io.crate.breaker.RamAccounting;
 import io.crate.breaker.RowAccounting;
+import io.crate.data.ArrayRow;
 import io.crate.data.BatchIterator;
 import io.crate.data.BatchIterators;
 import io.crate.data.Buckets;
@@ -35,13 +37,17 @@ import io.crate.execution.engine.sort.Sort;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.common.logging.Loggers;
 
+import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.IntSupplier;
@@ -71,6 +77,11 @@ import static io.crate.common.collections.Lists2.findFirstNonPeer;
  *                      - Determine window frame
  *                      - Compute window function over the frame and output tuple
  * </pre>
+ *
+ * <p>
+ * If the source is already sorted by the PARTITION BY and ORDER BY expressions, {@link #ofSorted} can be used
+ * instead, which only buffers the rows of one partition at a time.
+ * </p>
  */
 public final class WindowFunctionBatchIterator {
 
@@ -116,6 +127,38 @@ public final class WindowFunctionBatchIterator {
         );
     }
 
+    /**
+     * Creates a BatchIterator which computes window functions over a source that is sorted by the
+     * PARTITION BY expressions followed by the ORDER BY expressions of the window definition.
+     *
+     * Only the rows of the current partition are buffered. The window functions of a partition are computed
+     * once its last row has been read and the memory accounted for the partition is released
+     * after all of its rows have been emitted.
+     */
+    public static BatchIterator<Row> ofSorted(BatchIterator<Row> source,
+                                              RamAccounting ramAccounting,
+                                              RowAccounting<Row> rowAccounting,
+                                              ComputeFrameBoundary<Object[]> computeFrameStart,
+                                              ComputeFrameBoundary<Object[]> computeFrameEnd,
+                                              @Nullable Comparator<Object[]> cmpPartitionBy,
+                                              int numCellsInSourceRow,
+                                              List<WindowFunction> windowFunctions,
+                                              List<? extends CollectExpression<Row, ?>> argsExpressions,
+                                              Input[]... args) {
+        return new SortedSourceBatchIterator(
+            source,
+            ramAccounting,
+            rowAccounting,
+            computeFrameStart,
+            computeFrameEnd,
+            cmpPartitionBy,
+            numCellsInSourceRow,
+            windowFunctions,
+            argsExpressions,
+            args
+        );
+    }
+
     private static Object[] materializeWithSpare(Row row, int numWindowFunctions) {
         Object[] cells = new Object[row.numColumns() + numWindowFunctions];
         for (int i = 0; i < row.numColumns(); i++) {
@@ -240,4 +283,167 @@ public final class WindowFunctionBatchIterator {
         }
         return row;
     }
+
+    private static final class SortedSourceBatchIterator implements BatchIterator<Row> {
+
+        private final BatchIterator<Row> source;
+        private final RamAccounting ramAccounting;
+        private final RowAccounting<Row> rowAccounting;
+        private final ComputeFrameBoundary<Object[]> computeFrameStart;
+        private final ComputeFrameBoundary<Object[]> computeFrameEnd;
+        @Nullable
+        private final Comparator<Object[]> cmpPartitionBy;
+        private final int numCellsInSourceRow;
+        private final List<WindowFunction> windowFunctions;
+        private final List<? extends CollectExpression<Row, ?>> argsExpressions;
+        private final Input[][] args;
+        private final ArrayRow current = new ArrayRow();
+        private final long bytesAccountedAtStart;
+
+        private List<Object[]> partition = new ArrayList<>();
+        private Iterator<Object[]> partitionResults = Collections.emptyIterator();
+        private boolean emittingPartition = false;
+
+        /**
+         * The row that has been read while looking for the end of the current partition.
+         * It is the first row of the next partition.
+         */
+        @Nullable
+        private Object[] firstRowOfNextPartition;
+        private long bytesOfFirstRowOfNextPartition;
+
+        SortedSourceBatchIterator(BatchIterator<Row> source,
+                                  RamAccounting ramAccounting,
+                                  RowAccounting<Row> rowAccounting,
+                                  ComputeFrameBoundary<Object[]> computeFrameStart,
+                                  ComputeFrameBoundary<Object[]> computeFrameEnd,
+                                  @Nullable Comparator<Object[]> cmpPartitionBy,
+                                  int numCellsInSourceRow,
+                                  List<WindowFunction> windowFunctions,
+                                  List<? extends CollectExpression<Row, ?>> argsExpressions,
+                                  Input[]... args) {
+            this.source = source;
+            this.ramAccounting = ramAccounting;
+            this.rowAccounting = rowAccounting;
+            this.computeFrameStart = computeFrameStart;
+            this.computeFrameEnd = computeFrameEnd;
+            this.cmpPartitionBy = cmpPartitionBy;
+            this.numCellsInSourceRow = numCellsInSourceRow;
+            this.windowFunctions = windowFunctions;
+            this.argsExpressions = argsExpressions;
+            this.args = args;
+            this.bytesAccountedAtStart = ramAccounting.totalBytes();
+        }
+
+        @Override
+        public Row currentElement() {
+            return current;
+        }
+
+        @Override
+        public void moveToStart() {
+            source.moveToStart();
+            partition = new ArrayList<>();
+            partitionResults = Collections.emptyIterator();
+            emittingPartition = false;
+            firstRowOfNextPartition = null;
+            bytesOfFirstRowOfNextPartition = 0L;
+            releaseAccountedBytes();
+        }
+
+        @Override
+        public boolean moveNext() {
+            while (true) {
+                if (partitionResults.hasNext()) {
+                    current.cells(partitionResults.next());
+                    return true;
+                }
+                if (emittingPartition) {
+                    startNextPartition();
+                }
+                if (!readRemainingRowsOfPartition()) {
+                    return false;
+                }
+                // The partition is complete, so the window functions can see all rows of their frames
+                partitionResults = computeWindowFunctions(
+                    partition,
+                    computeFrameStart,
+                    computeFrameEnd,
+                    null,
+                    numCellsInSourceRow,
+                    windowFunctions,
+                    argsExpressions,
+                    args
+                ).iterator();
+                emittingPartition = true;
+            }
+        }
+
+        /**
+         * @return true if all rows of the current partition have been read,
+         *         false if the source must load more data or is exhausted.
+         */
+        private boolean readRemainingRowsOfPartition() {
+            if (firstRowOfNextPartition != null) {
+                return true;
+            }
+            while (source.moveNext()) {
+                Row row = source.currentElement();
+                long bytesBefore = ramAccounting.totalBytes();
+                rowAccounting.accountForAndMaybeBreak(row);
+                Object[] cells = materializeWithSpare(row, windowFunctions.size());
+                if (!partition.isEmpty()
+                    && cmpPartitionBy != null
+                    && cmpPartitionBy.compare(partition.get(0), cells) != 0) {
+                    firstRowOfNextPartition = cells;
+                    bytesOfFirstRowOfNextPartition = ramAccounting.totalBytes() - bytesBefore;
+                    return true;
+                }
+                partition.add(cells);
+            }
+            return source.allLoaded() && !partition.isEmpty();
+        }
+
+        private void startNextPartition() {
+            emittingPartition = false;
+            partition = new ArrayList<>();
+            releaseAccountedBytes();
+            if (firstRowOfNextPartition != null) {
+                partition.add(firstRowOfNextPartition);
+                ramAccounting.addBytes(bytesOfFirstRowOfNextPartition);
+                firstRowOfNextPartition = null;
+                bytesOfFirstRowOfNextPartition = 0L;
+            }
+        }
+
+        private void releaseAccountedBytes() {
+            // This includes the memory the window functions accounted for the states of the partition
+            ramAccounting.addBytes(-(ramAccounting.totalBytes() - bytesAccountedAtStart));
+        }
+
+        @Override
+        public void close() {
+            source.close();
+        }
+
+        @Override
+        public CompletionStage<?> loadNextBatch() throws Exception {
+            return source.loadNextBatch();
+        }
+
+        @Override
+        public boolean allLoaded() {
+            return source.allLoaded();
+        }
+
+        @Override
+        public boolean involvesIO() {
+            return source.involvesIO();
+        }
+
+        @Override
+        public void kill(@Nonnull Throwable throwable) {
+            source.kill(throwable);
+        }
+    }
 }
@@ -140,6 +140,20 @@ public class WindowProjector {
             windowDefinition,
             cmpOrderBy
         );
+        if (projection.sourceIsSorted()) {
+            return sourceRows -> WindowFunctionBatchIterator.ofSorted(
+                sourceRows,
+                ramAccounting,
+                accounting,
+                computeFrameStart,
+                computeFrameEnd,
+                cmpPartitionBy,
+                numCellsInSourceRow,
+                windowFunctions,
+                windowFuncArgsExpressions,
+                windowFuncArgsInputs
+            );
+        }
         return sourceRows -> WindowFunctionBatchIterator.of(
             sourceRows,
             accounting,
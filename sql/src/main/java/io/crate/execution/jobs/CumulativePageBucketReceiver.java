@@ -36,10 +36,11 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -52,11 +53,23 @@ import java.util.concurrent.RejectedExecutionException;
  * A {@link PageBucketReceiver} which receives buckets from upstreams, wait to receive the page from all upstreams
  * and forwards the merged bucket results to the consumers for further processing. It then continues to receive
  * the buckets from the next page from all upstreams.
+ *
+ * <p>
+ * Each upstream is granted up to {@link #MAX_BUFFERED_PAGES_PER_BUCKET} pages which are buffered until the consumer
+ * requests them. An upstream is told to send its next page ({@link PageResultListener#needMore(boolean)}) as soon as
+ * it has credits left, instead of after the consumer processed its previous page. This way upstreams can produce and
+ * transfer the next page while the current page is being merged.
+ * </p>
  */
 public class CumulativePageBucketReceiver implements PageBucketReceiver {
 
     private static final Logger LOGGER = LogManager.getLogger(CumulativePageBucketReceiver.class);
 
+    /**
+     * Number of pages of a bucket which are buffered before an upstream has to wait for the consumer.
+     */
+    static final int MAX_BUFFERED_PAGES_PER_BUCKET = 2;
+
     private final Object lock = new Object();
     private final String nodeName;
     private final boolean traceEnabled;
@@ -66,9 +79,10 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
     private final int numBuckets;
     @GuardedBy("lock")
     private final Set<Integer> exhausted;
+    @GuardedBy("lock")
     private final Map<Integer, PageResultListener> listenersByBucketIdx;
     @GuardedBy("lock")
-    private final Map<Integer, Bucket> bucketsByIdx;
+    private final Map<Integer, ArrayDeque<Page>> pagesByBucketIdx;
     private final RowConsumer consumer;
     private final PagingIterator<Integer, Row> pagingIterator;
     private final BatchIterator<Row> batchPagingIterator;
@@ -78,6 +92,19 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
     private volatile CompletableFuture<List<KeyIterable<Integer, Row>>> currentPage = new CompletableFuture<>();
     private volatile boolean receivingFirstPage = true;
 
+    /**
+     * true if the consumer is waiting for the next page
+     */
+    @GuardedBy("lock")
+    private boolean pageRequested = true;
+
+    /**
+     * The bucket the consumer requested data for, or null if it requested data from all buckets
+     */
+    @GuardedBy("lock")
+    @Nullable
+    private Integer requestedBucketIdx = null;
+
     public CumulativePageBucketReceiver(String nodeName,
                                         int phaseId,
                                         Executor executor,
@@ -94,14 +121,17 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
         this.numBuckets = numBuckets;
 
         this.exhausted = Collections.newSetFromMap(new IntObjectHashMap<>(numBuckets));
-        this.bucketsByIdx = new IntObjectHashMap<>(numBuckets);
+        this.pagesByBucketIdx = new IntObjectHashMap<>(numBuckets);
         this.listenersByBucketIdx = new IntObjectHashMap<>(numBuckets);
         processingFuture.whenComplete((result, ex) -> {
-            synchronized (listenersByBucketIdx) {
-                for (PageResultListener resultListener : listenersByBucketIdx.values()) {
-                    resultListener.needMore(false);
-                }
+            List<PageResultListener> listeners;
+            synchronized (lock) {
+                listeners = new ArrayList<>(listenersByBucketIdx.values());
                 listenersByBucketIdx.clear();
+                pagesByBucketIdx.clear();
+            }
+            for (PageResultListener resultListener : listeners) {
+                resultListener.needMore(false);
             }
         });
         batchPagingIterator = new BatchPagingIterator<>(
@@ -121,35 +151,100 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
 
     @Override
     public void setBucket(int bucketIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener) {
-        final boolean isLastOrHasError;
-        synchronized (listenersByBucketIdx) {
-            isLastOrHasError = isLast || lastThrowable != null;
-            if (!isLastOrHasError) {
-                listenersByBucketIdx.put(bucketIdx, pageResultListener);
-            }
-        }
-        if (isLastOrHasError) {
-            pageResultListener.needMore(false);
-        }
-        final boolean allBucketsOfPageReceived;
+        final Boolean needMore;
+        final List<PageResultListener> releasedListeners = new ArrayList<>();
+        final List<KeyIterable<Integer, Row>> page;
+        final boolean allUpstreamsExhausted;
         synchronized (lock) {
             if (traceEnabled) {
                 LOGGER.trace("method=setBucket phaseId={} bucket={} istLast={}", phaseId, bucketIdx, isLast);
             }
-
-            if (bucketsByIdx.putIfAbsent(bucketIdx, rows) != null) {
+            if (lastThrowable != null || processingFuture.isDone()) {
+                needMore = false;
+                page = null;
+            } else if (listenersByBucketIdx.containsKey(bucketIdx) || exhausted.contains(bucketIdx)) {
+                needMore = false;
+                page = null;
                 processingFuture.completeExceptionally(new IllegalStateException(String.format(Locale.ENGLISH,
-                    "Same bucket of a page set more than once. node=%s method=setBucket phaseId=%d bucket=%d",
+                    "Received more pages for a bucket than requested. node=%s method=setBucket phaseId=%d bucket=%d",
                     nodeName, phaseId, bucketIdx)));
+            } else {
+                ArrayDeque<Page> pages = pagesByBucketIdx.computeIfAbsent(bucketIdx, k -> new ArrayDeque<>());
+                pages.add(new Page(rows, isLast));
+                if (isLast) {
+                    needMore = false;
+                } else if (pages.size() < MAX_BUFFERED_PAGES_PER_BUCKET) {
+                    needMore = true;
+                } else {
+                    // out of credits, the listener is released once the consumer takes a page of this bucket
+                    needMore = null;
+                    listenersByBucketIdx.put(bucketIdx, pageResultListener);
+                }
+                page = takeRequestedPage(releasedListeners);
             }
-            if (isLast) {
-                exhausted.add(bucketIdx);
+            allUpstreamsExhausted = allUpstreamsExhausted();
+        }
+        if (needMore != null) {
+            pageResultListener.needMore(needMore);
+        }
+        for (PageResultListener listener : releasedListeners) {
+            listener.needMore(true);
+        }
+        if (page != null) {
+            processPage(page, allUpstreamsExhausted);
+        }
+    }
+
+    /**
+     * Takes the next page from the buffered pages if the consumer requested a page and the buffered pages
+     * suffice to build it.
+     *
+     * @param releasedListeners receives the listeners of upstreams which got credits back.
+     * @return the page or null if no page was requested or not all buckets of the page have been received yet.
+     */
+    @GuardedBy("lock")
+    @Nullable
+    private List<KeyIterable<Integer, Row>> takeRequestedPage(List<PageResultListener> releasedListeners) {
+        if (pageRequested == false) {
+            return null;
+        }
+        if (requestedBucketIdx == null) {
+            int numReceived = exhausted.size();
+            for (ArrayDeque<Page> pages : pagesByBucketIdx.values()) {
+                if (pages.isEmpty() == false) {
+                    numReceived++;
+                }
+            }
+            if (numReceived < numBuckets) {
+                return null;
+            }
+        } else {
+            ArrayDeque<Page> pages = pagesByBucketIdx.get(requestedBucketIdx);
+            if (pages == null || pages.isEmpty()) {
+                return null;
             }
-            allBucketsOfPageReceived = bucketsByIdx.size() == numBuckets;
         }
-        if (allBucketsOfPageReceived) {
-            processPage();
+        pageRequested = false;
+        List<KeyIterable<Integer, Row>> buckets = new ArrayList<>(numBuckets);
+        for (Map.Entry<Integer, ArrayDeque<Page>> entry : pagesByBucketIdx.entrySet()) {
+            Integer bucketIdx = entry.getKey();
+            if (exhausted.contains(bucketIdx) || (requestedBucketIdx != null && !requestedBucketIdx.equals(bucketIdx))) {
+                // We're only requesting data for 1 specific bucket, the other buckets still have rows left
+                buckets.add(new KeyIterable<>(bucketIdx, Bucket.EMPTY));
+                continue;
+            }
+            Page page = entry.getValue().poll();
+            assert page != null : "A page must be available for every not exhausted bucket";
+            buckets.add(new KeyIterable<>(bucketIdx, page.rows));
+            if (page.isLast) {
+                exhausted.add(bucketIdx);
+            }
+            PageResultListener listener = listenersByBucketIdx.remove(bucketIdx);
+            if (listener != null) {
+                releasedListeners.add(listener);
+            }
         }
+        return buckets;
     }
 
     private void triggerConsumerOrPageFuture(List<KeyIterable<Integer, Row>> buckets) {
@@ -192,40 +287,13 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
         }
     }
 
-    private void processPage() {
-        List<KeyIterable<Integer, Row>> buckets;
-        try {
-            buckets = getBuckets();
-        } catch (Throwable t) {
-            kill(t);
-            // the iterator already returned it's loadNextBatch future, we must complete it exceptionally
-            currentPage.completeExceptionally(t);
-            return;
-        }
-        if (allUpstreamsExhausted()) {
+    private void processPage(List<KeyIterable<Integer, Row>> buckets, boolean allUpstreamsExhausted) {
+        if (allUpstreamsExhausted) {
             pagingIterator.finish();
         }
         triggerConsumerOrPageFuture(buckets);
     }
 
-    private List<KeyIterable<Integer, Row>> getBuckets() {
-        List<KeyIterable<Integer, Row>> buckets = new ArrayList<>(numBuckets);
-        synchronized (lock) {
-            Iterator<Map.Entry<Integer, Bucket>> entryIt = bucketsByIdx.entrySet().iterator();
-            while (entryIt.hasNext()) {
-                Map.Entry<Integer, Bucket> entry = entryIt.next();
-                Integer bucketIdx = entry.getKey();
-                buckets.add(new KeyIterable<>(bucketIdx, entry.getValue()));
-                if (exhausted.contains(bucketIdx)) {
-                    entry.setValue(Bucket.EMPTY);
-                } else {
-                    entryIt.remove();
-                }
-            }
-        }
-        return buckets;
-    }
-
     private boolean allUpstreamsExhausted() {
         return exhausted.size() == numBuckets;
     }
@@ -234,35 +302,24 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
         if (allUpstreamsExhausted()) {
             return KillableCompletionStage.failed(new IllegalStateException("Source is exhausted"));
         }
-        currentPage = new CompletableFuture<>();
-        if (exhaustedBucket == null || exhausted.contains(exhaustedBucket)) {
-            fetchFromUnExhausted();
-        } else {
-            fetchExhausted(exhaustedBucket);
+        CompletableFuture<List<KeyIterable<Integer, Row>>> nextPage = new CompletableFuture<>();
+        currentPage = nextPage;
+        List<PageResultListener> releasedListeners = new ArrayList<>();
+        List<KeyIterable<Integer, Row>> page;
+        boolean allUpstreamsExhausted;
+        synchronized (lock) {
+            pageRequested = true;
+            requestedBucketIdx = exhaustedBucket == null || exhausted.contains(exhaustedBucket) ? null : exhaustedBucket;
+            page = takeRequestedPage(releasedListeners);
+            allUpstreamsExhausted = allUpstreamsExhausted();
         }
-        return KillableCompletionStage.whenKilled(currentPage, t -> currentPage.completeExceptionally(t));
-    }
-
-    private void fetchExhausted(Integer exhaustedBucket) {
-        synchronized (listenersByBucketIdx) {
-            // We're only requesting data for 1 specific bucket,
-            // so we need to fill in other buckets to meet the
-            // "receivedAllBucketsOfPage" condition once we get the data for this bucket
-            PageResultListener pageResultListener = listenersByBucketIdx.remove(exhaustedBucket);
-            for (Integer bucketIdx : listenersByBucketIdx.keySet()) {
-                bucketsByIdx.putIfAbsent(bucketIdx, Bucket.EMPTY);
-            }
-            pageResultListener.needMore(true);
+        for (PageResultListener listener : releasedListeners) {
+            listener.needMore(true);
         }
-    }
-
-    private void fetchFromUnExhausted() {
-        synchronized (listenersByBucketIdx) {
-            for (PageResultListener listener : listenersByBucketIdx.values()) {
-                listener.needMore(true);
-            }
-            listenersByBucketIdx.clear();
+        if (page != null) {
+            processPage(page, allUpstreamsExhausted);
         }
+        return KillableCompletionStage.whenKilled(nextPage, t -> nextPage.completeExceptionally(t));
     }
 
     @Override
@@ -307,4 +364,15 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
                ", consumer=" + consumer +
                '}';
     }
+
+    private static class Page {
+
+        private final Bucket rows;
+        private final boolean isLast;
+
+        Page(Bucket rows, boolean isLast) {
+            this.rows = rows;
+            this.isLast = isLast;
+        }
+    }
 }
@@ -62,7 +62,9 @@ import io.crate.execution.dsl.phases.UpstreamPhase;
 import io.crate.execution.dsl.projection.AggregationProjection;
 import io.crate.execution.dsl.projection.GroupProjection;
 import io.crate.execution.dsl.projection.Projection;
+import io.crate.execution.engine.SpillFiles;
 import io.crate.execution.engine.aggregation.AggregationPipe;
+import io.crate.execution.engine.aggregation.GroupingCollector;
 import io.crate.execution.engine.aggregation.GroupingProjector;
 import io.crate.execution.engine.collect.CollectTask;
 import io.crate.execution.engine.collect.MapSideDataCollectOperation;
@@ -76,6 +78,7 @@ import io.crate.execution.engine.distribution.StreamBucket;
 import io.crate.execution.engine.distribution.merge.PagingIterator;
 import io.crate.execution.engine.fetch.FetchTask;
 import io.crate.execution.engine.join.HashJoinOperation;
+import io.crate.execution.engine.join.JoinHashTable;
 import io.crate.execution.engine.join.NestedLoopOperation;
 import io.crate.execution.engine.pipeline.ProjectingRowConsumer;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
@@ -111,6 +114,7 @@ import org.elasticsearch.node.Node;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import javax.annotation.Nullable;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
@@ -144,6 +148,8 @@ public class JobSetup {
     private final Executor searchTp;
     private final String nodeName;
     private final Schemas schemas;
+    @Nullable
+    private final Path spillDirectory;
 
     @Inject
     public JobSetup(Settings settings,
@@ -163,6 +169,7 @@ public class JobSetup {
                     ShardCollectSource shardCollectSource,
                     MemoryManagerFactory memoryManagerFactory) {
         this.nodeName = Node.NODE_NAME_SETTING.get(settings);
+        this.spillDirectory = SpillFiles.directory(settings);
         this.schemas = schemas;
         this.collectOperation = collectOperation;
         this.clusterService = clusterService;
@@ -718,7 +725,11 @@ public class JobSetup {
                 memoryManager,
                 projectorFactory
             );
+            Collector<Row, ?, Iterable<Row>> finalCollector = collector;
             consumer.completionFuture().whenComplete((result, error) -> {
+                if (finalCollector instanceof GroupingCollector) {
+                    ((GroupingCollector<?>) finalCollector).close();
+                }
                 memoryManager.close();
                 ramAccounting.close();
             });
@@ -951,6 +962,11 @@ public class JobSetup {
             );
             Predicate<Row> joinCondition = RowFilter.create(context.transactionContext, inputFactory, phase.joinCondition());
 
+            // Spilling reads the whole left side before the right side is consumed.
+            // Distributed hash joins must switch between the relations in lockstep (see RamBlockSizeCalculator),
+            // so spilling is only enabled if the join runs on a single node.
+            boolean spillingEnabled = phase.nodeIds().size() == 1 && !phase.rightOutputTypes().isEmpty();
+
             HashJoinOperation joinOperation = new HashJoinOperation(
                 phase.numLeftOutputs(),
                 phase.numRightOutputs(),
@@ -958,16 +974,18 @@ public class JobSetup {
                 joinCondition,
                 phase.leftJoinConditionInputs(),
                 phase.rightJoinConditionInputs(),
-                // 110 extra bytes per row =
-                //    96 bytes for each ArrayList +
-                //    7 bytes per key for the IntHashObjectHashMap  (should be 4 but the map pre-allocates more)
-                //    7 bytes perv value (pointer from the map to the list) (should be 4 but the map pre-allocates more)
-                new RowAccountingWithEstimators(phase.leftOutputTypes(), ramAccounting, 110),
+                new RowAccountingWithEstimators(
+                    phase.leftOutputTypes(),
+                    ramAccounting,
+                    JoinHashTable.estimatedBytesPerRow(phase.numLeftOutputs())),
                 context.transactionContext,
                 inputFactory,
                 breaker(),
                 phase.estimatedRowSizeForLeft(),
-                phase.numberOfRowsForLeft());
+                phase.numberOfRowsForLeft(),
+                spillingEnabled ? DataTypes.getStreamers(phase.leftOutputTypes()) : null,
+                spillingEnabled ? DataTypes.getStreamers(phase.rightOutputTypes()) : null,
+                spillDirectory);
             DistResultRXTask left = pageDownstreamContextForNestedLoop(
                 phase.phaseId(),
                 context,
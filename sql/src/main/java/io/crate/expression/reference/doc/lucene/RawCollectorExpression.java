@@ -21,6 +21,7 @@
 
 package io.crate.expression.reference.doc.lucene;
 
+import io.crate.metadata.doc.SourceFormat;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.common.compress.CompressorFactory;
 
@@ -49,7 +50,7 @@ public class RawCollectorExpression extends LuceneCollectorExpression<String> {
     @Override
     public String value() {
         try {
-            return CompressorFactory.uncompressIfNeeded(sourceLookup.rawSource()).utf8ToString();
+            return SourceFormat.toJsonString(CompressorFactory.uncompressIfNeeded(sourceLookup.rawSource()));
         } catch (IOException e) {
             throw new RuntimeException("Failed to uncompress source", e);
         }
@@ -23,11 +23,11 @@
 package io.crate.expression.reference.doc.lucene;
 
 
+import io.crate.metadata.doc.SourceFormat;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.XContentHelper;
-import org.elasticsearch.common.xcontent.XContentType;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -38,9 +38,11 @@ import java.util.RandomAccess;
 public final class SourceLookup {
 
     private final SourceFieldVisitor fieldsVisitor = new SourceFieldVisitor();
+    private final SourceParser sourceParser = new SourceParser();
     private LeafReader reader;
     private int doc;
     private Map<String, Object> source;
+    private boolean sourceComplete = false;
     private boolean docVisited = false;
 
     SourceLookup() {
@@ -54,17 +56,32 @@ public final class SourceLookup {
         fieldsVisitor.reset();
         this.docVisited = false;
         this.source = null;
+        this.sourceComplete = false;
         this.reader = context.reader();
         this.doc = doc;
     }
 
+    /**
+     * Registers a column which will be looked up using {@link #get(List)}. Only registered columns are parsed
+     * from the source; an empty path registers the whole source.
+     * Must be called before the first document is accessed, usually as part of
+     * {@link LuceneCollectorExpression#startCollect(CollectorContext)}.
+     */
+    public void register(List<String> path) {
+        sourceParser.register(path);
+    }
+
     public Object get(List<String> path) {
-        ensureSourceParsed();
+        if (sourceParser.includes(path)) {
+            ensureSourceParsed();
+        } else {
+            ensureCompleteSourceParsed();
+        }
         return extractValue(source, path, 0);
     }
 
     public Map<String, Object> sourceAsMap() {
-        ensureSourceParsed();
+        ensureCompleteSourceParsed();
         return source;
     }
 
@@ -73,14 +90,20 @@ public final class SourceLookup {
         return fieldsVisitor.source();
     }
 
-    private Map<String, Object> loadSource() {
-        ensureDocVisited();
-        return XContentHelper.convertToMap(fieldsVisitor.source(), false, XContentType.JSON).v2();
-    }
-
     private void ensureSourceParsed() {
         if (source == null) {
-            source = loadSource();
+            ensureDocVisited();
+            source = sourceParser.parse(fieldsVisitor.source());
+            sourceComplete = sourceParser.includesAll();
+        }
+    }
+
+    private void ensureCompleteSourceParsed() {
+        if (source == null || !sourceComplete) {
+            ensureDocVisited();
+            BytesReference rawSource = fieldsVisitor.source();
+            source = XContentHelper.convertToMap(rawSource, false, SourceFormat.detect(rawSource)).v2();
+            sourceComplete = true;
         }
     }
 
@@ -0,0 +1,171 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.reference.doc.lucene;
+
+import io.crate.metadata.doc.SourceFormat;
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses the JSON {@code _source} of documents into a map, but only materializes the registered column paths.
+ * Sub-trees which aren't required are skipped by the streaming parser without creating any objects.
+ * <p>
+ * The resulting map has the same structure as the map of the full source, restricted to the registered
+ * columns, so that {@link SourceLookup#extractValue(Map, List, int)} returns the same values for them.
+ */
+public final class SourceParser {
+
+    private final Node root = new Node();
+
+    /**
+     * Registers a column which must be included in the parsed source. An empty path includes the whole source.
+     */
+    public void register(List<String> path) {
+        Node node = root;
+        for (String name : path) {
+            if (node.children == null) {
+                // parent is already included completely
+                return;
+            }
+            node = node.children.computeIfAbsent(name, k -> new Node());
+        }
+        node.children = null;
+    }
+
+    /**
+     * @return true if the value of {@code path} is included in the result of {@link #parse(BytesReference)}
+     */
+    public boolean includes(List<String> path) {
+        Node node = root;
+        for (String name : path) {
+            if (node.children == null) {
+                return true;
+            }
+            node = node.children.get(name);
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.children == null;
+    }
+
+    /**
+     * @return true if {@link #parse(BytesReference)} results in the complete source
+     */
+    public boolean includesAll() {
+        return root.children == null;
+    }
+
+    public Map<String, Object> parse(BytesReference source) {
+        if (root.children == null) {
+            return XContentHelper.convertToMap(source, false, SourceFormat.detect(source)).v2();
+        }
+        try (XContentParser parser = XContentHelper.createParser(
+            NamedXContentRegistry.EMPTY,
+            DeprecationHandler.THROW_UNSUPPORTED_OPERATION,
+            source,
+            SourceFormat.detect(source))) {
+
+            XContentParser.Token token = parser.nextToken();
+            if (token != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException(
+                    "Failed to parse content to map, expected " + XContentParser.Token.START_OBJECT + " but got " + token);
+            }
+            return parseObject(parser, root);
+        } catch (IOException e) {
+            throw new ElasticsearchParseException("Failed to parse content to map", e);
+        }
+    }
+
+    private static Map<String, Object> parseObject(XContentParser parser, Node node) throws IOException {
+        assert node.children != null : "Must only parse objects partially if only some children are required";
+        HashMap<String, Object> values = new HashMap<>();
+        for (XContentParser.Token token = parser.nextToken();
+             token == XContentParser.Token.FIELD_NAME;
+             token = parser.nextToken()) {
+
+            String fieldName = parser.currentName();
+            token = parser.nextToken();
+            Node child = node.children.get(fieldName);
+            if (child == null) {
+                parser.skipChildren();
+            } else {
+                values.put(fieldName, parseValue(parser, token, child));
+            }
+        }
+        return values;
+    }
+
+    private static Object parseValue(XContentParser parser, XContentParser.Token token, Node node) throws IOException {
+        if (token == XContentParser.Token.START_OBJECT) {
+            return node.children == null ? parser.map() : parseObject(parser, node);
+        }
+        if (token == XContentParser.Token.START_ARRAY) {
+            if (node.children == null) {
+                return parser.list();
+            }
+            // The required children may be within objects inside the array
+            ArrayList<Object> values = new ArrayList<>();
+            for (token = parser.nextToken();
+                 token != null && token != XContentParser.Token.END_ARRAY;
+                 token = parser.nextToken()) {
+                values.add(parseValue(parser, token, node));
+            }
+            return values;
+        }
+        switch (token) {
+            case VALUE_STRING:
+                return parser.text();
+
+            case VALUE_NUMBER:
+                return parser.numberValue();
+
+            case VALUE_BOOLEAN:
+                return parser.booleanValue();
+
+            case VALUE_EMBEDDED_OBJECT:
+                return parser.binaryValue();
+
+            default:
+                return null;
+        }
+    }
+
+    private static final class Node {
+
+        /**
+         * The required children; null if the value must be included completely
+         */
+        private Map<String, Node> children = new HashMap<>();
+    }
+}
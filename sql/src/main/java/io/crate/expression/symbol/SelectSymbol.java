@@ -37,6 +37,7 @@ public class SelectSymbol extends Symbol {
     private final AnalyzedRelation relation;
     private final ArrayType<?> dataType;
     private final ResultType resultType;
+    private final int maxValues;
 
     public enum ResultType {
         SINGLE_COLUMN_SINGLE_VALUE,
@@ -44,9 +45,21 @@ public class SelectSymbol extends Symbol {
     }
 
     public SelectSymbol(AnalyzedRelation relation, ArrayType<?> dataType, ResultType resultType) {
+        this(relation, dataType, resultType, -1);
+    }
+
+    /**
+     * @param maxValues if the sub-query returns more than {@code maxValues} rows, the result is {@code null}
+     *                  instead of the values. {@code -1} means unlimited.
+     *                  Only applicable to {@link ResultType#SINGLE_COLUMN_MULTIPLE_VALUES}.
+     */
+    public SelectSymbol(AnalyzedRelation relation, ArrayType<?> dataType, ResultType resultType, int maxValues) {
+        assert maxValues == -1 || resultType == ResultType.SINGLE_COLUMN_MULTIPLE_VALUES
+            : "maxValues is only applicable to SINGLE_COLUMN_MULTIPLE_VALUES";
         this.relation = relation;
         this.dataType = dataType;
         this.resultType = resultType;
+        this.maxValues = maxValues;
     }
 
     public AnalyzedRelation relation() {
@@ -109,4 +122,8 @@ public class SelectSymbol extends Symbol {
     public ResultType getResultType() {
         return resultType;
     }
+
+    public int maxValues() {
+        return maxValues;
+    }
 }
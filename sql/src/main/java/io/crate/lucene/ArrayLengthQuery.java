@@ -165,7 +165,7 @@ public final class ArrayLengthQuery implements InnerFunctionToQuery {
                 if (cmpVal == 0) {
                     return existsQuery(context, arrayRef);
                 } else if (cmpVal == 1) {
-                    return numTermsPerDocQuery(arrayRef, valueCountIsMatch);
+                    return numTermsPerDocQuery(parent, arrayRef, valueCountIsMatch);
                 } else {
                     return genericFunctionFilter(parent, context);
                 }
@@ -193,16 +193,19 @@ public final class ArrayLengthQuery implements InnerFunctionToQuery {
                                                  IntPredicate valueCountIsMatch) {
         return new BooleanQuery.Builder()
             .add(
-                numTermsPerDocQuery(arrayRef, valueCountIsMatch),
+                numTermsPerDocQuery(parent, arrayRef, valueCountIsMatch),
                 BooleanClause.Occur.MUST
             )
             .add(genericFunctionFilter(parent, context), BooleanClause.Occur.FILTER)
             .build();
     }
 
-    private static NumTermsPerDocQuery numTermsPerDocQuery(Reference arrayRef, IntPredicate valueCountIsMatch) {
+    private static NumTermsPerDocQuery numTermsPerDocQuery(Function parent,
+                                                           Reference arrayRef,
+                                                           IntPredicate valueCountIsMatch) {
         return new NumTermsPerDocQuery(
             arrayRef.column().fqn(),
+            parent,
             leafReaderContext -> getNumTermsPerDocFunction(leafReaderContext.reader(), arrayRef),
             valueCountIsMatch
         );
@@ -322,13 +325,21 @@ public final class ArrayLengthQuery implements InnerFunctionToQuery {
     static class NumTermsPerDocQuery extends Query {
 
         private final String column;
+        private final Function condition;
         private final java.util.function.Function<LeafReaderContext, IntUnaryOperator> numTermsPerDocFactory;
         private final IntPredicate matches;
 
+        /**
+         * @param condition the comparison the {@code matches} predicate is derived from, e.g. {@code array_length(xs, 1) > 1}.
+         *                  It is used instead of the lambdas for equality, so that the query can be used as key
+         *                  in the query cache.
+         */
         NumTermsPerDocQuery(String column,
+                            Function condition,
                             java.util.function.Function<LeafReaderContext, IntUnaryOperator> numTermsPerDocFactory,
                             IntPredicate matches) {
             this.column = column;
+            this.condition = condition;
             this.numTermsPerDocFactory = numTermsPerDocFactory;
             this.matches = matches;
         }
@@ -338,7 +349,7 @@ public final class ArrayLengthQuery implements InnerFunctionToQuery {
             return new ConstantScoreWeight(this, boost) {
                 @Override
                 public boolean isCacheable(LeafReaderContext ctx) {
-                    return false;
+                    return DocValues.isCacheable(ctx, column);
                 }
 
                 @Override
@@ -359,14 +370,14 @@ public final class ArrayLengthQuery implements InnerFunctionToQuery {
 
             NumTermsPerDocQuery that = (NumTermsPerDocQuery) o;
 
-            if (!numTermsPerDocFactory.equals(that.numTermsPerDocFactory)) return false;
-            return matches.equals(that.matches);
+            if (!column.equals(that.column)) return false;
+            return condition.equals(that.condition);
         }
 
         @Override
         public int hashCode() {
-            int result = numTermsPerDocFactory.hashCode();
-            result = 31 * result + matches.hashCode();
+            int result = column.hashCode();
+            result = 31 * result + condition.hashCode();
             return result;
         }
 
@@ -57,6 +57,8 @@ class GenericFunctionQuery extends Query {
     private final Function function;
     private final LuceneCollectorExpression[] expressions;
     private final Input<Boolean> condition;
+    private final boolean deterministic;
+    private final String[] fields;
 
     GenericFunctionQuery(Function function,
                          Collection<? extends LuceneCollectorExpression<?>> expressions,
@@ -65,6 +67,11 @@ class GenericFunctionQuery extends Query {
         // inner loop iterates over expressions - call toArray to avoid iterator allocations
         this.expressions = expressions.toArray(new LuceneCollectorExpression[0]);
         this.condition = condition;
+        // isCacheable is called per segment; resolve what it depends on only once
+        this.deterministic = !SymbolVisitors.any(s -> s instanceof Function && !((Function) s).info().isDeterministic(), function);
+        var fields = new ArrayList<String>();
+        RefVisitor.visitRefs(function, ref -> fields.add(ref.column().fqn()));
+        this.fields = fields.toArray(new String[0]);
     }
 
     @Override
@@ -87,12 +94,7 @@ class GenericFunctionQuery extends Query {
         return new Weight(this) {
             @Override
             public boolean isCacheable(LeafReaderContext ctx) {
-                if (SymbolVisitors.any(s -> s instanceof Function && !((Function) s).info().isDeterministic(), function)) {
-                    return false;
-                }
-                var fields = new ArrayList<String>();
-                RefVisitor.visitRefs(function, ref -> fields.add(ref.column().fqn()));
-                return DocValues.isCacheable(ctx, fields.toArray(new String[0]));
+                return deterministic && DocValues.isCacheable(ctx, fields);
             }
 
             @Override
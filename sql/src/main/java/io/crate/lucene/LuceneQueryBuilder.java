@@ -24,6 +24,7 @@ package io.crate.lucene;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import io.crate.analyze.WhereClause;
 import io.crate.data.Input;
 import io.crate.exceptions.UnsupportedFeatureException;
 import io.crate.exceptions.VersioninigValidationException;
@@ -224,6 +225,8 @@ public class LuceneQueryBuilder {
          * <p/>
          * (in the _version case if the primary key is present a GetPlan is built from the planner and
          * the LuceneQueryBuilder is never used)
+         * <p/>
+         * Range comparisons on _seq_no are an exception, see {@link WhereClause#isSeqNoRangeComparison}
          */
         static final Map<String, String> UNSUPPORTED_FIELDS = ImmutableMap.<String, String>builder()
             .put("_version", VersioninigValidationException.VERSION_COLUMN_USAGE_MSG)
@@ -504,7 +507,7 @@ public class LuceneQueryBuilder {
                     return true;
                 }
                 String unsupportedMessage = Context.UNSUPPORTED_FIELDS.get(columnName);
-                if (unsupportedMessage != null) {
+                if (unsupportedMessage != null && !WhereClause.isSeqNoRangeComparison(function)) {
                     throw new UnsupportedFeatureException(unsupportedMessage);
                 }
             }
@@ -525,7 +528,7 @@ public class LuceneQueryBuilder {
                         );
                     } else {
                         String unsupportedMessage = context.unsupportedMessage(ref.column().name());
-                        if (unsupportedMessage != null) {
+                        if (unsupportedMessage != null && !WhereClause.isSeqNoRangeComparison(function)) {
                             throw new UnsupportedFeatureException(unsupportedMessage);
                         }
                     }
@@ -63,7 +63,8 @@ public final class CoordinatorTxnCtx implements TransactionContext {
     public SessionSettings sessionSettings() {
         return new SessionSettings(sessionContext.user().name(),
                                    sessionContext.searchPath(),
-                                   sessionContext.isHashJoinEnabled());
+                                   sessionContext.isHashJoinEnabled(),
+                                   sessionContext.isRuntimeFilterEnabled());
     }
 
     public SessionContext sessionContext() {
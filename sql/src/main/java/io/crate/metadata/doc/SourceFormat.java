@@ -0,0 +1,114 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.metadata.doc;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The encoding used to store the {@code _source} of the documents of a table.
+ *
+ * <p>
+ * {@link #SMILE} is a binary encoding which is smaller than {@link #JSON} and avoids number to text conversions
+ * on both the write and the read path.
+ * The format is only a concern of the writers. Readers detect the encoding of each stored {@code _source} so
+ * that the setting can differ between partitions and documents written before a change stay readable.
+ * </p>
+ */
+public enum SourceFormat {
+
+    JSON(XContentType.JSON),
+    SMILE(XContentType.SMILE);
+
+    public static final Setting<SourceFormat> SETTING = new Setting<>(
+        "index.source_format",
+        JSON.lowerCaseName(),
+        SourceFormat::of,
+        Setting.Property.IndexScope
+    );
+
+    private final XContentType xContentType;
+
+    SourceFormat(XContentType xContentType) {
+        this.xContentType = xContentType;
+    }
+
+    public static SourceFormat of(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                "Invalid value for argument 'source_format': '" + value + "', expected one of 'json' or 'smile'");
+        }
+    }
+
+    public static SourceFormat of(Settings indexSettings) {
+        return SETTING.get(indexSettings);
+    }
+
+    public String lowerCaseName() {
+        return name().toLowerCase(Locale.ENGLISH);
+    }
+
+    public XContentType xContentType() {
+        return xContentType;
+    }
+
+    public BytesReference toBytes(Map<String, ?> source) throws IOException {
+        XContentBuilder builder = XContentFactory.contentBuilder(xContentType);
+        return BytesReference.bytes(builder.map(source));
+    }
+
+    /**
+     * @return the encoding of a stored {@code _source}, defaults to JSON if it cannot be detected.
+     */
+    public static XContentType detect(BytesReference source) {
+        XContentType type = XContentHelper.xContentType(source);
+        return type == null ? XContentType.JSON : type;
+    }
+
+    /**
+     * @return the stored {@code _source} as JSON string, regardless of the encoding it has been stored with.
+     */
+    public static String toJsonString(BytesReference source) {
+        XContentType type = detect(source);
+        if (type == XContentType.JSON) {
+            return source.utf8ToString();
+        }
+        try {
+            return XContentHelper.convertToJson(source, false, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
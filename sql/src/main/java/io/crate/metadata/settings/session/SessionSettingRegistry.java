@@ -37,6 +37,7 @@ public class SessionSettingRegistry {
 
     private static final String SEARCH_PATH_KEY = "search_path";
     static final String HASH_JOIN_KEY = "enable_hashjoin";
+    static final String RUNTIME_FILTER_KEY = "enable_runtime_filter";
     static final String MAX_INDEX_KEYS = "max_index_keys";
 
     public static final Map<String, SessionSetting<?>> SETTINGS = ImmutableMap.<String, SessionSetting<?>>builder()
@@ -62,6 +63,20 @@ public class SessionSettingRegistry {
                     () -> String.valueOf(true),
                     "Considers using the Hash Join instead of the Nested Loop Join implementation.",
                     DataTypes.BOOLEAN.getName()))
+            .put(RUNTIME_FILTER_KEY,
+                new SessionSetting<>(
+                    objects -> {
+                        if (objects.length != 1) {
+                            throw new IllegalArgumentException(
+                                RUNTIME_FILTER_KEY + " should have only one argument.");
+                        }
+                    },
+                    objects -> DataTypes.BOOLEAN.value(objects[0]),
+                    SessionContext::setRuntimeFilterEnabled,
+                    s -> Boolean.toString(s.runtimeFiltersEnabled()),
+                    () -> String.valueOf(true),
+                    "Considers filtering the larger relation of a Hash Join by the join keys of the smaller relation.",
+                    DataTypes.BOOLEAN.getName()))
             .put(MAX_INDEX_KEYS,
                 new SessionSetting<>(
                     objects -> {},
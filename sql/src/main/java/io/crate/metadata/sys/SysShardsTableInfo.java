@@ -105,6 +105,7 @@ public class SysShardsTableInfo extends StaticTableInfo<ShardRowContext> {
         static final ColumnIdent NODE = new ColumnIdent("node");
         static final ColumnIdent SEQ_NO_STATS = new ColumnIdent("seq_no_stats");
         static final ColumnIdent TRANSLOG_STATS = new ColumnIdent("translog_stats");
+        static final ColumnIdent QUERY_CACHE_STATS = new ColumnIdent("query_cache_stats");
     }
 
     public static Map<ColumnIdent, RowCollectExpressionFactory<ShardRowContext>> expressions() {
@@ -131,6 +132,7 @@ public class SysShardsTableInfo extends StaticTableInfo<ShardRowContext> {
             .put(Columns.NODE, NestedNullObjectExpression::new)
             .put(Columns.SEQ_NO_STATS, NestedNullObjectExpression::new)
             .put(Columns.TRANSLOG_STATS, NestedNullObjectExpression::new)
+            .put(Columns.QUERY_CACHE_STATS, NestedNullObjectExpression::new)
             .build();
     }
 
@@ -198,6 +200,16 @@ public class SysShardsTableInfo extends StaticTableInfo<ShardRowContext> {
                     entry("number_of_operations", INTEGER, orDefaultIfClosed(r -> r.indexShard().translogStats().estimatedNumberOfOperations(), 0)),
                     entry("uncommitted_operations", INTEGER, orDefaultIfClosed(r -> r.indexShard().translogStats().getUncommittedOperations(), 0))
                 )
+            )
+            .register(
+                Columns.QUERY_CACHE_STATS.name(),
+                ColumnRegistrar.object(
+                    entry("memory_size", LONG, orDefaultIfClosed(r -> r.indexShard().queryCacheStats().getMemorySizeInBytes(), 0L)),
+                    entry("hit_count", LONG, orDefaultIfClosed(r -> r.indexShard().queryCacheStats().getHitCount(), 0L)),
+                    entry("miss_count", LONG, orDefaultIfClosed(r -> r.indexShard().queryCacheStats().getMissCount(), 0L)),
+                    entry("cache_size", LONG, orDefaultIfClosed(r -> r.indexShard().queryCacheStats().getCacheSize(), 0L)),
+                    entry("eviction_count", LONG, orDefaultIfClosed(r -> r.indexShard().queryCacheStats().getEvictions(), 0L))
+                )
             );
     }
 
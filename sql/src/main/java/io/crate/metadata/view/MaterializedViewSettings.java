@@ -0,0 +1,92 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.metadata.view;
+
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Index settings which turn a regular doc table into the storage of a materialized view.
+ * {@link #STMT} holds the formatted query, which is re-analyzed within {@link #SCHEMA} on every refresh and
+ * whose outputs are inserted into {@link #COLUMNS}.
+ *
+ * <p>
+ * The settings are written by {@code CREATE MATERIALIZED VIEW} and {@code REFRESH MATERIALIZED VIEW}.
+ * They are not part of the table parameters, so they can't be changed with {@code ALTER TABLE}.
+ * </p>
+ *
+ * <p>
+ * If the query is an aggregation over a single table, grouped by plain columns which are also selected,
+ * {@link #SOURCE} holds the index name (or alias) of that table and {@link #KEYS}/{@link #SOURCE_KEYS} hold the
+ * group keys by their name in the view and in the source table.
+ * A refresh then only recomputes the groups of documents with a {@code _seq_no} above {@link #CHECKPOINT}.
+ * The checkpoint is only valid for the source indices listed in {@link #SOURCE_INDICES}.
+ * </p>
+ */
+public final class MaterializedViewSettings {
+
+    public static final Setting<String> STMT = Setting.simpleString(
+        "index.materialized_view.stmt", Setting.Property.IndexScope, Setting.Property.Dynamic);
+
+    public static final Setting<String> SCHEMA = Setting.simpleString(
+        "index.materialized_view.schema", Setting.Property.IndexScope, Setting.Property.Dynamic);
+
+    public static final Setting<List<String>> COLUMNS = Setting.listSetting(
+        "index.materialized_view.columns", List.of(), Function.identity(),
+        Setting.Property.IndexScope, Setting.Property.Dynamic);
+
+    public static final Setting<String> SOURCE = Setting.simpleString(
+        "index.materialized_view.source", Setting.Property.IndexScope, Setting.Property.Dynamic);
+
+    public static final Setting<List<String>> KEYS = Setting.listSetting(
+        "index.materialized_view.keys", List.of(), Function.identity(),
+        Setting.Property.IndexScope, Setting.Property.Dynamic);
+
+    public static final Setting<List<String>> SOURCE_KEYS = Setting.listSetting(
+        "index.materialized_view.source_keys", List.of(), Function.identity(),
+        Setting.Property.IndexScope, Setting.Property.Dynamic);
+
+    public static final Setting<Long> CHECKPOINT = Setting.longSetting(
+        "index.materialized_view.checkpoint", -1L, -1L, Setting.Property.IndexScope, Setting.Property.Dynamic);
+
+    public static final Setting<List<String>> SOURCE_INDICES = Setting.listSetting(
+        "index.materialized_view.source_indices", List.of(), Function.identity(),
+        Setting.Property.IndexScope, Setting.Property.Dynamic);
+
+    public static final List<Setting<?>> SETTINGS = List.of(
+        STMT, SCHEMA, COLUMNS, SOURCE, KEYS, SOURCE_KEYS, CHECKPOINT, SOURCE_INDICES);
+
+    private MaterializedViewSettings() {
+    }
+
+    public static boolean isMaterializedView(Settings indexSettings) {
+        return !STMT.get(indexSettings).isEmpty();
+    }
+
+    public static boolean isIncremental(Settings indexSettings) {
+        return !SOURCE.get(indexSettings).isEmpty();
+    }
+}
@@ -30,6 +30,7 @@ import io.crate.statistics.TransportAnalyzeAction;
 import io.crate.execution.ddl.TransportSwapRelationsAction;
 import io.crate.execution.ddl.tables.AlterTableOperation;
 import io.crate.execution.ddl.tables.TransportDropTableAction;
+import io.crate.execution.ddl.views.MaterializedViewOperation;
 import io.crate.execution.ddl.views.TransportCreateViewAction;
 import io.crate.execution.ddl.views.TransportDropViewAction;
 import io.crate.execution.dsl.projection.builder.ProjectionBuilder;
@@ -75,6 +76,7 @@ public class DependencyCarrier {
     private final LicenseService licenseService;
     private final Provider<TransportAnalyzeAction> analyzeAction;
     private final AlterTableOperation alterTableOperation;
+    private final MaterializedViewOperation materializedViewOperation;
     private final FulltextAnalyzerResolver fulltextAnalyzerResolver;
     private final RepositoryService repositoryService;
     private final RepositoryParamValidator repositoryParamValidator;
@@ -98,6 +100,7 @@ public class DependencyCarrier {
                              TransportDropUserDefinedFunctionAction dropFunctionAction,
                              Provider<TransportAnalyzeAction> analyzeAction,
                              AlterTableOperation alterTableOperation,
+                             MaterializedViewOperation materializedViewOperation,
                              FulltextAnalyzerResolver fulltextAnalyzerResolver,
                              RepositoryService repositoryService,
                              RepositoryParamValidator repositoryParamValidator) {
@@ -120,6 +123,7 @@ public class DependencyCarrier {
         this.dropFunctionAction = dropFunctionAction;
         this.analyzeAction = analyzeAction;
         this.alterTableOperation = alterTableOperation;
+        this.materializedViewOperation = materializedViewOperation;
         this.fulltextAnalyzerResolver = fulltextAnalyzerResolver;
         this.repositoryService = repositoryService;
         this.repositoryParamValidator = repositoryParamValidator;
@@ -209,6 +213,10 @@ public class DependencyCarrier {
         return alterTableOperation;
     }
 
+    public MaterializedViewOperation materializedViewOperation() {
+        return materializedViewOperation;
+    }
+
     public RepositoryParamValidator repositoryParamValidator() {
         return repositoryParamValidator;
     }
@@ -0,0 +1,269 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.crate.action.sql.Option;
+import io.crate.action.sql.SessionContext;
+import io.crate.analyze.AnalyzedInsertStatement;
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.analyze.Relations;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
+import io.crate.metadata.SearchPath;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.settings.CrateSetting;
+import io.crate.sql.tree.Statement;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.inject.Singleton;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Node wide cache for the parsed statement, the analyzed statement and the {@link LogicalPlan} of
+ * SELECT and INSERT statements, shared by all sessions.
+ * <p>
+ * Entries are keyed by the statement text, the parameter types, the user and the session settings which
+ * influence analysis and planning. A {@link LogicalPlan} doesn't contain the parameter values or anything
+ * specific to an execution; those are bound when the plan is executed, so a cached plan can be executed
+ * with different parameters.
+ * <p>
+ * An entry is only valid for the metadata version of the cluster state it has been analyzed with.
+ * Entries are ignored on lookup if the version differs and the whole cache is cleared once the metadata
+ * changes.
+ * <p>
+ * Statements containing non-deterministic functions (like {@code CURRENT_TIMESTAMP}) or subqueries are not
+ * cached, because the planner may evaluate them.
+ */
+@Singleton
+public class PlanCache implements ClusterStateListener {
+
+    public static final CrateSetting<Integer> PLAN_CACHE_SIZE_SETTING = CrateSetting.of(Setting.intSetting(
+        "planner.plan_cache.size", 1000, 0, Setting.Property.NodeScope), DataTypes.INTEGER);
+
+    public static final PlanCache DISABLED = new PlanCache(0);
+
+    @Nullable
+    private final Cache<Key, Entry> cache;
+
+    @Inject
+    public PlanCache(Settings settings, ClusterService clusterService) {
+        this(PLAN_CACHE_SIZE_SETTING.setting().get(settings));
+        if (cache != null) {
+            clusterService.addListener(this);
+        }
+    }
+
+    @VisibleForTesting
+    PlanCache(int size) {
+        if (size > 0) {
+            cache = CacheBuilder.newBuilder()
+                .maximumSize(size)
+                .build();
+        } else {
+            cache = null;
+        }
+    }
+
+    /**
+     * @return the key for the statement or null if the cache is disabled.
+     */
+    @Nullable
+    public Key key(String query, List<? extends DataType> paramTypes, SessionContext sessionContext) {
+        if (cache == null) {
+            return null;
+        }
+        return new Key(
+            query,
+            // may contain nulls for parameters without a type hint
+            new ArrayList<>(paramTypes),
+            sessionContext.user().name(),
+            sessionContext.searchPath(),
+            sessionContext.options(),
+            sessionContext.isHashJoinEnabled(),
+            sessionContext.isRuntimeFilterEnabled()
+        );
+    }
+
+    /**
+     * @param metaDataVersion the metadata version of the current cluster state
+     * @return the entry or null if there is none which has been created for the given metadata version.
+     */
+    @Nullable
+    public Entry get(@Nullable Key key, long metaDataVersion) {
+        if (key == null || cache == null) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.metaDataVersion != metaDataVersion) {
+            cache.invalidate(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Caches the plan if the statement is cacheable, see {@link #isCacheable(AnalyzedStatement, Plan)}.
+     *
+     * @param metaDataVersion the metadata version of the cluster state used to analyze the statement
+     */
+    public void put(@Nullable Key key,
+                    Statement statement,
+                    AnalyzedStatement analyzedStatement,
+                    Plan plan,
+                    long metaDataVersion) {
+        if (key == null || cache == null || !isCacheable(analyzedStatement, plan)) {
+            return;
+        }
+        cache.put(key, new Entry(statement, analyzedStatement, plan, metaDataVersion));
+    }
+
+    @VisibleForTesting
+    static boolean isCacheable(AnalyzedStatement analyzedStatement, Plan plan) {
+        if (!(plan instanceof LogicalPlan)) {
+            return false;
+        }
+        if (!(analyzedStatement instanceof AnalyzedRelation || analyzedStatement instanceof AnalyzedInsertStatement)) {
+            return false;
+        }
+        boolean[] cacheable = new boolean[] { true };
+        Relations.traverseDeepSymbols(analyzedStatement, symbol -> {
+            if (cacheable[0] && SymbolVisitors.any(PlanCache::preventsCaching, symbol)) {
+                cacheable[0] = false;
+            }
+        });
+        return cacheable[0];
+    }
+
+    private static boolean preventsCaching(Symbol symbol) {
+        return symbol instanceof SelectSymbol
+               || (symbol instanceof Function && !((Function) symbol).info().isDeterministic());
+    }
+
+    public long size() {
+        return cache == null ? 0 : cache.size();
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (cache != null && event.metaDataChanged()) {
+            cache.invalidateAll();
+        }
+    }
+
+    public static final class Key {
+
+        private final String query;
+        private final List<? extends DataType> paramTypes;
+        private final String userName;
+        private final SearchPath searchPath;
+        private final Set<Option> options;
+        private final boolean hashJoinEnabled;
+        private final boolean runtimeFilterEnabled;
+
+        private Key(String query,
+                    List<? extends DataType> paramTypes,
+                    String userName,
+                    SearchPath searchPath,
+                    Set<Option> options,
+                    boolean hashJoinEnabled,
+                    boolean runtimeFilterEnabled) {
+            this.query = query;
+            this.paramTypes = paramTypes;
+            this.userName = userName;
+            this.searchPath = searchPath;
+            this.options = Set.copyOf(options);
+            this.hashJoinEnabled = hashJoinEnabled;
+            this.runtimeFilterEnabled = runtimeFilterEnabled;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hashJoinEnabled == key.hashJoinEnabled &&
+                   runtimeFilterEnabled == key.runtimeFilterEnabled &&
+                   query.equals(key.query) &&
+                   paramTypes.equals(key.paramTypes) &&
+                   userName.equals(key.userName) &&
+                   searchPath.equals(key.searchPath) &&
+                   options.equals(key.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, paramTypes, userName, searchPath, options, hashJoinEnabled, runtimeFilterEnabled);
+        }
+    }
+
+    public static final class Entry {
+
+        private final Statement statement;
+        private final AnalyzedStatement analyzedStatement;
+        private final Plan plan;
+        private final long metaDataVersion;
+
+        private Entry(Statement statement, AnalyzedStatement analyzedStatement, Plan plan, long metaDataVersion) {
+            this.statement = statement;
+            this.analyzedStatement = analyzedStatement;
+            this.plan = plan;
+            this.metaDataVersion = metaDataVersion;
+        }
+
+        public Statement statement() {
+            return statement;
+        }
+
+        public AnalyzedStatement analyzedStatement() {
+            return analyzedStatement;
+        }
+
+        public Plan plan() {
+            return plan;
+        }
+    }
+}
@@ -37,6 +37,7 @@ import io.crate.analyze.AnalyzedCopyTo;
 import io.crate.analyze.AnalyzedCreateAnalyzer;
 import io.crate.analyze.AnalyzedCreateBlobTable;
 import io.crate.analyze.AnalyzedCreateFunction;
+import io.crate.analyze.AnalyzedCreateMaterializedView;
 import io.crate.analyze.AnalyzedCreateRepository;
 import io.crate.analyze.AnalyzedCreateSnapshot;
 import io.crate.analyze.AnalyzedCreateTable;
@@ -55,6 +56,7 @@ import io.crate.analyze.AnalyzedGCDanglingArtifacts;
 import io.crate.analyze.AnalyzedKill;
 import io.crate.analyze.AnalyzedOptimizeTable;
 import io.crate.analyze.AnalyzedPromoteReplica;
+import io.crate.analyze.AnalyzedRefreshMaterializedView;
 import io.crate.analyze.AnalyzedRefreshTable;
 import io.crate.analyze.AnalyzedRerouteAllocateReplicaShard;
 import io.crate.analyze.AnalyzedRerouteCancelShard;
@@ -93,6 +95,7 @@ import io.crate.planner.node.ddl.AlterUserPlan;
 import io.crate.planner.node.ddl.CreateAnalyzerPlan;
 import io.crate.planner.node.ddl.CreateBlobTablePlan;
 import io.crate.planner.node.ddl.CreateFunctionPlan;
+import io.crate.planner.node.ddl.CreateMaterializedViewPlan;
 import io.crate.planner.node.ddl.CreateRepositoryPlan;
 import io.crate.planner.node.ddl.CreateSnapshotPlan;
 import io.crate.planner.node.ddl.CreateTablePlan;
@@ -104,6 +107,7 @@ import io.crate.planner.node.ddl.DropSnapshotPlan;
 import io.crate.planner.node.ddl.DropTablePlan;
 import io.crate.planner.node.ddl.DropUserPlan;
 import io.crate.planner.node.ddl.OptimizeTablePlan;
+import io.crate.planner.node.ddl.RefreshMaterializedViewPlan;
 import io.crate.planner.node.ddl.RefreshTablePlan;
 import io.crate.planner.node.ddl.ResetSettingsPlan;
 import io.crate.planner.node.ddl.RestoreSnapshotPlan;
@@ -222,10 +226,19 @@ public class Planner extends AnalyzedStatementVisitor<PlannerContext, Plan> {
      * @return plan
      */
     public Plan plan(AnalyzedStatement analyzedStatement, PlannerContext plannerContext) {
+        ensureExecutionAllowed(analyzedStatement);
+        return process(analyzedStatement, plannerContext);
+    }
+
+    /**
+     * Checks if the license allows to execute the statement.
+     * This is part of {@link #plan(AnalyzedStatement, PlannerContext)} and must be called separately
+     * if a previously created plan is re-used.
+     */
+    public void ensureExecutionAllowed(AnalyzedStatement analyzedStatement) {
         if (isStatementExecutionAllowed.test(analyzedStatement) == false) {
             throw new LicenseViolationException("Statement not allowed");
         }
-        return process(analyzedStatement, plannerContext);
     }
 
     @Override
@@ -492,6 +505,18 @@ public class Planner extends AnalyzedStatementVisitor<PlannerContext, Plan> {
         return new CreateViewPlan(createViewStmt);
     }
 
+    @Override
+    public Plan visitCreateMaterializedView(AnalyzedCreateMaterializedView createMaterializedView,
+                                           PlannerContext context) {
+        return new CreateMaterializedViewPlan(createMaterializedView);
+    }
+
+    @Override
+    public Plan visitRefreshMaterializedView(AnalyzedRefreshMaterializedView refreshMaterializedView,
+                                            PlannerContext context) {
+        return new RefreshMaterializedViewPlan(refreshMaterializedView);
+    }
+
     @Override
     public Plan visitDropView(AnalyzedDropView dropView, PlannerContext context) {
         return new DropViewPlan(dropView);
@@ -54,12 +54,17 @@ import io.crate.sql.tree.ClusteredBy;
 import io.crate.sql.tree.CreateTable;
 import io.crate.sql.tree.GenericProperties;
 import io.crate.sql.tree.PartitionedBy;
+import io.crate.types.ArrayType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSortConfig;
 
 import javax.annotation.Nullable;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 import static io.crate.data.SentinelRow.SENTINEL;
@@ -68,6 +73,23 @@ public class CreateTablePlan implements Plan {
 
     private static final String CLUSTERED_BY_IN_PARTITIONED_ERROR = "Cannot use CLUSTERED BY column in PARTITIONED BY clause";
 
+    /**
+     * The types {@link IndexSortConfig#buildIndexSort} supports.
+     */
+    private static final Set<Integer> SORT_BY_TYPE_IDS = Set.of(
+        DataTypes.BYTE.id(),
+        DataTypes.SHORT.id(),
+        DataTypes.INTEGER.id(),
+        DataTypes.LONG.id(),
+        DataTypes.FLOAT.id(),
+        DataTypes.DOUBLE.id(),
+        DataTypes.BOOLEAN.id(),
+        DataTypes.TIMESTAMPZ.id(),
+        DataTypes.TIMESTAMP.id(),
+        DataTypes.STRING.id(),
+        DataTypes.IP.id()
+    );
+
     private final AnalyzedCreateTable createTable;
     private final NumberOfShards numberOfShards;
     private final TableCreator tableCreator;
@@ -179,6 +201,7 @@ public class CreateTablePlan implements Plan {
                                                                               tableElements,
                                                                               relationName,
                                                                               finalRouting));
+        validateSortBy(IndexSortConfig.of(tableParameter.settings()), tableElements);
 
         return new BoundCreateTable(
             relationName,
@@ -233,6 +256,35 @@ public class CreateTablePlan implements Plan {
         }
     }
 
+    private static void validateSortBy(IndexSortConfig indexSortConfig, AnalyzedTableElements<Object> tableElements) {
+        for (IndexSortConfig.FieldSortSpec sortSpec : indexSortConfig.sortSpecs()) {
+            ColumnIdent sortColumn = ColumnIdent.fromPath(sortSpec.field());
+            for (AnalyzedColumnDefinition<Object> column : tableElements.partitionedByColumns) {
+                if (column.ident().equals(sortColumn)) {
+                    throw new IllegalArgumentException(
+                        String.format(Locale.ENGLISH, "Cannot use partitioned column \"%s\" in 'sort_by'", sortColumn));
+                }
+            }
+            AnalyzedColumnDefinition<Object> column = AnalyzedTableElements.columnDefinitionByIdent(tableElements, sortColumn);
+            if (column == null) {
+                throw new IllegalArgumentException(
+                    String.format(Locale.ENGLISH, "Invalid or non-existent column \"%s\" in 'sort_by'", sortColumn));
+            }
+            // Partitions are created on the first insert, so this must not be left to the index creation
+            DataType<?> type = column.dataType();
+            if (column.isArrayOrInArray() || !SORT_BY_TYPE_IDS.contains(type.id())) {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Cannot use column \"%s\" of type \"%s\" in 'sort_by'",
+                    sortColumn,
+                    column.isArrayOrInArray() ? new ArrayType<>(type).getName() : type.getName()));
+            }
+            if (!AnalyzedColumnDefinition.hasColumnStore(column)) {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Cannot use column \"%s\" without column store in 'sort_by'", sortColumn));
+            }
+        }
+    }
+
     private static boolean hasColumnDefinition(AnalyzedTableElements tableElements, ColumnIdent columnIdent) {
         return (tableElements.columnIdents().contains(columnIdent) ||
                 columnIdent.name().equalsIgnoreCase("_id"));
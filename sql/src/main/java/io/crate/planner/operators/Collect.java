@@ -204,7 +204,27 @@ public class Collect implements LogicalPlan {
                                @Nullable Integer pageSizeHint,
                                Row params,
                                SubQueryResults subQueryResults) {
-        RoutedCollectPhase collectPhase = createPhase(plannerContext, params, subQueryResults);
+        return build(
+            createPhase(plannerContext, params, subQueryResults),
+            limit,
+            offset,
+            order,
+            pageSizeHint,
+            params,
+            subQueryResults);
+    }
+
+    /**
+     * Builds the plan for a phase created by {@link #createPhase(PlannerContext, Row, SubQueryResults)};
+     * used by parent operators which decide on the ordering based on the routing of the phase.
+     */
+    ExecutionPlan build(RoutedCollectPhase collectPhase,
+                        int limit,
+                        int offset,
+                        @Nullable OrderBy order,
+                        @Nullable Integer pageSizeHint,
+                        Row params,
+                        SubQueryResults subQueryResults) {
         PositionalOrderBy positionalOrderBy = getPositionalOrderBy(order, outputs);
         if (positionalOrderBy != null) {
             collectPhase.orderBy(
@@ -287,7 +307,7 @@ public class Collect implements LogicalPlan {
         }
     }
 
-    private RoutedCollectPhase createPhase(PlannerContext plannerContext, Row params, SubQueryResults subQueryResults) {
+    RoutedCollectPhase createPhase(PlannerContext plannerContext, Row params, SubQueryResults subQueryResults) {
         SessionContext sessionContext = plannerContext.transactionContext().sessionContext();
         SubQueryAndParamBinder binder = new SubQueryAndParamBinder(params, subQueryResults);
 
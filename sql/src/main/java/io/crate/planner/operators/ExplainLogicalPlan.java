@@ -35,7 +35,9 @@ import io.crate.planner.ExplainLeaf;
 import io.crate.planner.PlanPrinter;
 import io.crate.planner.PlannerContext;
 
+import javax.annotation.Nullable;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class ExplainLogicalPlan {
@@ -45,6 +47,8 @@ public class ExplainLogicalPlan {
     /**
      * Tries to build and create an explain map out an {@link ExecutionPlan} out of the given {@link LogicalPlan}.
      * If it fails, fallback to create the map out of the {@link LogicalPlan}.
+     * <p>
+     * The number of rows the planner expects each operator to return is included as `estimatedRows`.
      */
     public static Map<String, Object> explainMap(LogicalPlan logicalPlan,
                                                 PlannerContext plannerContext,
@@ -59,12 +63,59 @@ public class ExplainLogicalPlan {
                 null,
                 Row.EMPTY,
                 SubQueryResults.EMPTY);
-            return PlanPrinter.objectMap(executionPlan);
+            return withEstimatedRows(PlanPrinter.objectMap(executionPlan), logicalPlan);
         } catch (Exception e) {
             return logicalPlan.accept(VISITOR, new Context(plannerContext, projectionBuilder)).build();
         }
     }
 
+    /**
+     * Adds the `estimatedRows` of the logical operators to the execution plan nodes they result in.
+     * Operators with a single source are part of the execution plan node of their source, the left and right
+     * nodes of a join or union therefore belong to the sources of the next operator with two sources.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> withEstimatedRows(Map<String, Object> planMap, LogicalPlan logicalPlan) {
+        ImmutableMap.Builder<String, Object> builder = ImmutableMap.builder();
+        for (Map.Entry<String, Object> entry : planMap.entrySet()) {
+            if (!(entry.getValue() instanceof Map)) {
+                builder.put(entry);
+                continue;
+            }
+            Map<String, Object> node = (Map<String, Object>) entry.getValue();
+            LogicalPlan binaryPlan = node.containsKey("left") && node.containsKey("right")
+                ? nextPlanWithTwoSources(logicalPlan)
+                : null;
+            ImmutableMap.Builder<String, Object> nodeBuilder = ImmutableMap.builder();
+            for (Map.Entry<String, Object> property : node.entrySet()) {
+                String key = property.getKey();
+                Object value = property.getValue();
+                if (binaryPlan != null && key.equals("left")) {
+                    value = withEstimatedRows((Map<String, Object>) value, binaryPlan.sources().get(0));
+                } else if (binaryPlan != null && key.equals("right")) {
+                    value = withEstimatedRows((Map<String, Object>) value, binaryPlan.sources().get(1));
+                } else if (key.equals("subPlan") && value instanceof Map) {
+                    value = withEstimatedRows((Map<String, Object>) value, logicalPlan);
+                }
+                nodeBuilder.put(key, value);
+            }
+            builder.put(entry.getKey(), nodeBuilder
+                .put("estimatedRows", logicalPlan.numExpectedRows())
+                .build());
+        }
+        return builder.build();
+    }
+
+    @Nullable
+    private static LogicalPlan nextPlanWithTwoSources(LogicalPlan logicalPlan) {
+        List<LogicalPlan> sources = logicalPlan.sources();
+        while (sources.size() == 1) {
+            logicalPlan = sources.get(0);
+            sources = logicalPlan.sources();
+        }
+        return sources.size() == 2 ? logicalPlan : null;
+    }
+
     private static Map<String, Object> explainMap(LogicalPlan logicalPlan, Context context) {
         return explainMap(logicalPlan, context.plannerContext, context.projectionBuilder);
     }
@@ -87,7 +138,9 @@ public class ExplainLogicalPlan {
         private static ImmutableMap.Builder<String, Object> createMap(LogicalPlan logicalPlan,
                                                                       ImmutableMap.Builder<String, Object> subMap) {
             return ImmutableMap.<String, Object>builder()
-                .put(logicalPlan.getClass().getSimpleName(), subMap.build());
+                .put(logicalPlan.getClass().getSimpleName(), subMap
+                    .put("estimatedRows", logicalPlan.numExpectedRows())
+                    .build());
         }
 
         private static ImmutableMap.Builder<String, Object> createSubMap() {
@@ -24,13 +24,28 @@ package io.crate.planner.operators;
 
 import com.carrotsearch.hppc.ObjectIntHashMap;
 import com.google.common.annotations.VisibleForTesting;
+import io.crate.analyze.QueriedSelectRelation;
+import io.crate.analyze.relations.AbstractTableRelation;
+import io.crate.analyze.relations.AliasedAnalyzedRelation;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.relations.AnalyzedView;
+import io.crate.analyze.relations.JoinPair;
+import io.crate.data.Row;
+import io.crate.expression.symbol.Symbol;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.planner.selectivity.SelectivityFunctions;
 import io.crate.sql.tree.QualifiedName;
+import io.crate.statistics.Stats;
+import io.crate.statistics.TableStats;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -39,9 +54,290 @@ import java.util.Set;
  */
 final class JoinOrdering {
 
+    /**
+     * Up to this number of relations all left-deep join trees are enumerated, above it a greedy search is used.
+     */
+    @VisibleForTesting
+    static final int MAX_RELATIONS_FOR_EXHAUSTIVE_SEARCH = 10;
+
     private JoinOrdering() {
     }
 
+    /**
+     * Returns the relations ordered so that the sum of the estimated intermediate result sizes of the
+     * resulting left-deep join tree is minimal, or null if there are no statistics for all relations or
+     * the join contains outer, semi or anti joins, which cannot be re-ordered freely.
+     * <p>
+     * The cardinality of a relation is derived from {@link TableStats} and the filters applied to it,
+     * the selectivity of the join conditions from the column statistics via {@link SelectivityFunctions}.
+     * Cross products are only considered if no relation is connected to the already joined relations.
+     *
+     * @param sources    all relations by name, e.g. {t1: .., t2: .., t3: ..}
+     * @param joinPairs  the join conditions by the names of the relations they join
+     * @param queryParts the remaining query parts by the names of the relations they refer to
+     */
+    @Nullable
+    static Collection<QualifiedName> orderByEstimatedCost(Map<QualifiedName, AnalyzedRelation> sources,
+                                                          Map<Set<QualifiedName>, JoinPair> joinPairs,
+                                                          Map<Set<QualifiedName>, Symbol> queryParts,
+                                                          TableStats tableStats,
+                                                          @Nullable Row params) {
+        List<QualifiedName> names = new ArrayList<>(sources.keySet());
+        int numRelations = names.size();
+        if (numRelations > Long.SIZE) {
+            return null;
+        }
+        for (Map.Entry<Set<QualifiedName>, JoinPair> entry : joinPairs.entrySet()) {
+            JoinType joinType = entry.getValue().joinType();
+            if ((joinType != JoinType.INNER && joinType != JoinType.CROSS) || !names.containsAll(entry.getKey())) {
+                return null;
+            }
+        }
+        double[] rows = new double[numRelations];
+        Map<QualifiedName, Stats> statsByRelation = new HashMap<>(numRelations);
+        for (int i = 0; i < numRelations; i++) {
+            QualifiedName name = names.get(i);
+            AnalyzedRelation relation = sources.get(name);
+            Stats stats = baseTableStats(relation, tableStats);
+            if (stats == null) {
+                return null;
+            }
+            statsByRelation.put(name, stats);
+            double numRows = estimateNumRows(relation, stats, params);
+            Symbol filter = queryParts.get(Set.of(name));
+            if (filter != null) {
+                numRows *= selectivity(stats, filter, params);
+            }
+            rows[i] = numRows;
+        }
+
+        List<JoinCondition> conditions = new ArrayList<>(joinPairs.size() + queryParts.size());
+        for (Map.Entry<Set<QualifiedName>, JoinPair> entry : joinPairs.entrySet()) {
+            JoinPair joinPair = entry.getValue();
+            if (joinPair.condition() != null) {
+                conditions.add(JoinCondition.of(
+                    names, entry.getKey(), joinPair.condition(), statsByRelation, params));
+            }
+        }
+        for (Map.Entry<Set<QualifiedName>, Symbol> entry : queryParts.entrySet()) {
+            if (entry.getKey().size() > 1 && names.containsAll(entry.getKey())) {
+                conditions.add(JoinCondition.of(names, entry.getKey(), entry.getValue(), statsByRelation, params));
+            }
+        }
+
+        int[] order = numRelations <= MAX_RELATIONS_FOR_EXHAUSTIVE_SEARCH
+            ? exhaustiveLeftDeepOrder(rows, conditions)
+            : greedyLeftDeepOrder(rows, conditions);
+        List<QualifiedName> orderedNames = new ArrayList<>(numRelations);
+        for (int idx : order) {
+            orderedNames.add(names.get(idx));
+        }
+        return orderedNames;
+    }
+
+    /**
+     * Dynamic programming over all subsets of relations; for each subset the cheapest left-deep tree is kept.
+     */
+    private static int[] exhaustiveLeftDeepOrder(double[] rows, List<JoinCondition> conditions) {
+        int numRelations = rows.length;
+        int numSubsets = 1 << numRelations;
+        int all = numSubsets - 1;
+        double[] cardinality = new double[numSubsets];
+        double[] cost = new double[numSubsets];
+        int[] lastRelation = new int[numSubsets];
+        for (int subset = 1; subset < numSubsets; subset++) {
+            cost[subset] = Double.POSITIVE_INFINITY;
+            lastRelation[subset] = -1;
+        }
+        for (int i = 0; i < numRelations; i++) {
+            int subset = 1 << i;
+            cardinality[subset] = rows[i];
+            cost[subset] = 0.0;
+            lastRelation[subset] = i;
+        }
+        for (int subset = 1; subset < numSubsets; subset++) {
+            if (lastRelation[subset] == -1 || subset == all) {
+                continue;
+            }
+            boolean hasConnectedRelation = hasConnectedRelation(subset, all, conditions);
+            for (int i = 0; i < numRelations; i++) {
+                int relation = 1 << i;
+                if ((subset & relation) != 0) {
+                    continue;
+                }
+                if (hasConnectedRelation && !isConnected(subset, relation, conditions)) {
+                    continue;
+                }
+                int joined = subset | relation;
+                double joinedCardinality = joinCardinality(cardinality[subset], subset, rows[i], relation, conditions);
+                double joinedCost = cost[subset] + joinedCardinality;
+                if (joinedCost < cost[joined]) {
+                    cost[joined] = joinedCost;
+                    cardinality[joined] = joinedCardinality;
+                    lastRelation[joined] = i;
+                }
+            }
+        }
+        int[] order = new int[numRelations];
+        int subset = all;
+        for (int pos = numRelations - 1; pos >= 0; pos--) {
+            int relation = lastRelation[subset];
+            order[pos] = relation;
+            subset &= ~(1 << relation);
+        }
+        return order;
+    }
+
+    /**
+     * Starts with the smallest relation and repeatedly joins the relation which results in the smallest
+     * intermediate result.
+     */
+    private static int[] greedyLeftDeepOrder(double[] rows, List<JoinCondition> conditions) {
+        int numRelations = rows.length;
+        long all = numRelations == Long.SIZE ? -1L : (1L << numRelations) - 1;
+        int[] order = new int[numRelations];
+        int first = 0;
+        for (int i = 1; i < numRelations; i++) {
+            if (rows[i] < rows[first]) {
+                first = i;
+            }
+        }
+        order[0] = first;
+        long joined = 1L << first;
+        double cardinality = rows[first];
+        for (int pos = 1; pos < numRelations; pos++) {
+            boolean hasConnectedRelation = hasConnectedRelation(joined, all, conditions);
+            int next = -1;
+            double nextCardinality = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < numRelations; i++) {
+                long relation = 1L << i;
+                if ((joined & relation) != 0) {
+                    continue;
+                }
+                if (hasConnectedRelation && !isConnected(joined, relation, conditions)) {
+                    continue;
+                }
+                double candidateCardinality = joinCardinality(cardinality, joined, rows[i], relation, conditions);
+                if (next == -1 || candidateCardinality < nextCardinality) {
+                    next = i;
+                    nextCardinality = candidateCardinality;
+                }
+            }
+            order[pos] = next;
+            joined |= 1L << next;
+            cardinality = nextCardinality;
+        }
+        return order;
+    }
+
+    private static double joinCardinality(double joinedRows,
+                                          long joined,
+                                          double relationRows,
+                                          long relation,
+                                          List<JoinCondition> conditions) {
+        double result = joinedRows * relationRows;
+        long both = joined | relation;
+        for (JoinCondition condition : conditions) {
+            if ((condition.relations & relation) != 0 && (condition.relations & ~both) == 0) {
+                result *= condition.selectivity;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isConnected(long joined, long relation, List<JoinCondition> conditions) {
+        long both = joined | relation;
+        for (JoinCondition condition : conditions) {
+            if ((condition.relations & relation) != 0
+                && (condition.relations & joined) != 0
+                && (condition.relations & ~both) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasConnectedRelation(long joined, long all, List<JoinCondition> conditions) {
+        for (long remaining = all & ~joined; remaining != 0; remaining &= remaining - 1) {
+            if (isConnected(joined, Long.lowestOneBit(remaining), conditions)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private static Stats baseTableStats(AnalyzedRelation relation, TableStats tableStats) {
+        if (relation instanceof AliasedAnalyzedRelation) {
+            return baseTableStats(((AliasedAnalyzedRelation) relation).relation(), tableStats);
+        }
+        if (relation instanceof AnalyzedView) {
+            return baseTableStats(((AnalyzedView) relation).relation(), tableStats);
+        }
+        if (relation instanceof QueriedSelectRelation) {
+            QueriedSelectRelation<?> queriedRelation = (QueriedSelectRelation<?>) relation;
+            if (!queriedRelation.groupBy().isEmpty()
+                || queriedRelation.having() != null
+                || queriedRelation.limit() != null
+                || queriedRelation.isDistinct()) {
+                return null;
+            }
+            return baseTableStats(queriedRelation.subRelation(), tableStats);
+        }
+        if (relation instanceof AbstractTableRelation) {
+            Stats stats = tableStats.getStats(((AbstractTableRelation<?>) relation).tableInfo().ident());
+            return stats.numDocs() < 0 ? null : stats;
+        }
+        return null;
+    }
+
+    private static double estimateNumRows(AnalyzedRelation relation, Stats stats, @Nullable Row params) {
+        if (relation instanceof AliasedAnalyzedRelation) {
+            return estimateNumRows(((AliasedAnalyzedRelation) relation).relation(), stats, params);
+        }
+        if (relation instanceof AnalyzedView) {
+            return estimateNumRows(((AnalyzedView) relation).relation(), stats, params);
+        }
+        if (relation instanceof QueriedSelectRelation) {
+            QueriedSelectRelation<?> queriedRelation = (QueriedSelectRelation<?>) relation;
+            return estimateNumRows(queriedRelation.subRelation(), stats, params)
+                   * selectivity(stats, queriedRelation.where().queryOrFallback(), params);
+        }
+        return stats.numDocs();
+    }
+
+    private static double selectivity(Stats stats, Symbol query, @Nullable Row params) {
+        if (stats.numDocs() <= 0) {
+            return 1.0;
+        }
+        return (double) SelectivityFunctions.estimateNumRows(stats, query, params) / stats.numDocs();
+    }
+
+    private static class JoinCondition {
+
+        private final long relations;
+        private final double selectivity;
+
+        private JoinCondition(long relations, double selectivity) {
+            this.relations = relations;
+            this.selectivity = selectivity;
+        }
+
+        static JoinCondition of(List<QualifiedName> names,
+                                Set<QualifiedName> relationNames,
+                                Symbol condition,
+                                Map<QualifiedName, Stats> statsByRelation,
+                                @Nullable Row params) {
+            long relations = 0L;
+            for (QualifiedName name : relationNames) {
+                relations |= 1L << names.indexOf(name);
+            }
+            return new JoinCondition(
+                relations,
+                SelectivityFunctions.estimateJoinSelectivity(condition, statsByRelation, params));
+        }
+    }
+
     static Collection<QualifiedName> getOrderedRelationNames(Collection<QualifiedName> sourceRelations,
                                                              Set<? extends Set<QualifiedName>> explicitJoinConditions,
                                                              Set<? extends Set<QualifiedName>> implicitJoinConditions) {
@@ -100,11 +100,20 @@ public class JoinPlanBuilder implements LogicalPlan.Builder {
 
         Collection<QualifiedName> orderedRelationNames;
         if (mss.sources().size() > 2) {
-            orderedRelationNames = JoinOrdering.getOrderedRelationNames(
-                mss.sources().keySet(),
-                joinPairs.keySet(),
-                queryParts.keySet()
+            orderedRelationNames = JoinOrdering.orderByEstimatedCost(
+                mss.sources(),
+                joinPairs,
+                queryParts,
+                tableStats,
+                params
             );
+            if (orderedRelationNames == null) {
+                orderedRelationNames = JoinOrdering.getOrderedRelationNames(
+                    mss.sources().keySet(),
+                    joinPairs.keySet(),
+                    queryParts.keySet()
+                );
+            }
         } else {
             orderedRelationNames = mss.sources().keySet();
         }
@@ -65,6 +65,7 @@ import io.crate.planner.WhereClauseOptimizer;
 import io.crate.planner.consumer.FetchMode;
 import io.crate.planner.consumer.InsertFromSubQueryPlanner;
 import io.crate.planner.optimizer.Optimizer;
+import io.crate.planner.optimizer.rule.AddRuntimeFilterToHashJoin;
 import io.crate.planner.optimizer.rule.DeduplicateOrder;
 import io.crate.planner.optimizer.rule.MergeAggregateAndCollectToCount;
 import io.crate.planner.optimizer.rule.MergeFilterAndCollect;
@@ -115,6 +116,7 @@ public class LogicalPlanner {
     private final Functions functions;
     private final RelationNormalizer relationNormalizer;
     private final Optimizer writeOptimizer;
+    private final Optimizer runtimeFilterOptimizer;
 
     public LogicalPlanner(Functions functions, TableStats tableStats, Supplier<Version> minNodeVersionInCluster) {
         this.optimizer = new Optimizer(
@@ -147,6 +149,10 @@ public class LogicalPlanner {
             List.of(new RewriteInsertFromSubQueryToInsertFromValues()),
             minNodeVersionInCluster
         );
+        this.runtimeFilterOptimizer = new Optimizer(
+            List.of(new AddRuntimeFilterToHashJoin()),
+            minNodeVersionInCluster
+        );
         this.tableStats = tableStats;
         this.functions = functions;
         this.relationNormalizer = new RelationNormalizer(functions);
@@ -186,9 +192,8 @@ public class LogicalPlanner {
             plannerContext.transactionContext());
 
         planBuilder = tryOptimizeForInSubquery(selectSymbol, relation, planBuilder);
-        LogicalPlan optimizedPlan = optimizer.optimize(
+        LogicalPlan optimizedPlan = optimize(
             maybeApplySoftLimit.apply(planBuilder.build(tableStats, Set.of(), Set.of(), subSelectPlannerContext.params())),
-            tableStats,
             plannerContext.transactionContext()
         );
         return new RootRelationBoundary(optimizedPlan);
@@ -221,7 +226,30 @@ public class LogicalPlanner {
         LogicalPlan logicalPlan = plan(relation, fetchMode, subqueryPlanner, true, functions, coordinatorTxnCtx)
             .build(tableStats, hints, Set.copyOf(relation.outputs()), plannerContext.params());
 
-        return optimizer.optimize(logicalPlan, tableStats, coordinatorTxnCtx);
+        return optimize(logicalPlan, coordinatorTxnCtx);
+    }
+
+    private LogicalPlan optimize(LogicalPlan plan, CoordinatorTxnCtx txnCtx) {
+        LogicalPlan optimizedPlan = optimizer.optimize(plan, tableStats, txnCtx);
+        if (!txnCtx.sessionContext().isRuntimeFilterEnabled() || !containsHashJoin(optimizedPlan)) {
+            return optimizedPlan;
+        }
+        // Runtime filters can only be added once all other filters have been pushed down,
+        // afterwards the regular rules are applied again to push the new filters into the collect phases.
+        LogicalPlan withRuntimeFilters = runtimeFilterOptimizer.optimize(optimizedPlan, tableStats, txnCtx);
+        return optimizer.optimize(withRuntimeFilters, tableStats, txnCtx);
+    }
+
+    private static boolean containsHashJoin(LogicalPlan plan) {
+        if (plan instanceof HashJoin) {
+            return true;
+        }
+        for (LogicalPlan source : plan.sources()) {
+            if (containsHashJoin(source)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     static LogicalPlan.Builder plan(AnalyzedRelation relation,
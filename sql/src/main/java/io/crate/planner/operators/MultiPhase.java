@@ -60,6 +60,13 @@ public class MultiPhase extends ForwardingLogicalPlan {
         };
     }
 
+    public static LogicalPlan createIfNeeded(LogicalPlan source, Map<LogicalPlan, SelectSymbol> subQueries) {
+        if (subQueries.isEmpty()) {
+            return source;
+        }
+        return new MultiPhase(source, subQueries);
+    }
+
     private MultiPhase(LogicalPlan source, Map<LogicalPlan, SelectSymbol> subQueries) {
         super(source);
         HashMap<LogicalPlan, SelectSymbol> allSubQueries = new HashMap<>(source.dependencies());
@@ -27,6 +27,7 @@ import io.crate.analyze.WindowDefinition;
 import io.crate.common.collections.Lists2;
 import io.crate.data.Row;
 import io.crate.execution.dsl.phases.MergePhase;
+import io.crate.execution.dsl.phases.RoutedCollectPhase;
 import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.dsl.projection.WindowAggProjection;
 import io.crate.execution.dsl.projection.builder.InputColumns;
@@ -40,6 +41,7 @@ import io.crate.planner.ExecutionPlan;
 import io.crate.planner.ExplainLeaf;
 import io.crate.planner.Merge;
 import io.crate.planner.PlannerContext;
+import io.crate.planner.PositionalOrderBy;
 import io.crate.planner.ResultDescription;
 import io.crate.planner.distribution.DistributionInfo;
 import io.crate.planner.distribution.DistributionType;
@@ -50,6 +52,7 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 
 import static io.crate.execution.dsl.phases.ExecutionPhases.executesOnHandler;
@@ -133,30 +136,62 @@ public class WindowAgg extends ForwardingLogicalPlan {
                 inputs,
                 filterInput));
         }
-        List<Projection> projections = new ArrayList<>();
-        WindowAggProjection windowAggProjection = new WindowAggProjection(
-            windowDefinition.map(binder.andThen(s -> InputColumns.create(s, sourceSymbols))),
-            windowFunctionContexts,
-            InputColumns.create(this.standalone, sourceSymbols)
-        );
-        projections.add(windowAggProjection);
-        ExecutionPlan sourcePlan = source.build(
-            plannerContext,
-            projectionBuilder,
-            TopN.NO_LIMIT,
-            TopN.NO_OFFSET,
-            null,
-            pageSizeHint,
-            params,
-            subQueryResults
-        );
+        OrderBy orderByInclPartitionBy = createOrderByInclPartitionBy(windowDefinition);
+        ExecutionPlan sourcePlan;
+        boolean sortSource;
+        if (source instanceof Collect && orderByInclPartitionBy != null) {
+            // If the window isn't distributed it is executed on a single node, so if the rows are collected
+            // sorted they can be consumed partition by partition without sorting them again.
+            // A Collect without limit has no remaining limit, so its routing decides on the distribution.
+            Collect collect = (Collect) source;
+            RoutedCollectPhase collectPhase = collect.createPhase(plannerContext, params, subQueryResults);
+            sortSource = windowDefinition.partitions().isEmpty()
+                         || executesOnHandler(plannerContext.handlerNode(), collectPhase.nodeIds());
+            sourcePlan = collect.build(
+                collectPhase,
+                TopN.NO_LIMIT,
+                TopN.NO_OFFSET,
+                sortSource ? orderByInclPartitionBy : null,
+                pageSizeHint,
+                params,
+                subQueryResults
+            );
+        } else {
+            sortSource = false;
+            sourcePlan = source.build(
+                plannerContext,
+                projectionBuilder,
+                TopN.NO_LIMIT,
+                TopN.NO_OFFSET,
+                null,
+                pageSizeHint,
+                params,
+                subQueryResults
+            );
+        }
         ResultDescription resultDescription = sourcePlan.resultDescription();
         boolean executesOnHandler = executesOnHandler(plannerContext.handlerNode(), resultDescription.nodeIds());
         boolean nonDistExecution = windowDefinition.partitions().isEmpty()
                                    || resultDescription.hasRemainingLimitOrOffset()
                                    || executesOnHandler;
+        assert !sortSource || nonDistExecution : "A sorted source is only requested if the window isn't distributed";
         if (nonDistExecution) {
             sourcePlan = Merge.ensureOnHandler(sourcePlan, plannerContext);
+        }
+        boolean sourceIsSorted = nonDistExecution
+                                 && sortSource
+                                 && Objects.equals(
+                                     sourcePlan.resultDescription().orderBy(),
+                                     PositionalOrderBy.of(orderByInclPartitionBy, source.outputs()));
+        List<Projection> projections = new ArrayList<>();
+        WindowAggProjection windowAggProjection = new WindowAggProjection(
+            windowDefinition.map(binder.andThen(s -> InputColumns.create(s, sourceSymbols))),
+            windowFunctionContexts,
+            InputColumns.create(this.standalone, sourceSymbols),
+            sourceIsSorted
+        );
+        projections.add(windowAggProjection);
+        if (nonDistExecution) {
             for (Projection projection : projections) {
                 sourcePlan.addProjection(projection);
             }
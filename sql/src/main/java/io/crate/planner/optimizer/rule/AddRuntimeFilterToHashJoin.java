@@ -0,0 +1,291 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner.optimizer.rule;
+
+import io.crate.analyze.relations.AbstractTableRelation;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.OrOperator;
+import io.crate.expression.operator.any.AnyOperators;
+import io.crate.expression.symbol.Field;
+import io.crate.expression.predicate.IsNullPredicate;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
+import io.crate.metadata.FunctionIdent;
+import io.crate.metadata.FunctionInfo;
+import io.crate.metadata.TransactionContext;
+import io.crate.planner.consumer.FetchMode;
+import io.crate.planner.consumer.QualifiedNameCollector;
+import io.crate.planner.operators.Collect;
+import io.crate.planner.operators.FetchOrEval;
+import io.crate.planner.operators.Filter;
+import io.crate.planner.operators.HashJoin;
+import io.crate.planner.operators.Limit;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.planner.operators.MultiPhase;
+import io.crate.planner.operators.NestedLoopJoin;
+import io.crate.planner.operators.Order;
+import io.crate.planner.operators.RootRelationBoundary;
+import io.crate.planner.operators.TableFunction;
+import io.crate.planner.operators.TopNDistinct;
+import io.crate.planner.optimizer.Rule;
+import io.crate.planner.optimizer.matcher.Captures;
+import io.crate.planner.optimizer.matcher.Pattern;
+import io.crate.sql.tree.QualifiedName;
+import io.crate.statistics.TableStats;
+import io.crate.types.ArrayType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.crate.planner.optimizer.matcher.Pattern.typeOf;
+
+/**
+ * Adds a runtime filter on the join keys to the larger side of a hash join if the other side is small.
+ *
+ * <pre>
+ *     HashJoin[t1.x = t2.y]
+ *       - Collect[t1] (large)
+ *       - Collect[t2] (small)
+ * </pre>
+ *
+ * becomes
+ *
+ * <pre>
+ *     HashJoin[t1.x = t2.y]
+ *       - MultiPhase
+ *          - Filter[SubQuery{t2.y} IS NULL OR t1.x = ANY(SubQuery{t2.y})]
+ *             - Collect[t1]
+ *          - RootBoundary
+ *             - Limit[10001]
+ *                - FetchOrEval[t2.y]
+ *                   - Collect[t2]
+ *       - Collect[t2]
+ * </pre>
+ *
+ * The keys of the small side are collected before the join is executed and the filter ends up as a terms query
+ * in the collect phase of the large side, so that the shards only emit rows which can have a join partner.
+ * Rows of the large side which can't match are never loaded, distributed or hashed.
+ *
+ * The row estimate of the small side can be wrong, so the number of keys is also limited at runtime.
+ * If the small side returns more than {@link #MAX_BUILD_SIDE_ROWS} keys, the sub-query results in NULL
+ * and the filter matches all rows.
+ *
+ * The small side is executed twice, once to collect the keys and once as input of the join. Both executions
+ * must return the same rows, otherwise the join would lose rows which have a join partner. The rule therefore
+ * doesn't match if the small side contains non-deterministic functions or a limit without a total order.
+ *
+ * The rule is only applied if the
+ * {@link io.crate.metadata.settings.session.SessionSettingRegistry#RUNTIME_FILTER_KEY} session setting is enabled.
+ *
+ * This rule must run after the filters have been pushed down; it doesn't match if any side has subquery
+ * dependencies, which also prevents it from matching again on the rewritten join.
+ */
+public final class AddRuntimeFilterToHashJoin implements Rule<HashJoin> {
+
+    /**
+     * Maximum number of expected rows of the small side. The keys are kept in memory on the handler
+     * and sent as part of the collect phase to every shard of the large side.
+     */
+    static final long MAX_BUILD_SIDE_ROWS = 10_000L;
+
+    private final Pattern<HashJoin> pattern;
+
+    public AddRuntimeFilterToHashJoin() {
+        this.pattern = typeOf(HashJoin.class)
+            .with(j -> j.lhs().dependencies().isEmpty() && j.rhs().dependencies().isEmpty());
+    }
+
+    @Override
+    public Pattern<HashJoin> pattern() {
+        return pattern;
+    }
+
+    @Override
+    public LogicalPlan apply(HashJoin join,
+                             Captures captures,
+                             TableStats tableStats,
+                             TransactionContext txnCtx) {
+        LogicalPlan lhs = join.lhs();
+        LogicalPlan rhs = join.rhs();
+        long lhsRows = lhs.numExpectedRows();
+        long rhsRows = rhs.numExpectedRows();
+        boolean lhsIsSmall = lhsRows < rhsRows;
+        LogicalPlan small = lhsIsSmall ? lhs : rhs;
+        LogicalPlan large = lhsIsSmall ? rhs : lhs;
+        long smallRows = Math.min(lhsRows, rhsRows);
+        if (smallRows < 0
+            || smallRows > MAX_BUILD_SIDE_ROWS
+            || small.baseTables().isEmpty()
+            || !isRepeatable(small)) {
+            return null;
+        }
+        Function keys = findKeys(join.joinCondition(), small.getRelationNames(), large.getRelationNames());
+        if (keys == null) {
+            return null;
+        }
+        Symbol largeKey = keys.arguments().get(0);
+        Symbol smallKey = keys.arguments().get(1);
+        DataType<?> keyType = largeKey.valueType();
+        ArrayType<?> arrayType = new ArrayType<>(keyType);
+
+        AbstractTableRelation smallRelation = small.baseTables().get(0);
+        SelectSymbol smallKeys = new SelectSymbol(
+            smallRelation,
+            arrayType,
+            SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES,
+            (int) MAX_BUILD_SIDE_ROWS
+        );
+        // Fetch one key more than allowed, so that the sub-query can detect that there are too many keys
+        LogicalPlan smallKeysPlan = new RootRelationBoundary(
+            new Limit(
+                new FetchOrEval(small, List.of(smallKey), FetchMode.NEVER_CLEAR, false),
+                Literal.of(MAX_BUILD_SIDE_ROWS + 1),
+                Literal.of(0L)
+            )
+        );
+        Function keysFilter = new Function(
+            new FunctionInfo(
+                new FunctionIdent(AnyOperators.Names.EQ, List.of(keyType, arrayType)),
+                DataTypes.BOOLEAN
+            ),
+            List.of(largeKey, smallKeys)
+        );
+        Function tooManyKeys = new Function(
+            IsNullPredicate.generateInfo(List.of(arrayType)),
+            List.of(smallKeys)
+        );
+        Function runtimeFilter = new Function(OrOperator.INFO, List.of(tooManyKeys, keysFilter));
+        LogicalPlan filteredLarge = MultiPhase.createIfNeeded(
+            Filter.create(large, runtimeFilter),
+            Map.of(smallKeysPlan, smallKeys)
+        );
+        return join.replaceSources(lhsIsSmall ? List.of(small, filteredLarge) : List.of(filteredLarge, small));
+    }
+
+    /**
+     * @return true if executing the plan again results in the same rows.
+     */
+    private static boolean isRepeatable(LogicalPlan plan) {
+        if (plan instanceof TopNDistinct) {
+            return false;
+        }
+        if (plan instanceof Limit && !hasTotalOrder(((Limit) plan).source())) {
+            return false;
+        }
+        if (plan.outputs().stream().anyMatch(AddRuntimeFilterToHashJoin::containsNonDeterministicFunction)) {
+            return false;
+        }
+        Symbol condition = null;
+        if (plan instanceof Filter) {
+            condition = ((Filter) plan).query();
+        } else if (plan instanceof Collect) {
+            condition = ((Collect) plan).where().queryOrFallback();
+        } else if (plan instanceof HashJoin) {
+            condition = ((HashJoin) plan).joinCondition();
+        } else if (plan instanceof NestedLoopJoin) {
+            condition = ((NestedLoopJoin) plan).joinCondition();
+        } else if (plan instanceof TableFunction) {
+            condition = ((TableFunction) plan).relation().function();
+        }
+        if (condition != null && containsNonDeterministicFunction(condition)) {
+            return false;
+        }
+        for (LogicalPlan source : plan.sources()) {
+            if (!isRepeatable(source)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rows with the same values for all ORDER BY symbols may be returned in any order.
+     * Only if the ORDER BY includes all outputs, such ties can't change the rows within the limit.
+     */
+    private static boolean hasTotalOrder(LogicalPlan plan) {
+        return plan instanceof Order && ((Order) plan).orderBy().orderBySymbols().containsAll(plan.outputs());
+    }
+
+    private static boolean containsNonDeterministicFunction(Symbol symbol) {
+        return SymbolVisitors.any(s -> s instanceof Function && !((Function) s).info().isDeterministic(), symbol);
+    }
+
+    /**
+     * @return a `largeKey = smallKey` function of the first suitable EQ condition or null if there is none.
+     */
+    @Nullable
+    private static Function findKeys(Symbol joinCondition,
+                                     Set<QualifiedName> smallRelations,
+                                     Set<QualifiedName> largeRelations) {
+        if (!(joinCondition instanceof Function)) {
+            return null;
+        }
+        Function function = (Function) joinCondition;
+        String name = function.info().ident().name();
+        if (name.equals(AndOperator.NAME)) {
+            for (Symbol arg : function.arguments()) {
+                Function keys = findKeys(arg, smallRelations, largeRelations);
+                if (keys != null) {
+                    return keys;
+                }
+            }
+            return null;
+        }
+        if (!name.equals(EqOperator.NAME) || function.arguments().size() != 2) {
+            return null;
+        }
+        Symbol left = function.arguments().get(0);
+        Symbol right = function.arguments().get(1);
+        if (isKeyOf(left, largeRelations) && isKeyOf(right, smallRelations)) {
+            return keysIfSupported(function, left, right);
+        }
+        if (isKeyOf(right, largeRelations) && isKeyOf(left, smallRelations)) {
+            return keysIfSupported(function, right, left);
+        }
+        return null;
+    }
+
+    private static boolean isKeyOf(Symbol symbol, Set<QualifiedName> relations) {
+        Set<QualifiedName> names = QualifiedNameCollector.collect(symbol);
+        return !names.isEmpty() && relations.containsAll(names);
+    }
+
+    @Nullable
+    private static Function keysIfSupported(Function eq, Symbol largeKey, Symbol smallKey) {
+        // The filter on the large side should become a terms query, so only plain columns are used
+        if (!(largeKey instanceof Field)
+            || !largeKey.valueType().equals(smallKey.valueType())
+            || !DataTypes.PRIMITIVE_TYPES.contains(largeKey.valueType())) {
+            return null;
+        }
+        return new Function(eq.info(), List.of(largeKey, smallKey));
+    }
+}
@@ -25,6 +25,11 @@ package io.crate.planner.selectivity;
 import io.crate.data.Row;
 import io.crate.expression.operator.AndOperator;
 import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LikeOperators;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
 import io.crate.expression.operator.OrOperator;
 import io.crate.expression.predicate.IsNullPredicate;
 import io.crate.expression.predicate.NotPredicate;
@@ -36,12 +41,19 @@ import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.SymbolVisitor;
 import io.crate.metadata.ColumnIdent;
 import io.crate.metadata.Reference;
+import io.crate.sql.tree.QualifiedName;
 import io.crate.statistics.ColumnStats;
+import io.crate.statistics.MostCommonValues;
 import io.crate.statistics.Stats;
+import io.crate.types.DataType;
+import io.crate.types.StringType;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Used to estimate the number of rows returned after applying a given query.
@@ -58,11 +70,28 @@ public class SelectivityFunctions {
      */
     private static final double MAGIC_SEL = 0.333;
 
+    /**
+     * Used for `x > a AND x < b` if the combined selectivity of the two bounds is implausible.
+     */
+    private static final double DEFAULT_RANGE_INEQ_SEL = 0.005;
+
     public static long estimateNumRows(Stats stats, Symbol query, @Nullable Row params) {
         var estimator = new SelectivityEstimator(stats, params);
         return (long) (stats.numDocs() * query.accept(estimator, null));
     }
 
+    /**
+     * Estimates the fraction of the cartesian product of two or more relations which matches the given join condition.
+     *
+     * For equality conditions between columns of two relations the selectivity is `1 / max(ndv(a), ndv(b))`,
+     * following PostgreSQL's `eqjoinsel`. Columns are resolved to the statistics of their relation via `statsByRelation`.
+     */
+    public static double estimateJoinSelectivity(Symbol joinCondition,
+                                                 Map<QualifiedName, Stats> statsByRelation,
+                                                 @Nullable Row params) {
+        return joinCondition.accept(new JoinSelectivityEstimator(statsByRelation, params), null);
+    }
+
     static class SelectivityEstimator extends SymbolVisitor<Void, Double> {
 
         private final Stats stats;
@@ -92,13 +121,8 @@ public class SelectivityFunctions {
         @Override
         public Double visitFunction(Function function, Void context) {
             switch (function.info().ident().name()) {
-                case AndOperator.NAME: {
-                    double selectivity = 1.0;
-                    for (Symbol argument : function.arguments()) {
-                        selectivity *= argument.accept(this, context);
-                    }
-                    return selectivity;
-                }
+                case AndOperator.NAME:
+                    return andSelectivity(AndOperator.split(function), context);
 
                 case OrOperator.NAME: {
                     double sel1 = 1.0;
@@ -111,7 +135,7 @@ public class SelectivityFunctions {
 
                 case EqOperator.NAME: {
                     List<Symbol> arguments = function.arguments();
-                    return eqSelectivity(arguments.get(0), arguments.get(1), stats, params);
+                    return eqSelectivity(arguments.get(0), arguments.get(1), statsFor(arguments.get(0)), params);
                 }
 
                 case NotPredicate.NAME: {
@@ -120,7 +144,23 @@ public class SelectivityFunctions {
 
                 case IsNullPredicate.NAME: {
                     var arguments = function.arguments();
-                    return isNullSelectivity(arguments.get(0), stats);
+                    return isNullSelectivity(arguments.get(0), statsFor(arguments.get(0)));
+                }
+
+                case LtOperator.NAME:
+                case LteOperator.NAME:
+                case GtOperator.NAME:
+                case GteOperator.NAME: {
+                    RangeBound bound = RangeBound.of(function, params);
+                    if (bound == null) {
+                        return MAGIC_SEL;
+                    }
+                    return rangeSelectivity(bound, statsFor(bound.column));
+                }
+
+                case LikeOperators.OP_LIKE: {
+                    var arguments = function.arguments();
+                    return likeSelectivity(arguments.get(0), arguments.get(1), statsFor(arguments.get(0)), params);
                 }
 
                 default:
@@ -128,6 +168,103 @@ public class SelectivityFunctions {
             }
         }
 
+        /**
+         * Bounds on the same column, e.g. `x >= 10 AND x < 20`, are combined into a range selectivity.
+         * The selectivities of the different columns are then combined using exponential back-off:
+         * Sorted from most to least selective, each further selectivity is damped by the next root
+         * (`s1 * s2^(1/2) * s3^(1/4) * ..`) as the columns of a table are rarely independent.
+         */
+        private double andSelectivity(List<Symbol> conjunctions, Void context) {
+            Map<Symbol, Double> selectivityByColumn = new LinkedHashMap<>();
+            Map<Symbol, Double> lowerBoundByColumn = new LinkedHashMap<>();
+            Map<Symbol, Double> upperBoundByColumn = new LinkedHashMap<>();
+            List<Double> selectivities = new ArrayList<>(conjunctions.size());
+            for (Symbol conjunction : conjunctions) {
+                double selectivity = conjunction.accept(this, context);
+                Symbol column = conjunction instanceof Function ? singleColumn((Function) conjunction) : null;
+                if (column == null) {
+                    selectivities.add(selectivity);
+                    continue;
+                }
+                RangeBound bound = RangeBound.of((Function) conjunction, params);
+                if (bound != null && hasHistogram(statsFor(column), column)) {
+                    Map<Symbol, Double> bounds = bound.isUpper ? upperBoundByColumn : lowerBoundByColumn;
+                    bounds.merge(column, selectivity, Math::min);
+                } else {
+                    selectivityByColumn.merge(column, selectivity, (a, b) -> a * b);
+                }
+            }
+            for (Map.Entry<Symbol, Double> entry : lowerBoundByColumn.entrySet()) {
+                Symbol column = entry.getKey();
+                Double upperBound = upperBoundByColumn.remove(column);
+                double selectivity = entry.getValue();
+                if (upperBound != null) {
+                    ColumnStats<?> columnStats = statsFor(column).statsByColumn().get(getColumn(column));
+                    selectivity = rangeSelectivity(selectivity, upperBound, columnStats.nullFraction());
+                }
+                selectivityByColumn.merge(column, selectivity, (a, b) -> a * b);
+            }
+            for (Map.Entry<Symbol, Double> entry : upperBoundByColumn.entrySet()) {
+                selectivityByColumn.merge(entry.getKey(), entry.getValue(), (a, b) -> a * b);
+            }
+            selectivities.addAll(selectivityByColumn.values());
+            selectivities.sort(Double::compare);
+            double selectivity = 1.0;
+            double exponent = 1.0;
+            for (double s : selectivities) {
+                selectivity *= Math.pow(s, exponent);
+                exponent /= 2;
+            }
+            return selectivity;
+        }
+
+        Stats statsFor(Symbol column) {
+            return stats;
+        }
+    }
+
+    static class JoinSelectivityEstimator extends SelectivityEstimator {
+
+        private final Map<QualifiedName, Stats> statsByRelation;
+
+        JoinSelectivityEstimator(Map<QualifiedName, Stats> statsByRelation, @Nullable Row params) {
+            super(Stats.EMPTY, params);
+            this.statsByRelation = statsByRelation;
+        }
+
+        @Override
+        public Double visitFunction(Function function, Void context) {
+            if (function.info().ident().name().equals(EqOperator.NAME)) {
+                List<Symbol> arguments = function.arguments();
+                Symbol left = arguments.get(0);
+                Symbol right = arguments.get(1);
+                if (left instanceof Field
+                    && right instanceof Field
+                    && !((Field) left).relation().getQualifiedName().equals(((Field) right).relation().getQualifiedName())) {
+                    return columnEqJoinSelectivity((Field) left, statsFor(left), (Field) right, statsFor(right));
+                }
+            }
+            return super.visitFunction(function, context);
+        }
+
+        @Override
+        Stats statsFor(Symbol column) {
+            if (column instanceof Field) {
+                return statsByRelation.getOrDefault(((Field) column).relation().getQualifiedName(), Stats.EMPTY);
+            }
+            return Stats.EMPTY;
+        }
+    }
+
+    private static double columnEqJoinSelectivity(Field left, Stats leftStats, Field right, Stats rightStats) {
+        ColumnStats leftColumnStats = leftStats.statsByColumn().get(left.path());
+        ColumnStats rightColumnStats = rightStats.statsByColumn().get(right.path());
+        if (leftColumnStats == null && rightColumnStats == null) {
+            return DEFAULT_EQ_SEL;
+        }
+        double leftDistinct = leftColumnStats == null ? 1.0 : leftColumnStats.approxDistinct();
+        double rightDistinct = rightColumnStats == null ? 1.0 : rightColumnStats.approxDistinct();
+        return 1.0 / Math.max(1.0, Math.max(leftDistinct, rightDistinct));
     }
 
     private static double isNullSelectivity(Symbol arg, Stats stats) {
@@ -175,6 +312,258 @@ public class SelectivityFunctions {
         }
     }
 
+    private static boolean hasHistogram(Stats stats, Symbol column) {
+        ColumnStats<?> columnStats = stats.statsByColumn().get(getColumn(column));
+        return columnStats != null && columnStats.histogram().size() > 1;
+    }
+
+    /**
+     * Combines the selectivity of a lower bound `x > a` and an upper bound `x < b` on the same column.
+     * See `clauselist_selectivity` in PostgreSQL.
+     */
+    private static double rangeSelectivity(double lowerBoundSel, double upperBoundSel, double nullFraction) {
+        double selectivity = lowerBoundSel + upperBoundSel - 1.0 + nullFraction;
+        if (selectivity <= 0.0) {
+            // Slightly negative values are caused by rounding errors in the estimates of very narrow ranges,
+            // anything else means the estimates of the bounds are off.
+            return selectivity < -0.01 ? DEFAULT_RANGE_INEQ_SEL : 1.0e-10;
+        }
+        return selectivity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double rangeSelectivity(RangeBound bound, Stats stats) {
+        ColumnIdent column = getColumn(bound.column);
+        ColumnStats<Object> columnStats = column == null ? null : stats.statsByColumn().get(column);
+        if (columnStats == null) {
+            return MAGIC_SEL;
+        }
+        if (bound.value == null) {
+            // x < null -> is always null
+            return 0.0;
+        }
+        DataType<Object> type = columnStats.type();
+        Object value;
+        try {
+            value = type.value(bound.value);
+        } catch (ClassCastException | IllegalArgumentException e) {
+            return MAGIC_SEL;
+        }
+        MostCommonValues mcv = columnStats.mostCommonValues();
+        Object[] mcvValues = mcv.values();
+        double[] mcvFrequencies = mcv.frequencies();
+        double mcvSelectivity = 0.0;
+        double sumMcvFrequencies = 0.0;
+        for (int i = 0; i < mcvValues.length; i++) {
+            sumMcvFrequencies += mcvFrequencies[i];
+            if (bound.matches(type.compareValueTo(mcvValues[i], value))) {
+                mcvSelectivity += mcvFrequencies[i];
+            }
+        }
+        List<Object> histogram = columnStats.histogram();
+        double histogramSelectivity;
+        if (histogram.size() > 1) {
+            double fractionBelow = histogramFractionBelow(histogram, type, value);
+            histogramSelectivity = bound.isUpper ? fractionBelow : 1.0 - fractionBelow;
+        } else if (mcvValues.length == 0) {
+            return MAGIC_SEL;
+        } else {
+            histogramSelectivity = MAGIC_SEL;
+        }
+        double selectivity = mcvSelectivity
+                             + histogramSelectivity * (1.0 - columnStats.nullFraction() - sumMcvFrequencies);
+        return Math.max(0.0, Math.min(1.0, selectivity));
+    }
+
+    /**
+     * Returns the fraction of the histogram values which are less than the given value.
+     * The histogram is equi-depth, so each bucket between two bounds contains the same number of values.
+     * Within a bucket the position is linearly interpolated for numeric types.
+     */
+    private static double histogramFractionBelow(List<Object> histogram, DataType<Object> type, Object value) {
+        int last = histogram.size() - 1;
+        if (type.compareValueTo(value, histogram.get(0)) <= 0) {
+            return 0.0;
+        }
+        if (type.compareValueTo(value, histogram.get(last)) >= 0) {
+            return 1.0;
+        }
+        int low = 0;
+        int high = last;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (type.compareValueTo(histogram.get(mid), value) <= 0) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        Object lowerBound = histogram.get(low);
+        Object upperBound = histogram.get(high);
+        double bucketFraction = 0.5;
+        if (value instanceof Number && lowerBound instanceof Number && upperBound instanceof Number) {
+            double lower = ((Number) lowerBound).doubleValue();
+            double upper = ((Number) upperBound).doubleValue();
+            if (upper > lower) {
+                bucketFraction = (((Number) value).doubleValue() - lower) / (upper - lower);
+            }
+        }
+        return (low + bucketFraction) / last;
+    }
+
+    /**
+     * `x LIKE 'abc%'` is estimated as the range `x >= 'abc' AND x < 'abd'`.
+     * See `prefix_selectivity` in PostgreSQL.
+     */
+    private static double likeSelectivity(Symbol leftArg, Symbol rightArg, Stats stats, @Nullable Row params) {
+        ColumnIdent column = getColumn(leftArg);
+        ColumnStats<?> columnStats = column == null ? null : stats.statsByColumn().get(column);
+        if (columnStats == null || !(columnStats.type() instanceof StringType)) {
+            return MAGIC_SEL;
+        }
+        Object pattern = valueOf(rightArg, params);
+        if (!(pattern instanceof String)) {
+            return MAGIC_SEL;
+        }
+        StringBuilder prefix = new StringBuilder();
+        String patternString = (String) pattern;
+        boolean hasWildcard = false;
+        for (int i = 0; i < patternString.length(); i++) {
+            char c = patternString.charAt(i);
+            if (c == LikeOperators.DEFAULT_ESCAPE && i + 1 < patternString.length()) {
+                i++;
+                prefix.append(patternString.charAt(i));
+            } else if (c == '%' || c == '_') {
+                hasWildcard = true;
+                break;
+            } else {
+                prefix.append(c);
+            }
+        }
+        if (!hasWildcard) {
+            return eqSelectivityFromValueAndStats(prefix.toString(), columnStats);
+        }
+        if (prefix.length() == 0) {
+            return MAGIC_SEL;
+        }
+        String lower = prefix.toString();
+        char lastChar = lower.charAt(lower.length() - 1);
+        if (lastChar == Character.MAX_VALUE) {
+            return MAGIC_SEL;
+        }
+        String upper = lower.substring(0, lower.length() - 1) + (char) (lastChar + 1);
+        double atLeastLower = rangeSelectivity(new RangeBound(leftArg, lower, false, true), stats);
+        double belowUpper = rangeSelectivity(new RangeBound(leftArg, upper, true, false), stats);
+        double selectivity = rangeSelectivity(atLeastLower, belowUpper, columnStats.nullFraction());
+        return Math.max(selectivity, 1.0 / columnStats.approxDistinct());
+    }
+
+    @Nullable
+    private static Object valueOf(Symbol symbol, @Nullable Row params) {
+        if (symbol instanceof Literal) {
+            return ((Literal<?>) symbol).value();
+        }
+        if (symbol instanceof ParameterSymbol && params != null) {
+            return params.get(((ParameterSymbol) symbol).index());
+        }
+        return null;
+    }
+
+    /**
+     * Returns the column of a `column <op> value` or `value <op> column` predicate.
+     */
+    @Nullable
+    private static Symbol singleColumn(Function function) {
+        List<Symbol> arguments = function.arguments();
+        if (arguments.size() != 2) {
+            return arguments.size() == 1 && getColumn(arguments.get(0)) != null ? arguments.get(0) : null;
+        }
+        Symbol left = arguments.get(0);
+        Symbol right = arguments.get(1);
+        if (getColumn(left) != null && isValue(right)) {
+            return left;
+        }
+        if (getColumn(right) != null && isValue(left)) {
+            return right;
+        }
+        return null;
+    }
+
+    private static boolean isValue(Symbol symbol) {
+        return symbol instanceof Literal || symbol instanceof ParameterSymbol;
+    }
+
+    /**
+     * A `column <op> value` predicate with one of the operators `<`, `<=`, `>`, `>=`,
+     * normalized so that the column is on the left side.
+     */
+    private static class RangeBound {
+
+        private final Symbol column;
+        @Nullable
+        private final Object value;
+        private final boolean isUpper;
+        private final boolean inclusive;
+
+        private RangeBound(Symbol column, @Nullable Object value, boolean isUpper, boolean inclusive) {
+            this.column = column;
+            this.value = value;
+            this.isUpper = isUpper;
+            this.inclusive = inclusive;
+        }
+
+        @Nullable
+        static RangeBound of(Function function, @Nullable Row params) {
+            String name = function.info().ident().name();
+            boolean isUpper;
+            boolean inclusive;
+            switch (name) {
+                case LtOperator.NAME:
+                    isUpper = true;
+                    inclusive = false;
+                    break;
+                case LteOperator.NAME:
+                    isUpper = true;
+                    inclusive = true;
+                    break;
+                case GtOperator.NAME:
+                    isUpper = false;
+                    inclusive = false;
+                    break;
+                case GteOperator.NAME:
+                    isUpper = false;
+                    inclusive = true;
+                    break;
+                default:
+                    return null;
+            }
+            List<Symbol> arguments = function.arguments();
+            Symbol left = arguments.get(0);
+            Symbol right = arguments.get(1);
+            if (getColumn(left) != null && isValue(right)) {
+                if (right instanceof ParameterSymbol && params == null) {
+                    return null;
+                }
+                return new RangeBound(left, valueOf(right, params), isUpper, inclusive);
+            }
+            if (getColumn(right) != null && isValue(left)) {
+                if (left instanceof ParameterSymbol && params == null) {
+                    return null;
+                }
+                // 10 < x -> x > 10
+                return new RangeBound(right, valueOf(left, params), !isUpper, inclusive);
+            }
+            return null;
+        }
+
+        boolean matches(int cmpValueToBound) {
+            if (cmpValueToBound == 0) {
+                return inclusive;
+            }
+            return isUpper ? cmpValueToBound < 0 : cmpValueToBound > 0;
+        }
+    }
+
     @Nullable
     private static ColumnIdent getColumn(Symbol symbol) {
         if (symbol instanceof Reference) {
@@ -42,6 +42,7 @@ import io.crate.execution.dsl.projection.SourceIndexWriterProjection;
 import io.crate.execution.dsl.projection.SourceIndexWriterReturnSummaryProjection;
 import io.crate.execution.dsl.projection.builder.InputColumns;
 import io.crate.execution.engine.NodeOperationTreeGenerator;
+import io.crate.execution.engine.collect.files.StdinStreams;
 import io.crate.execution.engine.pipeline.TopN;
 import io.crate.expression.reference.file.SourceLineNumberExpression;
 import io.crate.expression.reference.file.SourceUriExpression;
@@ -155,10 +156,20 @@ public final class CopyFromPlan implements Plan {
         var inputFormat = settingAsEnum(
             FileUriCollectPhase.InputFormat.class,
             settings.get(INPUT_FORMAT_SETTING.getKey(), INPUT_FORMAT_SETTING.getDefault(Settings.EMPTY)));
-        // TODO make FileUriCollectPhase ctor accept an uri of the List<String>
-        // instead of the Symbol type, such as the uri can be evaluated and converted
-        // to the required type already at this stage, but not later on in FileCollectSource.
-        var boundedURI = validateAndConvertToLiteral(eval.apply(copyFrom.uri()));
+        Symbol boundedURI;
+        if (copyFrom.isFromStdin()) {
+            String copyStreamId = txnCtx.sessionContext().copyStreamId();
+            if (copyStreamId == null) {
+                throw new UnsupportedOperationException(
+                    "COPY FROM STDIN is only supported using the simple query protocol of the PostgreSQL wire protocol");
+            }
+            boundedURI = Literal.of(StdinStreams.uri(copyStreamId));
+        } else {
+            // TODO make FileUriCollectPhase ctor accept an uri of the List<String>
+            // instead of the Symbol type, such as the uri can be evaluated and converted
+            // to the required type already at this stage, but not later on in FileCollectSource.
+            boundedURI = validateAndConvertToLiteral(eval.apply(copyFrom.uri()));
+        }
 
         return new BoundCopyFrom(
             copyFrom.tableInfo(),
@@ -289,13 +300,21 @@ public final class CopyFromPlan implements Plan {
             rewriteToCollectToUsePartitionValues(table.partitionedByColumns(), partitionValues, toCollect);
         }
 
+        Collection<String> executionNodes;
+        if (copyFrom.isFromStdin()) {
+            // the client stream is only available on the node the client is connected to
+            executionNodes = List.of(context.handlerNode());
+        } else {
+            executionNodes = getExecutionNodes(
+                allNodes,
+                boundedCopyFrom.settings().getAsInt("num_readers", allNodes.getSize()),
+                boundedCopyFrom.nodePredicate());
+        }
         FileUriCollectPhase collectPhase = new FileUriCollectPhase(
             context.jobId(),
             context.nextExecutionPhaseId(),
             "copyFrom",
-            getExecutionNodes(allNodes, boundedCopyFrom
-                .settings()
-                .getAsInt("num_readers", allNodes.getSize()), boundedCopyFrom.nodePredicate()),
+            executionNodes,
             boundedCopyFrom.uri(),
             toCollect,
             Collections.emptyList(),
@@ -398,18 +417,38 @@ public final class CopyFromPlan implements Plan {
 
     private static Symbol validateAndConvertToLiteral(Object uri) {
         if (uri instanceof String) {
-            return Literal.of(DataTypes.STRING.value(uri));
+            return Literal.of(DataTypes.STRING.value(rejectStdinUri(uri)));
         } else if (uri instanceof List) {
             Object value = ((List) uri).get(0);
             if (!(value instanceof String)) {
                 throw AnalyzedCopyFrom.raiseInvalidType(DataTypes.guessType(uri));
             }
             ArrayType<String> strArray = new ArrayType<>(DataTypes.STRING);
-            return Literal.of(strArray, strArray.value(uri));
+            List<String> uris = strArray.value(uri);
+            uris.forEach(CopyFromPlan::rejectStdinUri);
+            return Literal.of(strArray, uris);
         }
         throw AnalyzedCopyFrom.raiseInvalidType(DataTypes.guessType(uri));
     }
 
+    /**
+     * The stdin scheme refers to the streams of client connections, see {@link StdinStreams};
+     * they can only be read using {@code COPY FROM STDIN}.
+     */
+    private static Object rejectStdinUri(@Nullable Object uri) {
+        if (uri instanceof String) {
+            String scheme = StdinStreams.SCHEME + ":";
+            String trimmedUri = ((String) uri).trim();
+            if (trimmedUri.regionMatches(true, 0, scheme, 0, scheme.length())) {
+                throw new IllegalArgumentException(String.format(
+                    Locale.ENGLISH,
+                    "URI scheme '%s' is only supported by COPY FROM STDIN",
+                    StdinStreams.SCHEME));
+            }
+        }
+        return uri;
+    }
+
     private static Predicate<DiscoveryNode> discoveryNodePredicate(@Nullable Object nodeFilter) {
         if (nodeFilter == null) {
             return discoveryNode -> true;
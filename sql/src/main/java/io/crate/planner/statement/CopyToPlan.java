@@ -32,7 +32,10 @@ import io.crate.analyze.SymbolEvaluator;
 import io.crate.analyze.WhereClause;
 import io.crate.analyze.relations.DocTableRelation;
 import io.crate.common.collections.Lists2;
+import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
 import io.crate.data.Row;
+import io.crate.data.Row1;
 import io.crate.data.RowConsumer;
 import io.crate.exceptions.PartitionUnknownException;
 import io.crate.exceptions.UnsupportedFeatureException;
@@ -41,6 +44,7 @@ import io.crate.execution.dsl.projection.MergeCountProjection;
 import io.crate.execution.dsl.projection.WriterProjection;
 import io.crate.execution.dsl.projection.builder.ProjectionBuilder;
 import io.crate.execution.engine.NodeOperationTreeGenerator;
+import io.crate.execution.engine.export.JsonLineEncoder;
 import io.crate.expression.symbol.Literal;
 import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.Symbols;
@@ -67,12 +71,14 @@ import io.crate.sql.tree.Assignment;
 import io.crate.types.DataTypes;
 import org.elasticsearch.common.settings.Settings;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import static io.crate.analyze.CopyStatementSettings.COMPRESSION_SETTING;
@@ -121,15 +127,27 @@ public final class CopyToPlan implements Plan {
                               RowConsumer consumer,
                               Row params,
                               SubQueryResults subQueryResults) {
-        ExecutionPlan executionPlan = planCopyToExecution(
+        var boundedCopyTo = bind(
             copyTo,
+            plannerContext.transactionContext(),
+            plannerContext.functions(),
+            params,
+            subQueryResults);
+        ExecutionPlan executionPlan = planCopyToExecution(
+            boundedCopyTo,
             plannerContext,
             logicalPlanner,
             subqueryPlanner,
             executor.projectionBuilder(),
-            params,
-            subQueryResults);
+            params);
 
+        if (boundedCopyTo.uri() == null) {
+            consumer = new LineEncodingConsumer(consumer, new JsonLineEncoder(
+                outputFormat(boundedCopyTo),
+                boundedCopyTo.outputNames(),
+                boundedCopyTo.overwrites() == null ? List.of() : List.copyOf(boundedCopyTo.overwrites().keySet())
+            ));
+        }
         NodeOperationTree nodeOpTree = NodeOperationTreeGenerator
             .fromPlan(executionPlan, executor.localNodeId());
         executor.phasesTaskFactory()
@@ -151,21 +169,15 @@ public final class CopyToPlan implements Plan {
             context.functions(),
             params,
             subQueryResults);
+        return planCopyToExecution(boundedCopyTo, context, logicalPlanner, subqueryPlanner, projectionBuilder, params);
+    }
 
-        WriterProjection.OutputFormat outputFormat = boundedCopyTo.outputFormat();
-        if (outputFormat == null) {
-            outputFormat = boundedCopyTo.columnsDefined() ?
-                WriterProjection.OutputFormat.JSON_ARRAY : WriterProjection.OutputFormat.JSON_OBJECT;
-        }
-
-        WriterProjection projection = ProjectionBuilder.writerProjection(
-            boundedCopyTo.relation().outputs(),
-            boundedCopyTo.uri(),
-            boundedCopyTo.compressionType(),
-            boundedCopyTo.overwrites(),
-            boundedCopyTo.outputNames(),
-            outputFormat);
-
+    private static ExecutionPlan planCopyToExecution(BoundCopyTo boundedCopyTo,
+                                                     PlannerContext context,
+                                                     LogicalPlanner logicalPlanner,
+                                                     SubqueryPlanner subqueryPlanner,
+                                                     ProjectionBuilder projectionBuilder,
+                                                     Row params) {
         LogicalPlan logicalPlan = logicalPlanner.normalizeAndPlan(
             boundedCopyTo.relation(),
             context,
@@ -177,6 +189,18 @@ public final class CopyToPlan implements Plan {
             context,
             projectionBuilder,
             0, 0, null, null, params, SubQueryResults.EMPTY);
+        if (boundedCopyTo.uri() == null) {
+            // COPY TO STDOUT: the rows are encoded into lines on the handler, see LineEncodingConsumer
+            return Merge.ensureOnHandler(executionPlan, context);
+        }
+
+        WriterProjection projection = ProjectionBuilder.writerProjection(
+            boundedCopyTo.relation().outputs(),
+            boundedCopyTo.uri(),
+            boundedCopyTo.compressionType(),
+            boundedCopyTo.overwrites(),
+            boundedCopyTo.outputNames(),
+            outputFormat(boundedCopyTo));
         executionPlan.addProjection(projection);
 
         return Merge.ensureOnHandler(
@@ -185,6 +209,15 @@ public final class CopyToPlan implements Plan {
             List.of(MergeCountProjection.INSTANCE));
     }
 
+    private static WriterProjection.OutputFormat outputFormat(BoundCopyTo boundedCopyTo) {
+        WriterProjection.OutputFormat outputFormat = boundedCopyTo.outputFormat();
+        if (outputFormat == null) {
+            outputFormat = boundedCopyTo.columnsDefined() ?
+                WriterProjection.OutputFormat.JSON_ARRAY : WriterProjection.OutputFormat.JSON_OBJECT;
+        }
+        return outputFormat;
+    }
+
     @VisibleForTesting
     public static BoundCopyTo bind(AnalyzedCopyTo copyTo,
                                    CoordinatorTxnCtx txnCtx,
@@ -234,7 +267,11 @@ public final class CopyToPlan implements Plan {
             } else {
                 sourceRef = tableRelation.tableInfo().getReference(DocSysColumns.RAW);
             }
-            outputs = List.of(sourceRef);
+            outputs.add(sourceRef);
+            if (copyTo.isToStdout() && overwrites != null) {
+                // there is no writer projection evaluating the overwrites, the lines are encoded from the outputs
+                outputs.addAll(overwrites.values());
+            }
         }
 
         Settings settings = genericPropertiesToSettings(
@@ -249,6 +286,18 @@ public final class CopyToPlan implements Plan {
         if (!columnsDefined && outputFormat == WriterProjection.OutputFormat.JSON_ARRAY) {
             throw new UnsupportedFeatureException("Output format not supported without specifying columns.");
         }
+        Symbol uri = null;
+        if (copyTo.isToStdout()) {
+            if (txnCtx.sessionContext().copyStreamId() == null) {
+                throw new UnsupportedOperationException(
+                    "COPY TO STDOUT is only supported using the simple query protocol of the PostgreSQL wire protocol");
+            }
+            if (compressionType != null) {
+                throw new UnsupportedFeatureException("Compression is not supported for COPY TO STDOUT");
+            }
+        } else {
+            uri = Literal.of(DataTypes.STRING.value(eval.apply(copyTo.uri())));
+        }
 
         WhereClause whereClause = new WhereClause(copyTo.whereClause(), partitions, Collections.emptySet());
         QuerySpec querySpec = new QuerySpec(
@@ -271,7 +320,7 @@ public final class CopyToPlan implements Plan {
 
         return new BoundCopyTo(
             subRelation,
-            Literal.of(DataTypes.STRING.value(eval.apply(copyTo.uri()))),
+            uri,
             compressionType,
             outputFormat,
             outputNames,
@@ -292,4 +341,37 @@ public final class CopyToPlan implements Plan {
         }
         return List.of(partitionName.asIndexName());
     }
+
+    /**
+     * Replaces the rows of a {@code COPY TO STDOUT} with single column rows holding the encoded JSON lines.
+     */
+    private static class LineEncodingConsumer implements RowConsumer {
+
+        private final RowConsumer delegate;
+        private final Function<Row, String> encoder;
+
+        LineEncodingConsumer(RowConsumer delegate, Function<Row, String> encoder) {
+            this.delegate = delegate;
+            this.encoder = encoder;
+        }
+
+        @Override
+        public void accept(BatchIterator<Row> iterator, @Nullable Throwable failure) {
+            if (failure == null) {
+                delegate.accept(BatchIterators.map(iterator, row -> new Row1(encoder.apply(row))), null);
+            } else {
+                delegate.accept(null, failure);
+            }
+        }
+
+        @Override
+        public CompletableFuture<?> completionFuture() {
+            return delegate.completionFuture();
+        }
+
+        @Override
+        public boolean requiresScroll() {
+            return delegate.requiresScroll();
+        }
+    }
 }
@@ -29,6 +29,7 @@ import io.crate.breaker.CircuitBreakerModule;
 import io.crate.cluster.gracefulstop.DecommissionAllocationDecider;
 import io.crate.cluster.gracefulstop.DecommissioningService;
 import io.crate.execution.TransportExecutorModule;
+import io.crate.execution.engine.aggregation.GroupingProjector;
 import io.crate.execution.engine.aggregation.impl.AggregationImplModule;
 import io.crate.execution.engine.collect.CollectOperationModule;
 import io.crate.execution.engine.collect.files.FileCollectModule;
@@ -52,6 +53,7 @@ import io.crate.metadata.DefaultTemplateService;
 import io.crate.metadata.MetaDataModule;
 import io.crate.metadata.Schemas;
 import io.crate.metadata.blob.MetaDataBlobModule;
+import io.crate.metadata.doc.SourceFormat;
 import io.crate.metadata.information.MetaDataInformationModule;
 import io.crate.metadata.pgcatalog.PgCatalogModule;
 import io.crate.metadata.settings.AnalyzerSettings;
@@ -59,8 +61,10 @@ import io.crate.metadata.settings.CrateSettings;
 import io.crate.metadata.sys.MetaDataSysModule;
 import io.crate.metadata.upgrade.IndexTemplateUpgrader;
 import io.crate.metadata.upgrade.MetaDataIndexUpgrader;
+import io.crate.metadata.view.MaterializedViewSettings;
 import io.crate.metadata.view.ViewsMetaData;
 import io.crate.monitor.MonitorModule;
+import io.crate.planner.PlanCache;
 import io.crate.protocols.postgres.PostgresNetty;
 import io.crate.protocols.ssl.SslConfigSettings;
 import io.crate.protocols.ssl.SslContextProviderFallbackModule;
@@ -122,6 +126,10 @@ public class SQLPlugin extends Plugin implements ActionPlugin, MapperPlugin, Clu
         List<Setting<?>> settings = new ArrayList<>();
         settings.add(AnalyzerSettings.CUSTOM_ANALYSIS_SETTING_GROUP);
         settings.add(SQLOperations.NODE_READ_ONLY_SETTING);
+        settings.add(GroupingProjector.SPILL_THRESHOLD_SETTING.setting());
+        settings.add(PlanCache.PLAN_CACHE_SIZE_SETTING.setting());
+        settings.add(SourceFormat.SETTING);
+        settings.addAll(MaterializedViewSettings.SETTINGS);
 
         // Postgres settings are node settings
         settings.add(PostgresNetty.PSQL_ENABLED_SETTING.setting());
@@ -0,0 +1,177 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.netty.buffer.ByteBuf;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+
+/**
+ * Pipe between the CopyData messages a client sends for {@code COPY FROM STDIN} and the collect phase reading them.
+ * <p>
+ * {@link #write(ByteBuf)} is called on the event loop and never blocks. Once more than {@link #HIGH_WATER_MARK}
+ * bytes are buffered the writer is expected to stop reading from the channel until the reader consumed
+ * the buffer down to {@link #LOW_WATER_MARK} bytes and invokes {@code onDrained}.
+ * <p>
+ * The reader runs on a thread of the SEARCH pool. It waits at most {@link #READ_TIMEOUT} for the client to send
+ * more data and fails the statement afterwards, so that an idle client cannot block the thread forever.
+ */
+class CopyInStream extends InputStream {
+
+    static final int HIGH_WATER_MARK = 1024 * 1024;
+    static final int LOW_WATER_MARK = 256 * 1024;
+    static final TimeValue READ_TIMEOUT = TimeValue.timeValueMinutes(1);
+
+    private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+    private final Runnable onDrained;
+    private final long readTimeoutInMs;
+
+    private byte[] current;
+    private int pos;
+    private long buffered;
+    private boolean paused;
+    private boolean finished;
+    private boolean closed;
+    private RuntimeException failure;
+
+    CopyInStream(Runnable onDrained) {
+        this(onDrained, READ_TIMEOUT);
+    }
+
+    CopyInStream(Runnable onDrained, TimeValue readTimeout) {
+        this.onDrained = onDrained;
+        this.readTimeoutInMs = readTimeout.millis();
+    }
+
+    /**
+     * Appends the readable bytes of the buffer.
+     *
+     * @return true if the writer should pause until {@code onDrained} is invoked.
+     */
+    synchronized boolean write(ByteBuf buffer) {
+        int length = buffer.readableBytes();
+        if (finished || closed || length == 0) {
+            buffer.skipBytes(length);
+            return false;
+        }
+        byte[] bytes = new byte[length];
+        buffer.readBytes(bytes);
+        chunks.add(bytes);
+        buffered += length;
+        if (buffered > HIGH_WATER_MARK) {
+            paused = true;
+        }
+        notifyAll();
+        return paused;
+    }
+
+    /**
+     * Marks the end of the data (CopyDone); the reader sees EOF once the buffered data is consumed.
+     */
+    synchronized void finish() {
+        finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Aborts the copy (CopyFail or a closed connection); the reader fails with the given exception.
+     */
+    synchronized void fail(RuntimeException failure) {
+        this.failure = failure;
+        notifyAll();
+    }
+
+    @Override
+    public int read() throws InterruptedIOException {
+        byte[] b = new byte[1];
+        int n = read(b, 0, 1);
+        return n == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws InterruptedIOException {
+        if (len == 0) {
+            return 0;
+        }
+        int n;
+        boolean resume = false;
+        long deadline = System.currentTimeMillis() + readTimeoutInMs;
+        synchronized (this) {
+            while (current == null || pos == current.length) {
+                if (failure != null) {
+                    throw failure;
+                }
+                current = chunks.poll();
+                pos = 0;
+                if (current == null) {
+                    if (finished || closed) {
+                        return -1;
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new IllegalStateException(
+                            "COPY FROM STDIN failed: no data received within " + TimeValue.timeValueMillis(readTimeoutInMs));
+                    }
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for COPY data");
+                    }
+                }
+            }
+            n = Math.min(len, current.length - pos);
+            System.arraycopy(current, pos, b, off, n);
+            pos += n;
+            buffered -= n;
+            if (paused && buffered <= LOW_WATER_MARK) {
+                paused = false;
+                resume = true;
+            }
+        }
+        if (resume) {
+            onDrained.run();
+        }
+        return n;
+    }
+
+    @Override
+    public void close() {
+        boolean resume;
+        synchronized (this) {
+            closed = true;
+            chunks.clear();
+            current = null;
+            buffered = 0;
+            resume = paused;
+            paused = false;
+            notifyAll();
+        }
+        if (resume) {
+            onDrained.run();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.action.sql.BaseResultReceiver;
+import io.crate.action.sql.ResultReceiver;
+import io.crate.data.Row;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Sends the lines produced by a {@code COPY TO STDOUT} as CopyData messages.
+ * <p>
+ * The statement is executed in pages of {@link #PAGE_SIZE} rows. Once a page is sent the next one is only
+ * requested if the channel is writable, otherwise fetching is resumed once the channel becomes writable again.
+ */
+class CopyOutReceiver extends BaseResultReceiver {
+
+    static final int PAGE_SIZE = 1000;
+
+    private final String query;
+    private final Channel channel;
+    private final Function<Throwable, Exception> wrapError;
+    private final Consumer<Runnable> resumeOnWritable;
+    private final Consumer<ResultReceiver<?>> fetchNextPage;
+    private final int flushThreshold;
+
+    @Nullable
+    private ByteBuf buffer;
+    private long rowCount = 0;
+
+    CopyOutReceiver(String query,
+                    Channel channel,
+                    Function<Throwable, Exception> wrapError,
+                    Consumer<Runnable> resumeOnWritable,
+                    Consumer<ResultReceiver<?>> fetchNextPage) {
+        this(query, channel, wrapError, resumeOnWritable, fetchNextPage, DataRowEncoder.DEFAULT_FLUSH_THRESHOLD);
+    }
+
+    CopyOutReceiver(String query,
+                    Channel channel,
+                    Function<Throwable, Exception> wrapError,
+                    Consumer<Runnable> resumeOnWritable,
+                    Consumer<ResultReceiver<?>> fetchNextPage,
+                    int flushThreshold) {
+        this.query = query;
+        this.channel = channel;
+        this.wrapError = wrapError;
+        this.resumeOnWritable = resumeOnWritable;
+        this.fetchNextPage = fetchNextPage;
+        this.flushThreshold = flushThreshold;
+    }
+
+    @Override
+    public void setNextRow(Row row) {
+        ByteBuf buf = buffer;
+        if (buf == null) {
+            buf = channel.alloc().buffer(flushThreshold);
+            buffer = buf;
+        }
+        Messages.writeCopyData(buf, (String) row.get(0));
+        rowCount++;
+        if (buf.readableBytes() >= flushThreshold) {
+            writePendingLines();
+            channel.flush();
+        }
+    }
+
+    private void writePendingLines() {
+        ByteBuf buf = buffer;
+        if (buf != null) {
+            buffer = null;
+            channel.write(buf);
+        }
+    }
+
+    @Override
+    public void batchFinished() {
+        writePendingLines();
+        channel.flush();
+        // Resume on the event loop so that consecutive pages don't pile up on the stack of the previous one
+        channel.eventLoop().execute(this::resumeWhenWritable);
+    }
+
+    private void resumeWhenWritable() {
+        if (channel.isWritable()) {
+            try {
+                fetchNextPage.accept(this);
+            } catch (Throwable t) {
+                fail(t);
+            }
+        } else {
+            resumeOnWritable.accept(this::resumeWhenWritable);
+        }
+    }
+
+    @Override
+    public void allFinished(boolean interrupted) {
+        if (interrupted) {
+            releasePendingLines();
+            super.allFinished(true);
+        } else {
+            writePendingLines();
+            Messages.sendCopyDone(channel);
+            Messages.sendCommandComplete(channel, query, rowCount).addListener(f -> super.allFinished(false));
+        }
+    }
+
+    private void releasePendingLines() {
+        ByteBuf buf = buffer;
+        if (buf != null) {
+            buffer = null;
+            buf.release();
+        }
+    }
+
+    @Override
+    public void fail(@Nonnull Throwable throwable) {
+        final Exception e = wrapError.apply(throwable);
+        writePendingLines();
+        Messages.sendErrorResponse(channel, e).addListener(f -> super.fail(e));
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.data.Row;
+import io.crate.protocols.postgres.types.PGType;
+import io.crate.protocols.postgres.types.PGTypes;
+import io.crate.types.DataType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Encodes rows as DataRow messages.
+ * <p>
+ * The {@link PGType} and format code of each column are resolved once when the encoder is created.
+ * Rows are appended into a single pre-sized buffer which is handed out via {@link #take()} once
+ * {@link #encode(Row)} signals that the flush threshold has been reached.
+ *
+ * <pre>
+ * Byte1('D')
+ * Identifies the message as a data row.
+ *
+ * Int32
+ * Length of message contents in bytes, including self.
+ *
+ * Int16
+ * The number of column values that follow (possibly zero).
+ *
+ * Next, the following pair of fields appear for each column:
+ *
+ * Int32
+ * The length of the column value, in bytes (this count does not include itself).
+ * Can be zero. As a special case, -1 indicates a NULL column value. No value bytes follow in the NULL case.
+ *
+ * ByteN
+ * The value of the column, in the format indicated by the associated format code. n is the above length.
+ * </pre>
+ */
+final class DataRowEncoder {
+
+    static final int DEFAULT_FLUSH_THRESHOLD = 32 * 1024;
+
+    /**
+     * Additional capacity so that the row which crosses the flush threshold usually fits without
+     * having to grow the buffer.
+     */
+    private static final int ROW_SIZE_HINT = 1024;
+
+    private final ByteBufAllocator allocator;
+    private final PGType[] pgTypes;
+    private final boolean[] binary;
+    private final int flushThreshold;
+
+    @Nullable
+    private ByteBuf buffer;
+
+    DataRowEncoder(ByteBufAllocator allocator,
+                   List<? extends DataType> columnTypes,
+                   @Nullable FormatCodes.FormatCode[] formatCodes) {
+        this(allocator, columnTypes, formatCodes, DEFAULT_FLUSH_THRESHOLD);
+    }
+
+    DataRowEncoder(ByteBufAllocator allocator,
+                   List<? extends DataType> columnTypes,
+                   @Nullable FormatCodes.FormatCode[] formatCodes,
+                   int flushThreshold) {
+        this.allocator = allocator;
+        this.flushThreshold = flushThreshold;
+        int numColumns = columnTypes.size();
+        this.pgTypes = new PGType[numColumns];
+        this.binary = new boolean[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            pgTypes[i] = PGTypes.get(columnTypes.get(i));
+            FormatCodes.FormatCode formatCode = FormatCodes.getFormatCode(formatCodes, i);
+            switch (formatCode) {
+                case TEXT:
+                    binary[i] = false;
+                    break;
+                case BINARY:
+                    binary[i] = true;
+                    break;
+
+                default:
+                    throw new AssertionError("Unrecognized formatCode: " + formatCode);
+            }
+        }
+    }
+
+    /**
+     * Append a DataRow message for the given row.
+     * If retrieving or encoding a value fails, the partially written message is discarded and the
+     * exception is re-thrown; previously encoded rows are kept.
+     *
+     * @return true if the pending messages reached the flush threshold and should be sent using {@link #take()}
+     */
+    boolean encode(Row row) {
+        assert pgTypes.length == row.numColumns()
+            : "Number of columns in the row must match number of columnTypes. Row: " + row + " types: " + pgTypes.length;
+
+        ByteBuf buf = buffer;
+        if (buf == null) {
+            buf = allocator.buffer(flushThreshold + ROW_SIZE_HINT);
+            buffer = buf;
+        }
+        int startIdx = buf.writerIndex();
+        int length = 4 + 2;
+        buf.writeByte('D');
+        buf.writeInt(0); // will be set at the end
+        buf.writeShort(pgTypes.length);
+        try {
+            for (int i = 0; i < pgTypes.length; i++) {
+                Object value = row.get(i);
+                if (value == null) {
+                    buf.writeInt(-1);
+                    length += 4;
+                } else if (binary[i]) {
+                    length += pgTypes[i].writeAsBinary(buf, value);
+                } else {
+                    length += pgTypes[i].writeAsText(buf, value);
+                }
+            }
+        } catch (Throwable t) {
+            buf.writerIndex(startIdx);
+            throw t;
+        }
+        buf.setInt(startIdx + 1, length);
+        return buf.writerIndex() >= flushThreshold;
+    }
+
+    /**
+     * @return the number of bytes of encoded messages that haven't been taken yet.
+     */
+    int pendingBytes() {
+        return buffer == null ? 0 : buffer.readableBytes();
+    }
+
+    /**
+     * Hands over the buffer containing the encoded messages. The caller takes over ownership.
+     *
+     * @return the buffer or null if there are no pending messages.
+     */
+    @Nullable
+    ByteBuf take() {
+        ByteBuf buf = buffer;
+        buffer = null;
+        if (buf != null && buf.readableBytes() == 0) {
+            buf.release();
+            return null;
+        }
+        return buf;
+    }
+
+    /**
+     * Discards any pending messages.
+     */
+    void release() {
+        ByteBuf buf = buffer;
+        buffer = null;
+        if (buf != null) {
+            buf.release();
+        }
+    }
+}
@@ -22,7 +22,6 @@
 
 package io.crate.protocols.postgres;
 
-import io.crate.data.Row;
 import io.crate.exceptions.SQLExceptions;
 import io.crate.expression.symbol.Field;
 import io.crate.protocols.postgres.types.PGType;
@@ -38,7 +37,6 @@ import org.apache.logging.log4j.LogManager;
 import javax.annotation.Nullable;
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
-import java.util.List;
 import java.util.Locale;
 import java.util.SortedSet;
 
@@ -267,70 +265,6 @@ public class Messages {
         return channelFuture;
     }
 
-    /**
-     * Byte1('D')
-     * Identifies the message as a data row.
-     * <p>
-     * Int32
-     * Length of message contents in bytes, including self.
-     * <p>
-     * Int16
-     * The number of column values that follow (possibly zero).
-     * <p>
-     * Next, the following pair of fields appear for each column:
-     * <p>
-     * Int32
-     * The length of the column value, in bytes (this count does not include itself).
-     * Can be zero. As a special case, -1 indicates a NULL column value. No value bytes follow in the NULL case.
-     * <p>
-     * ByteN
-     * The value of the column, in the format indicated by the associated format code. n is the above length.
-     */
-    static void sendDataRow(Channel channel, Row row, List<? extends DataType> columnTypes, @Nullable FormatCodes.FormatCode[] formatCodes) {
-        int length = 4 + 2;
-        assert columnTypes.size() == row.numColumns()
-            : "Number of columns in the row must match number of columnTypes. Row: " + row + " types: " + columnTypes;
-
-        ByteBuf buffer = channel.alloc().buffer();
-        buffer.writeByte('D');
-        buffer.writeInt(0); // will be set at the end
-        buffer.writeShort(row.numColumns());
-
-        for (int i = 0; i < row.numColumns(); i++) {
-            DataType dataType = columnTypes.get(i);
-            PGType pgType;
-            Object value;
-            try {
-                pgType = PGTypes.get(dataType);
-                value = row.get(i);
-            } catch (Exception e) {
-                buffer.release();
-                throw e;
-            }
-            if (value == null) {
-                buffer.writeInt(-1);
-                length += 4;
-            } else {
-                FormatCodes.FormatCode formatCode = FormatCodes.getFormatCode(formatCodes, i);
-                switch (formatCode) {
-                    case TEXT:
-                        length += pgType.writeAsText(buffer, value);
-                        break;
-                    case BINARY:
-                        length += pgType.writeAsBinary(buffer, value);
-                        break;
-
-                    default:
-                        buffer.release();
-                        throw new AssertionError("Unrecognized formatCode: " + formatCode);
-                }
-            }
-        }
-
-        buffer.setInt(1, length);
-        channel.write(buffer);
-    }
-
     static void writeCString(ByteBuf buffer, byte[] valBytes) {
         buffer.writeBytes(valBytes);
         buffer.writeByte(0);
@@ -468,6 +402,55 @@ public class Messages {
         }
     }
 
+    /**
+     * CopyInResponse (B) / CopyOutResponse (B)
+     * | 'G' or 'H' | int32 len | int8 format | int16 numColumns | int16 columnFormat |
+     *
+     * Each row is sent as a single JSON text column, so the overall and the column format are text (0)
+     */
+    static void sendCopyInResponse(Channel channel) {
+        sendCopyResponse(channel, 'G', "sentCopyInResponse");
+    }
+
+    static void sendCopyOutResponse(Channel channel) {
+        sendCopyResponse(channel, 'H', "sentCopyOutResponse");
+    }
+
+    private static void sendCopyResponse(Channel channel, char msgType, String traceLogMsg) {
+        ByteBuf buffer = channel.alloc().buffer(10);
+        buffer.writeByte(msgType);
+        buffer.writeInt(9);
+        buffer.writeByte(0);
+        buffer.writeShort(1);
+        buffer.writeShort(0);
+        ChannelFuture channelFuture = channel.writeAndFlush(buffer);
+        if (LOGGER.isTraceEnabled()) {
+            channelFuture.addListener((ChannelFutureListener) future -> LOGGER.trace(traceLogMsg));
+        }
+    }
+
+    /**
+     * CopyData (F & B)
+     * | 'd' | int32 len | byte[] data |
+     *
+     * Appends a line terminated by a new line to the buffer
+     */
+    static void writeCopyData(ByteBuf buffer, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        buffer.writeByte('d');
+        buffer.writeInt(4 + bytes.length + 1);
+        buffer.writeBytes(bytes);
+        buffer.writeByte('\n');
+    }
+
+    /**
+     * CopyDone (F & B)
+     * | 'c' | int32 len |
+     */
+    static void sendCopyDone(Channel channel) {
+        sendShortMsg(channel, 'c', "sentCopyDone");
+    }
+
     static void sendPortalSuspended(Channel channel) {
         sendShortMsg(channel, 's', "sentPortalSuspended");
     }
@@ -28,6 +28,9 @@ import io.crate.action.sql.ResultReceiver;
 import io.crate.action.sql.SQLOperations;
 import io.crate.action.sql.Session;
 import io.crate.action.sql.SessionContext;
+import io.crate.analyze.AnalyzedCopyFrom;
+import io.crate.analyze.AnalyzedCopyTo;
+import io.crate.analyze.AnalyzedStatement;
 import io.crate.auth.Authentication;
 import io.crate.auth.AuthenticationMethod;
 import io.crate.auth.Protocol;
@@ -35,6 +38,7 @@ import io.crate.auth.user.AccessControl;
 import io.crate.auth.user.User;
 import io.crate.common.collections.Lists2;
 import io.crate.exceptions.SQLExceptions;
+import io.crate.execution.engine.collect.files.StdinStreams;
 import io.crate.expression.symbol.Field;
 import io.crate.protocols.http.CrateNettyHttpServerTransport;
 import io.crate.protocols.postgres.types.PGType;
@@ -62,6 +66,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
@@ -173,6 +178,36 @@ import static io.crate.protocols.postgres.PostgresWireProtocol.State.STARTUP_HEA
  *          |                                  |
  *          |  ReadyForQuery                   |
  *          |<---------------------------------|
+ *
+ * COPY FROM STDIN / COPY TO STDOUT (simple query only):
+ *
+ *          +                                  +
+ *          |   Q (COPY t FROM STDIN)          |
+ *          |--------------------------------->|
+ *          |                                  |
+ *          |     CopyInResponse               |
+ *          |<---------------------------------|
+ *          |                                  |
+ *          |   CopyData                       |
+ *          |--------------------------------->|
+ *          |   CopyDone | CopyFail            |
+ *          |--------------------------------->|
+ *          |                                  |
+ *          |     CommandComplete              |
+ *          |     ReadyForQuery                |
+ *          |<---------------------------------|
+ *
+ *          |   Q (COPY t TO STDOUT)           |
+ *          |--------------------------------->|
+ *          |                                  |
+ *          |     CopyOutResponse              |
+ *          |<---------------------------------|
+ *          |     CopyData                     |
+ *          |<---------------------------------|
+ *          |     CopyDone                     |
+ *          |     CommandComplete              |
+ *          |     ReadyForQuery                |
+ *          |<---------------------------------|
  * </pre>
  * <p>
  * Take a look at {@link Messages} to see how the messages are structured.
@@ -191,6 +226,7 @@ class PostgresWireProtocol {
     private final Function<SessionContext, AccessControl> getAccessControl;
     private final Authentication authService;
     private final SslReqHandler sslReqHandler;
+    private final StdinStreams stdinStreams;
 
     private int msgLength;
     private byte msgType;
@@ -199,6 +235,20 @@ class PostgresWireProtocol {
     private AuthenticationContext authContext;
     private Properties properties;
 
+    /**
+     * Receives the CopyData messages while a COPY FROM STDIN statement is executed
+     */
+    @Nullable
+    private volatile CopyInStream copyInStream;
+    @Nullable
+    private List<Field> copyInFields;
+
+    /**
+     * Resumes a COPY TO STDOUT which paused sending data because the channel wasn't writable
+     */
+    @Nullable
+    private Runnable resumeOnWritable;
+
     enum State {
         PRE_STARTUP,
         STARTUP_HEADER,
@@ -212,11 +262,13 @@ class PostgresWireProtocol {
     PostgresWireProtocol(SQLOperations sqlOperations,
                          Function<SessionContext, AccessControl> getAcessControl,
                          Authentication authService,
-                         @Nullable SslContextProvider sslContextProvider) {
+                         @Nullable SslContextProvider sslContextProvider,
+                         StdinStreams stdinStreams) {
         this.sqlOperations = sqlOperations;
         this.getAccessControl = getAcessControl;
         this.authService = authService;
         this.sslReqHandler = new SslReqHandler(sslContextProvider);
+        this.stdinStreams = stdinStreams;
         this.decoder = new MessageDecoder();
         this.handler = new MessageHandler();
     }
@@ -362,6 +414,15 @@ class PostgresWireProtocol {
                 case 'C':
                     handleClose(buffer, channel);
                     return;
+                case 'd':
+                    handleCopyData(buffer, channel);
+                    return;
+                case 'c':
+                    handleCopyDone(channel);
+                    return;
+                case 'f':
+                    handleCopyFail(buffer);
+                    return;
                 case 'X': // Terminate (called when jdbc connection is closed)
                     closeSession();
                     channel.close();
@@ -384,9 +445,24 @@ class PostgresWireProtocol {
             LOGGER.error("Uncaught exception: ", cause);
         }
 
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+            Runnable resume = resumeOnWritable;
+            if (resume != null && ctx.channel().isWritable()) {
+                resumeOnWritable = null;
+                resume.run();
+            }
+            super.channelWritabilityChanged(ctx);
+        }
+
         @Override
         public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
             LOGGER.trace("channelDisconnected");
+            resumeOnWritable = null;
+            CopyInStream stream = copyInStream;
+            if (stream != null) {
+                stream.fail(new ClientInterrupted());
+            }
             closeSession();
             super.channelUnregistered(ctx);
         }
@@ -705,6 +781,13 @@ class PostgresWireProtocol {
 
             Function<Throwable, Exception> wrapError = SQLExceptions.forWireTransmission(
                 getAccessControl.apply(session.sessionContext()));
+            AnalyzedStatement analyzedStatement = session.getAnalyzedStatement("");
+            if (analyzedStatement instanceof AnalyzedCopyTo && ((AnalyzedCopyTo) analyzedStatement).isToStdout()) {
+                return handleCopyToStdout(query, channel, wrapError);
+            }
+            if (analyzedStatement instanceof AnalyzedCopyFrom && ((AnalyzedCopyFrom) analyzedStatement).isFromStdin()) {
+                return handleCopyFromStdin(query, channel, wrapError, fields);
+            }
             if (fields == null) {
                 RowCountReceiver rowCountReceiver = new RowCountReceiver(query, channel, wrapError);
                 session.execute("", 0, rowCountReceiver);
@@ -727,6 +810,122 @@ class PostgresWireProtocol {
         }
     }
 
+    /**
+     * Executes a COPY TO STDOUT; the statement produces one JSON line per row which is sent as CopyData message.
+     * <p>
+     * The rows are fetched in pages, see {@link CopyOutReceiver}.
+     */
+    private CompletableFuture<?> handleCopyToStdout(String query,
+                                                    Channel channel,
+                                                    Function<Throwable, Exception> wrapError) {
+        Messages.sendCopyOutResponse(channel);
+        CopyOutReceiver copyOutReceiver = new CopyOutReceiver(
+            query,
+            channel,
+            wrapError,
+            resume -> resumeOnWritable = resume,
+            receiver -> {
+                session.execute("", CopyOutReceiver.PAGE_SIZE, receiver);
+                session.sync();
+            }
+        );
+        return executeWithCopyStream(
+            UUID.randomUUID().toString(),
+            CopyOutReceiver.PAGE_SIZE,
+            copyOutReceiver,
+            () -> resumeOnWritable = null);
+    }
+
+    /**
+     * Executes a COPY FROM STDIN; the collect phase reads the CopyData messages of the client
+     * via {@link StdinStreams} until a CopyDone or CopyFail message is received.
+     * <p>
+     * If more data is buffered than the statement consumed, reading from the channel is paused.
+     */
+    private CompletableFuture<?> handleCopyFromStdin(String query,
+                                                     Channel channel,
+                                                     Function<Throwable, Exception> wrapError,
+                                                     @Nullable List<Field> fields) {
+        String streamId = UUID.randomUUID().toString();
+        CopyInStream stream = new CopyInStream(() -> channel.config().setAutoRead(true));
+        stdinStreams.register(streamId, stream);
+        copyInStream = stream;
+        copyInFields = fields;
+        Messages.sendCopyInResponse(channel);
+
+        ResultReceiver resultReceiver;
+        if (fields == null) {
+            resultReceiver = new RowCountReceiver(query, channel, wrapError);
+        } else {
+            // RowDescription is sent once the client finished sending data, see handleCopyDone
+            resultReceiver = new ResultSetReceiver(
+                query,
+                channel,
+                wrapError,
+                Lists2.map(fields, Field::valueType),
+                null
+            );
+        }
+        return executeWithCopyStream(streamId, 0, resultReceiver, () -> {
+            copyInStream = null;
+            stdinStreams.unregister(streamId);
+            stream.close();
+            channel.config().setAutoRead(true);
+        });
+    }
+
+    private CompletableFuture<?> executeWithCopyStream(String streamId,
+                                                       int maxRows,
+                                                       ResultReceiver<?> resultReceiver,
+                                                       Runnable onCompletion) {
+        SessionContext sessionContext = session.sessionContext();
+        sessionContext.setCopyStreamId(streamId);
+        Runnable cleanup = () -> {
+            sessionContext.setCopyStreamId(null);
+            onCompletion.run();
+        };
+        CompletableFuture<?> result;
+        try {
+            session.execute("", maxRows, resultReceiver);
+            result = session.sync();
+        } catch (Throwable t) {
+            cleanup.run();
+            throw t;
+        }
+        return result.whenComplete((r, t) -> cleanup.run());
+    }
+
+    private void handleCopyData(ByteBuf buffer, Channel channel) {
+        CopyInStream stream = copyInStream;
+        if (stream == null) {
+            // the COPY already failed or finished, any further copy messages are dropped
+            buffer.skipBytes(msgLength);
+            return;
+        }
+        if (stream.write(buffer)) {
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    private void handleCopyDone(Channel channel) {
+        CopyInStream stream = copyInStream;
+        if (stream == null) {
+            return;
+        }
+        if (copyInFields != null) {
+            Messages.sendRowDescription(channel, copyInFields, null);
+        }
+        stream.finish();
+    }
+
+    private void handleCopyFail(ByteBuf buffer) {
+        String message = readCString(buffer);
+        CopyInStream stream = copyInStream;
+        if (stream != null) {
+            stream.fail(new IllegalStateException("COPY FROM STDIN failed: " + message));
+        }
+    }
+
 
     /**
      * FrameDecoder that makes sure that a full message is in the buffer before delegating work to the MessageHandler
@@ -25,6 +25,7 @@ package io.crate.protocols.postgres;
 import io.crate.action.sql.BaseResultReceiver;
 import io.crate.data.Row;
 import io.crate.types.DataType;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
 
 import javax.annotation.Nonnull;
@@ -37,10 +38,7 @@ class ResultSetReceiver extends BaseResultReceiver {
     private final String query;
     private final Channel channel;
     private final Function<Throwable, Exception> wrapError;
-    private final List<? extends DataType> columnTypes;
-
-    @Nullable
-    private final FormatCodes.FormatCode[] formatCodes;
+    private final DataRowEncoder dataRowEncoder;
 
     private long rowCount = 0;
 
@@ -52,21 +50,29 @@ class ResultSetReceiver extends BaseResultReceiver {
         this.query = query;
         this.channel = channel;
         this.wrapError = wrapError;
-        this.columnTypes = columnTypes;
-        this.formatCodes = formatCodes;
+        this.dataRowEncoder = new DataRowEncoder(channel.alloc(), columnTypes, formatCodes);
     }
 
     @Override
     public void setNextRow(Row row) {
+        boolean flush = dataRowEncoder.encode(row);
         rowCount++;
-        Messages.sendDataRow(channel, row, columnTypes, formatCodes);
-        if (rowCount % 1000 == 0) {
+        if (flush) {
+            writePendingRows();
             channel.flush();
         }
     }
 
+    private void writePendingRows() {
+        ByteBuf buffer = dataRowEncoder.take();
+        if (buffer != null) {
+            channel.write(buffer);
+        }
+    }
+
     @Override
     public void batchFinished() {
+        writePendingRows();
         Messages.sendPortalSuspended(channel);
         Messages.sendReadyForQuery(channel);
     }
@@ -74,8 +80,10 @@ class ResultSetReceiver extends BaseResultReceiver {
     @Override
     public void allFinished(boolean interrupted) {
         if (interrupted) {
+            dataRowEncoder.release();
             super.allFinished(true);
         } else {
+            writePendingRows();
             Messages.sendCommandComplete(channel, query, rowCount).addListener(f -> super.allFinished(false));
         }
     }
@@ -83,6 +91,7 @@ class ResultSetReceiver extends BaseResultReceiver {
     @Override
     public void fail(@Nonnull Throwable throwable) {
         final Exception e = wrapError.apply(throwable);
+        writePendingRows();
         Messages.sendErrorResponse(channel, e).addListener(f -> super.fail(e));
     }
 }
@@ -0,0 +1,457 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.data.Row;
+import io.crate.rest.action.FlatBufferEncoder.Table;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.IpType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Writes rows in the
+ * <a href="https://arrow.apache.org/docs/format/Columnar.html#ipc-streaming-format">Arrow IPC streaming format</a>.
+ *
+ * Rows are buffered column-wise until {@link #writeBatch(OutputStream)} writes them as record batch.
+ * The schema is written in front of the first record batch.
+ *
+ * Values of types without an Arrow equivalent (objects, arrays, geo types, ...) are written as strings
+ * containing their JSON representation.
+ */
+final class ArrowStreamWriter {
+
+    static final String MEDIA_TYPE = "application/vnd.apache.arrow.stream";
+
+    private static final int CONTINUATION_MARKER = 0xFFFFFFFF;
+    private static final int ALIGNMENT = 8;
+
+    private static final short METADATA_VERSION_V5 = 4;
+    private static final short ENDIANNESS_LITTLE = 0;
+    private static final byte MESSAGE_HEADER_SCHEMA = 1;
+    private static final byte MESSAGE_HEADER_RECORD_BATCH = 3;
+
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_FLOATING_POINT = 3;
+    private static final byte TYPE_UTF8 = 5;
+    private static final byte TYPE_BOOL = 6;
+    private static final byte TYPE_TIMESTAMP = 10;
+
+    private static final short PRECISION_SINGLE = 1;
+    private static final short PRECISION_DOUBLE = 2;
+    private static final short TIME_UNIT_MILLISECOND = 1;
+
+    private final List<String> names;
+    private final Column[] columns;
+
+    private int numRows = 0;
+    private boolean schemaWritten = false;
+
+    ArrowStreamWriter(List<String> names, List<? extends DataType> types) {
+        assert names.size() == types.size() : "names and types must have the same size";
+        this.names = names;
+        this.columns = new Column[types.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Column.of(types.get(i));
+        }
+    }
+
+    void addRow(Row row) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].add(row.get(i), numRows);
+        }
+        numRows++;
+    }
+
+    int numRows() {
+        return numRows;
+    }
+
+    /**
+     * Writes the buffered rows as record batch, preceded by the schema if it hasn't been written yet.
+     */
+    void writeBatch(OutputStream out) throws IOException {
+        if (!schemaWritten) {
+            writeMessage(out, MESSAGE_HEADER_SCHEMA, schema(), List.of());
+            schemaWritten = true;
+        }
+        long[][] nodes = new long[columns.length][];
+        List<LittleEndianBuffer> body = new ArrayList<>();
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            nodes[i] = new long[] { numRows, column.nullCount };
+            column.addBuffers(body, numRows);
+        }
+        long[][] buffers = new long[body.size()][];
+        long offset = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            int length = body.get(i).length;
+            buffers[i] = new long[] { offset, length };
+            offset += alignTo(length);
+        }
+        Table recordBatch = new Table(3)
+            .set(0, (long) numRows)
+            .set(1, nodes)
+            .set(2, buffers);
+        writeMessage(out, MESSAGE_HEADER_RECORD_BATCH, recordBatch, body);
+
+        for (Column column : columns) {
+            column.reset();
+        }
+        numRows = 0;
+    }
+
+    void writeEndOfStream(OutputStream out) throws IOException {
+        writeInt(out, CONTINUATION_MARKER);
+        writeInt(out, 0);
+    }
+
+    private Table schema() {
+        List<Table> fields = new ArrayList<>(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            fields.add(new Table(6)
+                .set(0, names.get(i))
+                .set(1, true)
+                .set(2, column.typeId)
+                .set(3, column.type)
+                // Readers expect the children to be present, even if empty
+                .set(5, List.of()));
+        }
+        return new Table(2)
+            .set(0, ENDIANNESS_LITTLE)
+            .set(1, fields);
+    }
+
+    private static void writeMessage(OutputStream out,
+                                     byte headerType,
+                                     Table header,
+                                     List<LittleEndianBuffer> body) throws IOException {
+        long bodyLength = 0;
+        for (LittleEndianBuffer buffer : body) {
+            bodyLength += alignTo(buffer.length);
+        }
+        Table message = new Table(4)
+            .set(0, METADATA_VERSION_V5)
+            .set(1, headerType)
+            .set(2, header)
+            .set(3, bodyLength);
+        byte[] metadata = FlatBufferEncoder.encode(message);
+        writeInt(out, CONTINUATION_MARKER);
+        writeInt(out, metadata.length);
+        out.write(metadata);
+        for (LittleEndianBuffer buffer : body) {
+            out.write(buffer.bytes, 0, buffer.length);
+            for (int i = buffer.length; i < alignTo(buffer.length); i++) {
+                out.write(0);
+            }
+        }
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        for (int i = 0; i < Integer.BYTES; i++) {
+            out.write(value >> (8 * i));
+        }
+    }
+
+    private static long alignTo(long length) {
+        return (length + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static int bitmapLength(int numRows) {
+        return (numRows + 7) / 8;
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return Strings.toString(JsonXContent.contentBuilder().value(value));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private abstract static class Column {
+
+        private final byte typeId;
+        private final Table type;
+        private final LittleEndianBuffer validity = new LittleEndianBuffer();
+        private int nullCount = 0;
+
+        Column(byte typeId, Table type) {
+            this.typeId = typeId;
+            this.type = type;
+        }
+
+        static Column of(DataType<?> type) {
+            switch (type.id()) {
+                case ByteType.ID:
+                    return new FixedWidthColumn(TYPE_INT, intType(8), Byte.BYTES, v -> ((Number) v).byteValue());
+                case ShortType.ID:
+                    return new FixedWidthColumn(TYPE_INT, intType(16), Short.BYTES, v -> ((Number) v).shortValue());
+                case IntegerType.ID:
+                    return new FixedWidthColumn(TYPE_INT, intType(32), Integer.BYTES, v -> ((Number) v).intValue());
+                case LongType.ID:
+                    return new FixedWidthColumn(TYPE_INT, intType(64), Long.BYTES, v -> ((Number) v).longValue());
+                case TimestampType.ID_WITH_TZ:
+                    return new FixedWidthColumn(
+                        TYPE_TIMESTAMP, timestampType("UTC"), Long.BYTES, v -> ((Number) v).longValue());
+                case TimestampType.ID_WITHOUT_TZ:
+                    return new FixedWidthColumn(
+                        TYPE_TIMESTAMP, timestampType(null), Long.BYTES, v -> ((Number) v).longValue());
+                case FloatType.ID:
+                    return new FixedWidthColumn(
+                        TYPE_FLOATING_POINT,
+                        new Table(1).set(0, PRECISION_SINGLE),
+                        Float.BYTES,
+                        v -> Float.floatToRawIntBits(((Number) v).floatValue()));
+                case DoubleType.ID:
+                    return new FixedWidthColumn(
+                        TYPE_FLOATING_POINT,
+                        new Table(1).set(0, PRECISION_DOUBLE),
+                        Double.BYTES,
+                        v -> Double.doubleToRawLongBits(((Number) v).doubleValue()));
+                case BooleanType.ID:
+                    return new BoolColumn();
+                case StringType.ID:
+                case IpType.ID:
+                    return new Utf8Column(Object::toString);
+                default:
+                    return new Utf8Column(ArrowStreamWriter::toJson);
+            }
+        }
+
+        private static Table intType(int bitWidth) {
+            return new Table(2)
+                .set(0, bitWidth)
+                .set(1, true);
+        }
+
+        private static Table timestampType(@Nullable String timeZone) {
+            return new Table(2)
+                .set(0, TIME_UNIT_MILLISECOND)
+                .set(1, timeZone);
+        }
+
+        final void add(@Nullable Object value, int rowIdx) {
+            if (value == null) {
+                nullCount++;
+                addNull(rowIdx);
+            } else {
+                validity.setBit(rowIdx);
+                addValue(value, rowIdx);
+            }
+        }
+
+        abstract void addValue(Object value, int rowIdx);
+
+        abstract void addNull(int rowIdx);
+
+        /**
+         * Adds the buffers of this column to the body in the order defined by the layout of the Arrow type.
+         * The validity bitmap is always the first buffer.
+         */
+        void addBuffers(List<LittleEndianBuffer> body, int numRows) {
+            validity.ensureLength(bitmapLength(numRows));
+            body.add(validity);
+        }
+
+        void reset() {
+            validity.reset();
+            nullCount = 0;
+        }
+    }
+
+    private static final class FixedWidthColumn extends Column {
+
+        private final int width;
+        private final ToLongFunction<Object> toBits;
+        private final LittleEndianBuffer values = new LittleEndianBuffer();
+
+        FixedWidthColumn(byte typeId, Table type, int width, ToLongFunction<Object> toBits) {
+            super(typeId, type);
+            this.width = width;
+            this.toBits = toBits;
+        }
+
+        @Override
+        void addValue(Object value, int rowIdx) {
+            values.write(toBits.applyAsLong(value), width);
+        }
+
+        @Override
+        void addNull(int rowIdx) {
+            values.write(0L, width);
+        }
+
+        @Override
+        void addBuffers(List<LittleEndianBuffer> body, int numRows) {
+            super.addBuffers(body, numRows);
+            body.add(values);
+        }
+
+        @Override
+        void reset() {
+            super.reset();
+            values.reset();
+        }
+    }
+
+    private static final class BoolColumn extends Column {
+
+        private final LittleEndianBuffer values = new LittleEndianBuffer();
+
+        BoolColumn() {
+            super(TYPE_BOOL, new Table(0));
+        }
+
+        @Override
+        void addValue(Object value, int rowIdx) {
+            if ((Boolean) value) {
+                values.setBit(rowIdx);
+            }
+        }
+
+        @Override
+        void addNull(int rowIdx) {
+        }
+
+        @Override
+        void addBuffers(List<LittleEndianBuffer> body, int numRows) {
+            super.addBuffers(body, numRows);
+            values.ensureLength(bitmapLength(numRows));
+            body.add(values);
+        }
+
+        @Override
+        void reset() {
+            super.reset();
+            values.reset();
+        }
+    }
+
+    private static final class Utf8Column extends Column {
+
+        private final Function<Object, String> toText;
+        private final LittleEndianBuffer offsets = new LittleEndianBuffer();
+        private final LittleEndianBuffer data = new LittleEndianBuffer();
+
+        Utf8Column(Function<Object, String> toText) {
+            super(TYPE_UTF8, new Table(0));
+            this.toText = toText;
+            offsets.write(0L, Integer.BYTES);
+        }
+
+        @Override
+        void addValue(Object value, int rowIdx) {
+            data.write(toText.apply(value).getBytes(StandardCharsets.UTF_8));
+            offsets.write(data.length, Integer.BYTES);
+        }
+
+        @Override
+        void addNull(int rowIdx) {
+            offsets.write(data.length, Integer.BYTES);
+        }
+
+        @Override
+        void addBuffers(List<LittleEndianBuffer> body, int numRows) {
+            super.addBuffers(body, numRows);
+            body.add(offsets);
+            body.add(data);
+        }
+
+        @Override
+        void reset() {
+            super.reset();
+            offsets.reset();
+            offsets.write(0L, Integer.BYTES);
+            data.reset();
+        }
+    }
+
+    private static final class LittleEndianBuffer {
+
+        private byte[] bytes = new byte[64];
+        private int length = 0;
+
+        void write(long value, int numBytes) {
+            ensureCapacity(length + numBytes);
+            for (int i = 0; i < numBytes; i++) {
+                bytes[length + i] = (byte) (value >> (8 * i));
+            }
+            length += numBytes;
+        }
+
+        void write(byte[] values) {
+            ensureCapacity(length + values.length);
+            System.arraycopy(values, 0, bytes, length, values.length);
+            length += values.length;
+        }
+
+        /**
+         * Sets the bit at {@code index}, using the least significant bit numbering of Arrow bitmaps.
+         */
+        void setBit(int index) {
+            ensureLength(index / 8 + 1);
+            bytes[index / 8] |= (byte) (1 << (index % 8));
+        }
+
+        /**
+         * Extends the buffer with zeros up to {@code minLength}
+         */
+        void ensureLength(int minLength) {
+            ensureCapacity(minLength);
+            length = Math.max(length, minLength);
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+
+        void reset() {
+            Arrays.fill(bytes, 0, length, (byte) 0);
+            length = 0;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Minimal encoder for the <a href="https://google.github.io/flatbuffers/">FlatBuffers</a> format,
+ * sufficient to write the message metadata of the Arrow IPC format.
+ *
+ * Unlike the reference implementation, the buffer is written front to back:
+ * A table is written before the objects it references and the offsets to them are patched once they are written.
+ * Objects are never shared, there is also no de-duplication of vtables.
+ */
+final class FlatBufferEncoder {
+
+    /**
+     * A table whose fields are set by their index within the schema.
+     *
+     * Supported field values:
+     * <ul>
+     *     <li>{@link Boolean}, {@link Byte}, {@link Short}, {@link Integer}, {@link Long} for scalars</li>
+     *     <li>{@link String}</li>
+     *     <li>{@link Table}</li>
+     *     <li>{@code List<Table>} for a vector of tables</li>
+     *     <li>{@code long[][]} for a vector of structs which consist only of longs</li>
+     * </ul>
+     *
+     * A union is set as two fields, the type as {@link Byte} and the value as {@link Table}.
+     */
+    static final class Table {
+
+        private final Object[] fields;
+
+        Table(int numFields) {
+            this.fields = new Object[numFields];
+        }
+
+        Table set(int index, Object value) {
+            fields[index] = value;
+            return this;
+        }
+    }
+
+    private byte[] bytes = new byte[256];
+    private int pos = 0;
+
+    private FlatBufferEncoder() {
+    }
+
+    /**
+     * @return the encoded buffer; its length is a multiple of 8
+     */
+    static byte[] encode(Table root) {
+        FlatBufferEncoder encoder = new FlatBufferEncoder();
+        encoder.skip(Integer.BYTES);
+        int rootPos = encoder.writeTable(root);
+        encoder.putInt(0, rootPos);
+        encoder.align(Long.BYTES);
+        return Arrays.copyOf(encoder.bytes, encoder.pos);
+    }
+
+    private int writeTable(Table table) {
+        Object[] fields = table.fields;
+        // The inline part of a table starts with the offset to its vtable, followed by the
+        // fields ordered by their size to minimize padding
+        int[] fieldOffsets = new int[fields.length];
+        int tableSize = Integer.BYTES;
+        for (int size = Long.BYTES; size > 0; size /= 2) {
+            for (int i = 0; i < fields.length; i++) {
+                Object value = fields[i];
+                if (value != null && inlineSize(value) == size) {
+                    tableSize = alignTo(tableSize, size);
+                    fieldOffsets[i] = tableSize;
+                    tableSize += size;
+                }
+            }
+        }
+
+        // The vtable contains its own size, the size of the table and the offsets of the fields within the table
+        int vTableSize = (2 + fields.length) * Short.BYTES;
+        align(Short.BYTES);
+        int vTablePos = pos;
+        skip(vTableSize);
+        putShort(vTablePos, (short) vTableSize);
+        putShort(vTablePos + Short.BYTES, (short) tableSize);
+        for (int i = 0; i < fields.length; i++) {
+            putShort(vTablePos + (2 + i) * Short.BYTES, (short) fieldOffsets[i]);
+        }
+
+        // Aligning the table start to 8 aligns all fields, their offsets within the table are aligned to their size
+        align(Long.BYTES);
+        int tablePos = pos;
+        skip(tableSize);
+        putInt(tablePos, tablePos - vTablePos);
+        for (int i = 0; i < fields.length; i++) {
+            Object value = fields[i];
+            if (value != null) {
+                writeField(tablePos + fieldOffsets[i], value);
+            }
+        }
+        return tablePos;
+    }
+
+    private void writeField(int fieldPos, Object value) {
+        if (value instanceof Boolean) {
+            bytes[fieldPos] = (byte) ((Boolean) value ? 1 : 0);
+        } else if (value instanceof Byte) {
+            bytes[fieldPos] = (Byte) value;
+        } else if (value instanceof Short) {
+            putShort(fieldPos, (Short) value);
+        } else if (value instanceof Integer) {
+            putInt(fieldPos, (Integer) value);
+        } else if (value instanceof Long) {
+            putLong(fieldPos, (Long) value);
+        } else {
+            int objectPos = writeObject(value);
+            putInt(fieldPos, objectPos - fieldPos);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int writeObject(Object value) {
+        if (value instanceof Table) {
+            return writeTable((Table) value);
+        } else if (value instanceof String) {
+            byte[] utf8 = ((String) value).getBytes(StandardCharsets.UTF_8);
+            align(Integer.BYTES);
+            int stringPos = pos;
+            skip(Integer.BYTES + utf8.length + 1);
+            putInt(stringPos, utf8.length);
+            System.arraycopy(utf8, 0, bytes, stringPos + Integer.BYTES, utf8.length);
+            return stringPos;
+        } else if (value instanceof List) {
+            List<Table> tables = (List<Table>) value;
+            align(Integer.BYTES);
+            int vectorPos = pos;
+            skip(Integer.BYTES + tables.size() * Integer.BYTES);
+            putInt(vectorPos, tables.size());
+            for (int i = 0; i < tables.size(); i++) {
+                int elementPos = vectorPos + Integer.BYTES + i * Integer.BYTES;
+                putInt(elementPos, writeTable(tables.get(i)) - elementPos);
+            }
+            return vectorPos;
+        } else if (value instanceof long[][]) {
+            long[][] structs = (long[][]) value;
+            // The elements must be aligned to 8, they follow the 4 byte length
+            align(Long.BYTES);
+            skip(Integer.BYTES);
+            int vectorPos = pos;
+            skip(Integer.BYTES);
+            putInt(vectorPos, structs.length);
+            for (long[] struct : structs) {
+                for (long l : struct) {
+                    skip(Long.BYTES);
+                    putLong(pos - Long.BYTES, l);
+                }
+            }
+            return vectorPos;
+        }
+        throw new IllegalArgumentException("Cannot encode value of type " + value.getClass().getSimpleName());
+    }
+
+    private static int inlineSize(Object value) {
+        if (value instanceof Boolean || value instanceof Byte) {
+            return Byte.BYTES;
+        } else if (value instanceof Short) {
+            return Short.BYTES;
+        } else if (value instanceof Long) {
+            return Long.BYTES;
+        } else {
+            // Integer or offset to an object
+            return Integer.BYTES;
+        }
+    }
+
+    private static int alignTo(int position, int alignment) {
+        return (position + alignment - 1) / alignment * alignment;
+    }
+
+    private void align(int alignment) {
+        skip(alignTo(pos, alignment) - pos);
+    }
+
+    /**
+     * Advances the position by {@code numBytes}, the skipped bytes are zero.
+     */
+    private void skip(int numBytes) {
+        int newPos = pos + numBytes;
+        if (newPos > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(newPos, bytes.length * 2));
+        }
+        pos = newPos;
+    }
+
+    private void putShort(int index, short value) {
+        bytes[index] = (byte) value;
+        bytes[index + 1] = (byte) (value >> 8);
+    }
+
+    private void putInt(int index, int value) {
+        for (int i = 0; i < Integer.BYTES; i++) {
+            bytes[index + i] = (byte) (value >> (8 * i));
+        }
+    }
+
+    private void putLong(int index, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            bytes[index + i] = (byte) (value >> (8 * i));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.action.sql.ResultReceiver;
+import io.crate.breaker.RowAccounting;
+import io.crate.data.Row;
+import io.crate.types.DataType;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Receives a result and encodes it in the Arrow IPC streaming format.
+ *
+ * @see ArrowStreamWriter
+ */
+class RestArrowResultSetReceiver implements ResultReceiver<BytesReference> {
+
+    private final ArrowStreamWriter writer;
+    private final RowAccounting<Row> rowAccounting;
+    private final CompletableFuture<BytesReference> result = new CompletableFuture<>();
+
+    @Nullable
+    private final Consumer<BytesReference> onPage;
+
+    private boolean batchWritten = false;
+
+    /**
+     * @param onPage if not null, incremental result streaming is supported:
+     *               On each {@link #batchFinished()} the rows received so far are encoded as record batch
+     *               and passed to {@code onPage}. The {@link #completionFuture()} then only contains the
+     *               remaining rows and the end of stream marker.
+     */
+    RestArrowResultSetReceiver(List<String> names,
+                               List<? extends DataType> types,
+                               RowAccounting<Row> rowAccounting,
+                               @Nullable Consumer<BytesReference> onPage) {
+        this.writer = new ArrowStreamWriter(names, types);
+        this.rowAccounting = rowAccounting;
+        this.onPage = onPage;
+    }
+
+    @Override
+    public void setNextRow(Row row) {
+        rowAccounting.accountForAndMaybeBreak(row);
+        writer.addRow(row);
+    }
+
+    @Override
+    public void batchFinished() {
+        if (onPage == null) {
+            fail(new IllegalStateException("Incremental result streaming not supported via HTTP"));
+            return;
+        }
+        BytesReference page;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            writeBatch(out);
+            page = out.bytes();
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        onPage.accept(page);
+    }
+
+    @Override
+    public void allFinished(boolean interrupted) {
+        try {
+            result.complete(finish());
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    BytesReference finish() throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            // The schema must be written even if the result is empty
+            if (writer.numRows() > 0 || !batchWritten) {
+                writeBatch(out);
+            }
+            writer.writeEndOfStream(out);
+            return out.bytes();
+        }
+    }
+
+    private void writeBatch(BytesStreamOutput out) throws IOException {
+        writer.writeBatch(out);
+        batchWritten = true;
+        rowAccounting.release();
+    }
+
+    @Override
+    public void fail(@Nonnull Throwable t) {
+        result.completeExceptionally(t);
+    }
+
+    @Override
+    public CompletableFuture<BytesReference> completionFuture() {
+        return result;
+    }
+}
@@ -26,21 +26,30 @@ import io.crate.action.sql.ResultReceiver;
 import io.crate.breaker.RowAccounting;
 import io.crate.data.Row;
 import io.crate.expression.symbol.Field;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 class RestResultSetReceiver implements ResultReceiver<XContentBuilder> {
 
     private final List<Field> outputFields;
+    private final XContentBuilder xContentBuilder;
     private final ResultToXContentBuilder builder;
     private final long startTimeNs;
     private final RowAccounting<Row> rowAccounting;
     private final CompletableFuture<XContentBuilder> result = new CompletableFuture<>();
 
+    @Nullable
+    private final Consumer<BytesReference> onPage;
+
     private long rowCount;
 
     RestResultSetReceiver(XContentBuilder builder,
@@ -48,9 +57,29 @@ class RestResultSetReceiver implements ResultReceiver<XContentBuilder> {
                           long startTimeNs,
                           RowAccounting<Row> rowAccounting,
                           boolean includeTypesOnResponse) throws IOException {
+        this(builder, outputFields, startTimeNs, rowAccounting, includeTypesOnResponse, null);
+    }
+
+    /**
+     * @param onPage if not null, incremental result streaming is supported:
+     *               On each {@link #batchFinished()} the content written so far is removed from the builder and
+     *               passed to {@code onPage}. The builder returned by the {@link #completionFuture()} then only
+     *               contains the remaining content.
+     *               {@code builder} must write to a {@link ByteArrayOutputStream} in that case.
+     */
+    RestResultSetReceiver(XContentBuilder builder,
+                          List<Field> outputFields,
+                          long startTimeNs,
+                          RowAccounting<Row> rowAccounting,
+                          boolean includeTypesOnResponse,
+                          @Nullable Consumer<BytesReference> onPage) throws IOException {
+        assert onPage == null || builder.getOutputStream() instanceof ByteArrayOutputStream
+            : "builder must write to a ByteArrayOutputStream to support incremental result streaming";
         this.outputFields = outputFields;
         this.startTimeNs = startTimeNs;
         this.rowAccounting = rowAccounting;
+        this.onPage = onPage;
+        this.xContentBuilder = builder;
         this.builder = ResultToXContentBuilder.builder(builder);
         this.builder.cols(outputFields);
         if (includeTypesOnResponse) {
@@ -72,7 +101,31 @@ class RestResultSetReceiver implements ResultReceiver<XContentBuilder> {
 
     @Override
     public void batchFinished() {
-        fail(new IllegalStateException("Incremental result streaming not supported via HTTP"));
+        if (onPage == null) {
+            fail(new IllegalStateException("Incremental result streaming not supported via HTTP"));
+            return;
+        }
+        BytesReference page;
+        try {
+            page = takePage();
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        onPage.accept(page);
+    }
+
+    /**
+     * Removes the content written so far from the builder.
+     * The rows contained in it are no longer held in memory by this receiver, so their memory accounting is released.
+     */
+    private BytesReference takePage() throws IOException {
+        xContentBuilder.flush();
+        ByteArrayOutputStream out = (ByteArrayOutputStream) xContentBuilder.getOutputStream();
+        BytesReference page = new BytesArray(out.toByteArray());
+        out.reset();
+        rowAccounting.release();
+        return page;
     }
 
     @Override
@@ -39,19 +39,26 @@ import io.crate.breaker.BlockBasedRamAccounting;
 import io.crate.breaker.CrateCircuitBreakerService;
 import io.crate.breaker.RamAccounting;
 import io.crate.breaker.RowAccountingWithEstimators;
+import io.crate.common.collections.Lists2;
 import io.crate.exceptions.SQLExceptions;
 import io.crate.expression.symbol.Field;
 import io.crate.expression.symbol.Symbols;
 import io.crate.protocols.http.Headers;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import org.apache.logging.log4j.LogManager;
@@ -60,6 +67,7 @@ import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.http.netty4.cors.Netty4CorsConfig;
 import org.elasticsearch.http.netty4.cors.Netty4CorsHandler;
@@ -73,6 +81,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static io.crate.action.sql.Session.UNNAMED;
@@ -87,6 +96,11 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
     private static final String REQUEST_HEADER_USER = "User";
     private static final String REQUEST_HEADER_SCHEMA = "Default-Schema";
 
+    /**
+     * Number of rows written per chunk if the result is streamed using "/_sql?stream"
+     */
+    static final int STREAM_PAGE_SIZE = 1000;
+
     private final Settings settings;
     private final SQLOperations sqlOperations;
     private final Function<String, CircuitBreaker> circuitBreakerProvider;
@@ -96,6 +110,12 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
 
     private Session session;
 
+    /**
+     * Resumes a streaming response which has been paused because the channel was not writable.
+     */
+    @Nullable
+    private Runnable resumeOnWritable;
+
     SqlHttpHandler(Settings settings,
                    SQLOperations sqlOperations,
                    Function<String, CircuitBreaker> circuitBreakerProvider,
@@ -117,10 +137,23 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
             Session session = ensureSession(request);
             Map<String, List<String>> parameters = new QueryStringDecoder(request.uri()).parameters();
             ByteBuf content = request.content();
-            handleSQLRequest(session, content, paramContainFlag(parameters, "types"))
+            String resultMediaType = isArrowRequested(request, parameters)
+                ? ArrowStreamWriter.MEDIA_TYPE
+                : XContentType.JSON.mediaType();
+            // Chunked transfer encoding requires HTTP/1.1
+            StreamingResponse streamingResponse =
+                paramContainFlag(parameters, "stream") && request.protocolVersion().equals(HttpVersion.HTTP_1_1)
+                    ? new StreamingResponse(ctx, request, session, resultMediaType)
+                    : null;
+            boolean includeTypes = paramContainFlag(parameters, "types");
+            handleSQLRequest(session, content, includeTypes, resultMediaType, streamingResponse)
                 .whenComplete((result, t) -> {
                     try {
-                        sendResponse(session, ctx, request, parameters, result, t);
+                        if (streamingResponse != null && streamingResponse.started) {
+                            streamingResponse.finish(result, t);
+                        } else {
+                            sendResponse(session, ctx, request, parameters, result, resultMediaType, t);
+                        }
                     } catch (Throwable ex) {
                         LOGGER.error("Error sending response", ex);
                         throw ex;
@@ -141,8 +174,32 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         return values != null && (values.equals(singletonList("")) || values.equals(singletonList("true")));
     }
 
+    /**
+     * @return true if the result should be encoded in the Arrow IPC streaming format instead of JSON,
+     *         requested by "/_sql?format=arrow" or an Accept header containing the Arrow stream media type
+     */
+    private static boolean isArrowRequested(FullHttpRequest request, Map<String, List<String>> parameters) {
+        List<String> format = parameters.get("format");
+        if (format != null && format.equals(singletonList("arrow"))) {
+            return true;
+        }
+        String accept = request.headers().get(HttpHeaderNames.ACCEPT);
+        return accept != null && accept.contains(ArrowStreamWriter.MEDIA_TYPE);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        Runnable resume = resumeOnWritable;
+        if (resume != null && ctx.channel().isWritable()) {
+            resumeOnWritable = null;
+            resume.run();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
+        resumeOnWritable = null;
         if (session != null) {
             session.close();
             session = null;
@@ -154,15 +211,16 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
                               ChannelHandlerContext ctx,
                               FullHttpRequest request,
                               Map<String, List<String>> parameters,
-                              XContentBuilder result,
+                              BytesReference result,
+                              String resultMediaType,
                               @Nullable Throwable t) {
         final HttpVersion httpVersion = request.protocolVersion();
         final DefaultFullHttpResponse resp;
         final ByteBuf content;
         if (t == null) {
-            content = Netty4Utils.toByteBuf(BytesReference.bytes(result));
+            content = Netty4Utils.toByteBuf(result);
             resp = new DefaultFullHttpResponse(httpVersion, HttpResponseStatus.OK, content);
-            resp.headers().add(HttpHeaderNames.CONTENT_TYPE, result.contentType().mediaType());
+            resp.headers().add(HttpHeaderNames.CONTENT_TYPE, resultMediaType);
         } else {
             SQLActionException sqlActionException = SQLExceptions.forWireTransmission(
                 getAccessControl.apply(session.sessionContext()), t);
@@ -189,7 +247,11 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         ctx.writeAndFlush(resp, promise);
     }
 
-    private CompletableFuture<XContentBuilder> handleSQLRequest(Session session, ByteBuf content, boolean includeTypes) {
+    private CompletableFuture<BytesReference> handleSQLRequest(Session session,
+                                                               ByteBuf content,
+                                                               boolean includeTypes,
+                                                               String resultMediaType,
+                                                               @Nullable StreamingResponse streamingResponse) {
         SQLRequestParseContext parseContext;
         try {
             parseContext = SQLRequestParser.parseSource(Netty4Utils.toBytesReference(content));
@@ -204,7 +266,11 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         }
         try {
             if (args != null || bulkArgs == null) {
-                return executeSimpleRequest(session, parseContext.stmt(), args, includeTypes);
+                return executeSimpleRequest(
+                    session, parseContext.stmt(), args, includeTypes, resultMediaType, streamingResponse);
+            } else if (resultMediaType.equals(ArrowStreamWriter.MEDIA_TYPE)) {
+                return CompletableFuture.failedFuture(new SQLActionException(
+                    "Bulk operations don't support the arrow format", 4000, HttpResponseStatus.BAD_REQUEST));
             } else {
                 return executeBulkRequest(session, parseContext.stmt(), bulkArgs);
             }
@@ -240,43 +306,76 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         return !sessionContext.user().equals(user) || !sessionContext.options().equals(options);
     }
 
-    private CompletableFuture<XContentBuilder> executeSimpleRequest(Session session,
-                                                                    String stmt,
-                                                                    List<Object> args,
-                                                                    boolean includeTypes) throws IOException {
+    private CompletableFuture<BytesReference> executeSimpleRequest(
+            Session session,
+            String stmt,
+            List<Object> args,
+            boolean includeTypes,
+            String resultMediaType,
+            @Nullable StreamingResponse streamingResponse) throws IOException {
         long startTimeInNs = System.nanoTime();
         session.parse(UNNAMED, stmt, emptyList());
         session.bind(UNNAMED, UNNAMED, args == null ? emptyList() : args, null);
         DescribeResult description = session.describe('P', UNNAMED);
         List<Field> resultFields = description.getFields();
-        ResultReceiver<XContentBuilder> resultReceiver;
-        if (resultFields == null) {
-            resultReceiver = new RestRowCountReceiver(JsonXContent.contentBuilder(), startTimeInNs, includeTypes);
+        ResultReceiver<?> resultReceiver;
+        CompletableFuture<BytesReference> result;
+        int maxRows = 0;
+        if (resultFields == null && !resultMediaType.equals(ArrowStreamWriter.MEDIA_TYPE)) {
+            RestRowCountReceiver rowCountReceiver = new RestRowCountReceiver(
+                JsonXContent.contentBuilder(), startTimeInNs, includeTypes);
+            resultReceiver = rowCountReceiver;
+            result = rowCountReceiver.completionFuture().thenApply(BytesReference::bytes);
         } else {
             CircuitBreaker breaker = circuitBreakerProvider.apply(CrateCircuitBreakerService.QUERY);
             RamAccounting ramAccounting = new BlockBasedRamAccounting(
                 b -> breaker.addEstimateBytesAndMaybeBreak(b, "http-result"),
                 MAX_BLOCK_SIZE_IN_BYTES);
-            resultReceiver = new RestResultSetReceiver(
-                JsonXContent.contentBuilder(),
-                resultFields,
-                startTimeInNs,
-                new RowAccountingWithEstimators(
-                    Symbols.typeView(resultFields),
-                    ramAccounting
-                ),
-                includeTypes
-            );
-            resultReceiver.completionFuture().whenComplete((result, error) -> ramAccounting.close());
+            if (resultMediaType.equals(ArrowStreamWriter.MEDIA_TYPE)) {
+                // The row count of statements without result set is returned as single "rowcount" column
+                List<String> names = resultFields == null
+                    ? singletonList(ResultToXContentBuilder.FIELDS.ROW_COUNT)
+                    : Lists2.map(resultFields, f -> f.path().sqlFqn());
+                List<DataType> types = resultFields == null
+                    ? singletonList(DataTypes.LONG)
+                    : Symbols.typeView(resultFields);
+                RestArrowResultSetReceiver arrowReceiver = new RestArrowResultSetReceiver(
+                    names,
+                    types,
+                    new RowAccountingWithEstimators(types, ramAccounting),
+                    streamingResponse
+                );
+                resultReceiver = arrowReceiver;
+                result = arrowReceiver.completionFuture();
+            } else {
+                RestResultSetReceiver resultSetReceiver = new RestResultSetReceiver(
+                    JsonXContent.contentBuilder(),
+                    resultFields,
+                    startTimeInNs,
+                    new RowAccountingWithEstimators(
+                        Symbols.typeView(resultFields),
+                        ramAccounting
+                    ),
+                    includeTypes,
+                    streamingResponse
+                );
+                resultReceiver = resultSetReceiver;
+                result = resultSetReceiver.completionFuture().thenApply(BytesReference::bytes);
+            }
+            resultReceiver.completionFuture().whenComplete((r, error) -> ramAccounting.close());
+            if (streamingResponse != null && resultFields != null) {
+                streamingResponse.resultReceiver = resultReceiver;
+                maxRows = STREAM_PAGE_SIZE;
+            }
         }
-        session.execute(UNNAMED, 0, resultReceiver);
+        session.execute(UNNAMED, maxRows, resultReceiver);
         return session.sync()
-            .thenCompose(ignored -> resultReceiver.completionFuture());
+            .thenCompose(ignored -> result);
     }
 
-    private CompletableFuture<XContentBuilder> executeBulkRequest(Session session,
-                                                                  String stmt,
-                                                                  List<List<Object>> bulkArgs) {
+    private CompletableFuture<BytesReference> executeBulkRequest(Session session,
+                                                                 String stmt,
+                                                                 List<List<Object>> bulkArgs) {
         final long startTimeInNs = System.nanoTime();
         session.parse(UNNAMED, stmt, emptyList());
         final RestBulkRowCountReceiver.Result[] results = new RestBulkRowCountReceiver.Result[bulkArgs.size()];
@@ -295,11 +394,11 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
         return session.sync()
             .thenApply(ignored -> {
                 try {
-                    return ResultToXContentBuilder.builder(JsonXContent.contentBuilder())
+                    return BytesReference.bytes(ResultToXContentBuilder.builder(JsonXContent.contentBuilder())
                         .cols(emptyList())
                         .duration(startTimeInNs)
                         .bulkRows(results)
-                        .build();
+                        .build());
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
@@ -325,4 +424,79 @@ public class SqlHttpHandler extends SimpleChannelInboundHandler<FullHttpRequest>
     private static boolean bothProvided(@Nullable List<Object> args, @Nullable List<List<Object>> bulkArgs) {
         return args != null && !args.isEmpty() && bulkArgs != null && !bulkArgs.isEmpty();
     }
+
+    /**
+     * Sends a result set as chunked HTTP response, one chunk per {@link #STREAM_PAGE_SIZE} rows.
+     *
+     * The query is suspended after each page and only resumed once the chunk has been written and the channel is
+     * writable again. A slow client therefore throttles the query instead of the whole result being buffered in memory.
+     *
+     * If the result fits into a single page, a regular response is sent instead.
+     */
+    private final class StreamingResponse implements Consumer<BytesReference> {
+
+        private final ChannelHandlerContext ctx;
+        private final FullHttpRequest request;
+        private final Session session;
+
+        private final String mediaType;
+
+        private ResultReceiver<?> resultReceiver;
+        private boolean started = false;
+
+        StreamingResponse(ChannelHandlerContext ctx, FullHttpRequest request, Session session, String mediaType) {
+            this.ctx = ctx;
+            this.request = request;
+            this.session = session;
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public void accept(BytesReference page) {
+            if (!started) {
+                started = true;
+                DefaultHttpResponse resp = new DefaultHttpResponse(request.protocolVersion(), HttpResponseStatus.OK);
+                resp.headers().add(HttpHeaderNames.CONTENT_TYPE, mediaType);
+                HttpUtil.setTransferEncodingChunked(resp, true);
+                Netty4CorsHandler.setCorsResponseHeaders(request, resp, corsConfig);
+                ctx.write(resp);
+            }
+            ctx.writeAndFlush(new DefaultHttpContent(Netty4Utils.toByteBuf(page))).addListener(f -> {
+                if (f.isSuccess()) {
+                    resumeWhenWritable();
+                } else {
+                    // The suspended query is closed together with the session once the channel is unregistered
+                    ctx.close();
+                }
+            });
+        }
+
+        private void resumeWhenWritable() {
+            if (ctx.channel().isWritable()) {
+                try {
+                    session.execute(UNNAMED, STREAM_PAGE_SIZE, resultReceiver);
+                    session.sync();
+                } catch (Throwable t) {
+                    resultReceiver.fail(t);
+                }
+            } else {
+                resumeOnWritable = this::resumeWhenWritable;
+            }
+        }
+
+        void finish(@Nullable BytesReference remaining, @Nullable Throwable t) {
+            if (t == null) {
+                ChannelPromise promise = ctx.newPromise();
+                if (isCloseConnection(request)) {
+                    promise.addListener(ChannelFutureListener.CLOSE);
+                }
+                ByteBuf content = Netty4Utils.toByteBuf(remaining);
+                ctx.writeAndFlush(new DefaultLastHttpContent(content), promise);
+            } else {
+                // The status line has already been sent, aborting the response is the only way to signal the failure
+                LOGGER.debug("Error while streaming result, closing connection", t);
+                ctx.close();
+            }
+        }
+    }
 }
@@ -22,6 +22,8 @@
 
 package io.crate.statistics;
 
+import com.carrotsearch.hppc.BitMixer;
+import com.google.common.annotations.VisibleForTesting;
 import io.crate.Streamer;
 import io.crate.breaker.BlockBasedRamAccounting;
 import io.crate.breaker.CrateCircuitBreakerService;
@@ -151,6 +153,7 @@ public final class ReservoirSampler {
         ArrayList<DocIdToRow> docIdToRowsFunctionPerReader = new ArrayList<>();
         long totalNumDocs = 0;
         long totalSizeInBytes = 0;
+        long dataVersion = 0;
         for (String index : docTable.concreteOpenIndices()) {
             var indexMetaData = metaData.index(index);
             if (indexMetaData == null) {
@@ -187,8 +190,12 @@ public final class ReservoirSampler {
                     searchersToRelease.add(searcher);
                     totalNumDocs += searcher.reader().numDocs();
                     totalSizeInBytes += indexShard.storeStats().getSizeInBytes();
+                    dataVersion = Samples.mergeDataVersions(dataVersion, shardDataVersion(indexShard, searcher));
                     DocIdToRow docIdToRow = new DocIdToRow(searcher, inputs, expressions);
                     docIdToRowsFunctionPerReader.add(docIdToRow);
+                    if (maxSamples == 0) {
+                        continue;
+                    }
                     try {
                         // We do the sampling in 2 phases. First we get the docIds;
                         // then we retrieve the column values for the sampled docIds.
@@ -200,6 +207,7 @@ public final class ReservoirSampler {
                         throw new UncheckedIOException(e);
                     }
                 } catch (IllegalIndexShardStateException | AlreadyClosedException ignored) {
+                    dataVersion = Samples.UNKNOWN_DATA_VERSION;
                 }
             }
         }
@@ -214,10 +222,22 @@ public final class ReservoirSampler {
             }),
             streamers,
             totalNumDocs,
-            totalSizeInBytes
+            totalSizeInBytes,
+            dataVersion
         );
     }
 
+    /**
+     * Returns a value which changes whenever the data visible to the searcher of the shard changes.
+     * The reader version is incremented by every refresh which includes changes, including merges.
+     */
+    @VisibleForTesting
+    static long shardDataVersion(IndexShard indexShard, Engine.Searcher searcher) {
+        long version = 31L * indexShard.shardId().hashCode() + searcher.getDirectoryReader().getVersion();
+        long mixed = BitMixer.mix64(version);
+        return mixed == Samples.UNKNOWN_DATA_VERSION ? 0L : mixed;
+    }
+
     static class DocIdToRow implements Function<Integer, Row> {
 
         private final Engine.Searcher searcher;
@@ -26,6 +26,7 @@ import io.crate.Streamer;
 import io.crate.common.collections.Lists2;
 import io.crate.data.Row;
 import io.crate.data.RowN;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -37,24 +38,43 @@ import java.util.Random;
 
 class Samples implements Writeable {
 
-    static final Samples EMPTY = new Samples(List.of(), List.of(), 0L, 0L);
+    static final long UNKNOWN_DATA_VERSION = -1L;
+
+    static final Samples EMPTY = new Samples(List.of(), List.of(), 0L, 0L, 0L);
 
     private final List<Streamer> recordStreamer;
     final List<Row> records;
     final long numTotalDocs;
     final long numTotalSizeInBytes;
 
-    Samples(List<Row> records, List<Streamer> recordStreamer, long numTotalDocs, long numTotalSizeInBytes) {
+    /**
+     * Identifies the state of the shards the samples were taken from. It changes if any of the shards changes,
+     * see {@link ReservoirSampler#shardDataVersion}. {@link #UNKNOWN_DATA_VERSION} if the state of a shard
+     * couldn't be determined.
+     */
+    final long dataVersion;
+
+    Samples(List<Row> records,
+            List<Streamer> recordStreamer,
+            long numTotalDocs,
+            long numTotalSizeInBytes,
+            long dataVersion) {
         this.records = records;
         this.recordStreamer = recordStreamer;
         this.numTotalDocs = numTotalDocs;
         this.numTotalSizeInBytes = numTotalSizeInBytes;
+        this.dataVersion = dataVersion;
     }
 
     public Samples(List<Streamer> recordStreamer, StreamInput in) throws IOException {
         this.recordStreamer = recordStreamer;
         this.numTotalDocs = in.readLong();
         this.numTotalSizeInBytes = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_4_2_0)) {
+            this.dataVersion = in.readLong();
+        } else {
+            this.dataVersion = UNKNOWN_DATA_VERSION;
+        }
         int numRecords = in.readVInt();
         this.records = new ArrayList<>(numRecords);
         for (int i = 0; i < numRecords; i++) {
@@ -70,6 +90,9 @@ class Samples implements Writeable {
     public void writeTo(StreamOutput out) throws IOException {
         out.writeLong(numTotalDocs);
         out.writeLong(numTotalSizeInBytes);
+        if (out.getVersion().onOrAfter(Version.V_4_2_0)) {
+            out.writeLong(dataVersion);
+        }
         out.writeVInt(records.size());
         for (Row record : records) {
             assert record.numColumns() == recordStreamer.size()
@@ -91,10 +114,19 @@ class Samples implements Writeable {
             newSamples,
             s1.recordStreamer.isEmpty() ? s2.recordStreamer : s1.recordStreamer,
             s1.numTotalDocs + s2.numTotalDocs,
-            s1.numTotalSizeInBytes + s2.numTotalSizeInBytes
+            s1.numTotalSizeInBytes + s2.numTotalSizeInBytes,
+            mergeDataVersions(s1.dataVersion, s2.dataVersion)
         );
     }
 
+    static long mergeDataVersions(long dataVersion1, long dataVersion2) {
+        if (dataVersion1 == UNKNOWN_DATA_VERSION || dataVersion2 == UNKNOWN_DATA_VERSION) {
+            return UNKNOWN_DATA_VERSION;
+        }
+        // Order independent, the responses of the nodes can arrive in any order
+        return dataVersion1 + dataVersion2;
+    }
+
     private static List<Row> createNewSamples(int maxSampleSize, Samples s1, Samples s2, Random random) {
         if (s1.records.isEmpty()) {
             return s2.records;
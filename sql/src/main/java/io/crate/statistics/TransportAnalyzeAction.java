@@ -54,9 +54,11 @@ import org.elasticsearch.transport.TransportService;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -88,6 +90,13 @@ public final class TransportAnalyzeAction {
     private final TransportService transportService;
     private final Schemas schemas;
     private final ClusterService clusterService;
+    private final TableStats tableStats;
+
+    /**
+     * The {@link Samples#dataVersion} and sampled columns the current stats of a table were created from.
+     * If they haven't changed the table isn't sampled again.
+     */
+    private final Map<RelationName, Long> sampledVersionByTable = new ConcurrentHashMap<>();
 
     @Inject
     public TransportAnalyzeAction(TransportService transportService,
@@ -98,6 +107,7 @@ public final class TransportAnalyzeAction {
         this.transportService = transportService;
         this.schemas = schemas;
         this.clusterService = clusterService;
+        this.tableStats = tableStats;
         transportService.registerRequestHandler(
             INVOKE_ANALYZE,
             AnalyzeRequest::new,
@@ -128,6 +138,7 @@ public final class TransportAnalyzeAction {
 
     public CompletableFuture<AcknowledgedResponse> fetchSamplesThenGenerateAndPublishStats() {
         ArrayList<CompletableFuture<Map.Entry<RelationName, Stats>>> futures = new ArrayList<>();
+        HashSet<RelationName> tables = new HashSet<>();
         for (SchemaInfo schema : schemas) {
             if (!(schema instanceof DocSchemaInfo)) {
                 continue;
@@ -138,12 +149,14 @@ public final class TransportAnalyzeAction {
                     .filter(x -> DataTypes.PRIMITIVE_TYPES.contains(x.valueType()))
                     .collect(Collectors.toList());
 
-                futures.add(fetchSamples(
+                tables.add(table.ident());
+                futures.add(fetchStats(
                     table.ident(),
                     primitiveColumns
-                ).thenApply(samples -> Map.entry(table.ident(), createTableStats(samples, primitiveColumns))));
+                ).thenApply(stats -> Map.entry(table.ident(), stats)));
             }
         }
+        sampledVersionByTable.keySet().retainAll(tables);
         return CompletableFutures.allAsList(futures)
             .thenApply(entries -> Map.ofEntries(entries.toArray(new Map.Entry[0])))
             .thenCompose(entries -> publishTableStats((Map<RelationName, Stats>)(Map) entries));
@@ -204,7 +217,44 @@ public final class TransportAnalyzeAction {
         return new Stats(samples.numTotalDocs, samples.numTotalSizeInBytes, statsByColumn);
     }
 
-    private CompletableFuture<Samples> fetchSamples(RelationName relationName, List<Reference> columns) {
+    /**
+     * Re-uses the current stats of a table if none of its shards changed since they were sampled.
+     * This is checked by fetching the {@link Samples#dataVersion} without any samples first,
+     * which only requires to acquire a searcher on each shard instead of reading them.
+     */
+    private CompletableFuture<Stats> fetchStats(RelationName relationName, List<Reference> columns) {
+        Long lastSampledVersion = sampledVersionByTable.get(relationName);
+        Stats currentStats = tableStats.getStats(relationName);
+        if (lastSampledVersion == null
+            || currentStats == Stats.EMPTY
+            || clusterService.state().nodes().getMinNodeVersion().before(Version.V_4_2_0)) {
+            return sampleAndCreateStats(relationName, columns);
+        }
+        return fetchSamples(relationName, columns, 0).thenCompose(samples -> {
+            if (samples.dataVersion != Samples.UNKNOWN_DATA_VERSION
+                && lastSampledVersion == sampledVersion(samples, columns)) {
+                return completedFuture(currentStats);
+            }
+            return sampleAndCreateStats(relationName, columns);
+        });
+    }
+
+    private CompletableFuture<Stats> sampleAndCreateStats(RelationName relationName, List<Reference> columns) {
+        return fetchSamples(relationName, columns, NUM_SAMPLES).thenApply(samples -> {
+            if (samples.dataVersion == Samples.UNKNOWN_DATA_VERSION) {
+                sampledVersionByTable.remove(relationName);
+            } else {
+                sampledVersionByTable.put(relationName, sampledVersion(samples, columns));
+            }
+            return createTableStats(samples, columns);
+        });
+    }
+
+    private static long sampledVersion(Samples samples, List<Reference> columns) {
+        return 31L * columns.hashCode() + samples.dataVersion;
+    }
+
+    private CompletableFuture<Samples> fetchSamples(RelationName relationName, List<Reference> columns, int maxSamples) {
         FutureActionListener<FetchSampleResponse, Samples> listener = new FutureActionListener<>(FetchSampleResponse::samples);
         List<DiscoveryNode> nodesOn41OrAfter = StreamSupport.stream(clusterService.state().nodes().spliterator(), false)
             .filter(x -> x.getVersion().onOrAfter(Version.V_4_1_0))
@@ -226,7 +276,7 @@ public final class TransportAnalyzeAction {
             transportService.sendRequest(
                 node,
                 FETCH_SAMPLES,
-                new FetchSampleRequest(relationName, columns, TransportAnalyzeAction.NUM_SAMPLES),
+                new FetchSampleRequest(relationName, columns, maxSamples),
                 responseHandler
             );
         }
@@ -35,6 +35,7 @@ import io.crate.expression.symbol.ParameterSymbol;
 import io.crate.expression.symbol.Symbol;
 import io.crate.planner.DependencyCarrier;
 import io.crate.planner.Plan;
+import io.crate.planner.PlanCache;
 import io.crate.planner.Planner;
 import io.crate.planner.PlannerContext;
 import io.crate.planner.operators.SubQueryResults;
@@ -43,6 +44,7 @@ import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.testing.SQLExecutor;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -437,4 +439,34 @@ public class SessionTest extends CrateDummyClusterServiceUnitTest {
         session.sync().get(5, TimeUnit.SECONDS);
         assertThat(jobsLogs.metrics().iterator().next().totalCount(), is(1L));
     }
+
+    @Test
+    public void test_parse_uses_analyzed_statement_from_plan_cache_of_other_session() {
+        SQLExecutor sqlExecutor = SQLExecutor.builder(clusterService).build();
+        DependencyCarrier executor = mock(DependencyCarrier.class, Answers.RETURNS_MOCKS);
+        PlanCache planCache = new PlanCache(Settings.EMPTY, clusterService);
+        String query = "select name from sys.cluster where name = ?";
+
+        AnalyzedStatement analyzedStatement = sqlExecutor.analyze(query);
+        Plan plan = sqlExecutor.planner.plan(analyzedStatement, sqlExecutor.getPlannerContext(clusterService.state()));
+        planCache.put(
+            planCache.key(query, List.of(), SessionContext.systemSessionContext()),
+            SqlParser.createStatement(query),
+            analyzedStatement,
+            plan,
+            clusterService.state().metaData().version());
+
+        Session session = new Session(
+            sqlExecutor.analyzer,
+            sqlExecutor.planner,
+            planCache,
+            new JobsLogs(() -> false),
+            false,
+            executor,
+            AccessControl.DISABLED,
+            SessionContext.systemSessionContext());
+        session.parse("S_1", query, List.of());
+
+        assertThat(session.preparedStatements.get("S_1").analyzedStatement(), Matchers.sameInstance(analyzedStatement));
+    }
 }
@@ -792,6 +792,43 @@ public class CreateAlterTableStatementAnalyzerTest extends CrateDummyClusterServ
         analyze("create table t(id int primary key) partitioned by (id) clustered by (id)");
     }
 
+    @Test
+    public void test_sort_by_accepts_primitive_columns_with_column_store() {
+        BoundCreateTable analysis = analyze(
+            "create table t (ts timestamp with time zone, o object as (name text), p int) " +
+            "partitioned by (p) with (sort_by = 'ts DESC, o.name')");
+        assertThat(analysis.tableParameter().settings().get("index.sort_by"), is("ts DESC, o.name"));
+    }
+
+    @Test
+    public void test_sort_by_on_object_column_of_partitioned_table_is_rejected() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Cannot use column \"o\" of type \"object\" in 'sort_by'");
+        analyze("create table t (o object, p int) partitioned by (p) with (sort_by = 'o')");
+    }
+
+    @Test
+    public void test_sort_by_on_array_column_is_rejected() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Cannot use column \"tags\" of type \"text_array\" in 'sort_by'");
+        analyze("create table t (tags array(text), p int) partitioned by (p) with (sort_by = 'tags')");
+    }
+
+    @Test
+    public void test_sort_by_on_column_without_column_store_is_rejected() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Cannot use column \"name\" without column store in 'sort_by'");
+        analyze("create table t (name text storage with (columnstore = false), p int) " +
+                "partitioned by (p) with (sort_by = 'name')");
+    }
+
+    @Test
+    public void test_sort_by_on_fulltext_column_is_rejected() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Cannot use column \"name\" without column store in 'sort_by'");
+        analyze("create table t (name text index using fulltext, p int) partitioned by (p) with (sort_by = 'name')");
+    }
+
     @Test
     public void testCreateTableUsesDefaultSchema() {
         SQLExecutor sqlExecutor = SQLExecutor.builder(clusterService, 1, Randomness.get())
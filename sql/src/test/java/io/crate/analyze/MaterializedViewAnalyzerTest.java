@@ -0,0 +1,124 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.analyze;
+
+import io.crate.metadata.RelationName;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import io.crate.types.DataTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MaterializedViewAnalyzerTest extends CrateDummyClusterServiceUnitTest {
+
+    private SQLExecutor e;
+
+    @Before
+    public void setUpExecutor() throws IOException {
+        e = SQLExecutor.builder(clusterService)
+            .addTable("create table t1 (x int, y text, o object as (a int))")
+            .addTable("create table t2 (id int primary key, x int not null, y text)")
+            .build();
+    }
+
+    @Test
+    public void testGroupingOnColumnsCanBeRefreshedIncrementally() {
+        AnalyzedCreateMaterializedView view = e.analyze(
+            "create materialized view v1 as select y as name, x, count(*) as cnt from t1 where x > 10 group by x, y");
+
+        assertThat(view.name(), is(new RelationName("doc", "v1")));
+        assertThat(view.schema(), is("doc"));
+        assertThat(view.columns(), contains("name", "x", "cnt"));
+        assertThat(view.columnTypes(), contains(DataTypes.STRING, DataTypes.INTEGER, DataTypes.LONG));
+        assertThat(view.source(), is(new RelationName("doc", "t1")));
+        assertThat(view.keys(), contains("x", "name"));
+        assertThat(view.sourceKeys(), contains("x", "y"));
+        assertThat(view.keysArePrimaryKey(), is(false));
+    }
+
+    @Test
+    public void test_group_keys_which_cannot_be_null_are_the_primary_key() {
+        AnalyzedCreateMaterializedView view = e.analyze(
+            "create materialized view v1 as select id, x, count(*) as cnt from t2 group by id, x");
+        assertThat(view.keys(), contains("id", "x"));
+        assertThat(view.keysArePrimaryKey(), is(true));
+
+        view = e.analyze("create materialized view v1 as select x, y, count(*) as cnt from t2 group by x, y");
+        assertThat(view.keysArePrimaryKey(), is(false));
+    }
+
+    @Test
+    public void testQueryWithoutGroupingMustBeRefreshedFully() {
+        AnalyzedCreateMaterializedView view = e.analyze("create materialized view v1 as select x, y from t1");
+        assertThat(view.source(), nullValue());
+        assertThat(view.keys(), empty());
+    }
+
+    @Test
+    public void testGroupKeyWhichIsNotSelectedMustBeRefreshedFully() {
+        AnalyzedCreateMaterializedView view = e.analyze(
+            "create materialized view v1 as select count(*) as cnt from t1 group by x");
+        assertThat(view.source(), nullValue());
+    }
+
+    @Test
+    public void testNonDeterministicFilterMustBeRefreshedFully() {
+        AnalyzedCreateMaterializedView view = e.analyze(
+            "create materialized view v1 as select x, count(*) as cnt from t1 where random() > 0.5 group by x");
+        assertThat(view.source(), nullValue());
+    }
+
+    @Test
+    public void testParameterPlaceholdersAreNotAllowed() {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("Materialized view definition must not contain any parameter placeholders");
+        e.analyze("create materialized view v1 as select x from t1 where x = ?");
+    }
+
+    @Test
+    public void testDuplicateColumnNamesAreNotAllowed() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Query in CREATE MATERIALIZED VIEW must not have duplicate column names");
+        e.analyze("create materialized view v1 as select x, x from t1");
+    }
+
+    @Test
+    public void testSubscriptColumnsMustBeAliased() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Invalid column name \"o['a']\" in CREATE MATERIALIZED VIEW, use an alias");
+        e.analyze("create materialized view v1 as select o['a'] from t1");
+    }
+
+    @Test
+    public void testRefreshOfRegularTableIsRejectedOnExecution() {
+        AnalyzedRefreshMaterializedView refresh = e.analyze("refresh materialized view t1");
+        assertThat(refresh.view().ident(), is(new RelationName("doc", "t1")));
+    }
+}
@@ -104,6 +104,7 @@ public class MetaDataToASTNodeResolverTest extends CrateDummyClusterServiceUnitT
                      "   refresh_interval = 1000,\n" +
                      "   \"routing.allocation.enable\" = 'all',\n" +
                      "   \"routing.allocation.total_shards_per_node\" = -1,\n" +
+                     "   source_format = 'json',\n" +
                      "   \"store.type\" = 'fs',\n" +
                      "   \"translog.durability\" = 'REQUEST',\n" +
                      "   \"translog.flush_threshold_size\" = 536870912,\n" +
@@ -156,6 +157,7 @@ public class MetaDataToASTNodeResolverTest extends CrateDummyClusterServiceUnitT
                      "   refresh_interval = 1000,\n" +
                      "   \"routing.allocation.enable\" = 'all',\n" +
                      "   \"routing.allocation.total_shards_per_node\" = -1,\n" +
+                     "   source_format = 'json',\n" +
                      "   \"store.type\" = 'fs',\n" +
                      "   \"translog.durability\" = 'REQUEST',\n" +
                      "   \"translog.flush_threshold_size\" = 536870912,\n" +
@@ -210,6 +212,7 @@ public class MetaDataToASTNodeResolverTest extends CrateDummyClusterServiceUnitT
                      "   refresh_interval = 1000,\n" +
                      "   \"routing.allocation.enable\" = 'all',\n" +
                      "   \"routing.allocation.total_shards_per_node\" = -1,\n" +
+                     "   source_format = 'json',\n" +
                      "   \"store.type\" = 'fs',\n" +
                      "   \"translog.durability\" = 'REQUEST',\n" +
                      "   \"translog.flush_threshold_size\" = 536870912,\n" +
@@ -263,6 +266,7 @@ public class MetaDataToASTNodeResolverTest extends CrateDummyClusterServiceUnitT
                      "   refresh_interval = 1000,\n" +
                      "   \"routing.allocation.enable\" = 'all',\n" +
                      "   \"routing.allocation.total_shards_per_node\" = -1,\n" +
+                     "   source_format = 'json',\n" +
                      "   \"store.type\" = 'fs',\n" +
                      "   \"translog.durability\" = 'REQUEST',\n" +
                      "   \"translog.flush_threshold_size\" = 536870912,\n" +
@@ -341,6 +345,7 @@ public class MetaDataToASTNodeResolverTest extends CrateDummyClusterServiceUnitT
                      "   refresh_interval = 1000,\n" +
                      "   \"routing.allocation.enable\" = 'all',\n" +
                      "   \"routing.allocation.total_shards_per_node\" = -1,\n" +
+                     "   source_format = 'json',\n" +
                      "   \"store.type\" = 'fs',\n" +
                      "   \"translog.durability\" = 'REQUEST',\n" +
                      "   \"translog.flush_threshold_size\" = 536870912,\n" +
@@ -391,6 +396,7 @@ public class MetaDataToASTNodeResolverTest extends CrateDummyClusterServiceUnitT
                      "   refresh_interval = 1000,\n" +
                      "   \"routing.allocation.enable\" = 'all',\n" +
                      "   \"routing.allocation.total_shards_per_node\" = -1,\n" +
+                     "   source_format = 'json',\n" +
                      "   \"store.type\" = 'fs',\n" +
                      "   \"translog.durability\" = 'REQUEST',\n" +
                      "   \"translog.flush_threshold_size\" = 536870912,\n" +
@@ -440,6 +446,7 @@ public class MetaDataToASTNodeResolverTest extends CrateDummyClusterServiceUnitT
                      "   refresh_interval = 1000,\n" +
                      "   \"routing.allocation.enable\" = 'all',\n" +
                      "   \"routing.allocation.total_shards_per_node\" = -1,\n" +
+                     "   source_format = 'json',\n" +
                      "   \"store.type\" = 'fs',\n" +
                      "   \"translog.durability\" = 'REQUEST',\n" +
                      "   \"translog.flush_threshold_size\" = 536870912,\n" +
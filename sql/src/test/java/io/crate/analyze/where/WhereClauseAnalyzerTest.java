@@ -415,10 +415,24 @@ public class WhereClauseAnalyzerTest extends CrateDummyClusterServiceUnitTest {
     }
 
     @Test
-    public void testSeqNoOnlySupportedWithEqualOperator() throws Exception {
+    public void testSeqNoRangeComparisonCanBeUsedAsFilter() throws Exception {
+        WhereClause whereClause = analyzeSelectWhere("select * from users where _seq_no > 1");
+        assertThat(whereClause.query(), isFunction("op_>"));
+        assertThat(whereClause.hasSeqNoAndPrimaryTerm(), is(false));
+    }
+
+    @Test
+    public void testSeqNoRangeComparisonCannotBeCombinedWithPrimaryTerm() throws Exception {
+        expectedException.expect(VersioninigValidationException.class);
+        expectedException.expectMessage(VersioninigValidationException.SEQ_NO_AND_PRIMARY_TERM_USAGE_MSG);
+        analyzeSelectWhere("select * from users where _seq_no > 1 and _primary_term = 1");
+    }
+
+    @Test
+    public void testSeqNoEqualityRequiresPrimaryTerm() throws Exception {
         expectedException.expect(VersioninigValidationException.class);
         expectedException.expectMessage(VersioninigValidationException.SEQ_NO_AND_PRIMARY_TERM_USAGE_MSG);
-        analyzeSelectWhere("select * from users where _seq_no > 1");
+        analyzeSelectWhere("select * from users where _seq_no > 1 and _seq_no = 3");
     }
 
     @Test
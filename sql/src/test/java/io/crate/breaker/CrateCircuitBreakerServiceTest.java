@@ -24,6 +24,7 @@ package io.crate.breaker;
 import io.crate.plugin.SQLPlugin;
 import io.crate.test.integration.CrateUnitTest;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
@@ -38,7 +39,9 @@ import org.mockito.ArgumentMatchers;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
@@ -175,4 +178,46 @@ public class CrateCircuitBreakerServiceTest extends CrateUnitTest {
         CircuitBreakerStats queryBreakerStats = breakerService.stats(CrateCircuitBreakerService.QUERY);
         assertThat(queryBreakerStats.getUsed(), is(0L));
     }
+
+    @Test
+    public void test_parent_breaker_releases_cached_memory_and_still_trips() throws Exception {
+        Settings settings = Settings.builder()
+            .put(HierarchyCircuitBreakerService.TOTAL_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), "1b")
+            .build();
+        HierarchyCircuitBreakerService esBreakerService = new HierarchyCircuitBreakerService(settings, clusterSettings);
+        AtomicInteger numReleases = new AtomicInteger(0);
+        esBreakerService.addMemoryReclaimer(() -> {
+            numReleases.incrementAndGet();
+            return Long.MAX_VALUE / 2;
+        });
+
+        try {
+            esBreakerService.checkParentLimit(10, "dummy");
+            fail("Expected the parent breaker to trip");
+        } catch (CircuitBreakingException e) {
+            assertThat(e.getMessage(), containsString("[parent] Data too large, data for [dummy]"));
+        }
+        assertThat(numReleases.get(), is(1));
+    }
+
+    @Test
+    public void test_parent_breaker_trips_if_released_memory_is_not_sufficient() throws Exception {
+        Settings settings = Settings.builder()
+            .put(HierarchyCircuitBreakerService.TOTAL_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), "1b")
+            .build();
+        HierarchyCircuitBreakerService esBreakerService = new HierarchyCircuitBreakerService(settings, clusterSettings);
+        AtomicInteger numReleases = new AtomicInteger(0);
+        esBreakerService.addMemoryReclaimer(() -> {
+            numReleases.incrementAndGet();
+            return 0L;
+        });
+
+        try {
+            esBreakerService.checkParentLimit(10, "dummy");
+            fail("Expected the parent breaker to trip");
+        } catch (CircuitBreakingException e) {
+            assertThat(e.getMessage(), containsString("[parent] Data too large, data for [dummy]"));
+        }
+        assertThat(numReleases.get(), is(1));
+    }
 }
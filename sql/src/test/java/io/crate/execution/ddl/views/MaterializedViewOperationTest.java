@@ -0,0 +1,69 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.ddl.views;
+
+import io.crate.data.Row;
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MaterializedViewOperationTest extends CrateUnitTest {
+
+    @Test
+    public void testChangedKeysPredicateUsesOneArrayParameterPerKey() {
+        MaterializedViewOperation.ChangedKeys changedKeys = new MaterializedViewOperation.ChangedKeys(2);
+        changedKeys.add(new Object[] { 1, "a" });
+        changedKeys.add(new Object[] { 2, "a" });
+        changedKeys.add(new Object[] { 1, "b" });
+
+        assertThat(changedKeys.predicate(List.of("x", "Name")), is("x = ANY($1) AND \"Name\" = ANY($2)"));
+        Row params = changedKeys.params();
+        assertThat(params.numColumns(), is(2));
+        assertThat((Object[]) params.get(0), arrayContaining(1, 2));
+        assertThat((Object[]) params.get(1), arrayContaining("a", "b"));
+    }
+
+    @Test
+    public void testChangedKeysPredicateMatchesNullKeys() {
+        MaterializedViewOperation.ChangedKeys changedKeys = new MaterializedViewOperation.ChangedKeys(2);
+        changedKeys.add(new Object[] { null, "a" });
+        changedKeys.add(new Object[] { null, null });
+
+        assertThat(changedKeys.predicate(List.of("x", "y")), is("x IS NULL AND (y = ANY($1) OR y IS NULL)"));
+        Row params = changedKeys.params();
+        assertThat(params.numColumns(), is(1));
+        assertThat((Object[]) params.get(0), arrayContaining("a"));
+    }
+
+    @Test
+    public void testMinGlobalCheckpointIsUnknownIfPrimariesAreMissing() {
+        assertThat(MaterializedViewOperation.minGlobalCheckpoint(new ShardStats[0], 1), nullValue());
+        assertThat(MaterializedViewOperation.minGlobalCheckpoint(new ShardStats[0], 0), is(-1L));
+    }
+}
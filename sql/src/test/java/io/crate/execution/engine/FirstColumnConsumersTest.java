@@ -0,0 +1,70 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine;
+
+import io.crate.data.CollectingRowConsumer;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+
+import static io.crate.data.SentinelRow.SENTINEL;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.nullValue;
+
+public class FirstColumnConsumersTest extends CrateUnitTest {
+
+    private static Object[] consume(CollectingRowConsumer<Collection<Object>, Object[]> consumer,
+                                    List<Row> rows) throws Exception {
+        consumer.accept(InMemoryBatchIterator.of(rows, SENTINEL, false), null);
+        return consumer.completionFuture().get();
+    }
+
+    @Test
+    public void test_all_rows_consumer_returns_values_of_first_column() throws Exception {
+        Object[] values = consume(
+            FirstColumnConsumers.createAllRowsConsumer(),
+            List.of(new Row1(1), new Row1(2), new Row1(3)));
+        assertThat(values, arrayContaining(1, 2, 3));
+    }
+
+    @Test
+    public void test_all_rows_consumer_with_max_values_returns_values_if_limit_is_not_exceeded() throws Exception {
+        Object[] values = consume(
+            FirstColumnConsumers.createAllRowsConsumer(2),
+            List.of(new Row1(1), new Row1(2)));
+        assertThat(values, arrayContaining(1, 2));
+    }
+
+    @Test
+    public void test_all_rows_consumer_with_max_values_returns_null_if_limit_is_exceeded() throws Exception {
+        Object[] values = consume(
+            FirstColumnConsumers.createAllRowsConsumer(2),
+            List.of(new Row1(1), new Row1(2), new Row1(3), new Row1(4)));
+        assertThat(values, nullValue());
+    }
+}
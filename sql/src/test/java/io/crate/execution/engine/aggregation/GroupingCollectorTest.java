@@ -0,0 +1,231 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.BlockBasedRamAccounting;
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RamAccounting;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.engine.aggregation.impl.SumAggregation;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.InputCollectExpression;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Literal;
+import io.crate.memory.OnHeapMemoryManager;
+import io.crate.metadata.FunctionIdent;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class GroupingCollectorTest extends CrateUnitTest {
+
+    private AggregationFunction sumAggregation;
+    private AtomicLong usedBytes;
+    private RamAccounting ramAccounting;
+
+    @Before
+    public void setUpFunctions() {
+        sumAggregation = (AggregationFunction) getFunctions().getQualified(
+            new FunctionIdent(SumAggregation.NAME, List.of(DataTypes.LONG)));
+        usedBytes = new AtomicLong();
+        ramAccounting = new ConcurrentRamAccounting(usedBytes::addAndGet, bytes -> {});
+    }
+
+    private static <K> List<Object[]> collect(GroupingCollector<K> collector, List<Row> rows) {
+        Map<K, Object[]> statesByKey = collector.supplier().get();
+        for (Row row : rows) {
+            collector.accumulator().accept(statesByKey, row);
+        }
+        List<Object[]> result = new ArrayList<>();
+        for (Row row : collector.finisher().apply(statesByKey)) {
+            result.add(row.materialize());
+        }
+        return result;
+    }
+
+    private GroupingCollector<?> sumByKeys(int numKeys, long spillThresholdInBytes) {
+        InputCollectExpression valueInput = new InputCollectExpression(numKeys);
+        List<Input<?>> keyInputs = new ArrayList<>();
+        CollectExpression[] expressions = new CollectExpression[numKeys + 1];
+        for (int i = 0; i < numKeys; i++) {
+            InputCollectExpression keyInput = new InputCollectExpression(i);
+            keyInputs.add(keyInput);
+            expressions[i] = keyInput;
+        }
+        expressions[numKeys] = valueInput;
+        AggregationFunction[] aggregations = new AggregationFunction[] { sumAggregation };
+        Input[][] inputs = new Input[][] { new Input[] { valueInput } };
+        Input[] filters = new Input[] { Literal.BOOLEAN_TRUE };
+        var memoryManager = new OnHeapMemoryManager(ramAccounting::addBytes);
+        if (numKeys == 1) {
+            return GroupingCollector.singleKey(
+                expressions,
+                AggregateMode.ITER_FINAL,
+                aggregations,
+                inputs,
+                filters,
+                ramAccounting,
+                memoryManager,
+                Version.CURRENT,
+                keyInputs.get(0),
+                DataTypes.LONG,
+                Version.CURRENT,
+                spillThresholdInBytes,
+                createTempDir()
+            );
+        }
+        return GroupingCollector.packedKeys(
+            expressions,
+            AggregateMode.ITER_FINAL,
+            aggregations,
+            inputs,
+            filters,
+            ramAccounting,
+            memoryManager,
+            Version.CURRENT,
+            keyInputs,
+            List.of(DataTypes.LONG, DataTypes.LONG),
+            Version.CURRENT,
+            spillThresholdInBytes,
+            createTempDir()
+        );
+    }
+
+    @Test
+    public void test_spilled_single_key_states_are_reaggregated_per_partition() throws Exception {
+        List<Row> rows = new ArrayList<>();
+        for (long i = 0; i < 2000; i++) {
+            rows.add(new RowN(i % 100, 1L));
+        }
+        rows.add(new RowN(null, 5L));
+        List<Object[]> expected = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            expected.add(new Object[] { i, 20L });
+        }
+        expected.add(new Object[] { null, 5L });
+
+        GroupingCollector<?> collector = sumByKeys(1, 512);
+        try {
+            List<Object[]> result = collect(collector, rows);
+            assertThat(result, containsInAnyOrder(expected.toArray()));
+            assertThat(usedBytes.get(), lessThan(2048L));
+        } finally {
+            collector.close();
+        }
+    }
+
+    @Test
+    public void test_spilled_packed_keys_states_are_reaggregated_per_partition() throws Exception {
+        List<Row> rows = new ArrayList<>();
+        for (long i = 0; i < 2000; i++) {
+            rows.add(new RowN(i % 10, i % 20, 1L));
+        }
+        List<Object[]> expected = new ArrayList<>();
+        for (long i = 0; i < 20; i++) {
+            expected.add(new Object[] { i % 10, i, 100L });
+        }
+
+        GroupingCollector<?> collector = sumByKeys(2, 256);
+        try {
+            assertThat(collect(collector, rows), containsInAnyOrder(expected.toArray()));
+        } finally {
+            collector.close();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_table_of_packed_keys_map_stays_accounted_after_a_spill() throws Exception {
+        GroupingCollector<long[]> collector = (GroupingCollector<long[]>) sumByKeys(2, 4096);
+        try {
+            Map<long[], Object[]> statesByKey = collector.supplier().get();
+            for (long i = 0; i < 2000; i++) {
+                collector.accumulator().accept(statesByKey, new RowN(i, i, 1L));
+                assertThat(collector.accountedBytes(),
+                    greaterThanOrEqualTo(((PackedKeysMap<?>) statesByKey).ramBytesUsed()));
+            }
+            int numRows = 0;
+            for (Row ignored : collector.finisher().apply(statesByKey)) {
+                numRows++;
+            }
+            assertThat(numRows, is(2000));
+        } finally {
+            collector.close();
+        }
+    }
+
+    @Test
+    public void test_no_spilling_if_threshold_is_disabled() throws Exception {
+        List<Row> rows = new ArrayList<>();
+        for (long i = 0; i < 100; i++) {
+            rows.add(new RowN(i, i));
+        }
+        GroupingCollector<?> collector = sumByKeys(1, -1);
+        List<Object[]> result = collect(collector, rows);
+        assertThat(result.size(), is(100));
+        collector.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_spilling_only_releases_the_memory_accounted_for_the_states() throws Exception {
+        ramAccounting = new BlockBasedRamAccounting(usedBytes::addAndGet, 1024);
+        GroupingCollector<Object> collector = (GroupingCollector<Object>) sumByKeys(1, 512);
+        try {
+            Map<Object, Object[]> statesByKey = collector.supplier().get();
+            for (long i = 0; i < 1000; i++) {
+                collector.accumulator().accept(statesByKey, new RowN(i % 100, 1L));
+                if (i == 500) {
+                    // Accounted by another operation sharing the same RamAccounting
+                    ramAccounting.addBytes(10_000);
+                }
+            }
+            int numRows = 0;
+            for (Row ignored : collector.finisher().apply(statesByKey)) {
+                numRows++;
+            }
+            assertThat(numRows, is(100));
+            assertThat(ramAccounting.totalBytes(), greaterThanOrEqualTo(10_000L));
+            // The memory reserved by the BlockBasedRamAccounting is re-used after a spill instead of growing
+            assertThat(usedBytes.get(), lessThan(10_000L + 4096L));
+        } finally {
+            collector.close();
+        }
+        assertThat(ramAccounting.totalBytes(), is(10_000L));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RamAccounting;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PackedKeysMapTest extends CrateUnitTest {
+
+    private static final List<DataType> TYPES = List.of(DataTypes.INTEGER, DataTypes.LONG, DataTypes.DOUBLE);
+
+    private static long[] key(Object... values) {
+        long[] key = PackedKeysMap.newKey(values.length);
+        for (int i = 0; i < values.length; i++) {
+            PackedKeysMap.setKey(key, i, TYPES.get(i), values[i]);
+        }
+        return key;
+    }
+
+    @Test
+    public void test_put_and_get_with_reused_key_buffer() {
+        PackedKeysMap<String> map = new PackedKeysMap<>(3, RamAccounting.NO_ACCOUNTING);
+        long[] key = PackedKeysMap.newKey(3);
+        PackedKeysMap.setKey(key, 0, DataTypes.INTEGER, 1);
+        PackedKeysMap.setKey(key, 1, DataTypes.LONG, 2L);
+        PackedKeysMap.setKey(key, 2, DataTypes.DOUBLE, 3.0);
+        map.put(key, "a");
+
+        PackedKeysMap.setKey(key, 2, DataTypes.DOUBLE, null);
+        map.put(key, "b");
+
+        assertThat(map.size(), is(2));
+        assertThat(map.get(key(1, 2L, 3.0)), is("a"));
+        assertThat(map.get(key(1, 2L, null)), is("b"));
+        assertThat(map.get(key(1, 2L, 0.0)), nullValue());
+        assertThat(map.get(key(null, null, null)), nullValue());
+    }
+
+    @Test
+    public void test_entries_can_be_decoded_after_resize() {
+        PackedKeysMap<Integer> map = new PackedKeysMap<>(3, RamAccounting.NO_ACCOUNTING);
+        for (int i = 0; i < 1000; i++) {
+            map.put(key(i, i % 2 == 0 ? null : (long) i, i / 2.0), i);
+        }
+        assertThat(map.size(), is(1000));
+
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<long[], Integer> entry : map.entrySet()) {
+            long[] k = entry.getKey();
+            Object[] row = new Object[TYPES.size()];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = PackedKeysMap.getKey(k, i, TYPES.get(i));
+            }
+            assertThat(map.get(k), is(entry.getValue()));
+            rows.add(row);
+        }
+        assertThat(rows.size(), is(1000));
+        for (Object[] row : rows) {
+            int i = (int) row[0];
+            assertThat(row[1], is(i % 2 == 0 ? null : (long) i));
+            assertThat(row[2], is(i / 2.0));
+        }
+    }
+
+    @Test
+    public void test_table_memory_is_accounted_and_released_on_resize() {
+        AtomicLong usedBytes = new AtomicLong();
+        ConcurrentRamAccounting ramAccounting = new ConcurrentRamAccounting(usedBytes::addAndGet, bytes -> {});
+        PackedKeysMap<Integer> map = new PackedKeysMap<>(2, ramAccounting);
+        long initialBytes = usedBytes.get();
+        assertThat(initialBytes > 0, is(true));
+
+        for (int i = 0; i < 100; i++) {
+            map.put(key(i, (long) i), i);
+        }
+        // 100 entries with load factor 0.75 -> capacity 256
+        long expectedBytes =
+            RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + 256 * 3 * Long.BYTES)
+            + RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + 256 * RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+        assertThat(usedBytes.get(), is(expectedBytes));
+        assertThat(ramAccounting.totalBytes(), is(expectedBytes));
+    }
+
+    @Test
+    public void test_supports_only_fixed_width_types() {
+        assertThat(PackedKeysMap.supportsTypes(List.of(DataTypes.INTEGER, DataTypes.TIMESTAMPZ)), is(true));
+        assertThat(PackedKeysMap.supportsTypes(List.of(DataTypes.INTEGER, DataTypes.STRING)), is(false));
+        assertThat(PackedKeysMap.supportsTypes(List.of()), is(false));
+    }
+}
@@ -34,14 +34,21 @@ import io.crate.memory.OnHeapMemoryManager;
 import io.crate.metadata.FunctionIdent;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.testing.BatchIteratorTester;
+import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.store.ByteBuffersDirectory;
@@ -53,6 +60,8 @@ import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -63,6 +72,7 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static io.crate.testing.TestingHelpers.getFunctions;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 
@@ -161,6 +171,24 @@ public class GroupByOptimizedIteratorTest extends CrateDummyClusterServiceUnitTe
         );
     }
 
+    @Test
+    public void test_high_numeric_cardinality_ratio() throws Exception {
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        for (int i = 0; i < 10; i++) {
+            Document doc = new Document();
+            doc.add(new LongPoint("distinct", i));
+            doc.add(new LongPoint("same", 1));
+            iw.addDocument(doc);
+        }
+        iw.commit();
+
+        IndexSearcher indexSearcher = new IndexSearcher(DirectoryReader.open(iw));
+        Supplier<Engine.Searcher> acquireSearcher = () -> new Engine.Searcher("dummy", indexSearcher, () -> {});
+        assertThat(GroupByOptimizedIterator.hasHighNumericCardinalityRatio(acquireSearcher, "distinct"), is(true));
+        assertThat(GroupByOptimizedIterator.hasHighNumericCardinalityRatio(acquireSearcher, "same"), is(false));
+        assertThat(GroupByOptimizedIterator.hasHighNumericCardinalityRatio(acquireSearcher, "missing"), is(true));
+    }
+
     @Test
     public void test_optimized_iterator_behaviour() throws Exception {
         BatchIteratorTester tester = new BatchIteratorTester(createBatchIterator(() -> {}));
@@ -214,4 +242,109 @@ public class GroupByOptimizedIteratorTest extends CrateDummyClusterServiceUnitTe
         batchLoadingCompleted.await(5, TimeUnit.SECONDS);
         return exception.get();
     }
+
+    private List<Object[]> groupBy(IndexSearcher searcher, Supplier<GroupByOptimizedIterator.Grouping> grouping) throws Exception {
+        BatchIterator<Row> it = GroupByOptimizedIterator.getIterator(
+            searcher,
+            grouping,
+            aggregationContexts,
+            Collections.emptyList(),
+            Collections.singletonList(inExpr),
+            RamAccounting.NO_ACCOUNTING,
+            new OnHeapMemoryManager(usedBytes -> {}),
+            Version.CURRENT,
+            new InputRow(Collections.singletonList(inExpr)),
+            new MatchAllDocsQuery(),
+            new CollectorContext(mappedFieldType -> null),
+            AggregateMode.ITER_FINAL
+        );
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+        return consumer.getResult();
+    }
+
+    private static IndexSearcher createMultiSegmentSearcher(List<Consumer<Document>> docs) throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
+        config.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), config);
+        for (int i = 0; i < docs.size(); i++) {
+            Document doc = new Document();
+            docs.get(i).accept(doc);
+            iw.addDocument(doc);
+            // one segment per 2 documents, so that ordinals need to be re-mapped across segments
+            if (i % 2 == 1) {
+                iw.commit();
+            }
+        }
+        iw.commit();
+        return new IndexSearcher(DirectoryReader.open(iw));
+    }
+
+    @Test
+    public void test_group_by_multiple_string_keys_combines_ordinals_of_segments() throws Exception {
+        IndexSearcher searcher = createMultiSegmentSearcher(List.of(
+            doc -> {
+                doc.add(new SortedSetDocValuesField("a", new BytesRef("x")));
+                doc.add(new SortedSetDocValuesField("b", new BytesRef("1")));
+            },
+            doc -> {
+                doc.add(new SortedSetDocValuesField("a", new BytesRef("y")));
+                doc.add(new SortedSetDocValuesField("b", new BytesRef("1")));
+            },
+            doc -> {
+                doc.add(new SortedSetDocValuesField("a", new BytesRef("x")));
+                doc.add(new SortedSetDocValuesField("b", new BytesRef("1")));
+            },
+            doc -> doc.add(new SortedSetDocValuesField("a", new BytesRef("x"))),
+            doc -> {
+                doc.add(new SortedSetDocValuesField("a", new BytesRef("y")));
+                doc.add(new SortedSetDocValuesField("b", new BytesRef("2")));
+            }
+        ));
+        List<Object[]> rows = groupBy(searcher, () -> new GroupByOptimizedIterator.MultiKeyOrdinalsGrouping(
+            List.of(
+                leaf -> getSortedSet(leaf, "a"),
+                leaf -> getSortedSet(leaf, "b")
+            ),
+            List.of("a", "b"),
+            aggregationContexts,
+            RamAccounting.NO_ACCOUNTING
+        ));
+        assertThat(rows, containsInAnyOrder(
+            new Object[] { "x", "1", 2L },
+            new Object[] { "y", "1", 1L },
+            new Object[] { "x", null, 1L },
+            new Object[] { "y", "2", 1L }
+        ));
+    }
+
+    @Test
+    public void test_group_by_single_numeric_key() throws Exception {
+        IndexSearcher searcher = createMultiSegmentSearcher(List.of(
+            doc -> doc.add(new SortedNumericDocValuesField("x", 10)),
+            doc -> doc.add(new SortedNumericDocValuesField("x", 20)),
+            doc -> doc.add(new SortedNumericDocValuesField("x", 10)),
+            doc -> { },
+            doc -> doc.add(new SortedNumericDocValuesField("x", 10))
+        ));
+        List<Object[]> rows = groupBy(searcher, () -> new GroupByOptimizedIterator.NumericKeyGrouping(
+            "x",
+            DataTypes.INTEGER,
+            aggregationContexts,
+            RamAccounting.NO_ACCOUNTING
+        ));
+        assertThat(rows, containsInAnyOrder(
+            new Object[] { 10, 3L },
+            new Object[] { 20, 1L },
+            new Object[] { null, 1L }
+        ));
+    }
+
+    private static SortedSetDocValues getSortedSet(LeafReaderContext leaf, String field) {
+        try {
+            return DocValues.getSortedSet(leaf.reader(), field);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
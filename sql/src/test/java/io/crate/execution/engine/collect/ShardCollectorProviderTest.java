@@ -23,8 +23,16 @@
 package io.crate.execution.engine.collect;
 
 import com.google.common.collect.Lists;
+import io.crate.execution.dsl.projection.AggregationProjection;
+import io.crate.execution.dsl.projection.EvalProjection;
+import io.crate.execution.dsl.projection.GroupProjection;
+import io.crate.execution.dsl.projection.TopNProjection;
 import io.crate.execution.engine.collect.sources.ShardCollectSource;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Literal;
 import io.crate.integrationtests.SQLTransportIntegrationTest;
+import io.crate.metadata.RowGranularity;
+import io.crate.types.DataTypes;
 import org.elasticsearch.index.shard.ShardId;
 import org.junit.Test;
 
@@ -82,4 +90,55 @@ public class ShardCollectorProviderTest extends SQLTransportIntegrationTest {
         // shouldn't throw an exception:
         execute(plan).getResult();
     }
+
+    @Test
+    public void test_only_partial_aggregations_can_be_collected_in_slices() {
+        var partialAggregation = new AggregationProjection(List.of(), RowGranularity.SHARD, AggregateMode.ITER_PARTIAL);
+        var partialGroupBy = new GroupProjection(List.of(), List.of(), AggregateMode.ITER_PARTIAL, RowGranularity.SHARD);
+        var finalGroupBy = new GroupProjection(List.of(), List.of(), AggregateMode.ITER_FINAL, RowGranularity.SHARD);
+        var eval = new EvalProjection(List.of(Literal.of(1)));
+        var limit = new TopNProjection(10, 0, List.of(DataTypes.INTEGER));
+
+        assertThat(ShardCollectorProvider.canCollectInSlices(List.of()), is(false));
+        assertThat(ShardCollectorProvider.canCollectInSlices(List.of(partialAggregation)), is(true));
+        assertThat(ShardCollectorProvider.canCollectInSlices(List.of(eval, partialGroupBy)), is(true));
+        assertThat(ShardCollectorProvider.canCollectInSlices(List.of(finalGroupBy)), is(false));
+        assertThat(ShardCollectorProvider.canCollectInSlices(List.of(limit)), is(false));
+        assertThat(ShardCollectorProvider.canCollectInSlices(List.of(partialGroupBy, limit)), is(false));
+    }
+
+    @Test
+    public void test_aggregation_with_generic_function_filter_on_shard_collected_in_slices() throws Exception {
+        execute("create table t (x int) clustered into 1 shards with (number_of_replicas = 0)");
+        ensureGreen();
+        final Field shards = ShardCollectSource.class.getDeclaredField("shards");
+        shards.setAccessible(true);
+        for (ShardCollectSource shardCollectSource : internalCluster().getInstances(ShardCollectSource.class)) {
+            //noinspection unchecked
+            Map<ShardId, ShardCollectorProvider> shardMap = (Map<ShardId, ShardCollectorProvider>) shards.get(shardCollectSource);
+            for (ShardCollectorProvider provider : shardMap.values()) {
+                ((LuceneShardCollectorProvider) provider).minDocsPerSlice = 1;
+            }
+        }
+        // Each refresh creates a new segment, so the shard can be split into multiple slices
+        long expectedSum = 0;
+        long expectedCount = 0;
+        for (int segment = 0; segment < 4; segment++) {
+            execute("insert into t (x) select * from generate_series(?, ?, 1)",
+                new Object[]{segment * 2_000, segment * 2_000 + 1_999});
+            execute("refresh table t");
+        }
+        for (int x = 0; x < 8_000; x++) {
+            if (Math.abs(x) + 1 > 3_000) {
+                expectedSum += x;
+                expectedCount++;
+            }
+        }
+        for (int i = 0; i < 5; i++) {
+            // abs(x) + 1 can't be translated into a Lucene query and results in a GenericFunctionQuery
+            execute("select sum(x), count(x) from t where abs(x) + 1 > 3000");
+            assertThat(response.rows()[0][0], is(expectedSum));
+            assertThat(response.rows()[0][1], is(expectedCount));
+        }
+    }
 }
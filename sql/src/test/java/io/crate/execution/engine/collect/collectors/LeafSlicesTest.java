@@ -0,0 +1,117 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.collectors;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+public class LeafSlicesTest extends CrateUnitTest {
+
+    private DirectoryReader reader;
+
+    @Before
+    public void createSegments() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
+        config.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), config);
+        // creates 4 segments with 40, 30, 20 and 10 documents
+        for (int segment = 4; segment > 0; segment--) {
+            for (int i = 0; i < segment * 10; i++) {
+                Document doc = new Document();
+                doc.add(new NumericDocValuesField("x", i));
+                iw.addDocument(doc);
+            }
+            iw.commit();
+        }
+        reader = DirectoryReader.open(iw);
+        iw.close();
+    }
+
+    @After
+    public void closeReader() throws Exception {
+        reader.close();
+    }
+
+    private static int numDocs(List<LeafReaderContext> slice) {
+        int docs = 0;
+        for (LeafReaderContext leaf : slice) {
+            docs += leaf.reader().maxDoc();
+        }
+        return docs;
+    }
+
+    @Test
+    public void test_single_slice_if_max_slices_is_one() {
+        List<LeafReaderContext> leaves = reader.leaves();
+        assertThat(leaves.size(), is(4));
+
+        List<List<LeafReaderContext>> slices = LeafSlices.create(leaves, 1, 1);
+        assertThat(slices, contains(leaves));
+    }
+
+    @Test
+    public void test_leaves_are_distributed_over_slices_balanced_by_number_of_docs() {
+        List<LeafReaderContext> leaves = reader.leaves();
+        List<List<LeafReaderContext>> slices = LeafSlices.create(leaves, 2, 1);
+
+        assertThat(slices.size(), is(2));
+        assertThat(numDocs(slices.get(0)), is(50));
+        assertThat(numDocs(slices.get(1)), is(50));
+        HashSet<LeafReaderContext> allLeaves = new HashSet<>(slices.get(0));
+        allLeaves.addAll(slices.get(1));
+        assertThat(allLeaves, containsInAnyOrder(leaves.toArray()));
+    }
+
+    @Test
+    public void test_number_of_slices_is_limited_by_number_of_leaves() {
+        List<List<LeafReaderContext>> slices = LeafSlices.create(reader.leaves(), 8, 1);
+        assertThat(slices.size(), is(4));
+    }
+
+    @Test
+    public void test_number_of_slices_is_limited_by_min_docs_per_slice() {
+        List<List<LeafReaderContext>> slices = LeafSlices.create(reader.leaves(), 4, 40);
+        assertThat(slices.size(), is(2));
+
+        slices = LeafSlices.create(reader.leaves(), 4, 101);
+        assertThat(slices.size(), is(1));
+    }
+}
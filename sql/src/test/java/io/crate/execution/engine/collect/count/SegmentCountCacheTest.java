@@ -0,0 +1,151 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.count;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.is;
+
+public class SegmentCountCacheTest extends CrateUnitTest {
+
+    private IndexWriter iw;
+    private SegmentCountCache cache;
+
+    @Before
+    public void createIndex() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
+        config.setMergePolicy(NoMergePolicy.INSTANCE);
+        iw = new IndexWriter(new ByteBuffersDirectory(), config);
+        // 2 segments with 10 documents each
+        for (int segment = 0; segment < 2; segment++) {
+            for (int i = 0; i < 10; i++) {
+                Document doc = new Document();
+                doc.add(new StringField("id", segment + "-" + i, Field.Store.NO));
+                doc.add(new StringField("even", Boolean.toString(i % 2 == 0), Field.Store.NO));
+                doc.add(new LongPoint("x", i));
+                iw.addDocument(doc);
+            }
+            iw.commit();
+        }
+        cache = new SegmentCountCache(SegmentCountCache.DEFAULT_MAX_BYTES);
+    }
+
+    @After
+    public void closeWriter() throws Exception {
+        iw.close();
+    }
+
+    private long count(DirectoryReader reader, Query query, boolean cacheable) throws IOException {
+        IndexSearcher searcher = new IndexSearcher(reader);
+        Query rewritten = searcher.rewrite(query);
+        Weight weight = searcher.createWeight(rewritten, ScoreMode.COMPLETE_NO_SCORES, 1f);
+        long count = cache.count(reader.leaves(), rewritten, weight, cacheable);
+        assertThat("count must match IndexSearcher.count", count, is((long) searcher.count(query)));
+        return count;
+    }
+
+    @Test
+    public void test_count_matches_index_searcher_count_for_different_queries() throws Exception {
+        try (DirectoryReader reader = DirectoryReader.open(iw)) {
+            assertThat(count(reader, new MatchAllDocsQuery(), true), is(20L));
+            assertThat(count(reader, new TermQuery(new Term("even", "true")), true), is(10L));
+            assertThat(count(reader, LongPoint.newRangeQuery("x", 2, 4), true), is(6L));
+        }
+    }
+
+    @Test
+    public void test_count_per_segment_is_cached() throws Exception {
+        try (DirectoryReader reader = DirectoryReader.open(iw)) {
+            Query query = LongPoint.newRangeQuery("x", 0, 4);
+            assertThat(count(reader, query, true), is(10L));
+            assertThat(cache.size(), is(2L));
+
+            assertThat(count(reader, query, true), is(10L));
+            assertThat(cache.size(), is(2L));
+        }
+    }
+
+    @Test
+    public void test_deletes_in_a_segment_result_in_new_cache_entry() throws Exception {
+        Query query = LongPoint.newRangeQuery("x", 0, 4);
+        try (DirectoryReader reader = DirectoryReader.open(iw)) {
+            assertThat(count(reader, query, true), is(10L));
+        }
+        iw.deleteDocuments(new Term("id", "0-1"));
+        iw.commit();
+        try (DirectoryReader reader = DirectoryReader.open(iw)) {
+            assertThat(count(reader, query, true), is(9L));
+            assertThat(cache.size(), is(3L));
+        }
+    }
+
+    @Test
+    public void test_non_cacheable_query_is_not_cached() throws Exception {
+        try (DirectoryReader reader = DirectoryReader.open(iw)) {
+            assertThat(count(reader, LongPoint.newRangeQuery("x", 0, 4), false), is(10L));
+            assertThat(cache.size(), is(0L));
+        }
+    }
+
+    @Test
+    public void test_entries_of_a_segment_are_removed_once_the_segment_is_closed() throws Exception {
+        try (DirectoryReader reader = DirectoryReader.open(iw.getDirectory())) {
+            assertThat(count(reader, LongPoint.newRangeQuery("x", 0, 4), true), is(10L));
+            assertThat(cache.size(), is(2L));
+        }
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void test_cache_is_bounded_by_the_memory_of_the_entries() throws Exception {
+        cache = new SegmentCountCache(1024);
+        try (DirectoryReader reader = DirectoryReader.open(iw)) {
+            for (int i = 0; i < 10; i++) {
+                count(reader, LongPoint.newRangeQuery("x", 0, i), true);
+            }
+            assertThat(cache.size() < 20L, is(true));
+        }
+    }
+}
@@ -24,14 +24,18 @@ package io.crate.execution.engine.distribution;
 
 import io.crate.Streamer;
 import io.crate.breaker.RamAccounting;
+import io.crate.data.Row;
 import io.crate.data.RowN;
 import io.crate.test.integration.CrateUnitTest;
 import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 import static io.crate.testing.TestingHelpers.isNullRow;
@@ -39,6 +43,7 @@ import static io.crate.testing.TestingHelpers.isRow;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 
 public class DistributedResultRequestTest extends CrateUnitTest {
 
@@ -65,6 +70,96 @@ public class DistributedResultRequestTest extends CrateUnitTest {
         assertThat(r2.readRows(streamers), contains(isRow("ab"), isNullRow(), isRow("cd")));
     }
 
+    @Test
+    public void test_rows_are_streamed_column_wise_with_dictionary_and_delta_encoding() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] {
+            DataTypes.STRING.streamer(),
+            DataTypes.INTEGER.streamer(),
+            DataTypes.TIMESTAMPZ.streamer(),
+            DataTypes.DOUBLE.streamer(),
+            DataTypes.STRING.streamer()
+        };
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, RamAccounting.NO_ACCOUNTING);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Object[] row = new Object[] {
+                i % 3 == 0 ? null : "category-" + (i % 4),
+                i % 10 == 0 ? null : 1000 - i * 7,
+                1577836800000L + i * 1000L,
+                i * 0.5,
+                "unique-" + i
+            };
+            rows.add(row);
+            builder.add(new RowN(row));
+        }
+        StreamBucket bucket = builder.build();
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        bucket.writeTo(out);
+        BytesStreamOutput rowWiseOut = new BytesStreamOutput();
+        rowWiseOut.setVersion(Version.V_4_1_0);
+        bucket.writeTo(rowWiseOut);
+        assertThat(out.size(), lessThan(rowWiseOut.size()));
+
+        StreamBucket received = new StreamBucket(out.bytes().streamInput(), streamers);
+        List<Object[]> receivedRows = new ArrayList<>();
+        for (Row row : received) {
+            receivedRows.add(row.materialize());
+        }
+        assertThat(receivedRows.size(), is(rows.size()));
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(receivedRows.get(i), is(rows.get(i)));
+        }
+    }
+
+    @Test
+    public void test_received_columnar_bucket_can_be_streamed_to_node_without_columnar_encoding() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] { DataTypes.LONG.streamer() };
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, RamAccounting.NO_ACCOUNTING);
+        for (long i = 0; i < 10; i++) {
+            builder.add(new RowN(new Object[] { i % 2 == 0 ? null : i }));
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.build().writeTo(out);
+        StreamBucket received = new StreamBucket(out.bytes().streamInput(), streamers);
+
+        BytesStreamOutput oldOut = new BytesStreamOutput();
+        oldOut.setVersion(Version.V_4_1_0);
+        received.writeTo(oldOut);
+        StreamInput oldIn = oldOut.bytes().streamInput();
+        oldIn.setVersion(Version.V_4_1_0);
+        StreamBucket receivedByOldNode = new StreamBucket(oldIn, streamers);
+
+        assertThat(receivedByOldNode, contains(
+            isNullRow(), isRow(1L), isNullRow(), isRow(3L), isNullRow(),
+            isRow(5L), isNullRow(), isRow(7L), isNullRow(), isRow(9L)));
+    }
+
+    @Test
+    public void test_rows_are_streamed_row_wise_if_no_column_profits_from_the_columnar_encoding() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] {
+            DataTypes.STRING.streamer(),
+            DataTypes.DOUBLE.streamer()
+        };
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, RamAccounting.NO_ACCOUNTING);
+        for (int i = 0; i < 20; i++) {
+            builder.add(new RowN(new Object[] { "unique-" + i, i * 0.5 }));
+        }
+        StreamBucket bucket = builder.build();
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        bucket.writeTo(out);
+        BytesStreamOutput rowWiseOut = new BytesStreamOutput();
+        rowWiseOut.setVersion(Version.V_4_1_0);
+        bucket.writeTo(rowWiseOut);
+        // only the byte of the encoding is added
+        assertThat(out.size(), is(rowWiseOut.size() + 1));
+
+        StreamBucket received = new StreamBucket(out.bytes().streamInput(), streamers);
+        assertThat(received.size(), is(20));
+        assertThat(received.iterator().next(), isRow("unique-0", 0.0));
+    }
+
     @Test
     public void testStreamingOfFailure() throws Exception {
         UUID uuid = UUID.randomUUID();
@@ -52,6 +52,7 @@ import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -166,6 +167,32 @@ public class DistributingConsumerTest extends CrateUnitTest {
         collectingConsumer.getResult();
     }
 
+    @Test
+    public void test_next_page_is_produced_while_requests_of_previous_page_are_in_flight() throws Exception {
+        Streamer<?>[] streamers = { DataTypes.INTEGER.streamer() };
+        List<ActionListener<DistributedResultResponse>> pendingListeners = new CopyOnWriteArrayList<>();
+        TransportDistributedResultAction distributedResultAction = mock(TransportDistributedResultAction.class);
+        doAnswer((InvocationOnMock invocationOnMock) -> {
+            pendingListeners.add(invocationOnMock.getArgument(2));
+            return null;
+        }).when(distributedResultAction).pushResult(anyString(), any(), any());
+        DistributingConsumer distributingConsumer = createDistributingConsumer(streamers, distributedResultAction);
+
+        distributingConsumer.accept(TestingBatchIterators.range(0, 5), null);
+
+        // first page is in flight, the second page is complete and waits for the response
+        verify(distributedResultAction, times(1)).pushResult(anyString(), any(), any());
+        assertThat(distributingConsumer.multiBucketBuilder.size(), is(2));
+
+        pendingListeners.get(0).onResponse(new DistributedResultResponse(true));
+        assertBusy(() -> assertThat(pendingListeners.size(), is(2)));
+        pendingListeners.get(1).onResponse(new DistributedResultResponse(true));
+        assertBusy(() -> assertThat(pendingListeners.size(), is(3)));
+        pendingListeners.get(2).onResponse(new DistributedResultResponse(false));
+
+        distributingConsumer.completionFuture().get(5, TimeUnit.SECONDS);
+    }
+
     private DistributingConsumer createDistributingConsumer(Streamer<?>[] streamers, TransportDistributedResultAction distributedResultAction) {
         return new DistributingConsumer(
             logger,
@@ -0,0 +1,64 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.export;
+
+import io.crate.data.RowN;
+import io.crate.execution.dsl.projection.WriterProjection;
+import io.crate.metadata.ColumnIdent;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+
+public class JsonLineEncoderTest extends CrateUnitTest {
+
+    @Test
+    public void test_raw_source_is_returned_as_is() {
+        var encoder = new JsonLineEncoder(WriterProjection.OutputFormat.JSON_OBJECT, null, List.of());
+        assertThat(encoder.apply(new RowN("{\"x\":1}")), is("{\"x\":1}"));
+    }
+
+    @Test
+    public void test_columns_are_encoded_as_array_or_object() {
+        var arrayEncoder = new JsonLineEncoder(WriterProjection.OutputFormat.JSON_ARRAY, List.of("x", "y"), List.of());
+        assertThat(arrayEncoder.apply(new RowN(1, "foo")), is("[1,\"foo\"]"));
+
+        var objectEncoder = new JsonLineEncoder(WriterProjection.OutputFormat.JSON_OBJECT, List.of("x", "y"), List.of());
+        assertThat(objectEncoder.apply(new RowN(1, "foo")), is("{\"x\":1,\"y\":\"foo\"}"));
+    }
+
+    @Test
+    public void test_overwrites_are_merged_into_the_document() {
+        var encoder = new JsonLineEncoder(
+            WriterProjection.OutputFormat.JSON_OBJECT,
+            null,
+            List.of(new ColumnIdent("p")));
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("x", 1);
+        assertThat(encoder.apply(new RowN(doc, 10)), is("{\"p\":10,\"x\":1}"));
+    }
+}
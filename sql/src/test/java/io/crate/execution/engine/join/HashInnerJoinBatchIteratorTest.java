@@ -26,6 +26,7 @@ import com.carrotsearch.randomizedtesting.RandomizedRunner;
 import com.carrotsearch.randomizedtesting.annotations.Name;
 import com.carrotsearch.randomizedtesting.annotations.ParametersFactory;
 import com.carrotsearch.randomizedtesting.annotations.ThreadLeakScope;
+import io.crate.Streamer;
 import io.crate.breaker.RowAccounting;
 import io.crate.data.BatchIterator;
 import io.crate.data.Row;
@@ -33,7 +34,10 @@ import io.crate.data.join.CombinedRow;
 import io.crate.testing.BatchIteratorTester;
 import io.crate.testing.BatchSimulatingIterator;
 import io.crate.testing.TestingBatchIterators;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -45,6 +49,8 @@ import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
 
 import static com.carrotsearch.randomizedtesting.RandomizedTest.$;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -190,4 +196,69 @@ public class HashInnerJoinBatchIteratorTest {
         BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
+
+    @Test
+    public void testInnerHashJoinWithSpillingToPartitions() throws Exception {
+        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator(
+            leftIterator.get(),
+            rightIterator.get(),
+            new CombinedRow(1, 1),
+            getCol0EqCol1JoinCondition(),
+            getHashForLeft(),
+            getHashForRight(),
+            () -> 2,
+            new Streamer[] { DataTypes.INTEGER.streamer() },
+            new Streamer[] { DataTypes.INTEGER.streamer() }
+        );
+        BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void testInnerHashJoinWithSpillingToPartitionsAndHashCollisions() throws Exception {
+        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator(
+            leftIterator.get(),
+            rightIterator.get(),
+            new CombinedRow(1, 1),
+            getCol0EqCol1JoinCondition(),
+            getHashWithCollisions(),
+            getHashWithCollisions(),
+            () -> 1,
+            new Streamer[] { DataTypes.INTEGER.streamer() },
+            new Streamer[] { DataTypes.INTEGER.streamer() }
+        );
+        BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void test_no_spilling_if_available_memory_exceeds_the_capped_block_size() throws Exception {
+        // The capped calculator would use a block of 2 rows and spill
+        assertThat(new RamBlockSizeCalculator(2, circuitBreaker, 1, 100).getAsInt(), is(2));
+        Streamer<?>[] failingStreamers = new Streamer[] { new Streamer<Object>() {
+
+            @Override
+            public Object readValueFrom(StreamInput in) {
+                throw new AssertionError("Must not read spilled rows");
+            }
+
+            @Override
+            public void writeValueTo(StreamOutput out, Object v) {
+                throw new AssertionError("Must not spill rows");
+            }
+        } };
+        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> new HashInnerJoinBatchIterator(
+            leftIterator.get(),
+            rightIterator.get(),
+            new CombinedRow(1, 1),
+            getCol0EqCol1JoinCondition(),
+            getHashForLeft(),
+            getHashForRight(),
+            new SpillingBlockSizeCalculator(2, circuitBreaker, 1, 0),
+            failingStreamers,
+            failingStreamers
+        );
+        BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.data.RowN;
+import io.crate.test.integration.CrateUnitTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+public class JoinHashTableTest extends CrateUnitTest {
+
+    private static List<Object[]> rowsWithHash(JoinHashTable table, int hash) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int row = table.firstRow(hash); row != JoinHashTable.NO_ROW; row = table.nextRow(row, hash)) {
+            rows.add(table.row(row).materialize());
+        }
+        return rows;
+    }
+
+    @Test
+    public void testRowsWithSameHashAreChained() {
+        JoinHashTable table = new JoinHashTable();
+        table.add(new RowN(1, "a"), 1);
+        table.add(new RowN(2, "b"), 2);
+        table.add(new RowN(1, "c"), 1);
+
+        assertThat(table.size(), is(3));
+        assertThat(rowsWithHash(table, 1), containsInAnyOrder(new Object[] { 1, "a" }, new Object[] { 1, "c" }));
+        List<Object[]> rowsWithHash2 = rowsWithHash(table, 2);
+        assertThat(rowsWithHash2.size(), is(1));
+        assertThat(rowsWithHash2.get(0), is(new Object[] { 2, "b" }));
+        assertThat(table.firstRow(3), is(JoinHashTable.NO_ROW));
+    }
+
+    @Test
+    public void testRowsWithDifferentHashInSameBucketAreSkipped() {
+        JoinHashTable table = new JoinHashTable();
+        // 10 rows in 16 buckets, some of the rows share a bucket
+        for (int i = 0; i < 10; i++) {
+            table.add(new Row1(i), i << 20);
+        }
+        for (int i = 0; i < 10; i++) {
+            List<Object[]> rows = rowsWithHash(table, i << 20);
+            assertThat(rows.size(), is(1));
+            assertThat(rows.get(0)[0], is(i));
+        }
+    }
+
+    @Test
+    public void testRowsCanBeLookedUpAfterGrowing() {
+        JoinHashTable table = new JoinHashTable();
+        for (int i = 0; i < 1000; i++) {
+            table.add(new RowN(i, (long) i), i % 100);
+        }
+        assertThat(table.size(), is(1000));
+        for (int hash = 0; hash < 100; hash++) {
+            List<Object[]> rows = rowsWithHash(table, hash);
+            assertThat(rows.size(), is(10));
+            for (Object[] row : rows) {
+                assertThat((Integer) row[0] % 100, is(hash));
+                assertThat(row[1], is((long) (int) row[0]));
+            }
+        }
+    }
+
+    @Test
+    public void testRowViewReflectsTheRequestedRow() {
+        JoinHashTable table = new JoinHashTable();
+        table.add(new RowN(10, 20), 7);
+        table.add(new RowN(30, 40), 8);
+
+        Row row = table.row(1);
+        assertThat(row.numColumns(), is(2));
+        assertThat(row.get(0), is(30));
+        assertThat(table.hash(1), is(8));
+        assertThat(table.row(0).get(1), is(20));
+    }
+
+    @Test
+    public void testEnsureCapacityAndRelease() {
+        JoinHashTable table = new JoinHashTable();
+        long initialBytes = table.ramBytesUsed();
+        table.add(new Row1(1), 1);
+        table.ensureCapacity(100);
+        assertThat(rowsWithHash(table, 1).size(), is(1));
+        assertThat(table.ramBytesUsed() > initialBytes, is(true));
+
+        table.release();
+        assertThat(table.size(), is(0));
+        assertThat(table.firstRow(1), is(JoinHashTable.NO_ROW));
+    }
+}
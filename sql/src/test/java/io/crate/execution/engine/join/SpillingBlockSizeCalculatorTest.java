@@ -0,0 +1,86 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import io.crate.data.Paging;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SpillingBlockSizeCalculatorTest {
+
+    private final CircuitBreaker circuitBreaker = mock(CircuitBreaker.class);
+    private int defaultBlockSize = 500_000;
+
+    @Test
+    public void test_block_size_is_based_on_available_memory_only() {
+        when(circuitBreaker.getLimit()).thenReturn(Paging.PAGE_SIZE * 4L + 10L);
+        when(circuitBreaker.getUsed()).thenReturn(10L);
+        SpillingBlockSizeCalculator blockSizeCalculator = new SpillingBlockSizeCalculator(defaultBlockSize, circuitBreaker, 2, 0);
+        // only half of the available memory is used
+        assertThat(blockSizeCalculator.getAsInt(), is(Paging.PAGE_SIZE));
+
+        RamBlockSizeCalculator cappedBlockSizeCalculator = new RamBlockSizeCalculator(Paging.PAGE_SIZE, circuitBreaker, 2, 100);
+        assertThat(cappedBlockSizeCalculator.getAsInt(), is(100));
+    }
+
+    @Test
+    public void test_block_size_with_missing_stats() {
+        when(circuitBreaker.getLimit()).thenReturn(-1L);
+        SpillingBlockSizeCalculator blockSizeCalculator = new SpillingBlockSizeCalculator(defaultBlockSize, circuitBreaker, 10, 0);
+        assertThat(blockSizeCalculator.getAsInt(), is(defaultBlockSize));
+
+        when(circuitBreaker.getLimit()).thenReturn(110L);
+        when(circuitBreaker.getUsed()).thenReturn(10L);
+        SpillingBlockSizeCalculator blockCalculatorNoRowSizeStats = new SpillingBlockSizeCalculator(defaultBlockSize, circuitBreaker, -1, 0);
+        assertThat(blockCalculatorNoRowSizeStats.getAsInt(), is(defaultBlockSize));
+    }
+
+    @Test
+    public void test_block_size_with_no_mem_left() {
+        when(circuitBreaker.getLimit()).thenReturn(110L);
+        when(circuitBreaker.getUsed()).thenReturn(110L);
+        SpillingBlockSizeCalculator blockSizeCalculator = new SpillingBlockSizeCalculator(defaultBlockSize, circuitBreaker, 10, 0);
+        assertThat(blockSizeCalculator.getAsInt(), is(10));
+    }
+
+    @Test
+    public void test_block_size_does_not_exceed_the_max_block_size() {
+        when(circuitBreaker.getLimit()).thenReturn(Long.MAX_VALUE);
+        when(circuitBreaker.getUsed()).thenReturn(0L);
+        SpillingBlockSizeCalculator blockSizeCalculator = new SpillingBlockSizeCalculator(defaultBlockSize, circuitBreaker, 1, 0);
+        assertThat(blockSizeCalculator.getAsInt(), is(SpillingBlockSizeCalculator.MAX_BLOCK_SIZE));
+    }
+
+    @Test
+    public void test_block_size_includes_the_hash_table_overhead() {
+        when(circuitBreaker.getLimit()).thenReturn(Paging.PAGE_SIZE * 4L + 10L);
+        when(circuitBreaker.getUsed()).thenReturn(10L);
+        SpillingBlockSizeCalculator blockSizeCalculator = new SpillingBlockSizeCalculator(defaultBlockSize, circuitBreaker, 2, 2);
+        assertThat(blockSizeCalculator.getAsInt(), is(Paging.PAGE_SIZE / 2));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.sort;
+
+import io.crate.analyze.OrderBy;
+import io.crate.expression.symbol.Literal;
+import io.crate.metadata.Reference;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSortConfig;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.crate.testing.TestingHelpers.createReference;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class LuceneSortGeneratorTest extends CrateUnitTest {
+
+    private final Reference ts = createReference("ts", DataTypes.LONG);
+    private final Reference name = createReference("name", DataTypes.STRING);
+    private IndexSortConfig indexSortConfig;
+    private Sort indexSort;
+
+    @Before
+    public void prepareIndexSort() {
+        NumberFieldMapper.NumberFieldType tsType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        tsType.setName("ts");
+        KeywordFieldMapper.KeywordFieldType nameType = new KeywordFieldMapper.KeywordFieldType();
+        nameType.setName("name");
+        nameType.setHasDocValues(true);
+        Map<String, MappedFieldType> fieldTypes = Map.of("ts", tsType, "name", nameType);
+
+        indexSortConfig = IndexSortConfig.of(
+            Settings.builder().put(IndexSortConfig.INDEX_SORT_BY_SETTING.getKey(), "ts DESC, name").build());
+        indexSort = indexSortConfig.buildIndexSort(fieldTypes::get);
+    }
+
+    @Test
+    public void test_order_by_matching_a_prefix_of_the_index_sort_uses_the_index_sort_fields() {
+        Sort sort = LuceneSortGenerator.indexSortPrefix(
+            new OrderBy(List.of(ts), new boolean[]{true}, new boolean[]{true}), indexSortConfig, indexSort);
+        assertThat(sort, notNullValue());
+        assertThat(sort.getSort().length, is(1));
+        assertThat(sort.getSort()[0], is(indexSort.getSort()[0]));
+
+        sort = LuceneSortGenerator.indexSortPrefix(
+            new OrderBy(List.of(ts, name), new boolean[]{true, false}, new boolean[]{true, false}), indexSortConfig, indexSort);
+        assertThat(sort, is(indexSort));
+    }
+
+    @Test
+    public void test_order_by_not_matching_the_index_sort_returns_null() {
+        // different direction
+        assertThat(LuceneSortGenerator.indexSortPrefix(
+            new OrderBy(List.of(ts), new boolean[]{false}, new boolean[]{false}), indexSortConfig, indexSort), nullValue());
+        // non-default null ordering
+        assertThat(LuceneSortGenerator.indexSortPrefix(
+            new OrderBy(List.of(ts), new boolean[]{true}, new boolean[]{false}), indexSortConfig, indexSort), nullValue());
+        // not a prefix
+        assertThat(LuceneSortGenerator.indexSortPrefix(
+            new OrderBy(List.of(name), new boolean[]{false}, new boolean[]{false}), indexSortConfig, indexSort), nullValue());
+        // not a column
+        assertThat(LuceneSortGenerator.indexSortPrefix(
+            new OrderBy(List.of(Literal.of(1L)), new boolean[]{true}, new boolean[]{true}), indexSortConfig, indexSort), nullValue());
+        // no index sort
+        assertThat(LuceneSortGenerator.indexSortPrefix(
+            new OrderBy(List.of(ts), new boolean[]{true}, new boolean[]{true}), IndexSortConfig.of(Settings.EMPTY), null), nullValue());
+    }
+
+    @Test
+    public void test_search_on_index_sorted_segment_terminates_early() throws Exception {
+        IndexWriterConfig iwc = new IndexWriterConfig(new StandardAnalyzer());
+        iwc.setIndexSort(indexSort);
+        IndexWriter writer = new IndexWriter(new ByteBuffersDirectory(), iwc);
+        for (long i = 0; i < 1000; i++) {
+            Document doc = new Document();
+            doc.add(new SortedNumericDocValuesField("ts", i));
+            writer.addDocument(doc);
+        }
+        writer.commit();
+        DirectoryReader reader = DirectoryReader.open(writer);
+        IndexSearcher searcher = new IndexSearcher(reader);
+
+        Sort sort = LuceneSortGenerator.indexSortPrefix(
+            new OrderBy(List.of(ts), new boolean[]{true}, new boolean[]{true}), indexSortConfig, indexSort);
+        TopFieldCollector collector = TopFieldCollector.create(sort, 10, 0);
+        searcher.search(new MatchAllDocsQuery(), collector);
+
+        ScoreDoc[] scoreDocs = collector.topDocs().scoreDocs;
+        assertThat(scoreDocs.length, is(10));
+        for (int i = 0; i < scoreDocs.length; i++) {
+            assertThat(((FieldDoc) scoreDocs[i]).fields[0], is(999L - i));
+        }
+        // the collector stopped after the first hits instead of visiting all documents
+        assertThat(collector.topDocs().totalHits.relation, is(TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO));
+        reader.close();
+        writer.close();
+    }
+}
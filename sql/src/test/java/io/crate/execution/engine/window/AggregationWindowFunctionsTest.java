@@ -333,4 +333,50 @@ public class AggregationWindowFunctionsTest extends AbstractWindowFunctionTest {
             rows
         );
     }
+
+    @Test
+    public void test_max_and_min_over_rows_offset_preceding() throws Throwable {
+        Object[][] rows = new Object[][] {
+            $(1, 3.0),
+            $(2, 1.0),
+            $(3, 4.0),
+            $(4, 1.0),
+            $(5, 5.0),
+            $(6, 9.0),
+            $(7, 2.0),
+            $(8, 6.0),
+        };
+        assertEvaluate(
+            "max(d) over (order by x rows between 2 preceding and current row)",
+            contains(new Object[] {3.0, 3.0, 4.0, 4.0, 5.0, 9.0, 9.0, 9.0}),
+            List.of(new ColumnIdent("x"), new ColumnIdent("d")),
+            rows
+        );
+        assertEvaluate(
+            "min(d) over (order by x rows between 2 preceding and current row)",
+            contains(new Object[] {3.0, 1.0, 1.0, 1.0, 1.0, 1.0, 2.0, 2.0}),
+            List.of(new ColumnIdent("x"), new ColumnIdent("d")),
+            rows
+        );
+    }
+
+    @Test
+    public void test_max_over_rows_offset_preceding_and_following_including_partitions() throws Throwable {
+        Object[][] rows = new Object[][] {
+            $(1, 3.0),
+            $(2, 1.0),
+            $(3, 4.0),
+            $(4, 1.0),
+            $(5, 5.0),
+            $(6, 9.0),
+            $(7, 2.0),
+            $(8, 6.0),
+        };
+        assertEvaluate(
+            "max(d) over (partition by x > 4 order by x rows between 1 preceding and 1 following)",
+            contains(new Object[] {3.0, 4.0, 4.0, 4.0, 9.0, 9.0, 9.0, 6.0}),
+            List.of(new ColumnIdent("x"), new ColumnIdent("d")),
+            rows
+        );
+    }
 }
@@ -44,6 +44,7 @@ import io.crate.types.DataTypes;
 import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.junit.Test;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -355,6 +356,70 @@ public class WindowBatchIteratorTest {
         assertThat(ramAccounting.totalBytes(), is(480L));
     }
 
+    private static final Comparator<Object[]> CMP_PARTITION_BY_DIV_3 = Comparator.comparingInt(cells -> (int) cells[0] / 3);
+
+    private static BatchIterator<Row> sortedWindowBatchIterator(BatchIterator<Row> source,
+                                                                RamAccounting ramAccounting,
+                                                                @Nullable Comparator<Object[]> cmpPartitionBy) {
+        Comparator<Object[]> cmpOrderBy = OrderingByPosition.arrayOrdering(0, false, false);
+        return WindowFunctionBatchIterator.ofSorted(
+            source,
+            ramAccounting,
+            new RowAccountingWithEstimators(List.of(DataTypes.INTEGER), ramAccounting, 32),
+            (partitionStart, partitionEnd, currentIndex, sortedRows) -> partitionStart,
+            (partitionStart, partitionEnd, currentIndex, sortedRows) -> currentIndex + 1,
+            cmpPartitionBy,
+            1,
+            List.of(rowNumberWindowFunction()),
+            List.of(),
+            new Input[][]{new Input[0]}
+        );
+    }
+
+    @Test
+    public void test_sorted_window_batch_iterator_without_partitions() throws Exception {
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> sortedWindowBatchIterator(
+                new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 10), 4, 2, null),
+                RamAccounting.NO_ACCOUNTING,
+                null
+            )
+        );
+        tester.verifyResultAndEdgeCaseBehaviour(expectedRowNumberResult);
+    }
+
+    @Test
+    public void test_sorted_window_batch_iterator_with_partitions_spanning_batches() throws Exception {
+        List<Object[]> expectedResult = IntStream.range(0, 10)
+            .mapToObj(l -> new Object[]{l, l % 3 + 1}).collect(Collectors.toList());
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> sortedWindowBatchIterator(
+                new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 10), 4, 2, null),
+                RamAccounting.NO_ACCOUNTING,
+                CMP_PARTITION_BY_DIV_3
+            )
+        );
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void test_sorted_window_batch_iterator_only_accounts_for_the_current_partition() {
+        RamAccounting ramAccounting = ConcurrentRamAccounting.forCircuitBreaker("test", new NoopCircuitBreaker("dummy"));
+        BatchIterator<Row> iterator = sortedWindowBatchIterator(
+            TestingBatchIterators.range(0, 10),
+            ramAccounting,
+            CMP_PARTITION_BY_DIV_3
+        );
+        assertThat(iterator.moveNext(), is(true));
+        // 3 rows of the first partition and the first row of the second partition, 48 bytes each
+        assertThat(ramAccounting.totalBytes(), is(192L));
+
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        iterator.moveToStart();
+        consumer.accept(iterator, null);
+        assertThat(ramAccounting.totalBytes(), is(0L));
+    }
+
     @Test
     public void testWindowBatchIteratorWithOrderedWindowOverNullValues() throws Exception {
         var rows = Arrays.asList(
@@ -83,7 +83,7 @@ public class DistResultRXTaskTest extends CrateUnitTest {
     }
 
     @Test
-    public void testCantSetSameBucketTwiceWithoutReceivingFullPage() throws Throwable {
+    public void testCantSetBucketMoreOftenThanRequested() throws Throwable {
         TestingRowConsumer batchConsumer = new TestingRowConsumer();
 
         DistResultRXTask ctx = getPageDownstreamContext(batchConsumer, PassThroughPagingIterator.oneShot(), 3);
@@ -94,12 +94,36 @@ public class DistResultRXTaskTest extends CrateUnitTest {
         assertThat(bucketReceiver, notNullValue());
         bucketReceiver.setBucket(1, bucket, false, pageResultListener);
         bucketReceiver.setBucket(1, bucket, false, pageResultListener);
+        verify(pageResultListener, times(1)).needMore(true);
+        bucketReceiver.setBucket(1, bucket, false, pageResultListener);
 
         expectedException.expect(IllegalStateException.class);
-        expectedException.expectMessage("Same bucket of a page set more than once. node=n1 method=setBucket phaseId=1 bucket=1");
+        expectedException.expectMessage("Received more pages for a bucket than requested. node=n1 method=setBucket phaseId=1 bucket=1");
         batchConsumer.getResult();
     }
 
+    @Test
+    public void test_upstream_can_send_buffered_pages_before_the_consumer_requests_them() throws Throwable {
+        TestingRowConsumer batchConsumer = new TestingRowConsumer();
+        DistResultRXTask ctx = getPageDownstreamContext(batchConsumer, PassThroughPagingIterator.oneShot(), 2);
+        PageBucketReceiver bucketReceiver = ctx.getBucketReceiver((byte) 0);
+        assertThat(bucketReceiver, notNullValue());
+
+        CheckPageResultListener listener = new CheckPageResultListener();
+        bucketReceiver.setBucket(0, new ArrayBucket(new Object[][] { new Object[] { 1 } }), false, listener);
+        assertThat("first page of bucket 0 is acknowledged before the page is complete", listener.needMoreResult, is(true));
+        bucketReceiver.setBucket(0, new ArrayBucket(new Object[][] { new Object[] { 2 } }), true, listener);
+        assertThat(listener.needMoreResult, is(false));
+
+        bucketReceiver.setBucket(1, new ArrayBucket(new Object[][] { new Object[] { 3 } }), true, listener);
+
+        List<Object[]> result = batchConsumer.getResult();
+        assertThat(TestingHelpers.printedTable(new CollectionBucket(result)),
+            is("1\n" +
+               "3\n" +
+               "2\n"));
+    }
+
     @Test
     public void testKillCallsDownstream() throws Throwable {
         TestingRowConsumer batchConsumer = new TestingRowConsumer();
@@ -169,8 +193,10 @@ public class DistResultRXTaskTest extends CrateUnitTest {
         PageBucketReceiver bucketReceiver = ctx.getBucketReceiver((byte) 0);
         assertThat(bucketReceiver, notNullValue());
         bucketReceiver.setBucket(0, Bucket.EMPTY, false, listener);
+        bucketReceiver.setBucket(0, Bucket.EMPTY, false, listener);
         bucketReceiver.kill(new Exception("dummy"));
 
+        verify(listener, times(1)).needMore(true);
         verify(listener, times(1)).needMore(false);
     }
 
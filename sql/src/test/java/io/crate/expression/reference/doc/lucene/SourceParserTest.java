@@ -0,0 +1,127 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.reference.doc.lucene;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+
+public class SourceParserTest extends CrateUnitTest {
+
+    private static final BytesReference SOURCE = new BytesArray(
+        "{" +
+        "  \"x\": 10," +
+        "  \"name\": \"Arthur\"," +
+        "  \"obj\": {\"a\": 1, \"b\": {\"c\": true, \"d\": [1, 2]}}," +
+        "  \"obj_array\": [{\"a\": 1, \"b\": 2}, {\"a\": 3, \"b\": 4}, 5]," +
+        "  \"unused\": {\"nested\": [1, {\"deep\": \"value\"}]}" +
+        "}"
+    );
+
+    @Test
+    public void test_only_registered_columns_are_included() {
+        SourceParser parser = new SourceParser();
+        parser.register(List.of("x"));
+        parser.register(List.of("obj", "b", "c"));
+
+        Map<String, Object> source = parser.parse(SOURCE);
+        assertThat(source, is(Map.of(
+            "x", 10,
+            "obj", Map.of("b", Map.of("c", true))
+        )));
+    }
+
+    @Test
+    public void test_registered_object_is_included_completely() {
+        SourceParser parser = new SourceParser();
+        parser.register(List.of("obj", "b"));
+        parser.register(List.of("obj", "b", "c"));
+
+        Map<String, Object> source = parser.parse(SOURCE);
+        assertThat(source, is(Map.of(
+            "obj", Map.of("b", Map.of("c", true, "d", List.of(1, 2)))
+        )));
+    }
+
+    @Test
+    public void test_children_of_objects_within_arrays_are_included() {
+        SourceParser parser = new SourceParser();
+        parser.register(List.of("obj_array", "a"));
+
+        Map<String, Object> source = parser.parse(SOURCE);
+        assertThat(source, is(Map.of(
+            "obj_array", List.of(Map.of("a", 1), Map.of("a", 3), 5)
+        )));
+        assertThat(SourceLookup.extractValue(source, List.of("obj_array", "a"), 0), is(List.of(1, 3, 5)));
+    }
+
+    @Test
+    public void test_extracted_values_match_values_of_complete_source() {
+        List<List<String>> paths = List.of(
+            List.of("x"),
+            List.of("name"),
+            List.of("obj", "a"),
+            List.of("obj", "b", "d"),
+            List.of("obj_array", "b"),
+            List.of("missing"),
+            List.of("x", "not_an_object")
+        );
+        SourceParser parser = new SourceParser();
+        for (List<String> path : paths) {
+            parser.register(path);
+        }
+        Map<String, Object> partialSource = parser.parse(SOURCE);
+        Map<String, Object> completeSource = XContentHelper.convertToMap(SOURCE, false, XContentType.JSON).v2();
+        for (List<String> path : paths) {
+            assertThat(
+                SourceLookup.extractValue(partialSource, path, 0),
+                is(SourceLookup.extractValue(completeSource, path, 0))
+            );
+        }
+    }
+
+    @Test
+    public void test_includes() {
+        SourceParser parser = new SourceParser();
+        parser.register(List.of("obj", "b"));
+
+        assertThat(parser.includes(List.of("obj", "b")), is(true));
+        assertThat(parser.includes(List.of("obj", "b", "c")), is(true));
+        assertThat(parser.includes(List.of("obj")), is(false));
+        assertThat(parser.includes(List.of("x")), is(false));
+        assertThat(parser.includesAll(), is(false));
+
+        parser.register(List.of());
+        assertThat(parser.includesAll(), is(true));
+        assertThat(parser.includes(List.of("x")), is(true));
+        assertThat(parser.parse(SOURCE).keySet().size(), is(5));
+    }
+}
@@ -54,6 +54,7 @@ import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.shard.DocsStats;
 import org.elasticsearch.index.shard.IllegalIndexShardStateException;
 import org.elasticsearch.index.shard.IndexShard;
@@ -120,6 +121,8 @@ public class SysShardsExpressionsTest extends CrateDummyClusterServiceUnitTest {
         Path dataPath = Paths.get("/dummy/" + indexUUID + "/" + shardId.id());
         when(indexShard.shardPath()).thenReturn(new ShardPath(false, dataPath, dataPath, shardId));
 
+        when(indexShard.queryCacheStats()).thenReturn(new QueryCacheStats(4096L, 20L, 5L, 8L, 6L));
+
         DocsStats docsStats = new DocsStats(654321L, 0L, 200L);
         when(indexShard.docStats()).thenReturn(docsStats).thenThrow(IllegalIndexShardStateException.class);
 
@@ -346,6 +349,19 @@ public class SysShardsExpressionsTest extends CrateDummyClusterServiceUnitTest {
         assertEquals(expectedBytes, recovery.get("size"));
     }
 
+    @Test
+    public void test_query_cache_stats_expression() {
+        Reference refInfo = refInfo("sys.shards.query_cache_stats", ObjectType.untyped(), RowGranularity.SHARD);
+        NestableInput<Map<String, Object>> ref = (NestableInput<Map<String, Object>>) resolver.getImplementation(refInfo);
+
+        Map<String, Object> queryCacheStats = ref.value();
+        assertThat(queryCacheStats.get("memory_size"), is(4096L));
+        assertThat(queryCacheStats.get("hit_count"), is(20L));
+        assertThat(queryCacheStats.get("miss_count"), is(5L));
+        assertThat(queryCacheStats.get("cache_size"), is(6L));
+        assertThat(queryCacheStats.get("eviction_count"), is(2L));
+    }
+
     @Test
     public void testShardRecoveryStateExpressionNullRecoveryState(){
         when(indexShard.recoveryState()).thenReturn(null);
@@ -589,7 +589,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     @Test
     public void testDefaultColumns() {
         execute("select * from information_schema.columns order by table_schema, table_name");
-        assertEquals(738, response.rowCount());
+        assertEquals(744, response.rowCount());
     }
 
     @Test
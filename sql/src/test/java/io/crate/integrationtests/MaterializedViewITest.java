@@ -0,0 +1,103 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.integrationtests;
+
+import org.junit.Test;
+
+import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.is;
+
+public class MaterializedViewITest extends SQLTransportIntegrationTest {
+
+    @Test
+    public void test_materialized_view_is_filled_on_creation_and_refreshed_incrementally() {
+        execute("create table t (country text not null, city text not null, visits int) " +
+                "clustered into 2 shards with (number_of_replicas = 0)");
+        execute("insert into t (country, city, visits) values ('AT', 'Vienna', 10), ('AT', 'Graz', 5), ('DE', 'Berlin', 7)");
+        execute("refresh table t");
+
+        execute("create materialized view mv as " +
+                "select country, count(*) as cities, sum(visits) as visits from t group by country");
+        assertThat(response.rowCount(), is(2L));
+        execute("select column_name from information_schema.key_column_usage where table_name = 'mv'");
+        assertThat(printedTable(response.rows()), is("country\n"));
+        assertThat(printedTable(execute("select * from mv order by country").rows()),
+            is("AT| 2| 15\n" +
+               "DE| 1| 7\n"));
+
+        execute("insert into t (country, city, visits) values ('DE', 'Munich', 3), ('IT', 'Rome', 1)");
+        execute("refresh table t");
+        execute("refresh materialized view mv");
+        // Only the groups of the inserted rows are re-inserted
+        assertThat(response.rowCount(), is(2L));
+        assertThat(printedTable(execute("select * from mv order by country").rows()),
+            is("AT| 2| 15\n" +
+               "DE| 2| 10\n" +
+               "IT| 1| 1\n"));
+
+        execute("refresh materialized view mv");
+        assertThat(response.rowCount(), is(0L));
+        assertThat(printedTable(execute("select * from mv order by country").rows()),
+            is("AT| 2| 15\n" +
+               "DE| 2| 10\n" +
+               "IT| 1| 1\n"));
+    }
+
+    @Test
+    public void test_materialized_view_with_null_group_keys() {
+        execute("create table t (country text, visits int) with (number_of_replicas = 0)");
+        execute("insert into t (country, visits) values ('AT', 10), (null, 5)");
+        execute("refresh table t");
+
+        execute("create materialized view mv as select country, sum(visits) as visits from t group by country");
+        execute("select count(*) from information_schema.key_column_usage where table_name = 'mv'");
+        assertThat(printedTable(response.rows()), is("0\n"));
+        assertThat(printedTable(execute("select * from mv order by country").rows()),
+            is("AT| 10\n" +
+               "NULL| 5\n"));
+
+        execute("insert into t (country, visits) values (null, 2)");
+        execute("refresh table t");
+        execute("refresh materialized view mv");
+        assertThat(response.rowCount(), is(1L));
+        assertThat(printedTable(execute("select * from mv order by country").rows()),
+            is("AT| 10\n" +
+               "NULL| 7\n"));
+    }
+
+    @Test
+    public void test_materialized_view_which_cannot_be_refreshed_incrementally_is_refreshed_fully() {
+        execute("create table t (x int) with (number_of_replicas = 0)");
+        execute("insert into t (x) values (1), (2)");
+        execute("refresh table t");
+
+        execute("create materialized view mv as select max(x) as max_x, count(*) as cnt from t");
+        assertThat(printedTable(execute("select * from mv").rows()), is("2| 2\n"));
+
+        execute("insert into t (x) values (3)");
+        execute("refresh table t");
+        execute("refresh materialized view mv");
+        assertThat(response.rowCount(), is(1L));
+        assertThat(printedTable(execute("select * from mv").rows()), is("3| 3\n"));
+    }
+}
@@ -102,6 +102,7 @@ public class PgCatalogITest extends SQLTransportIntegrationTest {
         assertThat(printedTable(response.rows()), is(
             "search_path| pg_catalog, doc| Sets the schema search order.| NULL| NULL\n" +
             "enable_hashjoin| false| Considers using the Hash Join instead of the Nested Loop Join implementation.| NULL| NULL\n" +
+            "enable_runtime_filter| true| Considers filtering the larger relation of a Hash Join by the join keys of the smaller relation.| NULL| NULL\n" +
             "max_index_keys| 32| Shows the maximum number of index keys.| NULL| NULL\n"
         ));
     }
@@ -397,6 +397,7 @@ public class ShowIntegrationTest extends SQLTransportIntegrationTest {
         assertThat(printedTable(response.rows()), is(
             "search_path| pg_catalog, doc| Sets the schema search order.\n" +
             "enable_hashjoin| true| Considers using the Hash Join instead of the Nested Loop Join implementation.\n" +
+            "enable_runtime_filter| true| Considers filtering the larger relation of a Hash Join by the join keys of the smaller relation.\n" +
             "max_index_keys| 32| Shows the maximum number of index keys.\n")
         );
     }
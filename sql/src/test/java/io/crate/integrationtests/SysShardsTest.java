@@ -164,7 +164,7 @@ public class SysShardsTest extends SQLTransportIntegrationTest {
     public void testSelectStarAllTables() throws Exception {
         SQLResponse response = execute("select * from sys.shards");
         assertEquals(26L, response.rowCount());
-        assertEquals(18, response.cols().length);
+        assertEquals(19, response.cols().length);
         assertThat(response.cols(), arrayContaining(
             "blob_path",
             "id",
@@ -175,6 +175,7 @@ public class SysShardsTest extends SQLTransportIntegrationTest {
             "partition_ident",
             "path",
             "primary",
+            "query_cache_stats",
             "recovery",
             "relocating_node",
             "routing_state",
@@ -29,6 +29,7 @@ import java.util.Locale;
 import java.util.Map;
 
 import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
 
 public class TableSettingsTest extends SQLTransportIntegrationTest {
@@ -211,4 +212,60 @@ public class TableSettingsTest extends SQLTransportIntegrationTest {
         expectedException.expectMessage("Cannot change a dynamic group setting, only concrete settings allowed.");
         execute("alter table settings_table reset (\"routing.allocation.exclude\")");
     }
+
+    @Test
+    public void test_documents_of_table_with_smile_source_format_can_be_written_and_read() {
+        execute("create table t (id int primary key, obj object as (x int), name text) " +
+                "clustered into 1 shards with (number_of_replicas = 0, source_format = 'smile')");
+        execute("insert into t (id, obj, name) values (1, {x = 10}, 'Arthur')");
+        execute("insert into t (id, obj, name) values (1, {x = 20}, 'Trillian') " +
+                "on conflict (id) do update set name = excluded.name");
+        execute("refresh table t");
+
+        execute("select id, obj['x'], name from t");
+        assertThat(printedTable(response.rows()), is("1| 10| Trillian\n"));
+        execute("select _raw from t");
+        assertThat((String) response.rows()[0][0], containsString("\"name\":\"Trillian\""));
+        execute("select name from t where id = 1");
+        assertThat(printedTable(response.rows()), is("Trillian\n"));
+    }
+
+    @Test
+    public void test_order_by_on_table_with_sort_by_returns_rows_in_requested_order() {
+        execute("create table events (ts timestamp with time zone, name text) " +
+                "clustered into 2 shards with (number_of_replicas = 0, sort_by = 'ts DESC')");
+        // several refreshes to end up with more than one segment per shard
+        execute("insert into events (ts, name) values (3, 'c'), (1, 'a'), (null, 'n')");
+        execute("refresh table events");
+        execute("insert into events (ts, name) values (5, 'e'), (2, 'b')");
+        execute("refresh table events");
+        execute("insert into events (ts, name) values (4, 'd')");
+        execute("refresh table events");
+
+        execute("select ts, name from events order by ts desc limit 3");
+        assertThat(printedTable(response.rows()), is("NULL| n\n5| e\n4| d\n"));
+        execute("select ts, name from events order by ts desc nulls last limit 3");
+        assertThat(printedTable(response.rows()), is("5| e\n4| d\n3| c\n"));
+        execute("select ts, name from events order by ts limit 3");
+        assertThat(printedTable(response.rows()), is("1| a\n2| b\n3| c\n"));
+
+        execute("show create table events");
+        assertThat((String) response.rows()[0][0], containsString("sort_by = 'ts DESC'"));
+    }
+
+    @Test
+    public void test_sort_by_cannot_be_changed() {
+        execute("create table events (ts timestamp with time zone) with (number_of_replicas = 0, sort_by = 'ts')");
+        execute("alter table events close");
+        expectedException.expect(SQLActionException.class);
+        expectedException.expectMessage("setting [index.sort_by], not updateable");
+        execute("alter table events set (sort_by = 'ts DESC')");
+    }
+
+    @Test
+    public void test_sort_by_on_column_without_doc_values_is_rejected() {
+        expectedException.expect(SQLActionException.class);
+        expectedException.expectMessage("docvalues not found for index sort field:[name]");
+        execute("create table events (name text index using fulltext) with (sort_by = 'name')");
+    }
 }
@@ -26,6 +26,7 @@ import org.apache.lucene.search.Query;
 import org.junit.Test;
 
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
 
 public class ArrayLengthQueryBuilderTest extends LuceneQueryBuilderTest {
 
@@ -83,4 +84,19 @@ public class ArrayLengthQueryBuilderTest extends LuceneQueryBuilderTest {
             is("MatchNoDocsQuery(\"array_length([], 1) is NULL, so array_length([], 1) <= 0 can't match\")")
         );
     }
+
+    @Test
+    public void testNumTermsPerDocQueryIsEqualForSameCondition() {
+        Query query1 = convert("array_length(y_array, 1) > 1");
+        Query query2 = convert("array_length(y_array, 1) > 1");
+        assertThat(query1, is(query2));
+        assertThat(query1.hashCode(), is(query2.hashCode()));
+    }
+
+    @Test
+    public void testNumTermsPerDocQueryIsNotEqualForDifferentCondition() {
+        Query query1 = convert("array_length(y_array, 1) > 1");
+        Query query2 = convert("array_length(y_array, 1) > 2");
+        assertThat(query1, not(query2));
+    }
 }
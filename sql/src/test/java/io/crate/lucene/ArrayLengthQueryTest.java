@@ -29,6 +29,7 @@ import io.crate.types.ArrayType;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
 import io.crate.types.ObjectType;
+import org.apache.lucene.search.ScoreMode;
 import org.elasticsearch.Version;
 import org.junit.After;
 import org.junit.Before;
@@ -76,6 +77,14 @@ public class ArrayLengthQueryTest extends CrateDummyClusterServiceUnitTest {
         tester.close();
     }
 
+    @Test
+    public void test_num_terms_per_doc_query_can_be_cached() throws Exception {
+        var query = tester.toQuery("array_length(xs, 1) >= 1");
+        var searcher = tester.searcher();
+        var weight = query.createWeight(searcher, ScoreMode.COMPLETE_NO_SCORES, 1.0f);
+        assertThat(weight.isCacheable(searcher.getTopReaderContext().leaves().get(0)), is(true));
+    }
+
     @Test
     public void testArrayLengthGt0FiltersEmptyAndNullRecords() throws Exception {
         List<Object> rows = tester.runQuery("xs", "array_length(xs, 1) > 0");
@@ -221,6 +221,13 @@ public class CommonQueryBuilderTest extends LuceneQueryBuilderTest {
         assertThat(query.toString(), startsWith("d_array"));
     }
 
+    @Test
+    public void testSeqNoRangeComparison() throws Exception {
+        Query query = convert("_seq_no > 2");
+        assertThat(query, instanceOf(PointRangeQuery.class));
+        assertThat(query.toString(), is("_seq_no:[3 TO 9223372036854775807]"));
+    }
+
     @Test
     public void testAnyGreaterAndSmaller() throws Exception {
         Query ltQuery = convert("1.5 < any(d_array)");
@@ -0,0 +1,77 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.metadata.doc;
+
+import io.crate.test.integration.CrateUnitTest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.is;
+
+public class SourceFormatTest extends CrateUnitTest {
+
+    private static final Map<String, Object> SOURCE = Map.of(
+        "x", 10,
+        "name", "Arthur",
+        "tags", List.of("a", "b")
+    );
+
+    @Test
+    public void test_default_format_is_json() {
+        assertThat(SourceFormat.of(Settings.EMPTY), is(SourceFormat.JSON));
+    }
+
+    @Test
+    public void test_format_is_read_from_index_settings() {
+        Settings settings = Settings.builder().put(SourceFormat.SETTING.getKey(), "smile").build();
+        assertThat(SourceFormat.of(settings), is(SourceFormat.SMILE));
+    }
+
+    @Test
+    public void test_invalid_format_is_rejected() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Invalid value for argument 'source_format': 'cbor'");
+        SourceFormat.of("cbor");
+    }
+
+    @Test
+    public void test_smile_source_is_detected_and_parsed() throws Exception {
+        BytesReference bytes = SourceFormat.SMILE.toBytes(SOURCE);
+        assertThat(SourceFormat.detect(bytes), is(XContentType.SMILE));
+        assertThat(XContentHelper.convertToMap(bytes, false, SourceFormat.detect(bytes)).v2(), is(SOURCE));
+    }
+
+    @Test
+    public void test_json_string_of_smile_and_json_source_is_equal() throws Exception {
+        BytesReference smile = SourceFormat.SMILE.toBytes(SOURCE);
+        BytesReference json = SourceFormat.JSON.toBytes(SOURCE);
+        assertThat(SourceFormat.detect(json), is(XContentType.JSON));
+        assertThat(SourceFormat.toJsonString(smile), is(json.utf8ToString()));
+    }
+}
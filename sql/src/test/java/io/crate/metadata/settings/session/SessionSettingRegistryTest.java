@@ -59,6 +59,12 @@ public class SessionSettingRegistryTest {
         assertBooleanNonEmptySetting(sessionContext::isHashJoinEnabled, setting, true);
     }
 
+    @Test
+    public void testRuntimeFilterSessionSetting() {
+        SessionSetting<?> setting = SessionSettingRegistry.SETTINGS.get(SessionSettingRegistry.RUNTIME_FILTER_KEY);
+        assertBooleanNonEmptySetting(sessionContext::isRuntimeFilterEnabled, setting, true);
+    }
+
     private void assertBooleanNonEmptySetting(Supplier<Boolean> contextBooleanSupplier,
                                               SessionSetting<?> sessionSetting,
                                               boolean defaultValue) {
@@ -50,6 +50,8 @@ import java.util.concurrent.atomic.AtomicReference;
 import static io.crate.testing.TestingHelpers.getFunctions;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 
 public class ExplainPlannerTest extends CrateDummyClusterServiceUnitTest {
 
@@ -136,6 +138,51 @@ public class ExplainPlannerTest extends CrateDummyClusterServiceUnitTest {
         }
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_explain_contains_estimated_number_of_rows() {
+        LogicalPlan plan = e.logicalPlan("select * from users");
+        Map<String, Object> map = ExplainLogicalPlan.explainMap(
+            plan,
+            e.getPlannerContext(clusterService.state()),
+            new ProjectionBuilder(getFunctions()));
+        Map<String, Object> root = (Map<String, Object>) map.values().iterator().next();
+        assertThat(root.get("estimatedRows"), is(plan.numExpectedRows()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test_explain_contains_estimated_number_of_rows_of_join_sources() {
+        LogicalPlan plan = e.logicalPlan("select * from users u1, users u2 where u1.id = u2.id");
+        Map<String, Object> map = ExplainLogicalPlan.explainMap(
+            plan,
+            e.getPlannerContext(clusterService.state()),
+            new ProjectionBuilder(getFunctions()));
+        Map<String, Object> join = findNodeWith(map, "left");
+        assertThat(join, notNullValue());
+        for (String side : List.of("left", "right")) {
+            Map<String, Object> source = (Map<String, Object>) ((Map<String, Object>) join.get(side)).values().iterator().next();
+            assertThat(source.containsKey("estimatedRows"), is(true));
+        }
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> findNodeWith(Map<String, Object> map, String key) {
+        if (map.containsKey(key)) {
+            return map;
+        }
+        for (Object value : map.values()) {
+            if (value instanceof Map) {
+                Map<String, Object> node = findNodeWith((Map<String, Object>) value, key);
+                if (node != null) {
+                    return node;
+                }
+            }
+        }
+        return null;
+    }
+
     @Test
     public void testExplainAnalyzeMultiPhasePlanNotSupported() {
         ExplainPlan plan = e.plan("EXPLAIN ANALYZE SELECT * FROM users WHERE name = (SELECT 'crate') or id = (SELECT 1)");
@@ -0,0 +1,136 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner;
+
+import io.crate.action.sql.Option;
+import io.crate.action.sql.SessionContext;
+import io.crate.analyze.AnalyzedStatement;
+import io.crate.analyze.TableDefinitions;
+import io.crate.auth.user.User;
+import io.crate.sql.parser.SqlParser;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import io.crate.types.DataTypes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class PlanCacheTest extends CrateDummyClusterServiceUnitTest {
+
+    private SQLExecutor e;
+
+    @Before
+    public void prepare() throws IOException {
+        e = SQLExecutor.builder(clusterService)
+            .addTable(TableDefinitions.USER_TABLE_DEFINITION)
+            .build();
+    }
+
+    private boolean isCacheable(String statement) {
+        AnalyzedStatement analyzedStatement = e.analyze(statement);
+        Plan plan = e.planner.plan(analyzedStatement, e.getPlannerContext(clusterService.state()));
+        return PlanCache.isCacheable(analyzedStatement, plan);
+    }
+
+    private void put(PlanCache planCache, PlanCache.Key key, String statement, long metaDataVersion) {
+        AnalyzedStatement analyzedStatement = e.analyze(statement);
+        Plan plan = e.planner.plan(analyzedStatement, e.getPlannerContext(clusterService.state()));
+        planCache.put(key, SqlParser.createStatement(statement), analyzedStatement, plan, metaDataVersion);
+    }
+
+    @Test
+    public void test_select_and_insert_with_parameters_are_cacheable() {
+        assertThat(isCacheable("select name from users where id = ?"), is(true));
+        assertThat(isCacheable("insert into users (id, name) values (?, ?)"), is(true));
+    }
+
+    @Test
+    public void test_statements_with_non_deterministic_functions_or_subqueries_are_not_cacheable() {
+        assertThat(isCacheable("select name, current_timestamp from users"), is(false));
+        assertThat(isCacheable("select name from users where id = random()"), is(false));
+        assertThat(isCacheable("select name from users where id in (select other_id from users)"), is(false));
+    }
+
+    @Test
+    public void test_other_statements_are_not_cacheable() {
+        assertThat(isCacheable("refresh table users"), is(false));
+    }
+
+    @Test
+    public void test_entry_is_only_returned_for_the_metadata_version_it_was_created_with() {
+        PlanCache planCache = new PlanCache(10);
+        String statement = "select name from users where id = ?";
+        PlanCache.Key key = planCache.key(statement, List.of(DataTypes.LONG), e.getSessionContext());
+        put(planCache, key, statement, 1L);
+
+        PlanCache.Entry entry = planCache.get(key, 1L);
+        assertThat(entry, notNullValue());
+        assertThat(planCache.get(key, 1L), sameInstance(entry));
+
+        assertThat(planCache.get(key, 2L), nullValue());
+        assertThat(planCache.size(), is(0L));
+    }
+
+    @Test
+    public void test_not_cacheable_statement_is_not_put_into_the_cache() {
+        PlanCache planCache = new PlanCache(10);
+        String statement = "select name, current_timestamp from users";
+        PlanCache.Key key = planCache.key(statement, List.of(), e.getSessionContext());
+        put(planCache, key, statement, 1L);
+
+        assertThat(planCache.get(key, 1L), nullValue());
+        assertThat(planCache.size(), is(0L));
+    }
+
+    @Test
+    public void test_key_includes_user_search_path_and_parameter_types() {
+        PlanCache planCache = new PlanCache(10);
+        String statement = "select name from users where id = ?";
+        SessionContext sessionContext = new SessionContext(Option.NONE, User.CRATE_USER, "doc");
+        PlanCache.Key key = planCache.key(statement, List.of(DataTypes.LONG), sessionContext);
+
+        assertThat(planCache.key(statement, List.of(DataTypes.LONG), sessionContext), is(key));
+        assertThat(
+            planCache.key(statement, List.of(DataTypes.INTEGER), sessionContext),
+            not(key));
+        assertThat(
+            planCache.key(statement, List.of(DataTypes.LONG), new SessionContext(Option.NONE, User.of("trillian"), "doc")),
+            not(key));
+        assertThat(
+            planCache.key(statement, List.of(DataTypes.LONG), new SessionContext(Option.NONE, User.CRATE_USER, "custom")),
+            not(key));
+    }
+
+    @Test
+    public void test_disabled_cache_does_not_create_keys() {
+        assertThat(PlanCache.DISABLED.key("select 1", List.of(), e.getSessionContext()), nullValue());
+    }
+}
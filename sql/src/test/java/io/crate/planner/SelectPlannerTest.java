@@ -841,6 +841,31 @@ public class SelectPlannerTest extends CrateDummyClusterServiceUnitTest {
         assertThat(collect.nodeIds().size(), is(2));
     }
 
+    @Test
+    public void test_window_function_without_partition_by_consumes_rows_collected_in_sorted_order() {
+        Merge merge = e.plan("select sum(ints) OVER (order by id rows between 1 preceding and current row) from users");
+        WindowAggProjection windowAggProjection = (WindowAggProjection) merge.mergePhase().projections().get(0);
+        assertThat(windowAggProjection.sourceIsSorted(), is(true));
+        Collect collect = (Collect) merge.subPlan();
+        assertThat(collect.orderBy(), notNullValue());
+    }
+
+    @Test
+    public void test_window_function_with_partition_by_sorts_the_rows_itself() {
+        Merge localMerge = e.plan("select sum(ints) OVER (partition by awesome order by id) from users");
+        Merge distMerge = (Merge) localMerge.subPlan();
+        WindowAggProjection windowAggProjection = (WindowAggProjection) distMerge.mergePhase().projections().get(0);
+        assertThat(windowAggProjection.sourceIsSorted(), is(false));
+    }
+
+    @Test
+    public void test_window_function_with_partition_by_executed_on_handler_consumes_rows_collected_in_sorted_order() {
+        Collect collect = e.plan("select count(*) OVER (partition by name order by id) from sys.cluster");
+        assertThat(collect.orderBy(), notNullValue());
+        WindowAggProjection windowAggProjection = (WindowAggProjection) collect.collectPhase().projections().get(0);
+        assertThat(windowAggProjection.sourceIsSorted(), is(true));
+    }
+
     @Test
     public void testSeqNoAndPrimaryTermFilteringRequirePrimaryKey() {
         expectedException.expect(VersioninigValidationException.class);
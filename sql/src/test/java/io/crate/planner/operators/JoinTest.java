@@ -291,6 +291,42 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
         assertThat(((Join)join.left()).joinPhase(), instanceOf(HashJoinPhase.class));
     }
 
+    @Test
+    public void test_joins_are_reordered_to_join_the_smallest_intermediate_results_first() {
+        MultiSourceSelect mss = e.normalize("select * " +
+                                            "from t1 inner join t2 on t1.a = t2.b " +
+                                            "inner join t3 on t3.c = t2.b");
+        TableStats tableStats = new TableStats();
+        tableStats.updateTableStats(Map.of(
+            T3.T1_RN, new Stats(10_000, 0, Map.of()),
+            T3.T2_RN, new Stats(10_000, 0, Map.of()),
+            T3.T3_RN, new Stats(10, 0, Map.of())
+        ));
+
+        LogicalPlan operator = createLogicalPlan(mss, tableStats);
+        assertThat(operator, instanceOf(HashJoin.class));
+        HashJoin outerJoin = (HashJoin) operator;
+        assertThat(outerJoin.rhs.baseTables().get(0).tableInfo().ident(), is(T3.T1_RN));
+        assertThat(outerJoin.lhs, instanceOf(HashJoin.class));
+        assertThat(((HashJoin) outerJoin.lhs).lhs.baseTables().get(0).tableInfo().ident(), is(T3.T2_RN));
+        assertThat(((HashJoin) outerJoin.lhs).rhs.baseTables().get(0).tableInfo().ident(), is(T3.T3_RN));
+    }
+
+    @Test
+    public void test_joins_are_not_reordered_by_cost_if_stats_are_missing() {
+        MultiSourceSelect mss = e.normalize("select * " +
+                                            "from t1 inner join t2 on t1.a = t2.b " +
+                                            "inner join t3 on t3.c = t2.b");
+        TableStats tableStats = new TableStats();
+        tableStats.updateTableStats(Map.of(
+            T3.T1_RN, new Stats(10_000, 0, Map.of()),
+            T3.T2_RN, new Stats(10_000, 0, Map.of())
+        ));
+
+        LogicalPlan operator = createLogicalPlan(mss, tableStats);
+        assertThat(((HashJoin) operator).rhs.baseTables().get(0).tableInfo().ident(), is(T3.T3_RN));
+    }
+
     @Test
     public void testMixedHashJoinNestedLoop() {
         MultiSourceSelect mss = e.normalize("select * " +
@@ -33,6 +33,7 @@ import io.crate.metadata.RelationName;
 import io.crate.planner.PlannerContext;
 import io.crate.planner.SubqueryPlanner;
 import io.crate.planner.consumer.FetchMode;
+import io.crate.statistics.Stats;
 import io.crate.statistics.TableStats;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.testing.SQLExecutor;
@@ -238,6 +239,31 @@ public class LogicalPlannerTest extends CrateDummyClusterServiceUnitTest {
                                 "]\n"));
     }
 
+    @Test
+    public void test_runtime_filter_is_only_added_if_enabled_by_session_setting() {
+        tableStats.updateTableStats(Map.of(
+            new RelationName("doc", "t1"), new Stats(100_000, 16, Map.of()),
+            new RelationName("doc", "t2"), new Stats(10, 16, Map.of())
+        ));
+        String statement = "select t1.x, t2.y from t1 inner join t2 on t1.x = t2.y";
+        assertThat(containsMultiPhase(plan(statement)), is(true));
+
+        sqlExecutor.getSessionContext().setRuntimeFilterEnabled(false);
+        assertThat(containsMultiPhase(plan(statement)), is(false));
+    }
+
+    private static boolean containsMultiPhase(LogicalPlan plan) {
+        if (plan instanceof MultiPhase) {
+            return true;
+        }
+        for (LogicalPlan source : plan.sources()) {
+            if (containsMultiPhase(source)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Test
     public void testScoreColumnIsCollectedNotFetched() throws Exception {
         LogicalPlan plan = plan("select x, _score from t1");
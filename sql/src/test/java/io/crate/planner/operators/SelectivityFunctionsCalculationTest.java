@@ -67,6 +67,28 @@ public class SelectivityFunctionsCalculationTest extends CrateDummyClusterServic
     }
 
 
+    @Test
+    public void test_collect_operator_uses_histogram_for_range_queries() throws Throwable {
+        long totalNumRows = 20000;
+        var numbers = IntStream.range(1, 20001)
+            .boxed()
+            .collect(Collectors.toList());
+        Stats stats = new Stats(
+            totalNumRows,
+            DataTypes.INTEGER.fixedSize(),
+            Map.of(new ColumnIdent("x"), ColumnStats.fromSortedValues(numbers, DataTypes.INTEGER, 0, totalNumRows))
+        );
+        TableStats tableStats = new TableStats();
+        tableStats.updateTableStats(Map.of(new RelationName("doc", "tbl"), stats));
+        SQLExecutor e = SQLExecutor.builder(clusterService)
+            .setTableStats(tableStats)
+            .addTable("create table doc.tbl (x int)")
+            .build();
+
+        LogicalPlan plan = e.logicalPlan("select * from doc.tbl where x between 1000 and 2000");
+        assertThat((double) plan.numExpectedRows(), Matchers.closeTo(1000.0, 200.0));
+    }
+
     @Test
     public void test_group_operator_adapt_expected_row_count_based_on_column_stats() throws Throwable {
         var samples = IntStream.concat(
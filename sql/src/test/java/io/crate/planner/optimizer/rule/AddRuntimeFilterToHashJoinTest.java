@@ -0,0 +1,207 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner.optimizer.rule;
+
+import io.crate.analyze.WhereClause;
+import io.crate.analyze.relations.AbstractTableRelation;
+import io.crate.analyze.relations.AnalyzedRelation;
+import io.crate.analyze.OrderBy;
+import io.crate.expression.operator.OrOperator;
+import io.crate.expression.operator.any.AnyOperators;
+import io.crate.expression.predicate.IsNullPredicate;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.planner.operators.Collect;
+import io.crate.planner.operators.Filter;
+import io.crate.planner.operators.HashJoin;
+import io.crate.planner.operators.Limit;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.planner.operators.MultiPhase;
+import io.crate.planner.operators.Order;
+import io.crate.planner.operators.RootRelationBoundary;
+import io.crate.planner.optimizer.matcher.Captures;
+import io.crate.planner.optimizer.matcher.Match;
+import io.crate.sql.tree.QualifiedName;
+import io.crate.statistics.TableStats;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SqlExpressions;
+import io.crate.testing.T3;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.crate.testing.SymbolMatchers.isLiteral;
+import static io.crate.testing.TestingHelpers.isSQL;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class AddRuntimeFilterToHashJoinTest extends CrateDummyClusterServiceUnitTest {
+
+    private SqlExpressions e;
+    private AbstractTableRelation tr1;
+    private AbstractTableRelation tr2;
+    private AddRuntimeFilterToHashJoin rule;
+
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        Map<QualifiedName, AnalyzedRelation> sources = T3.sources(clusterService);
+        e = new SqlExpressions(sources);
+        tr1 = T3.fromSource(T3.T1_RN, sources);
+        tr2 = T3.fromSource(T3.T2_RN, sources);
+        rule = new AddRuntimeFilterToHashJoin();
+    }
+
+    private HashJoin hashJoin(long lhsRows, long rhsRows, String joinCondition) {
+        return joinOf(collectT1(lhsRows), collectT2(rhsRows, WhereClause.MATCH_ALL), joinCondition);
+    }
+
+    private HashJoin joinOf(LogicalPlan lhs, LogicalPlan rhs, String joinCondition) {
+        return new HashJoin(lhs, rhs, e.asSymbol(joinCondition), tr2, new TableStats());
+    }
+
+    private Collect collectT1(long rows) {
+        return new Collect(false, tr1, List.of(e.asSymbol("t1.x")), WhereClause.MATCH_ALL, rows, 10);
+    }
+
+    private Collect collectT2(long rows, WhereClause where) {
+        return new Collect(false, tr2, List.of(e.asSymbol("t2.y")), where, rows, 10);
+    }
+
+    private LogicalPlan apply(HashJoin hashJoin) {
+        Match<HashJoin> match = rule.pattern().accept(hashJoin, Captures.empty());
+        assertThat(match.isPresent(), is(true));
+        return rule.apply(match.value(), match.captures(), new TableStats(), CoordinatorTxnCtx.systemTransactionContext());
+    }
+
+    @Test
+    public void test_filter_on_join_keys_of_small_side_is_added_to_large_side() {
+        HashJoin hashJoin = hashJoin(10_000, 10, "t1.x = t2.y");
+
+        HashJoin newJoin = (HashJoin) apply(hashJoin);
+
+        assertThat(newJoin.rhs(), sameInstance(hashJoin.rhs()));
+        assertThat(newJoin.lhs(), instanceOf(MultiPhase.class));
+        assertThat(newJoin.lhs().dependencies().size(), is(1));
+        SelectSymbol smallKeys = newJoin.lhs().dependencies().values().iterator().next();
+        assertThat(smallKeys.getResultType(), is(SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES));
+
+        assertThat(smallKeys.maxValues(), is((int) AddRuntimeFilterToHashJoin.MAX_BUILD_SIDE_ROWS));
+
+        Filter filter = (Filter) ((MultiPhase) newJoin.lhs()).source();
+        assertThat(filter.source(), sameInstance(hashJoin.lhs()));
+        Function runtimeFilter = (Function) filter.query();
+        assertThat(runtimeFilter.info().ident().name(), is(OrOperator.NAME));
+        Function tooManyKeys = (Function) runtimeFilter.arguments().get(0);
+        assertThat(tooManyKeys.info().ident().name(), is(IsNullPredicate.NAME));
+        assertThat(tooManyKeys.arguments().get(0), sameInstance(smallKeys));
+        Function keysFilter = (Function) runtimeFilter.arguments().get(1);
+        assertThat(keysFilter.info().ident().name(), is(AnyOperators.Names.EQ));
+        assertThat(keysFilter.arguments().get(0), isSQL("doc.t1.x"));
+        assertThat(keysFilter.arguments().get(1), sameInstance(smallKeys));
+    }
+
+    @Test
+    public void test_keys_of_small_side_are_limited_to_one_more_than_the_max_build_side_rows() {
+        HashJoin newJoin = (HashJoin) apply(hashJoin(10_000, 10, "t1.x = t2.y"));
+
+        LogicalPlan keysPlan = newJoin.lhs().dependencies().keySet().iterator().next();
+        Limit limit = (Limit) ((RootRelationBoundary) keysPlan).source();
+        assertThat(limit.limit(), isLiteral(AddRuntimeFilterToHashJoin.MAX_BUILD_SIDE_ROWS + 1));
+    }
+
+    @Test
+    public void test_no_filter_is_added_if_small_side_has_limit_without_order() {
+        LogicalPlan small = new Limit(collectT2(100, WhereClause.MATCH_ALL), Literal.of(10L), Literal.of(0L));
+        assertThat(apply(joinOf(collectT1(10_000), small, "t1.x = t2.y")), nullValue());
+    }
+
+    @Test
+    public void test_no_filter_is_added_if_small_side_has_limit_with_partial_order() {
+        Collect collect = new Collect(
+            false, tr2, List.of(e.asSymbol("t2.y"), e.asSymbol("t2.b")), WhereClause.MATCH_ALL, 100, 10);
+        LogicalPlan small = new Limit(
+            new Order(collect, new OrderBy(List.of(e.asSymbol("t2.b")))),
+            Literal.of(10L),
+            Literal.of(0L)
+        );
+        assertThat(apply(joinOf(collectT1(10_000), small, "t1.x = t2.y")), nullValue());
+    }
+
+    @Test
+    public void test_filter_is_added_if_small_side_has_limit_with_total_order() {
+        Collect small = collectT2(100, WhereClause.MATCH_ALL);
+        LogicalPlan limited = new Limit(
+            new Order(small, new OrderBy(List.of(e.asSymbol("t2.y")))),
+            Literal.of(10L),
+            Literal.of(0L)
+        );
+        assertThat(apply(joinOf(collectT1(10_000), limited, "t1.x = t2.y")), instanceOf(HashJoin.class));
+    }
+
+    @Test
+    public void test_no_filter_is_added_if_small_side_contains_non_deterministic_functions() {
+        Collect small = collectT2(10, new WhereClause(e.asSymbol("t2.y > random()")));
+        assertThat(apply(joinOf(collectT1(10_000), small, "t1.x = t2.y")), nullValue());
+    }
+
+    @Test
+    public void test_filter_is_added_to_the_right_side_if_the_left_side_is_smaller() {
+        HashJoin hashJoin = hashJoin(10, 10_000, "t2.y = t1.x");
+
+        HashJoin newJoin = (HashJoin) apply(hashJoin);
+
+        assertThat(newJoin.lhs(), sameInstance(hashJoin.lhs()));
+        Filter filter = (Filter) ((MultiPhase) newJoin.rhs()).source();
+        assertThat(((Function) filter.query()).arguments().get(0), isSQL("doc.t2.y"));
+    }
+
+    @Test
+    public void test_rule_does_not_match_the_rewritten_join() {
+        LogicalPlan newJoin = apply(hashJoin(10_000, 10, "t1.x = t2.y"));
+
+        assertThat(rule.pattern().accept(newJoin, Captures.empty()).isPresent(), is(false));
+    }
+
+    @Test
+    public void test_no_filter_is_added_without_stats() {
+        assertThat(apply(hashJoin(-1, -1, "t1.x = t2.y")), nullValue());
+    }
+
+    @Test
+    public void test_no_filter_is_added_if_the_small_side_has_too_many_rows() {
+        long rows = AddRuntimeFilterToHashJoin.MAX_BUILD_SIDE_ROWS + 1;
+        assertThat(apply(hashJoin(rows * 2, rows, "t1.x = t2.y")), nullValue());
+    }
+
+    @Test
+    public void test_no_filter_is_added_if_the_large_side_key_is_not_a_column() {
+        assertThat(apply(hashJoin(10_000, 10, "t1.x + 1 = t2.y")), nullValue());
+    }
+}
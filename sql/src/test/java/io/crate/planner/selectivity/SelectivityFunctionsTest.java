@@ -5,8 +5,10 @@ package io.crate.planner.selectivity;
 
 import io.crate.common.collections.Lists2;
 import io.crate.data.Row1;
+import io.crate.data.RowN;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.ColumnIdent;
+import io.crate.sql.tree.QualifiedName;
 import io.crate.statistics.ColumnStats;
 import io.crate.statistics.Stats;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
@@ -18,6 +20,7 @@ import org.junit.Test;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -105,4 +108,72 @@ public class SelectivityFunctionsTest extends CrateDummyClusterServiceUnitTest {
         Stats stats = new Stats(100, 16, Map.of(new ColumnIdent("x"), columnStats));
         assertThat(SelectivityFunctions.estimateNumRows(stats, query, null), Matchers.is(50L));
     }
+
+    @Test
+    public void test_join_selectivity_of_column_eq_column_uses_the_larger_approx_distinct() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Symbol joinCondition = expressions.asSymbol("t1.x = t2.y");
+        var x = ColumnStats.fromSortedValues(
+            IntStream.range(0, 100).boxed().collect(Collectors.toList()), DataTypes.INTEGER, 0, 100L);
+        var y = ColumnStats.fromSortedValues(
+            IntStream.range(0, 10).boxed().collect(Collectors.toList()), DataTypes.INTEGER, 0, 10L);
+        Map<QualifiedName, Stats> statsByRelation = Map.of(
+            T3.T1, new Stats(100, 16, Map.of(new ColumnIdent("x"), x)),
+            T3.T2, new Stats(10, 16, Map.of(new ColumnIdent("y"), y))
+        );
+        assertThat(
+            SelectivityFunctions.estimateJoinSelectivity(joinCondition, statsByRelation, null),
+            Matchers.closeTo(1.0 / x.approxDistinct(), 0.0001));
+    }
+
+    @Test
+    public void test_range_selectivity_is_interpolated_over_the_histogram() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Symbol query = expressions.asSymbol("x < 5000");
+        var numbers = IntStream.range(1, 20_001)
+            .boxed()
+            .collect(Collectors.toList());
+        var columnStats = ColumnStats.fromSortedValues(numbers, DataTypes.INTEGER, 0, 20_000L);
+        Stats stats = new Stats(20_000, 16, Map.of(new ColumnIdent("x"), columnStats));
+        assertThat(
+            (double) SelectivityFunctions.estimateNumRows(stats, query, null),
+            Matchers.closeTo(5000.0, 200.0));
+    }
+
+    @Test
+    public void test_lower_and_upper_bound_on_same_column_are_combined_to_a_range() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Symbol query = expressions.asSymbol("x >= ? and x < ?");
+        var numbers = IntStream.range(1, 20_001)
+            .boxed()
+            .collect(Collectors.toList());
+        var columnStats = ColumnStats.fromSortedValues(numbers, DataTypes.INTEGER, 0, 20_000L);
+        Stats stats = new Stats(20_000, 16, Map.of(new ColumnIdent("x"), columnStats));
+        assertThat(
+            (double) SelectivityFunctions.estimateNumRows(stats, query, new RowN(5000, 7000)),
+            Matchers.closeTo(2000.0, 200.0));
+    }
+
+    @Test
+    public void test_like_prefix_is_estimated_as_range() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Symbol query = expressions.asSymbol("a like 'aa%'");
+        var values = IntStream.range(0, 2000)
+            .mapToObj(i -> (i < 1000 ? "aa" : "bb") + String.format(Locale.ENGLISH, "%04d", i))
+            .collect(Collectors.toList());
+        var columnStats = ColumnStats.fromSortedValues(values, DataTypes.STRING, 0, 2000L);
+        Stats stats = new Stats(2000, 16, Map.of(new ColumnIdent("a"), columnStats));
+        assertThat(
+            (double) SelectivityFunctions.estimateNumRows(stats, query, null),
+            Matchers.closeTo(1000.0, 50.0));
+    }
+
+    @Test
+    public void test_conjunctions_on_different_columns_are_damped() {
+        SqlExpressions expressions = new SqlExpressions(T3.sources(clusterService));
+        Symbol query = expressions.asSymbol("x = 10 and i = 20");
+        Stats stats = new Stats(1_000_000, 16, Map.of());
+        // 0.005 * 0.005^(1/2) instead of 0.005 * 0.005
+        assertThat(SelectivityFunctions.estimateNumRows(stats, query, null), Matchers.is(353L));
+    }
 }
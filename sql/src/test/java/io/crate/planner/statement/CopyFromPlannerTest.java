@@ -41,6 +41,7 @@ import java.io.IOException;
 import java.util.List;
 
 import static io.crate.analyze.TableDefinitions.USER_TABLE_DEFINITION;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.Is.is;
@@ -130,4 +131,29 @@ public class CopyFromPlannerTest extends CrateDummyClusterServiceUnitTest {
         Collect cm = plan("copy users from '/path' with (node_filters={name='foobar'})");
         assertThat(cm.collectPhase().nodeIds().size(), is(0));
     }
+
+    @Test
+    public void test_copy_from_stdin_reads_the_client_stream_on_the_handler_node() {
+        plannerContext.transactionContext().sessionContext().setCopyStreamId("stream-1");
+        Collect collect = plan("copy users from stdin");
+        FileUriCollectPhase collectPhase = (FileUriCollectPhase) collect.collectPhase();
+        assertThat(((Literal) collectPhase.targetUri()).value(), is("stdin:///stream-1"));
+        assertThat(collectPhase.nodeIds(), contains(plannerContext.handlerNode()));
+    }
+
+    @Test
+    public void test_copy_from_stdin_is_not_supported_without_client_stream() {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage(
+            "COPY FROM STDIN is only supported using the simple query protocol of the PostgreSQL wire protocol");
+        plan("copy users from stdin");
+    }
+
+    @Test
+    public void test_copy_from_rejects_stdin_uris() {
+        plannerContext.transactionContext().sessionContext().setCopyStreamId("stream-1");
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("URI scheme 'stdin' is only supported by COPY FROM STDIN");
+        plan("copy users from 'stdin:///stream-1'");
+    }
 }
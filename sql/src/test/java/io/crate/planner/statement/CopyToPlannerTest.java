@@ -45,7 +45,9 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.singletonList;
+import static io.crate.testing.SymbolMatchers.isReference;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 
 public class CopyToPlannerTest extends CrateDummyClusterServiceUnitTest {
@@ -133,4 +135,23 @@ public class CopyToPlannerTest extends CrateDummyClusterServiceUnitTest {
         expectedException.expectMessage("Given partition ident does not match partition evaluated from where clause");
         plan("copy parted partition (date=1395874800000) where date = 1395961200000 to directory '/tmp/foo'");
     }
+
+    @Test
+    public void test_copy_to_stdout_collects_document_and_partition_values_without_writer_projection() {
+        e.getSessionContext().setCopyStreamId("stream-1");
+        Merge merge = plan("copy parted to stdout");
+        Collect collect = (Collect) merge.subPlan();
+        RoutedCollectPhase collectPhase = (RoutedCollectPhase) collect.collectPhase();
+        assertThat(collectPhase.toCollect(), contains(isReference("_doc"), isReference("date")));
+        assertThat(collectPhase.projections(), is(empty()));
+        assertThat(merge.mergePhase().projections(), is(empty()));
+    }
+
+    @Test
+    public void test_copy_to_stdout_is_not_supported_without_client_stream() {
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage(
+            "COPY TO STDOUT is only supported using the simple query protocol of the PostgreSQL wire protocol");
+        plan("copy users to stdout");
+    }
 }
@@ -76,6 +76,32 @@ class ClientMessages {
         buffer.writeByte(0);
     }
 
+    static void sendQueryMessage(ByteBuf buffer, String query) {
+        byte[] queryBytes = query.getBytes(StandardCharsets.UTF_8);
+        buffer.writeByte('Q');
+        buffer.writeInt(4 + queryBytes.length + 1);
+        writeCString(buffer, queryBytes);
+    }
+
+    static void sendCopyData(ByteBuf buffer, String data) {
+        byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
+        buffer.writeByte('d');
+        buffer.writeInt(4 + dataBytes.length);
+        buffer.writeBytes(dataBytes);
+    }
+
+    static void sendCopyDone(ByteBuf buffer) {
+        buffer.writeByte('c');
+        buffer.writeInt(4);
+    }
+
+    static void sendCopyFail(ByteBuf buffer, String message) {
+        byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+        buffer.writeByte('f');
+        buffer.writeInt(4 + messageBytes.length + 1);
+        writeCString(buffer, messageBytes);
+    }
+
     static void sendFlush(ByteBuf buffer) {
         buffer.writeByte('H');
         buffer.writeInt(4);
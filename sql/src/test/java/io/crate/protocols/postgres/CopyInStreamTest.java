@@ -0,0 +1,91 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.test.integration.CrateUnitTest;
+import io.netty.buffer.Unpooled;
+import org.elasticsearch.common.unit.TimeValue;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class CopyInStreamTest extends CrateUnitTest {
+
+    @Test
+    public void test_written_data_is_read_until_finish() throws Exception {
+        CopyInStream stream = new CopyInStream(() -> {});
+        stream.write(Unpooled.copiedBuffer("{\"x\": 1}\n{\"x\"", StandardCharsets.UTF_8));
+        stream.write(Unpooled.copiedBuffer(": 2}\n", StandardCharsets.UTF_8));
+        stream.finish();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        assertThat(reader.readLine(), is("{\"x\": 1}"));
+        assertThat(reader.readLine(), is("{\"x\": 2}"));
+        assertThat(reader.readLine(), nullValue());
+    }
+
+    @Test
+    public void test_writer_is_paused_above_high_water_mark_and_resumed_once_drained() throws Exception {
+        AtomicInteger resumed = new AtomicInteger();
+        CopyInStream stream = new CopyInStream(resumed::incrementAndGet);
+        byte[] chunk = new byte[CopyInStream.HIGH_WATER_MARK / 2];
+        assertThat(stream.write(Unpooled.wrappedBuffer(chunk)), is(false));
+        assertThat(stream.write(Unpooled.wrappedBuffer(chunk)), is(false));
+        assertThat(stream.write(Unpooled.wrappedBuffer(new byte[1])), is(true));
+
+        byte[] buffer = new byte[CopyInStream.HIGH_WATER_MARK - CopyInStream.LOW_WATER_MARK + 1];
+        int read = 0;
+        while (read < buffer.length) {
+            read += stream.read(buffer, read, buffer.length - read);
+        }
+        assertThat(resumed.get(), is(1));
+    }
+
+    @Test
+    public void test_read_fails_if_the_copy_is_aborted() throws Exception {
+        CopyInStream stream = new CopyInStream(() -> {});
+        stream.fail(new IllegalStateException("COPY FROM STDIN failed: aborted by client"));
+
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("COPY FROM STDIN failed: aborted by client");
+        stream.read();
+    }
+
+    @Test
+    public void test_read_fails_if_no_data_is_received_within_the_timeout() throws Exception {
+        CopyInStream stream = new CopyInStream(() -> {}, TimeValue.timeValueMillis(10));
+        stream.write(Unpooled.copiedBuffer("{\"x\": 1}\n", StandardCharsets.UTF_8));
+        byte[] buffer = new byte[64];
+        assertThat(stream.read(buffer, 0, buffer.length), is(9));
+
+        expectedException.expect(IllegalStateException.class);
+        expectedException.expectMessage("COPY FROM STDIN failed: no data received within 10ms");
+        stream.read(buffer, 0, buffer.length);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.protocols.postgres;
+
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.data.RowN;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.carrotsearch.randomizedtesting.RandomizedTest.$;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+public class DataRowEncoderTest extends CrateUnitTest {
+
+    @Test
+    public void testPartialRowIsDiscardedIfGetValueFromRowFails() {
+        DataRowEncoder encoder = new DataRowEncoder(
+            UnpooledByteBufAllocator.DEFAULT,
+            Collections.singletonList(DataTypes.INTEGER),
+            null
+        );
+        encoder.encode(new Row1(1));
+        int bytesOfFirstRow = encoder.pendingBytes();
+        try {
+            encoder.encode(new Row() {
+                @Override
+                public int numColumns() {
+                    return 1;
+                }
+
+                @Override
+                public Object get(int index) {
+                    throw new IllegalArgumentException("Dummy");
+                }
+            });
+            fail("encode should raise an exception");
+        } catch (Exception ignored) {
+        }
+        assertThat(encoder.pendingBytes(), is(bytesOfFirstRow));
+
+        ByteBuf buffer = encoder.take();
+        assertThat(buffer.refCnt(), is(1));
+        buffer.release();
+    }
+
+    @Test
+    public void testNullValuesAddToLength() throws Exception {
+        DataRowEncoder encoder = new DataRowEncoder(
+            UnpooledByteBufAllocator.DEFAULT,
+            Arrays.asList(DataTypes.INTEGER, DataTypes.STRING),
+            null
+        );
+        encoder.encode(new RowN($(10, null)));
+        ByteBuf buffer = encoder.take();
+        try {
+            // message type
+            assertThat((char) buffer.readByte(), is('D'));
+
+            // size of the message
+            assertThat(buffer.readInt(), is(16));
+            assertThat(buffer.readableBytes(), is(12)); // 16 - INT4 because the size was already read
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    public void testRowsAreAppendedUntilFlushThresholdIsReached() {
+        // 'D' + len + numColumns + value length + '10' = 13 bytes per row
+        DataRowEncoder encoder = new DataRowEncoder(
+            UnpooledByteBufAllocator.DEFAULT,
+            Collections.singletonList(DataTypes.INTEGER),
+            null,
+            30
+        );
+        Row1 row = new Row1(10);
+        assertThat(encoder.encode(row), is(false));
+        assertThat(encoder.encode(row), is(false));
+        assertThat(encoder.encode(row), is(true));
+
+        ByteBuf buffer = encoder.take();
+        try {
+            assertThat(buffer.readableBytes(), is(3 * 13));
+            for (int i = 0; i < 3; i++) {
+                assertThat((char) buffer.readByte(), is('D'));
+                assertThat(buffer.readInt(), is(12));
+                buffer.skipBytes(12 - 4);
+            }
+        } finally {
+            buffer.release();
+        }
+        assertThat(encoder.take(), nullValue());
+    }
+
+    @Test
+    public void testBinaryFormatCodeIsResolvedPerColumn() {
+        DataRowEncoder encoder = new DataRowEncoder(
+            UnpooledByteBufAllocator.DEFAULT,
+            Arrays.asList(DataTypes.INTEGER, DataTypes.INTEGER),
+            new FormatCodes.FormatCode[] { FormatCodes.FormatCode.TEXT, FormatCodes.FormatCode.BINARY }
+        );
+        encoder.encode(new RowN($(10, 10)));
+        ByteBuf buffer = encoder.take();
+        try {
+            buffer.skipBytes(1 + 4 + 2);
+            assertThat(buffer.readInt(), is(2)); // text: "10"
+            buffer.skipBytes(2);
+            assertThat(buffer.readInt(), is(4)); // binary: int4
+            assertThat(buffer.readInt(), is(10));
+        } finally {
+            buffer.release();
+        }
+    }
+}
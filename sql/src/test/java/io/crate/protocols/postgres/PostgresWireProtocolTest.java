@@ -23,18 +23,25 @@
 package io.crate.protocols.postgres;
 
 import io.crate.action.sql.DescribeResult;
+import io.crate.action.sql.ResultReceiver;
 import io.crate.action.sql.SQLOperations;
 import io.crate.action.sql.Session;
 import io.crate.action.sql.SessionContext;
+import io.crate.analyze.AnalyzedCopyFrom;
+import io.crate.analyze.AnalyzedCopyTo;
+import io.crate.analyze.AnalyzedStatement;
 import io.crate.auth.AlwaysOKNullAuthentication;
 import io.crate.auth.Authentication;
 import io.crate.auth.AuthenticationMethod;
 import io.crate.auth.user.AccessControl;
 import io.crate.auth.user.User;
 import io.crate.auth.user.UserManager;
+import io.crate.data.Row1;
 import io.crate.exceptions.JobKilledException;
+import io.crate.execution.engine.collect.files.StdinStreams;
 import io.crate.execution.engine.collect.stats.JobsLogs;
 import io.crate.planner.DependencyCarrier;
+import io.crate.planner.PlanCache;
 import io.crate.protocols.postgres.types.PGTypes;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.testing.SQLExecutor;
@@ -52,9 +59,11 @@ import org.elasticsearch.common.settings.Settings;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import javax.annotation.Nullable;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -69,8 +78,11 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isOneOf;
 import static org.mockito.ArgumentMatchers.anyChar;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -90,6 +102,7 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
         sqlOperations = new SQLOperations(
             e.analyzer,
             e.planner,
+            PlanCache.DISABLED,
             () -> mock(DependencyCarrier.class),
             new JobsLogs(() -> true),
             Settings.EMPTY,
@@ -121,7 +134,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 mock(SQLOperations.class),
                 sessionContext -> AccessControl.DISABLED,
                 new AlwaysOKNullAuthentication(),
-                null);
+                null,
+                new StdinStreams());
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
         ByteBuf buffer = Unpooled.buffer();
@@ -163,7 +177,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sqlOperations,
                 sessionContext -> AccessControl.DISABLED,
                 new AlwaysOKNullAuthentication(),
-                null);
+                null,
+                new StdinStreams());
         AtomicBoolean flushed = new AtomicBoolean(false);
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler) {
             @Override
@@ -191,7 +206,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sqlOperations,
                 sessionContext -> AccessControl.DISABLED,
                 new AlwaysOKNullAuthentication(),
-                null);
+                null,
+                new StdinStreams());
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
         ByteBuf buffer = Unpooled.buffer();
@@ -216,7 +232,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sqlOperations,
                 sessionContext -> AccessControl.DISABLED,
                 new AlwaysOKNullAuthentication(),
-                null);
+                null,
+                new StdinStreams());
 
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
         {
@@ -273,7 +290,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sqlOperations,
                 sessionContext -> AccessControl.DISABLED,
                 new AlwaysOKNullAuthentication(),
-                null);
+                null,
+                new StdinStreams());
 
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
         {
@@ -334,7 +352,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 mock(SQLOperations.class),
                 sessionContext -> AccessControl.DISABLED,
                 new AlwaysOKNullAuthentication(),
-                null);
+                null,
+                new StdinStreams());
 
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
@@ -360,7 +379,7 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
     @Test
     public void testCrateServerVersionIsReceivedOnStartup() throws Exception {
         PostgresWireProtocol ctx = new PostgresWireProtocol(
-            sqlOperations, sessionContext -> AccessControl.DISABLED, new AlwaysOKNullAuthentication(), null);
+            sqlOperations, sessionContext -> AccessControl.DISABLED, new AlwaysOKNullAuthentication(), null, new StdinStreams());
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
         ByteBuf buf = Unpooled.buffer();
@@ -414,7 +433,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                         };
                     }
                 },
-                null);
+                null,
+                new StdinStreams());
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
         ByteBuf respBuf;
@@ -451,7 +471,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sqlOperations,
                 sessionContext -> AccessControl.DISABLED,
                 new AlwaysOKNullAuthentication(),
-                null);
+                null,
+                new StdinStreams());
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
         ByteBuf buffer = Unpooled.buffer();
@@ -485,6 +506,198 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
         readReadyForQueryMessage(channel);
     }
 
+    @Test
+    public void test_copy_from_stdin_passes_copy_data_to_the_statement() throws Exception {
+        AnalyzedCopyFrom copyFrom = mock(AnalyzedCopyFrom.class);
+        when(copyFrom.isFromStdin()).thenReturn(true);
+        List<InputStream> stdin = new ArrayList<>();
+        CompletableFuture<Object> execution = new CompletableFuture<>();
+        Session session = prepareCopy(copyFrom, registeredStreamsInto(stdin), execution);
+
+        ByteBuf buffer = Unpooled.buffer();
+        ClientMessages.sendQueryMessage(buffer, "copy t from stdin");
+        channel.writeInbound(buffer);
+        readCopyResponse(channel, (byte) 'G');
+        ArgumentCaptor<ResultReceiver> receiver = ArgumentCaptor.forClass(ResultReceiver.class);
+        verify(session).execute(eq(""), eq(0), receiver.capture());
+
+        buffer = Unpooled.buffer();
+        ClientMessages.sendCopyData(buffer, "{\"x\": 1}\n");
+        ClientMessages.sendCopyData(buffer, "{\"x\": 2}\n");
+        ClientMessages.sendCopyDone(buffer);
+        channel.writeInbound(buffer);
+
+        assertThat(stdin.size(), is(1));
+        byte[] data = stdin.get(0).readAllBytes();
+        assertThat(new String(data, StandardCharsets.UTF_8), is("{\"x\": 1}\n{\"x\": 2}\n"));
+
+        receiver.getValue().setNextRow(new Row1(2L));
+        receiver.getValue().allFinished(false);
+        execution.complete(null);
+
+        readCommandComplete(channel, "COPY 2");
+        readReadyForQueryMessage(channel);
+        assertThat(channel.outboundMessages().size(), is(0));
+    }
+
+    @Test
+    public void test_copy_fail_aborts_copy_from_stdin_and_drops_further_copy_messages() throws Exception {
+        AnalyzedCopyFrom copyFrom = mock(AnalyzedCopyFrom.class);
+        when(copyFrom.isFromStdin()).thenReturn(true);
+        List<InputStream> stdin = new ArrayList<>();
+        CompletableFuture<Object> execution = new CompletableFuture<>();
+        Session session = prepareCopy(copyFrom, registeredStreamsInto(stdin), execution);
+
+        ByteBuf buffer = Unpooled.buffer();
+        ClientMessages.sendQueryMessage(buffer, "copy t from stdin");
+        channel.writeInbound(buffer);
+        readCopyResponse(channel, (byte) 'G');
+        ArgumentCaptor<ResultReceiver> receiver = ArgumentCaptor.forClass(ResultReceiver.class);
+        verify(session).execute(eq(""), eq(0), receiver.capture());
+
+        buffer = Unpooled.buffer();
+        ClientMessages.sendCopyData(buffer, "{\"x\": 1}\n");
+        ClientMessages.sendCopyFail(buffer, "aborted by client");
+        channel.writeInbound(buffer);
+
+        InputStream stream = stdin.get(0);
+        byte[] line = new byte[9];
+        assertThat(stream.read(line, 0, line.length), is(9));
+        IllegalStateException failure = expectThrows(IllegalStateException.class, stream::read);
+        assertThat(failure.getMessage(), is("COPY FROM STDIN failed: aborted by client"));
+
+        receiver.getValue().fail(failure);
+        execution.completeExceptionally(failure);
+
+        ByteBuf response = channel.readOutbound();
+        try {
+            assertThat(response.readByte(), is((byte) 'E'));
+        } finally {
+            response.release();
+        }
+        readReadyForQueryMessage(channel);
+
+        buffer = Unpooled.buffer();
+        ClientMessages.sendCopyData(buffer, "{\"x\": 2}\n");
+        ClientMessages.sendCopyDone(buffer);
+        channel.writeInbound(buffer);
+        assertThat(channel.outboundMessages().size(), is(0));
+    }
+
+    @Test
+    public void test_copy_to_stdout_sends_lines_as_copy_data_followed_by_copy_done() throws Exception {
+        AnalyzedCopyTo copyTo = mock(AnalyzedCopyTo.class);
+        when(copyTo.isToStdout()).thenReturn(true);
+        CompletableFuture<Object> execution = new CompletableFuture<>();
+        Session session = prepareCopy(copyTo, new StdinStreams(), execution);
+
+        ByteBuf buffer = Unpooled.buffer();
+        ClientMessages.sendQueryMessage(buffer, "copy t to stdout");
+        channel.writeInbound(buffer);
+        readCopyResponse(channel, (byte) 'H');
+        ArgumentCaptor<ResultReceiver> receiver = ArgumentCaptor.forClass(ResultReceiver.class);
+        verify(session).execute(eq(""), eq(CopyOutReceiver.PAGE_SIZE), receiver.capture());
+
+        receiver.getValue().setNextRow(new Row1("{\"x\":1}"));
+        receiver.getValue().setNextRow(new Row1("{\"x\":2}"));
+        receiver.getValue().allFinished(false);
+        execution.complete(null);
+
+        // both lines are buffered and written as one chunk
+        ByteBuf response = channel.readOutbound();
+        try {
+            readCopyData(response, "{\"x\":1}");
+            readCopyData(response, "{\"x\":2}");
+            assertThat(response.readableBytes(), is(0));
+        } finally {
+            response.release();
+        }
+        response = channel.readOutbound();
+        byte[] responseBytes = new byte[5];
+        try {
+            response.readBytes(responseBytes);
+            // CopyDone: 'c' | int32 len
+            assertThat(responseBytes, is(new byte[]{'c', 0, 0, 0, 4}));
+        } finally {
+            response.release();
+        }
+        readCommandComplete(channel, "COPY 2");
+        readReadyForQueryMessage(channel);
+        assertThat(channel.outboundMessages().size(), is(0));
+    }
+
+    @Test
+    public void test_copy_to_stdout_fetches_the_next_page_once_the_channel_is_writable() throws Exception {
+        AnalyzedCopyTo copyTo = mock(AnalyzedCopyTo.class);
+        when(copyTo.isToStdout()).thenReturn(true);
+        Session session = prepareCopy(copyTo, new StdinStreams(), new CompletableFuture<>());
+
+        ByteBuf buffer = Unpooled.buffer();
+        ClientMessages.sendQueryMessage(buffer, "copy t to stdout");
+        channel.writeInbound(buffer);
+        readCopyResponse(channel, (byte) 'H');
+        ArgumentCaptor<ResultReceiver> receiver = ArgumentCaptor.forClass(ResultReceiver.class);
+        verify(session).execute(eq(""), eq(CopyOutReceiver.PAGE_SIZE), receiver.capture());
+
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+        receiver.getValue().setNextRow(new Row1("{\"x\":1}"));
+        receiver.getValue().batchFinished();
+        channel.runPendingTasks();
+
+        // the page is sent, but the next one isn't requested while the channel isn't writable
+        ByteBuf response = channel.readOutbound();
+        try {
+            readCopyData(response, "{\"x\":1}");
+        } finally {
+            response.release();
+        }
+        verify(session, times(1)).execute(anyString(), anyInt(), any());
+
+        channel.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+        channel.runPendingTasks();
+        verify(session, times(2)).execute(eq(""), eq(CopyOutReceiver.PAGE_SIZE), eq(receiver.getValue()));
+    }
+
+    private Session prepareCopy(AnalyzedStatement analyzedStatement,
+                                StdinStreams stdinStreams,
+                                CompletableFuture<?> execution) {
+        SQLOperations sqlOperations = Mockito.mock(SQLOperations.class);
+        Session session = mock(Session.class);
+        SessionContext sessionContext = new SessionContext(Set.of(), User.CRATE_USER);
+        when(session.sessionContext()).thenReturn(sessionContext);
+        when(sqlOperations.createSession(any(String.class), any(User.class))).thenReturn(session);
+        DescribeResult describeResult = mock(DescribeResult.class);
+        when(describeResult.getFields()).thenReturn(null);
+        when(session.describe(anyChar(), anyString())).thenReturn(describeResult);
+        when(session.getAnalyzedStatement("")).thenReturn(analyzedStatement);
+        doReturn(execution).when(session).sync();
+
+        PostgresWireProtocol ctx =
+            new PostgresWireProtocol(
+                sqlOperations,
+                sessionCtx -> AccessControl.DISABLED,
+                new AlwaysOKNullAuthentication(),
+                null,
+                stdinStreams);
+        channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
+
+        sendStartupMessage(channel);
+        readAuthenticationOK(channel);
+        skipParameterMessages(channel);
+        readReadyForQueryMessage(channel);
+        return session;
+    }
+
+    private static StdinStreams registeredStreamsInto(List<InputStream> streams) {
+        return new StdinStreams() {
+            @Override
+            public void register(String id, InputStream stream) {
+                streams.add(stream);
+                super.register(id, stream);
+            }
+        };
+    }
+
     private void submitQueriesThroughSimpleQueryMode(String statements, @Nullable Throwable failure) {
         SQLOperations sqlOperations = Mockito.mock(SQLOperations.class);
         Session session = mock(Session.class);
@@ -500,7 +713,8 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
                 sqlOperations,
                 sessionCtx -> AccessControl.DISABLED,
                 new AlwaysOKNullAuthentication(),
-                null);
+                null,
+                new StdinStreams());
         channel = new EmbeddedChannel(ctx.decoder, ctx.handler);
 
         if (failure != null) {
@@ -568,6 +782,37 @@ public class PostgresWireProtocolTest extends CrateDummyClusterServiceUnitTest {
         assertThat(responseBytes, is(new byte[]{'Z', 0, 0, 0, 5, 'I'}));
     }
 
+    private static void readCopyResponse(EmbeddedChannel channel, byte msgType) {
+        ByteBuf response = channel.readOutbound();
+        byte[] responseBytes = new byte[10];
+        response.readBytes(responseBytes);
+        response.release();
+        // CopyInResponse / CopyOutResponse: 'G' or 'H' | int32 len | int8 format | int16 numColumns | int16 format
+        assertThat(responseBytes, is(new byte[]{msgType, 0, 0, 0, 9, 0, 0, 1, 0, 0}));
+    }
+
+    private static void readCopyData(ByteBuf response, String line) {
+        byte[] lineBytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        // CopyData: 'd' | int32 len | byte[] data
+        assertThat(response.readByte(), is((byte) 'd'));
+        assertThat(response.readInt(), is(4 + lineBytes.length));
+        byte[] data = new byte[lineBytes.length];
+        response.readBytes(data);
+        assertThat(data, is(lineBytes));
+    }
+
+    private static void readCommandComplete(EmbeddedChannel channel, String commandTag) {
+        ByteBuf response = channel.readOutbound();
+        try {
+            // CommandComplete: 'C' | int32 len | string commandTag
+            assertThat(response.readByte(), is((byte) 'C'));
+            response.readInt();
+            assertThat(PostgresWireProtocol.readCString(response), is(commandTag));
+        } finally {
+            response.release();
+        }
+    }
+
     private static void readErrorResponse(EmbeddedChannel channel, byte len) {
         ByteBuf response = channel.readOutbound();
         byte[] responseBytes = new byte[5];
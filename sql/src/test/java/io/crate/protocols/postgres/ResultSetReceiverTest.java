@@ -24,6 +24,7 @@ package io.crate.protocols.postgres;
 
 import io.crate.data.Row1;
 import io.crate.types.DataTypes;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.channel.Channel;
 import org.junit.Test;
 import org.mockito.Answers;
@@ -33,12 +34,14 @@ import java.util.Collections;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class ResultSetReceiverTest {
 
     @Test
     public void testChannelIsPeriodicallyFlushedToAvoidConsumingTooMuchMemory() {
         Channel channel = mock(Channel.class, Answers.RETURNS_DEEP_STUBS);
+        when(channel.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
         ResultSetReceiver resultSetReceiver = new ResultSetReceiver(
             "select * from t",
             channel,
@@ -47,7 +50,9 @@ public class ResultSetReceiverTest {
             null
         );
         Row1 row1 = new Row1(1);
-        for (int i = 0; i < 1500; i++) {
+        // 'D' + len + numColumns + value length + '1' = 12 bytes per row
+        int rowsPerFlush = DataRowEncoder.DEFAULT_FLUSH_THRESHOLD / 12 + 1;
+        for (int i = 0; i < rowsPerFlush * 1.5; i++) {
             resultSetReceiver.setNextRow(row1);
         }
         verify(channel, times(1)).flush();
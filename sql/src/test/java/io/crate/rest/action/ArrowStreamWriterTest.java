@@ -0,0 +1,275 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.rest.action;
+
+import io.crate.data.Row1;
+import io.crate.data.RowN;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import io.crate.types.ObjectType;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class ArrowStreamWriterTest extends CrateUnitTest {
+
+    private static final int CONTINUATION_MARKER = 0xFFFFFFFF;
+
+    @Test
+    public void test_batch_contains_validity_bitmap_and_little_endian_values() throws Exception {
+        ArrowStreamWriter writer = new ArrowStreamWriter(List.of("x"), List.of(DataTypes.LONG));
+        writer.addRow(new Row1(1L));
+        writer.addRow(new Row1(null));
+        writer.addRow(new Row1(3L));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeBatch(out);
+        writer.writeEndOfStream(out);
+        assertThat(writer.numRows(), is(0));
+
+        ByteBuffer stream = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        skipMessageMetadata(stream); // schema, without body
+        skipMessageMetadata(stream); // record batch
+
+        // validity bitmap padded to 8 bytes, followed by the values
+        assertThat(stream.get(), is((byte) 0b101));
+        stream.position(stream.position() + 7);
+        assertThat(stream.getLong(), is(1L));
+        assertThat(stream.getLong(), is(0L));
+        assertThat(stream.getLong(), is(3L));
+
+        assertThat(stream.getInt(), is(CONTINUATION_MARKER));
+        assertThat(stream.getInt(), is(0));
+        assertThat(stream.hasRemaining(), is(false));
+    }
+
+    @Test
+    public void test_schema_is_only_written_in_front_of_first_batch() throws Exception {
+        ArrowStreamWriter writer = new ArrowStreamWriter(
+            List.of("name", "obj"), List.of(DataTypes.STRING, ObjectType.untyped()));
+        writer.addRow(new RowN("foo", null));
+        ByteArrayOutputStream firstBatch = new ByteArrayOutputStream();
+        writer.writeBatch(firstBatch);
+        writer.addRow(new RowN("foo", null));
+        ByteArrayOutputStream secondBatch = new ByteArrayOutputStream();
+        writer.writeBatch(secondBatch);
+
+        ByteBuffer stream = ByteBuffer.wrap(firstBatch.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        int schemaLength = skipMessageMetadata(stream);
+        assertThat(firstBatch.size() - secondBatch.size(), is(schemaLength));
+    }
+
+    @Test
+    public void test_schema_and_record_batch_metadata_can_be_decoded() throws Exception {
+        ArrowStreamWriter writer = new ArrowStreamWriter(
+            List.of("x", "name"), List.of(DataTypes.LONG, DataTypes.STRING));
+        writer.addRow(new RowN(1L, "a"));
+        writer.addRow(new RowN(null, "bc"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeBatch(out);
+
+        ByteBuffer stream = ByteBuffer.wrap(out.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        FlatBufferTable schemaMessage = readMessageMetadata(stream);
+        assertThat(schemaMessage.getShort(0), is((short) 4)); // MetadataVersion.V5
+        assertThat(schemaMessage.getByte(1), is((byte) 1)); // MessageHeader.Schema
+        assertThat(schemaMessage.getLong(3), is(0L));
+        FlatBufferTable schema = schemaMessage.getTable(2);
+        assertThat(schema.getShort(0), is((short) 0)); // Endianness.Little
+        List<FlatBufferTable> fields = schema.getTables(1);
+        assertThat(fields.size(), is(2));
+
+        FlatBufferTable x = fields.get(0);
+        assertThat(x.getString(0), is("x"));
+        assertThat(x.getBoolean(1), is(true));
+        assertThat(x.getByte(2), is((byte) 2)); // Type.Int
+        assertThat(x.getTable(3).getInt(0), is(64));
+        assertThat(x.getTable(3).getBoolean(1), is(true));
+        assertThat(x.getTables(5).size(), is(0));
+
+        FlatBufferTable name = fields.get(1);
+        assertThat(name.getString(0), is("name"));
+        assertThat(name.getBoolean(1), is(true));
+        assertThat(name.getByte(2), is((byte) 5)); // Type.Utf8
+        assertThat(name.getTables(5).size(), is(0));
+
+        FlatBufferTable batchMessage = readMessageMetadata(stream);
+        assertThat(batchMessage.getShort(0), is((short) 4));
+        assertThat(batchMessage.getByte(1), is((byte) 3)); // MessageHeader.RecordBatch
+        assertThat(batchMessage.getLong(3), is(56L));
+        FlatBufferTable recordBatch = batchMessage.getTable(2);
+        assertThat(recordBatch.getLong(0), is(2L));
+        // FieldNode: length, null count
+        assertThat(recordBatch.getStructs(1, 2), is(new long[][] {
+            {2, 1},
+            {2, 0}
+        }));
+        // Buffer: offset, length
+        assertThat(recordBatch.getStructs(2, 2), is(new long[][] {
+            {0, 1},     // x validity
+            {8, 16},    // x values
+            {24, 1},    // name validity
+            {32, 12},   // name offsets
+            {48, 3}     // name data
+        }));
+
+        assertThat(stream.remaining(), is(56));
+        int bodyStart = stream.position();
+        assertThat(stream.getLong(bodyStart + 8), is(1L));
+        assertThat(stream.getInt(bodyStart + 32 + 4), is(1));
+        assertThat(stream.getInt(bodyStart + 32 + 8), is(3));
+        byte[] data = Arrays.copyOfRange(stream.array(), bodyStart + 48, bodyStart + 48 + 3);
+        assertThat(new String(data, StandardCharsets.UTF_8), is("abc"));
+    }
+
+    private static FlatBufferTable readMessageMetadata(ByteBuffer stream) {
+        assertThat(stream.getInt(), is(CONTINUATION_MARKER));
+        int metadataLength = stream.getInt();
+        byte[] metadata = Arrays.copyOfRange(stream.array(), stream.position(), stream.position() + metadataLength);
+        stream.position(stream.position() + metadataLength);
+        return FlatBufferTable.root(ByteBuffer.wrap(metadata).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    /**
+     * @return the number of bytes skipped
+     */
+    private static int skipMessageMetadata(ByteBuffer stream) {
+        assertThat(stream.getInt(), is(CONTINUATION_MARKER));
+        int metadataLength = stream.getInt();
+        assertThat(metadataLength % 8, is(0));
+        stream.position(stream.position() + metadataLength);
+        return 2 * Integer.BYTES + metadataLength;
+    }
+
+    /**
+     * Reads a table of a FlatBuffers encoded buffer, following the format description instead of
+     * {@link FlatBufferEncoder} to verify that the metadata can be read by other implementations.
+     */
+    private static final class FlatBufferTable {
+
+        private final ByteBuffer buffer;
+        private final int tablePos;
+        private final int vTablePos;
+
+        static FlatBufferTable root(ByteBuffer buffer) {
+            return new FlatBufferTable(buffer, buffer.getInt(0));
+        }
+
+        FlatBufferTable(ByteBuffer buffer, int tablePos) {
+            this.buffer = buffer;
+            this.tablePos = tablePos;
+            // The table starts with a signed offset to its vtable, which is subtracted from the table position
+            this.vTablePos = tablePos - buffer.getInt(tablePos);
+        }
+
+        /**
+         * @return the position of the field or 0 if the field isn't present
+         */
+        private int fieldPos(int index) {
+            int vTableSize = buffer.getShort(vTablePos);
+            int entryPos = (2 + index) * Short.BYTES;
+            if (entryPos >= vTableSize) {
+                return 0;
+            }
+            int fieldOffset = buffer.getShort(vTablePos + entryPos);
+            return fieldOffset == 0 ? 0 : tablePos + fieldOffset;
+        }
+
+        private int objectPos(int index) {
+            int fieldPos = fieldPos(index);
+            assertThat("field " + index + " must be present", fieldPos, not(0));
+            return fieldPos + buffer.getInt(fieldPos);
+        }
+
+        boolean getBoolean(int index) {
+            return getByte(index) != 0;
+        }
+
+        byte getByte(int index) {
+            int fieldPos = fieldPos(index);
+            return fieldPos == 0 ? 0 : buffer.get(fieldPos);
+        }
+
+        short getShort(int index) {
+            int fieldPos = fieldPos(index);
+            return fieldPos == 0 ? 0 : buffer.getShort(fieldPos);
+        }
+
+        int getInt(int index) {
+            int fieldPos = fieldPos(index);
+            return fieldPos == 0 ? 0 : buffer.getInt(fieldPos);
+        }
+
+        long getLong(int index) {
+            int fieldPos = fieldPos(index);
+            return fieldPos == 0 ? 0L : buffer.getLong(fieldPos);
+        }
+
+        String getString(int index) {
+            int stringPos = objectPos(index);
+            int length = buffer.getInt(stringPos);
+            int start = stringPos + Integer.BYTES;
+            assertThat("strings must be null terminated", buffer.get(start + length), is((byte) 0));
+            return new String(buffer.array(), start, length, StandardCharsets.UTF_8);
+        }
+
+        FlatBufferTable getTable(int index) {
+            return new FlatBufferTable(buffer, objectPos(index));
+        }
+
+        List<FlatBufferTable> getTables(int index) {
+            int vectorPos = objectPos(index);
+            int length = buffer.getInt(vectorPos);
+            List<FlatBufferTable> tables = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                int elementPos = vectorPos + Integer.BYTES + i * Integer.BYTES;
+                tables.add(new FlatBufferTable(buffer, elementPos + buffer.getInt(elementPos)));
+            }
+            return tables;
+        }
+
+        /**
+         * Reads a vector of structs which consist of {@code numLongs} longs each
+         */
+        long[][] getStructs(int index, int numLongs) {
+            int vectorPos = objectPos(index);
+            int length = buffer.getInt(vectorPos);
+            int start = vectorPos + Integer.BYTES;
+            assertThat("structs must be aligned to their largest field", start % Long.BYTES, is(0));
+            long[][] structs = new long[length][numLongs];
+            for (int i = 0; i < length; i++) {
+                for (int j = 0; j < numLongs; j++) {
+                    structs[i][j] = buffer.getLong(start + (i * numLongs + j) * Long.BYTES);
+                }
+            }
+            return structs;
+        }
+    }
+}
@@ -36,14 +36,19 @@ import io.crate.test.integration.CrateUnitTest;
 import io.crate.testing.DummyRelation;
 import io.crate.types.DataTypes;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.is;
+
 public class RestActionReceiversTest extends CrateUnitTest {
 
     private final ImmutableList<RowN> rows = ImmutableList.of(
@@ -113,6 +118,41 @@ public class RestActionReceiversTest extends CrateUnitTest {
         assertXContentBuilder(actualBuilder, builder.build());
     }
 
+    @Test
+    public void test_rest_result_set_receiver_emits_pages_on_batch_finished() throws Exception {
+        List<BytesReference> pages = new ArrayList<>();
+        RestResultSetReceiver receiver = new RestResultSetReceiver(
+            JsonXContent.contentBuilder(),
+            fields,
+            0L,
+            new RowAccountingWithEstimators(Symbols.typeView(fields), RamAccounting.NO_ACCOUNTING),
+            true,
+            pages::add
+        );
+        receiver.setNextRow(rows.get(0));
+        receiver.setNextRow(rows.get(1));
+        receiver.batchFinished();
+        receiver.setNextRow(rows.get(2));
+        receiver.batchFinished();
+        pages.add(BytesReference.bytes(receiver.finishBuilder()));
+
+        ResultToXContentBuilder builder = ResultToXContentBuilder.builder(JsonXContent.contentBuilder());
+        builder.cols(fields);
+        builder.colTypes(fields);
+        builder.startRows();
+        for (Row row : rows) {
+            builder.addRow(row, 3);
+        }
+        builder.finishRows();
+        builder.rowCount(rows.size());
+
+        assertThat(pages.size(), is(3));
+        assertThat(
+            stripDuration(new CompositeBytesReference(pages.toArray(new BytesReference[0])).utf8ToString()),
+            is(stripDuration(Strings.toString(builder.build())))
+        );
+    }
+
     @Test
     public void testRestBulkRowCountReceiver() throws Exception {
         RestBulkRowCountReceiver.Result[] results = new RestBulkRowCountReceiver.Result[] {
@@ -0,0 +1,81 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.statistics;
+
+import io.crate.Streamer;
+import io.crate.data.Row1;
+import io.crate.test.integration.CrateUnitTest;
+import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Randomness;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+
+public class SamplesTest extends CrateUnitTest {
+
+    private static final List<Streamer> STREAMERS = List.of(DataTypes.INTEGER.streamer());
+
+    @Test
+    public void test_data_version_is_streamed() throws Exception {
+        Samples samples = new Samples(List.of(new Row1(10)), STREAMERS, 1L, 16L, 42L);
+        BytesStreamOutput out = new BytesStreamOutput();
+        samples.writeTo(out);
+
+        Samples streamed = new Samples(STREAMERS, out.bytes().streamInput());
+        assertThat(streamed.dataVersion, is(42L));
+        assertThat(streamed.numTotalDocs, is(1L));
+        assertThat(streamed.records.get(0).get(0), is(10));
+    }
+
+    @Test
+    public void test_data_version_is_unknown_if_streamed_from_node_before_4_2() throws Exception {
+        Samples samples = new Samples(List.of(new Row1(10)), STREAMERS, 1L, 16L, 42L);
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(Version.V_4_1_0);
+        samples.writeTo(out);
+
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(Version.V_4_1_0);
+        Samples streamed = new Samples(STREAMERS, in);
+        assertThat(streamed.dataVersion, is(Samples.UNKNOWN_DATA_VERSION));
+        assertThat(streamed.records.get(0).get(0), is(10));
+    }
+
+    @Test
+    public void test_merged_data_version_does_not_depend_on_order_and_unknown_wins() {
+        Samples s1 = new Samples(List.of(new Row1(1)), STREAMERS, 1L, 16L, 10L);
+        Samples s2 = new Samples(List.of(new Row1(2)), STREAMERS, 1L, 16L, 20L);
+        Samples s3 = new Samples(List.of(new Row1(3)), STREAMERS, 1L, 16L, Samples.UNKNOWN_DATA_VERSION);
+
+        assertThat(
+            Samples.merge(10, s1, s2, Randomness.get()).dataVersion,
+            is(Samples.merge(10, s2, s1, Randomness.get()).dataVersion));
+        assertThat(Samples.merge(10, Samples.EMPTY, s1, Randomness.get()).dataVersion, is(10L));
+        assertThat(Samples.merge(10, s1, s3, Randomness.get()).dataVersion, is(Samples.UNKNOWN_DATA_VERSION));
+    }
+}